@@ -33,7 +33,7 @@ public class CommandLine {
 	@Option(name="-UTF8",usage="use UTF-8 encoding")
 	public boolean uTF8 = false;
 
-	@Option(name="-format",usage="export file format: SQL, XML, DBUNIT_FLAT_XML, INTRA_DATABASE or LIQUIBASE_XML")
+	@Option(name="-format",usage="export file format: SQL, XML, DBUNIT_FLAT_XML, INTRA_DATABASE, LIQUIBASE_XML, BULK_LOAD or COLUMNAR")
 	public String format = "SQL";
 
 	@Option(name="-target-dbms", usage="target-DBMS: ORACLE, MSSQL, DB2, MySQL, POSTGRESQL, SYBASE, SQLITE, HSQL or H2", metaVar="<DBMS>")
@@ -129,6 +129,9 @@ public class CommandLine {
 	@Option(name="-independent-working-tables", usage="create working tables that are independent of the extraction model. (Potentially less efficient)")
 	public boolean independentWorkingTables = false;
 
+	@Option(name="-working-table-partitions", usage="(create-ddl only) hash-partitions the entity and dependency tables by entity-graph into VAL partitions, if the DBMS supports it. The rows of an entity-graph are still removed with DELETE statements confined to one partition.")
+	public int workingTablePartitions = 0;
+
 	@Option(name="-transactional", usage="import rows in a single transaction")
 	public boolean transactional = false;
 
@@ -153,12 +156,36 @@ public class CommandLine {
 	@Option(name="-limit-transaction-size", usage="collects the rows using multiple insert operations with a limited number of rows per operation")
 	boolean insertIncrementally = false;
 
+	@Option(name="-adaptive-transaction-size", usage="(intra-database export only) copies the rows of each table in separately committed chunks whose size is tuned to the observed throughput")
+	boolean adaptiveTransactionSize = false;
+
+	@Option(name="-typed-entity-tables", usage="collects the entities of each table in a working table of their own that has the table's primary key columns with their native types")
+	boolean typedEntityTables = false;
+
 	@Option(name="-abortInCaseOfInconsistency", usage="abort the process if the result is inconsistent due to insufficient transaction isolation")
 	boolean abortInCaseOfInconsistency = false;
 
 	@Option(name="-row-limit", usage="maximum allowed number of exported rows. If this limit is exceeded, the export aborts with an error.")
 	public String limit = null;
 
+	@Option(name="-metrics-file", usage="writes timings and row counts of the statements, jobs and tables (CSV) into the file VAL. If the JVM supports it, flight recorder events are emitted as well.")
+	public String metricsFile = null;
+
+	@Option(name="-plan-file", usage="captures the execution plans and timings of the statements collecting the rows in the file VAL. Statements that have regressed compared to the previous content of the file are reported. (Use one file per extraction model.)")
+	public String planFile = null;
+
+	@Option(name="-dry-run", usage="estimates the number of rows per table and the runtime of the export from samples and statistics, without collecting or exporting any rows")
+	public boolean dryRun = false;
+
+	@Option(name="-target-row-count", usage="exports only a sample of the subjects. The size of the sample is chosen such that the export contains approximately VAL rows (according to the fan-out of the associations). Uses the sampling clause of the DBMS (TABLESAMPLE), if available.")
+	public String targetRowCount = null;
+
+	@Option(name="-checkpoint", usage="persists the state of the export in the file <export-script>.checkpoint after each day of collecting rows and after each group of written tables. If the export fails, the working tables are kept, so that it can be resumed (see option -resume).")
+	public boolean checkpoint = false;
+
+	@Option(name="-resume", usage="resumes a failed export from its last checkpoint (see option -checkpoint). All other arguments must be the same as those of the failed export.")
+	public boolean resume = false;
+
 	@Option(name="-", usage="do not interpret the next word as an option, even if it begins with a '-'. E.g. if the username is: \"-abc\", use: \"- -abc\".")
 	public List<String> escapedWords = new ArrayList<String>();
 
@@ -118,6 +118,9 @@ public class CommandLineParser {
 		System.out.println("  " + cmd + " export [options] <extraction-model> <jdbc-driver-class> <db-URL> <db-user> <db-password>");
 		System.out.println("    extracts data (see option '-e') and optionally creates a delete-script (see option '-d')");
 		System.out.println("    -where subject condition. Optional, overrides condition in extraction-model");
+		System.out.println("    -dry-run estimates the row counts and the runtime instead of exporting (option '-e' is not needed)");
+		System.out.println("    -target-row-count exports a sample of the subjects such that the export contains approximately the given number of rows");
+		System.out.println("    -checkpoint persists the state of the export, so that a failed export can be resumed with -resume");
 		System.out.println("    -format [SQL, XML, DBUNIT_FLAT_XML or LIQUIBASE_XML]");
 		System.out.println("    -xml-root root tag of XML export file");
 		System.out.println("    -xml-date pattern for dates in XML and LIQUIBASE_XML export file");
@@ -149,6 +152,10 @@ public class CommandLineParser {
 		System.out.println("    taking into account the restrictions on the associations (the so-called \"Closure\")");
 		System.out.println("    <separator>: optional separator between table names in the output");
 		System.out.println();
+		System.out.println("  " + cmd + " propose-indexes <extraction-model> <jdbc-driver-class> <db-URL> <db-user> <db-password> [-datamodel VAL]");
+		System.out.println("    prints a script with indexes for the join columns of the associations of the closure that are not covered by an index,");
+		System.out.println("    ranked by the estimated number of rows scanned when resolving the associations");
+		System.out.println();
 		System.out.println("options:");
 		CmdLineParser cmdLineParser = new CmdLineParser(new CommandLine());
 		cmdLineParser.setUsageWidth(160);
@@ -27,6 +27,7 @@ import java.util.TreeMap;
 import net.sf.jailer.api.Subsetter;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.metrics.MetricsRegistry;
 import net.sf.jailer.progress.ProgressListenerRegistry;
 import net.sf.jailer.subsetting.InconsistentSubsettingResultException;
 import net.sf.jailer.subsetting.ScriptFormat;
@@ -88,11 +89,22 @@ public class ExecutionContext {
 		this.rawparameters = other.rawparameters;
 		this.embedded = other.embedded;
 		this.insertIncrementally = other.insertIncrementally;
+		this.adaptiveTransactionSize = other.adaptiveTransactionSize;
+		this.typedEntityTables = other.typedEntityTables;
 		this.abortInCaseOfInconsistency = other.abortInCaseOfInconsistency;
 		this.independentWorkingTables = other.independentWorkingTables;
+		this.workingTablePartitions = other.workingTablePartitions;
 		this.upkDomain = other.upkDomain;
 		this.currentConnectionAlias = other.currentConnectionAlias;
 		this.limit = other.limit;
+		this.metricsFile = other.metricsFile;
+		this.metricsRegistry = other.metricsRegistry;
+		this.planFile = other.planFile;
+		this.dryRun = other.dryRun;
+		this.targetRowCount = other.targetRowCount;
+		this.checkpoint = other.checkpoint;
+		this.resume = other.resume;
+		this.cancellationContext = other.cancellationContext;
 // don't share progressListenerRegistry, was: this.progressListenerRegistry = other.progressListenerRegistry;
 	}
 
@@ -588,6 +600,40 @@ public class ExecutionContext {
 		this.insertIncrementally = insertIncrementally;
 	}
 
+	/**
+	 * If <code>true</code>, intra-database exports copy the rows of each table in separately committed chunks. <br>
+	 * The size of the chunks is adjusted to the observed throughput and commit latency.
+	 */
+	public boolean isAdaptiveTransactionSize() {
+		return adaptiveTransactionSize;
+	}
+
+	/**
+	 * If <code>true</code>, intra-database exports copy the rows of each table in separately committed chunks. <br>
+	 * The size of the chunks is adjusted to the observed throughput and commit latency.
+	 */
+	public void setAdaptiveTransactionSize(boolean adaptiveTransactionSize) {
+		this.adaptiveTransactionSize = adaptiveTransactionSize;
+	}
+
+	/**
+	 * If <code>true</code>, the entities of each table are collected in a working table of their own
+	 * that has exactly the primary key columns of the table (with their native types) instead of the universal primary key. <br>
+	 * The tables are created on demand and dropped together with the entity-graph.
+	 */
+	public boolean isTypedEntityTables() {
+		return typedEntityTables;
+	}
+
+	/**
+	 * If <code>true</code>, the entities of each table are collected in a working table of their own
+	 * that has exactly the primary key columns of the table (with their native types) instead of the universal primary key. <br>
+	 * The tables are created on demand and dropped together with the entity-graph.
+	 */
+	public void setTypedEntityTables(boolean typedEntityTables) {
+		this.typedEntityTables = typedEntityTables;
+	}
+
 	/**
 	 * @return if <code>true</code>, {@link Subsetter#execute(String, File)} throws an
 	 *         {@link InconsistentSubsettingResultException} if the result is inconsistent
@@ -912,6 +958,12 @@ public class ExecutionContext {
 	// collects the rows using multiple insert operations with a limited number of rows per operation
 	private boolean insertIncrementally = false;
 
+	// copies the rows in separately committed chunks of adaptively tuned size (intra-database export only)
+	private boolean adaptiveTransactionSize = false;
+
+	// collects the entities of each table in a working table with the table's own primary key columns
+	private boolean typedEntityTables = false;
+
 	// abort the process if the result is inconsistent due to insufficient transaction isolation
 	private boolean abortInCaseOfInconsistency = false;
 
@@ -921,9 +973,33 @@ public class ExecutionContext {
 	// create working tables that are independent of the extraction model. (Potentially less efficient)
 	private boolean independentWorkingTables = false;
 
+	// number of hash-partitions of the entity and dependency tables (by entity-graph), 0 for unpartitioned tables
+	// (the rows of an entity-graph are still deleted, partitions are neither dropped nor truncated)
+	private int workingTablePartitions = 0;
+
 	// maximum allowed number of exported rows. If this limit is exceeded, the export aborts with an error.
 	private Long limit;
 
+	// file into which the metrics are written
+	private String metricsFile;
+
+	private MetricsRegistry metricsRegistry;
+
+	// file into which the execution plans of the statements collecting the rows are written
+	private String planFile;
+
+	// estimate the export instead of executing it
+	private boolean dryRun = false;
+
+	// approximate number of exported rows, a sample of the subjects is exported if the export would be larger
+	private Long targetRowCount;
+
+	// persist the state of the export, so that it can be resumed after a failure
+	private boolean checkpoint = false;
+
+	// resume a failed export from its last checkpoint
+	private boolean resume = false;
+
 	private WorkingTableScope scope = WorkingTableScope.GLOBAL;
 
 	private String rawparameters;
@@ -935,6 +1011,27 @@ public class ExecutionContext {
 
 	private ProgressListenerRegistry progressListenerRegistry = new ProgressListenerRegistry();
 
+	private Object cancellationContext = null;
+
+	/**
+	 * Gets the context for cancellation requests (see {@link net.sf.jailer.util.CancellationHandler}).
+	 *
+	 * @return the cancellation context, <code>null</code> for the default context
+	 */
+	public Object getCancellationContext() {
+		return cancellationContext;
+	}
+
+	/**
+	 * Sets the context for cancellation requests (see {@link net.sf.jailer.util.CancellationHandler}).
+	 * Allows to cancel an export without affecting other exports running concurrently in the same JVM.
+	 *
+	 * @param cancellationContext the cancellation context, <code>null</code> for the default context
+	 */
+	public void setCancellationContext(Object cancellationContext) {
+		this.cancellationContext = cancellationContext;
+	}
+
 	/**
 	 * Gets the {@link ProgressListenerRegistry}.
 	 *
@@ -977,6 +1074,106 @@ public class ExecutionContext {
 		this.limit = limit;
 	}
 
+	/**
+	 * @return file into which the metrics (timings and row counts) are written, <code>null</code> if no metrics are recorded
+	 */
+	public String getMetricsFile() {
+		return metricsFile;
+	}
+
+	/**
+	 * @param metricsFile file into which the metrics (timings and row counts) are written, <code>null</code> if no metrics are recorded
+	 */
+	public void setMetricsFile(String metricsFile) {
+		this.metricsFile = metricsFile;
+	}
+
+	/**
+	 * @return registry receiving the metrics, <code>null</code> for the default (see {@link #getMetricsFile()})
+	 */
+	public MetricsRegistry getMetricsRegistry() {
+		return metricsRegistry;
+	}
+
+	/**
+	 * @param metricsRegistry registry receiving the metrics, <code>null</code> for the default (see {@link #getMetricsFile()})
+	 */
+	public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	/**
+	 * @return file into which the execution plans and timings of the statements collecting the rows are written, <code>null</code> if no plans are captured.
+	 * Its previous content is the baseline for detecting regressions.
+	 */
+	public String getPlanFile() {
+		return planFile;
+	}
+
+	/**
+	 * @param planFile file into which the execution plans and timings of the statements collecting the rows are written, <code>null</code> if no plans are captured.
+	 * Its previous content is the baseline for detecting regressions.
+	 */
+	public void setPlanFile(String planFile) {
+		this.planFile = planFile;
+	}
+
+	/**
+	 * @return <code>true</code> if the export is only estimated (see {@link net.sf.jailer.subsetting.ExportEstimator}), no rows are collected or exported
+	 */
+	public boolean isDryRun() {
+		return dryRun;
+	}
+
+	/**
+	 * @param dryRun <code>true</code> if the export is only estimated (see {@link net.sf.jailer.subsetting.ExportEstimator}), no rows are collected or exported
+	 */
+	public void setDryRun(boolean dryRun) {
+		this.dryRun = dryRun;
+	}
+
+	/**
+	 * @return approximate number of exported rows (a sample of the subjects is exported if the export would be larger), <code>null</code> to export all subjects
+	 */
+	public Long getTargetRowCount() {
+		return targetRowCount;
+	}
+
+	/**
+	 * @param targetRowCount approximate number of exported rows (a sample of the subjects is exported if the export would be larger), <code>null</code> to export all subjects
+	 */
+	public void setTargetRowCount(Long targetRowCount) {
+		this.targetRowCount = targetRowCount;
+	}
+
+	/**
+	 * @return <code>true</code> if the state of the export is persisted (in the file &lt;export-script&gt;.checkpoint), so that it can be resumed after a failure
+	 */
+	public boolean isCheckpoint() {
+		return checkpoint;
+	}
+
+	/**
+	 * @param checkpoint <code>true</code> if the state of the export is persisted (in the file &lt;export-script&gt;.checkpoint), so that it can be resumed after a failure
+	 */
+	public void setCheckpoint(boolean checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * @return <code>true</code> if a failed export is resumed from its last checkpoint (see {@link #isCheckpoint()})
+	 */
+	public boolean isResume() {
+		return resume;
+	}
+
+	/**
+	 * @param resume <code>true</code> if a failed export is resumed from its last checkpoint (see {@link #isCheckpoint()})
+	 */
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
 	/**
 	 * Create working tables that are independent of the extraction model. (Potentially less efficient)
 	 */
@@ -991,6 +1188,20 @@ public class ExecutionContext {
 		this.independentWorkingTables = independentWorkingTables;
 	}
 
+	/**
+	 * @return number of hash-partitions of the entity and dependency tables (by entity-graph), 0 for unpartitioned tables
+	 */
+	public int getWorkingTablePartitions() {
+		return workingTablePartitions;
+	}
+
+	/**
+	 * @param workingTablePartitions number of hash-partitions of the entity and dependency tables (by entity-graph), 0 for unpartitioned tables
+	 */
+	public void setWorkingTablePartitions(int workingTablePartitions) {
+		this.workingTablePartitions = workingTablePartitions;
+	}
+
 	public Set<String> getUpkDomain() {
 		return upkDomain;
 	}
@@ -1041,12 +1252,15 @@ public class ExecutionContext {
 		noSorting = commandLine.noSorting;
 		orderByPK = commandLine.orderByPK;
 		independentWorkingTables = commandLine.independentWorkingTables;
+		workingTablePartitions = commandLine.workingTablePartitions;
 		transactional = commandLine.transactional;
 		isolationLevel = commandLine.isolationLevel;
 		useRowid = commandLine.useRowid;
 		useRowIdsOnlyForTablesWithoutPK = commandLine.useRowIdsOnlyForTablesWithoutPK;
 		importFilterMappingTableSchema = commandLine.importFilterMappingTableSchema;
 		insertIncrementally = commandLine.insertIncrementally;
+		adaptiveTransactionSize = commandLine.adaptiveTransactionSize;
+		typedEntityTables = commandLine.typedEntityTables;
 		abortInCaseOfInconsistency = commandLine.abortInCaseOfInconsistency;
 		limit = null;
 		if (commandLine.limit != null) {
@@ -1055,6 +1269,15 @@ public class ExecutionContext {
 				limit = Long.parseLong(commandLine.limit);
 			}
 		}
+		metricsFile = commandLine.metricsFile;
+		planFile = commandLine.planFile;
+		dryRun = commandLine.dryRun;
+		targetRowCount = null;
+		if (commandLine.targetRowCount != null && !commandLine.targetRowCount.trim().isEmpty()) {
+			targetRowCount = Long.parseLong(commandLine.targetRowCount.trim());
+		}
+		checkpoint = commandLine.checkpoint;
+		resume = commandLine.resume;
 	}
 
 	private Map<String, String> copy(Map<String, String> map) {
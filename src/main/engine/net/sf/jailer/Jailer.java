@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -44,11 +45,13 @@ import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.ddl.DDLCreator;
 import net.sf.jailer.extractionmodel.ExtractionModel;
 import net.sf.jailer.extractionmodel.ExtractionModel.AdditionalSubject;
+import net.sf.jailer.metrics.Metrics;
 import net.sf.jailer.modelbuilder.ModelBuilder;
 import net.sf.jailer.progress.ProgressListener;
 import net.sf.jailer.render.DataModelRenderer;
 import net.sf.jailer.render.HtmlDataModelRenderer;
 import net.sf.jailer.restrictionmodel.RestrictionModel;
+import net.sf.jailer.subsetting.IndexAdvisor;
 import net.sf.jailer.subsetting.SubsettingEngine;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
@@ -188,7 +191,7 @@ public class Jailer {
 
 			String command = commandLine.arguments.get(0);
 			if (!"create-ddl".equalsIgnoreCase(command)) {
-				if (!"print-closure".equalsIgnoreCase(command)) {
+				if (!"print-closure".equalsIgnoreCase(command) && !"propose-indexes".equalsIgnoreCase(command)) {
 					getLogger().info("Jailer " + JailerVersion.VERSION);
 				}
 			}
@@ -212,9 +215,13 @@ public class Jailer {
 					BasicDataSource dataSource = new BasicDataSource(commandLine.arguments.get(2), commandLine.arguments.get(3), commandLine.arguments.get(4),
 							pw = commandLine.arguments.get(5), 0, jdbcJarURLs);
 					Session session = new Session(dataSource, dataSource.dbms, commandLine.isolationLevel, null, commandLine.transactional);
+					Metrics metrics = Metrics.create(executionContext);
+					session.setMetrics(metrics);
 					try {
+						metrics.setPhase("import");
 						new SqlScriptExecutor(session, commandLine.numberOfThreads, false).executeScript(commandLine.arguments.get(1), commandLine.transactional);
 					} finally {
+						metrics.close();
 						try {
 							session.shutDown();
 						} catch (Exception e) {
@@ -229,7 +236,7 @@ public class Jailer {
 				} else {
 					pw = commandLine.arguments.get(5);
 
-					if (commandLine.exportScriptFileName == null) {
+					if (commandLine.exportScriptFileName == null && !commandLine.dryRun) {
 						System.out.println("missing '-e' option");
 						CommandLineParser.printUsage(args);
 					} else {
@@ -275,6 +282,17 @@ public class Jailer {
 					updateDataModelFolder(commandLine, commandLine.arguments.get(1), executionContext);
 					printClosure(commandLine.arguments.get(1), commandLine.arguments.size() > 2? commandLine.arguments.get(2) : null, executionContext);
 				}
+			} else if ("propose-indexes".equalsIgnoreCase(command)) {
+				checkPW(commandLine, 6);
+				if (commandLine.arguments.size() != 6) {
+					CommandLineParser.printUsage(args);
+				} else {
+					pw = commandLine.arguments.get(5);
+					updateDataModelFolder(commandLine, commandLine.arguments.get(1), executionContext);
+					BasicDataSource dataSource = new BasicDataSource(commandLine.arguments.get(2), commandLine.arguments.get(3),
+							commandLine.arguments.get(4), commandLine.arguments.get(5), 0, jdbcJarURLs);
+					proposeIndexes(commandLine.arguments.get(1), dataSource, executionContext);
+				}
 			} else if ("create-ddl".equalsIgnoreCase(command)) {
 				checkPW(commandLine, 5);
 				String extractionModelFileName = null;
@@ -352,6 +370,16 @@ public class Jailer {
 		}
 	}
 
+	private static void proposeIndexes(String extractionModelFileName, BasicDataSource dataSource, ExecutionContext executionContext) throws IOException, SQLException {
+		ExtractionModel extractionModel = new ExtractionModel(new File(extractionModelFileName).toURI().toURL(), executionContext.getSourceSchemaMapping(), executionContext.getParameters(), executionContext, true);
+		Session session = new Session(dataSource, dataSource.dbms, executionContext.getIsolationLevel());
+		try {
+			System.out.print(new IndexAdvisor(session).createScript(IndexAdvisor.getSubjects(extractionModel)));
+		} finally {
+			session.shutDown();
+		}
+	}
+
 	private static void printClosure(String extractionModelFileName, String separator, ExecutionContext executionContext) throws MalformedURLException, IOException {
 		ExtractionModel extractionModel = new ExtractionModel(new File(extractionModelFileName).toURI().toURL(), executionContext.getSourceSchemaMapping(), executionContext.getParameters(), executionContext, true);
 		Set<Table> subjects = new HashSet<Table>();
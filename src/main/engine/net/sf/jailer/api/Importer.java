@@ -49,6 +49,9 @@ public class Importer {
 
 	/**
 	 * Imports a SQL-script-file.
+	 * The manifest of a {@link net.sf.jailer.subsetting.ScriptFormat#BULK_LOAD} export can be imported as well.
+	 * Its data files are loaded via COPY FROM STDIN if the JDBC driver provides a copy API (PostgreSQL),
+	 * or via batched inserts otherwise.
 	 * 
 	 * @param inputScript the SQL-script-file
 	 */
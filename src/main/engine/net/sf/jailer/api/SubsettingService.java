@@ -0,0 +1,388 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.api;
+
+import java.io.Closeable;
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.datamodel.ModelElement;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.progress.ProgressListener;
+import net.sf.jailer.subsetting.ExportStatistic;
+import net.sf.jailer.util.CancellationException;
+import net.sf.jailer.util.CancellationHandler;
+
+/**
+ * Long-running service that executes export jobs concurrently within one JVM.<br>
+ * <br>
+ * All jobs are derived from a template {@link Subsetter}. Parsed extraction models (including their data models)
+ * are pooled and reused by subsequent jobs (see {@link Subsetter#setModelPoolSize(int)}) and connections are
+ * taken from the template's data source. Each job has its own entity graph. The graphs share the working tables,
+ * unless these are hash-partitioned by entity graph (see {@link net.sf.jailer.ExecutionContext#setWorkingTablePartitions(int)}).<br>
+ * Jobs can be cancelled individually (including the statements on the local database) and report their progress and timing.
+ *
+ * @author Ralf Wisser
+ */
+public class SubsettingService implements Closeable {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(SubsettingService.class);
+
+	/**
+	 * State of a job.
+	 */
+	public enum JobState {
+		QUEUED, RUNNING, DONE, FAILED, CANCELLED
+	}
+
+	/**
+	 * An export job.
+	 */
+	public static class Job implements ProgressListener {
+		private final int id;
+		private final String whereClause;
+		private final File exportScriptFile;
+		private final long submitTime = System.currentTimeMillis();
+		private volatile long startTime = -1;
+		private volatile long endTime = -1;
+		private volatile JobState state = JobState.QUEUED;
+		private volatile boolean cancelled = false;
+		private volatile String stage = null;
+		private final AtomicLong collectedRows = new AtomicLong();
+		private final AtomicLong exportedRows = new AtomicLong();
+		private final Object cancellationContext = new Object();
+		private Future<ExportStatistic> future;
+
+		private Job(int id, String whereClause, File exportScriptFile) {
+			this.id = id;
+			this.whereClause = whereClause;
+			this.exportScriptFile = exportScriptFile;
+		}
+
+		/**
+		 * Gets the ID of the job (unique within the service).
+		 */
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * Gets the subject condition.
+		 */
+		public String getWhereClause() {
+			return whereClause;
+		}
+
+		/**
+		 * Gets the export-script file.
+		 */
+		public File getExportScriptFile() {
+			return exportScriptFile;
+		}
+
+		/**
+		 * Gets the state of the job.
+		 */
+		public JobState getState() {
+			return state;
+		}
+
+		/**
+		 * Gets the current stage of the export, <code>null</code> if the job has not yet been started.
+		 */
+		public String getStage() {
+			return stage;
+		}
+
+		/**
+		 * Gets the number of rows collected so far.
+		 */
+		public long getCollectedRows() {
+			return collectedRows.get();
+		}
+
+		/**
+		 * Gets the number of rows exported so far.
+		 */
+		public long getExportedRows() {
+			return exportedRows.get();
+		}
+
+		/**
+		 * Gets the time the job has been waiting for execution (in ms).
+		 */
+		public long getQueueingTime() {
+			long start = startTime;
+			if (start < 0) {
+				start = endTime < 0? System.currentTimeMillis() : endTime;
+			}
+			return start - submitTime;
+		}
+
+		/**
+		 * Gets the execution time of the job (in ms), 0 if the job has not yet been started.
+		 */
+		public long getExecutionTime() {
+			long start = startTime;
+			long end = endTime;
+			if (start < 0) {
+				return 0;
+			}
+			return (end < 0? System.currentTimeMillis() : end) - start;
+		}
+
+		/**
+		 * Gets the number of exported rows per second.
+		 */
+		public double getThroughput() {
+			long time = getExecutionTime();
+			return time <= 0? 0.0 : getExportedRows() * 1000.0 / time;
+		}
+
+		/**
+		 * Requests cancellation of the job. A queued job is removed from the queue.
+		 * The statements of a running job are cancelled (only those of this job) and the export stops
+		 * as soon as possible. {@link #get()} waits until the export has actually stopped.
+		 */
+		public void cancel() {
+			synchronized (this) {
+				if (cancelled || endTime >= 0) {
+					return;
+				}
+				cancelled = true;
+				if (state == JobState.QUEUED) {
+					// not yet started
+					state = JobState.CANCELLED;
+					endTime = System.currentTimeMillis();
+					if (future != null) {
+						future.cancel(false);
+					}
+					return;
+				}
+			}
+			CancellationHandler.cancel(cancellationContext);
+		}
+
+		/**
+		 * Waits for the completion of the job.
+		 *
+		 * @return the export statistic
+		 * @throws ExecutionException if the export failed
+		 * @throws java.util.concurrent.CancellationException if the job has been cancelled
+		 */
+		public ExportStatistic get() throws InterruptedException, ExecutionException {
+			Future<ExportStatistic> theFuture;
+			synchronized (this) {
+				theFuture = future;
+			}
+			try {
+				return theFuture.get();
+			} catch (ExecutionException e) {
+				if (state == JobState.CANCELLED) {
+					java.util.concurrent.CancellationException ce = new java.util.concurrent.CancellationException("job " + id + " cancelled");
+					ce.initCause(e.getCause());
+					throw ce;
+				}
+				throw e;
+			}
+		}
+
+		private void checkForCancellation() {
+			if (cancelled) {
+				throw new CancellationException();
+			}
+		}
+
+		@Override
+		public void collectionJobEnqueued(int day, ModelElement modelElement) {
+			checkForCancellation();
+		}
+
+		@Override
+		public void collectionJobStarted(int day, ModelElement modelElement) {
+			checkForCancellation();
+		}
+
+		@Override
+		public void collected(int day, ModelElement modelElement, long rc) {
+			collectedRows.addAndGet(rc);
+			checkForCancellation();
+		}
+
+		@Override
+		public void exported(Table table, long rc) {
+			exportedRows.addAndGet(rc);
+			checkForCancellation();
+		}
+
+		@Override
+		public void newStage(String stage, boolean isErrorStage, boolean isFinalStage) {
+			this.stage = stage;
+		}
+
+		@Override
+		public void prepareExport() throws CancellationException {
+			checkForCancellation();
+		}
+
+		@Override
+		public String toString() {
+			return "Job " + id + " (" + state + ", " + stage + ", collected: " + getCollectedRows() + ", exported: " + getExportedRows()
+				+ ", queued: " + getQueueingTime() + " ms, executed: " + getExecutionTime() + " ms)";
+		}
+	}
+
+	private final Subsetter template;
+	private final ExecutorService executor;
+	private final AtomicInteger nextJobId = new AtomicInteger(1);
+	private final Map<Integer, Job> jobs = Collections.synchronizedMap(new LinkedHashMap<Integer, Job>());
+
+	/**
+	 * Constructor.
+	 *
+	 * @param template the template for all jobs (data source, DBMS, data model, default extraction model, script format and options)
+	 * @param numberOfConcurrentJobs maximum number of jobs executed concurrently
+	 */
+	public SubsettingService(Subsetter template, int numberOfConcurrentJobs) {
+		this.template = new Subsetter(template);
+		this.template.setModelPoolSize(Math.max(template.getModelPoolSize(), numberOfConcurrentJobs));
+		final AtomicInteger threadNumber = new AtomicInteger(1);
+		this.executor = new ThreadPoolExecutor(numberOfConcurrentJobs, numberOfConcurrentJobs, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+			Thread thread = new Thread(r, "SubsettingService-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Submits an export job using the template's extraction model.
+	 *
+	 * @param whereClause if not <code>null</code>, overrides the extraction model's subject condition
+	 * @param exportScriptFile the export-script file (compressed if it ends with '.zip' or '.gz')
+	 * @return the job
+	 */
+	public Job submit(String whereClause, File exportScriptFile) {
+		return submit(null, whereClause, exportScriptFile);
+	}
+
+	/**
+	 * Submits an export job.
+	 *
+	 * @param extractionModelURL the extraction model, <code>null</code> for the template's extraction model
+	 * @param whereClause if not <code>null</code>, overrides the extraction model's subject condition
+	 * @param exportScriptFile the export-script file (compressed if it ends with '.zip' or '.gz')
+	 * @return the job
+	 */
+	public Job submit(URL extractionModelURL, String whereClause, File exportScriptFile) {
+		final Subsetter subsetter = new Subsetter(template);
+		if (extractionModelURL != null) {
+			subsetter.setExtractionModelURL(extractionModelURL);
+		}
+		final Job job = new Job(nextJobId.getAndIncrement(), whereClause, exportScriptFile);
+		subsetter.getExecutionContext().getProgressListenerRegistry().addProgressListener(job);
+		subsetter.getExecutionContext().setCancellationContext(job.cancellationContext);
+		jobs.put(job.getId(), job);
+		synchronized (job) {
+			job.future = executor.submit(() -> {
+				synchronized (job) {
+					if (job.cancelled) {
+						throw new CancellationException();
+					}
+					job.startTime = System.currentTimeMillis();
+					job.state = JobState.RUNNING;
+				}
+				try {
+					ExportStatistic statistic = subsetter.execute(whereClause, exportScriptFile);
+					job.state = JobState.DONE;
+					return statistic;
+				} catch (CancellationException e) {
+					job.state = JobState.CANCELLED;
+					throw e;
+				} catch (Throwable t) {
+					job.state = job.cancelled? JobState.CANCELLED : JobState.FAILED;
+					_log.warn("job " + job.getId() + " failed", t);
+					throw t;
+				} finally {
+					synchronized (job) {
+						job.endTime = System.currentTimeMillis();
+					}
+					CancellationHandler.reset(job.cancellationContext);
+					_log.info(job.toString());
+				}
+			});
+		}
+		return job;
+	}
+
+	/**
+	 * Gets a job.
+	 *
+	 * @param id the job ID
+	 * @return the job or <code>null</code> if there is no such job
+	 */
+	public Job getJob(int id) {
+		return jobs.get(id);
+	}
+
+	/**
+	 * Gets all jobs submitted since the last call of {@link #removeFinishedJobs()}.
+	 */
+	public List<Job> getJobs() {
+		synchronized (jobs) {
+			return new ArrayList<Job>(jobs.values());
+		}
+	}
+
+	/**
+	 * Forgets all jobs that are no longer queued or running.
+	 */
+	public void removeFinishedJobs() {
+		synchronized (jobs) {
+			jobs.values().removeIf(job -> job.getState() != JobState.QUEUED && job.getState() != JobState.RUNNING);
+		}
+	}
+
+	/**
+	 * Cancels all jobs and stops the service.
+	 */
+	@Override
+	public void close() {
+		for (Job job: getJobs()) {
+			job.cancel();
+		}
+		executor.shutdown();
+	}
+
+}
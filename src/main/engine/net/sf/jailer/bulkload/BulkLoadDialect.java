@@ -0,0 +1,381 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.bulkload;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import net.sf.jailer.configuration.DBMS;
+
+/**
+ * Delimited data file formats understood by the native bulk loaders.
+ *
+ * @author Ralf Wisser
+ */
+public enum BulkLoadDialect {
+
+	/**
+	 * PostgreSQL COPY (text format).
+	 */
+	POSTGRESQL("\t", "\n", true, ".tsv"),
+
+	/**
+	 * MySQL LOAD DATA INFILE (default field and line options).
+	 */
+	MYSQL("\t", "\n", true, ".tsv"),
+
+	/**
+	 * Oracle SQL*Loader (variable record format, one control file per data file).
+	 * Each record is preceded by its length in bytes, so values may contain any character sequence.
+	 */
+	ORACLE(",", "", false, ".dat"),
+
+	/**
+	 * SQL Server BULK INSERT / bcp (CSV).
+	 */
+	MSSQL(",", "\n", false, ".csv"),
+
+	/**
+	 * RFC 4180 CSV for all other DBMS.
+	 */
+	CSV(",", "\n", false, ".csv");
+
+	/**
+	 * Separates fields.
+	 */
+	public final String fieldSeparator;
+
+	/**
+	 * Terminates records (empty for length-prefixed records).
+	 */
+	public final String recordTerminator;
+
+	/**
+	 * <code>true</code> for tab separated text with backslash escapes and \N as null,
+	 * <code>false</code> for CSV with double-quote enclosing where an empty unquoted field is null.
+	 */
+	public final boolean textFormat;
+
+	/**
+	 * Extension of the data files.
+	 */
+	public final String fileExtension;
+
+	/**
+	 * Number of digits of the length prefix of {@link #ORACLE} records ("var" record format).
+	 */
+	public static final int RECORD_LENGTH_DIGITS = 10;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private BulkLoadDialect(String fieldSeparator, String recordTerminator, boolean textFormat, String fileExtension) {
+		this.fieldSeparator = fieldSeparator;
+		this.recordTerminator = recordTerminator;
+		this.textFormat = textFormat;
+		this.fileExtension = fileExtension;
+	}
+
+	/**
+	 * Gets the dialect for a given target DBMS.
+	 *
+	 * @param dbms the target DBMS
+	 * @return the dialect
+	 */
+	public static BulkLoadDialect forDBMS(DBMS dbms) {
+		if (DBMS.POSTGRESQL.equals(dbms)) {
+			return POSTGRESQL;
+		}
+		if (DBMS.MySQL.equals(dbms)) {
+			return MYSQL;
+		}
+		if (DBMS.ORACLE.equals(dbms)) {
+			return ORACLE;
+		}
+		if (DBMS.MSSQL.equals(dbms)) {
+			return MSSQL;
+		}
+		return CSV;
+	}
+
+	/**
+	 * Appends a field to a record.
+	 *
+	 * @param record the record
+	 * @param value the value, <code>null</code> for SQL NULL
+	 */
+	public void appendField(StringBuilder record, String value) {
+		if (textFormat) {
+			if (value == null) {
+				record.append("\\N");
+				return;
+			}
+			int l = value.length();
+			for (int i = 0; i < l; ++i) {
+				char c = value.charAt(i);
+				switch (c) {
+				case '\\': record.append("\\\\"); break;
+				case '\t': record.append("\\t"); break;
+				case '\n': record.append("\\n"); break;
+				case '\r': record.append("\\r"); break;
+				default: record.append(c);
+				}
+			}
+		} else {
+			if (value == null) {
+				return;
+			}
+			record.append('"');
+			int l = value.length();
+			for (int i = 0; i < l; ++i) {
+				char c = value.charAt(i);
+				if (c == '"') {
+					record.append('"');
+				}
+				record.append(c);
+			}
+			record.append('"');
+		}
+	}
+
+	/**
+	 * Terminates a record. For {@link #ORACLE}, the record is prefixed with its length in bytes instead.
+	 *
+	 * @param record the record
+	 */
+	public void terminateRecord(StringBuilder record) {
+		if (this == ORACLE) {
+			record.insert(0, String.format("%0" + RECORD_LENGTH_DIGITS + "d", record.toString().getBytes(UTF8).length));
+		} else {
+			record.append(recordTerminator);
+		}
+	}
+
+	/**
+	 * Reads the next record.
+	 *
+	 * @param reader reads the UTF-8 encoded data file
+	 * @return the record without terminator or <code>null</code> at end of file
+	 */
+	public String readRecord(BufferedReader reader) throws IOException {
+		StringBuilder record = new StringBuilder();
+		int c;
+		if (this == ORACLE) {
+			while (record.length() < RECORD_LENGTH_DIGITS && (c = reader.read()) >= 0) {
+				record.append((char) c);
+			}
+			if (record.length() == 0) {
+				return null;
+			}
+			long length;
+			try {
+				length = Long.parseLong(record.toString());
+			} catch (NumberFormatException e) {
+				throw new IOException("invalid record length \"" + record + "\"");
+			}
+			record.setLength(0);
+			long bytes = 0;
+			while (bytes < length) {
+				c = reader.read();
+				if (c < 0) {
+					throw new IOException("unexpected end of file");
+				}
+				record.append((char) c);
+				bytes += c < 0x80? 1 : c < 0x800? 2 : Character.isSurrogate((char) c)? 2 : 3;
+			}
+			return record.toString();
+		}
+		if (textFormat) {
+			// line breaks inside of values are escaped
+			return reader.readLine();
+		}
+		String terminator = recordTerminator;
+		boolean inQuote = false;
+		while ((c = reader.read()) >= 0) {
+			if (c == '"') {
+				inQuote = !inQuote;
+			}
+			record.append((char) c);
+			if (!inQuote && c == terminator.charAt(terminator.length() - 1) && record.length() >= terminator.length()
+					&& record.substring(record.length() - terminator.length()).equals(terminator)) {
+				record.setLength(record.length() - terminator.length());
+				return record.toString();
+			}
+		}
+		return record.length() == 0? null : record.toString();
+	}
+
+	/**
+	 * Splits a record into its fields.
+	 *
+	 * @param record the record (without terminator)
+	 * @param numFields expected number of fields
+	 * @return the field values, <code>null</code> for SQL NULL
+	 */
+	public String[] parseRecord(String record, int numFields) {
+		String[] fields = new String[numFields];
+		int f = 0;
+		int l = record.length();
+		StringBuilder value = new StringBuilder();
+		if (textFormat) {
+			int i = 0;
+			while (f < numFields) {
+				value.setLength(0);
+				boolean isNull = false;
+				while (i < l && record.charAt(i) != '\t') {
+					char c = record.charAt(i++);
+					if (c == '\\' && i < l) {
+						char e = record.charAt(i++);
+						switch (e) {
+						case 't': value.append('\t'); break;
+						case 'n': value.append('\n'); break;
+						case 'r': value.append('\r'); break;
+						case 'N': isNull = true; break;
+						default: value.append(e);
+						}
+					} else {
+						value.append(c);
+					}
+				}
+				fields[f++] = isNull? null : value.toString();
+				++i;
+			}
+		} else {
+			int i = 0;
+			char sep = fieldSeparator.charAt(0);
+			while (f < numFields) {
+				value.setLength(0);
+				if (i < l && record.charAt(i) == '"') {
+					++i;
+					while (i < l) {
+						char c = record.charAt(i++);
+						if (c == '"') {
+							if (i < l && record.charAt(i) == '"') {
+								value.append('"');
+								++i;
+							} else {
+								break;
+							}
+						} else {
+							value.append(c);
+						}
+					}
+					fields[f++] = value.toString();
+				} else {
+					while (i < l && record.charAt(i) != sep) {
+						value.append(record.charAt(i++));
+					}
+					fields[f++] = value.length() == 0? null : value.toString();
+				}
+				++i;
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Gets the statement (or loader invocation) which loads a data file with the DBMS's native bulk loader.
+	 *
+	 * @param qualifiedTableName the table
+	 * @param columns the (quoted) column names
+	 * @param binaryColumn marks hex encoded binary columns
+	 * @param dataFile name of the data file
+	 * @param controlFile name of the SQL*Loader control file (Oracle only)
+	 * @return native load command
+	 */
+	public String nativeLoadCommand(String qualifiedTableName, List<String> columns, boolean[] binaryColumn, String dataFile, String controlFile) {
+		switch (this) {
+		case POSTGRESQL:
+			return "\\copy " + qualifiedTableName + "(" + join(columns) + ") from '" + dataFile + "'";
+		case MYSQL:
+			StringBuilder cols = new StringBuilder();
+			StringBuilder sets = new StringBuilder();
+			for (int i = 0; i < columns.size(); ++i) {
+				if (cols.length() > 0) {
+					cols.append(", ");
+				}
+				if (binaryColumn[i]) {
+					cols.append("@c" + i);
+					sets.append(sets.length() == 0? " SET " : ", ");
+					sets.append(columns.get(i) + "=UNHEX(@c" + i + ")");
+				} else {
+					cols.append(columns.get(i));
+				}
+			}
+			return "LOAD DATA LOCAL INFILE '" + dataFile + "' INTO TABLE " + qualifiedTableName + " CHARACTER SET utf8mb4 (" + cols + ")" + sets;
+		case ORACLE:
+			return "sqlldr control=" + controlFile + " direct=true";
+		case MSSQL:
+			return "BULK INSERT " + qualifiedTableName + " FROM '" + dataFile + "' WITH (FORMAT='CSV', FIELDQUOTE='\"', FIELDTERMINATOR=',', ROWTERMINATOR='0x0a', CODEPAGE='65001', KEEPNULLS, TABLOCK)";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the content of a SQL*Loader control file.
+	 *
+	 * @param qualifiedTableName the table
+	 * @param columns the (quoted) column names
+	 * @param sqlType JDBC types of the columns
+	 * @param dataFile name of the data file
+	 * @return control file content
+	 */
+	public static String createControlFile(String qualifiedTableName, List<String> columns, int[] sqlType, String dataFile) {
+		StringBuilder ctl = new StringBuilder();
+		ctl.append("LOAD DATA\n");
+		ctl.append("CHARACTERSET UTF8\n");
+		ctl.append("INFILE '" + dataFile + "' \"var " + RECORD_LENGTH_DIGITS + "\"\n");
+		ctl.append("APPEND INTO TABLE " + qualifiedTableName + "\n");
+		ctl.append("FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"'\n");
+		ctl.append("TRAILING NULLCOLS\n");
+		ctl.append("(\n");
+		for (int i = 0; i < columns.size(); ++i) {
+			ctl.append("  " + columns.get(i));
+			switch (sqlType[i]) {
+			case java.sql.Types.DATE:
+				ctl.append(" DATE \"YYYY-MM-DD\"");
+				break;
+			case java.sql.Types.TIMESTAMP:
+				ctl.append(" TIMESTAMP \"YYYY-MM-DD HH24:MI:SS.FF\"");
+				break;
+			case java.sql.Types.CLOB:
+			case java.sql.Types.NCLOB:
+			case java.sql.Types.BLOB:
+				ctl.append(" CHAR(2147483647)");
+				break;
+			default:
+				ctl.append(" CHAR(32767)");
+			}
+			ctl.append(i < columns.size() - 1? ",\n" : "\n");
+		}
+		ctl.append(")\n");
+		return ctl.toString();
+	}
+
+	private static String join(List<String> columns) {
+		StringBuilder sb = new StringBuilder();
+		for (String c: columns) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+}
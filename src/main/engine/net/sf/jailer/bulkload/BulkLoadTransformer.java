@@ -0,0 +1,299 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.bulkload;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.AbstractResultSetReader;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.subsetting.TransformerFactory;
+import net.sf.jailer.util.PrintUtil;
+import net.sf.jailer.util.Quoting;
+import net.sf.jailer.util.SqlScriptExecutor;
+import net.sf.jailer.util.SqlUtil;
+
+/**
+ * A {@link ResultSetReader} that writes the read rows into a delimited data file
+ * in the format of the target DBMS's native bulk loader. The load directive for the file
+ * is appended to the export script (the "manifest") as soon as the file is complete, so the
+ * manifest keeps the topological order (and the deferred updates of cyclic foreign keys)
+ * of an ordinary SQL export.
+ *
+ * @author Ralf Wisser
+ */
+public class BulkLoadTransformer extends AbstractResultSetReader {
+
+	/**
+	 * Prefix of a load directive in the manifest.
+	 */
+	public static final String BULK_DIRECTIVE = "BULK";
+
+	/**
+	 * Factory.
+	 */
+	public static class Factory implements TransformerFactory {
+
+		private final OutputStreamWriter manifestWriter;
+		private final File dataDirectory;
+		private final Session session;
+		private final DBMS targetDBMSConfiguration;
+		private final BulkLoadDialect dialect;
+		private final ExecutionContext executionContext;
+		private final AtomicInteger fileCount = new AtomicInteger(0);
+
+		/**
+		 * Constructor.
+		 *
+		 * @param manifestWriter the export script
+		 * @param dataDirectory directory for the data files
+		 * @param session the session
+		 * @param targetDBMSConfiguration configuration of the target DBMS
+		 * @param executionContext the execution context
+		 */
+		public Factory(OutputStreamWriter manifestWriter, File dataDirectory, Session session, DBMS targetDBMSConfiguration, ExecutionContext executionContext) {
+			this.manifestWriter = manifestWriter;
+			this.dataDirectory = dataDirectory;
+			this.session = session;
+			this.targetDBMSConfiguration = targetDBMSConfiguration;
+			this.dialect = BulkLoadDialect.forDBMS(targetDBMSConfiguration);
+			this.executionContext = executionContext;
+			dataDirectory.mkdirs();
+		}
+
+		/**
+		 * Creates transformer (as {@link ResultSetReader} which
+		 * transforms rows of a given table into an external representation.
+		 *
+		 * @param table the table
+		 * @return a transformer
+		 */
+		@Override
+		public ResultSetReader create(Table table) throws SQLException {
+			return new BulkLoadTransformer(table, this);
+		}
+	}
+
+	private final Table table;
+	private final Factory factory;
+	private final Quoting quoting;
+	private final BulkLoadDialect dialect;
+
+	private int columnCount;
+	private List<String> columnLabel;
+	private int[] sqlType;
+	private boolean[] binaryColumn;
+	private File dataFile;
+	private Writer dataWriter;
+	private long rowCount = 0;
+	private final StringBuilder record = new StringBuilder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param table the table to read from
+	 * @param factory the factory
+	 */
+	private BulkLoadTransformer(Table table, Factory factory) throws SQLException {
+		this.table = table;
+		this.factory = factory;
+		this.dialect = factory.dialect;
+		this.quoting = Quoting.getQuoting(factory.session);
+		if (factory.targetDBMSConfiguration != factory.session.dbms) {
+			if (factory.targetDBMSConfiguration.getIdentifierQuoteString() != null) {
+				this.quoting.setIdentifierQuoteString(factory.targetDBMSConfiguration.getIdentifierQuoteString());
+			}
+		}
+	}
+
+	/**
+	 * Reads result-set and writes into data file.
+	 */
+	@Override
+	public void readCurrentRow(ResultSet resultSet) throws SQLException {
+		if (columnLabel == null) {
+			columnCount = getMetaData(resultSet).getColumnCount();
+			columnLabel = new ArrayList<String>(columnCount);
+			sqlType = new int[columnCount];
+			binaryColumn = new boolean[columnCount];
+			for (int i = 1; i <= columnCount; ++i) {
+				columnLabel.add(SqlUtil.columnLabel(quoting, factory.session, factory.targetDBMSConfiguration, table, getMetaData(resultSet).getColumnLabel(i)));
+				int type = SqlUtil.getColumnType(factory.session.dbms, resultSet, getMetaData(resultSet), i, null);
+				if (type == Types.DATE && (DBMS.ORACLE.equals(factory.session.dbms) || dialect == BulkLoadDialect.ORACLE)) {
+					type = Types.TIMESTAMP;
+				}
+				sqlType[i - 1] = type;
+				binaryColumn[i - 1] = type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB;
+			}
+		}
+		if (dataWriter == null) {
+			openDataFile();
+			rowCount = 0;
+		}
+		record.setLength(0);
+		for (int i = 1; i <= columnCount; ++i) {
+			if (i > 1) {
+				record.append(dialect.fieldSeparator);
+			}
+			dialect.appendField(record, getValue(resultSet, i));
+		}
+		dialect.terminateRecord(record);
+		try {
+			dataWriter.write(record.toString());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		++rowCount;
+	}
+
+	private void openDataFile() {
+		String name = table.getUnqualifiedName().replaceAll("[^\\w$#]", "_");
+		dataFile = new File(factory.dataDirectory, String.format(Locale.ENGLISH, "%05d-%s%s", factory.fileCount.incrementAndGet(), name, dialect.fileExtension));
+		try {
+			dataWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(dataFile), Charset.forName("UTF-8")), 1 << 16);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Gets the textual representation of a value as understood by the bulk loaders.
+	 */
+	private String getValue(ResultSet resultSet, int i) throws SQLException {
+		int type = sqlType[i - 1];
+		Object object;
+		if (type == Types.TIMESTAMP) {
+			object = resultSet.getTimestamp(i);
+		} else if (type == Types.TIME) {
+			object = resultSet.getTime(i);
+		} else if (type == Types.DATE) {
+			object = resultSet.getDate(i);
+		} else if (type == Types.SQLXML) {
+			SQLXML xml = resultSet.getSQLXML(i);
+			object = xml == null? null : xml.getString();
+		} else {
+			object = resultSet.getObject(i);
+		}
+		if (object == null || resultSet.wasNull()) {
+			return null;
+		}
+		if (object instanceof Blob) {
+			Blob blob = (Blob) object;
+			object = blob.getBytes(1, (int) blob.length());
+		}
+		if (object instanceof byte[]) {
+			return (dialect == BulkLoadDialect.POSTGRESQL? "\\x" : "") + toHex((byte[]) object);
+		}
+		if (object instanceof Clob) {
+			Clob clob = (Clob) object;
+			int length = (int) clob.length();
+			return length > 0? clob.getSubString(1, length) : "";
+		}
+		if (object instanceof Boolean) {
+			return Boolean.TRUE.equals(object)? "1" : "0";
+		}
+		return object.toString();
+	}
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private static String toHex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; ++i) {
+			hex[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * Gets qualified table name.
+	 *
+	 * @param t the table
+	 * @return qualified name of t
+	 */
+	private String qualifiedTableName(Table t) {
+		String schema = t.getOriginalSchema("");
+		String mappedSchema = factory.executionContext.getSchemaMapping().get(schema);
+		if (mappedSchema != null) {
+			schema = mappedSchema;
+		}
+		if (schema.length() == 0) {
+			return quoting.requote(t.getUnqualifiedName());
+		}
+		return quoting.requote(schema) + "." + quoting.requote(t.getUnqualifiedName());
+	}
+
+	/**
+	 * Closes the data file and appends the load directive to the manifest.
+	 */
+	@Override
+	public void close() {
+		if (dataWriter == null) {
+			return;
+		}
+		try {
+			dataWriter.close();
+			dataWriter = null;
+			String tableName = qualifiedTableName(table);
+			String relativeName = factory.dataDirectory.getName() + "/" + dataFile.getName();
+			String controlFile = null;
+			if (dialect == BulkLoadDialect.ORACLE) {
+				File ctl = new File(factory.dataDirectory, dataFile.getName() + ".ctl");
+				Writer ctlWriter = new OutputStreamWriter(new FileOutputStream(ctl), Charset.forName("UTF-8"));
+				ctlWriter.write(BulkLoadDialect.createControlFile(tableName, columnLabel, sqlType, dataFile.getName()));
+				ctlWriter.close();
+				controlFile = factory.dataDirectory.getName() + "/" + ctl.getName();
+			}
+			StringBuilder columns = new StringBuilder();
+			for (String c: columnLabel) {
+				if (columns.length() > 0) {
+					columns.append(", ");
+				}
+				columns.append(c);
+			}
+			String nativeCommand = dialect.nativeLoadCommand(tableName, columnLabel, binaryColumn, relativeName, controlFile);
+			synchronized (factory.manifestWriter) {
+				if (nativeCommand != null) {
+					factory.manifestWriter.write("-- " + nativeCommand + PrintUtil.LINE_SEPARATOR);
+				}
+				factory.manifestWriter.write(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + BULK_DIRECTIVE + " " + dialect.name() + "," + rowCount + "," + BulkLoader.quote(relativeName) + "," + tableName + "(" + columns + ")" + PrintUtil.LINE_SEPARATOR);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
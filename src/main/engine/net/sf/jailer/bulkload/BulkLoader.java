@@ -0,0 +1,326 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.bulkload;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.util.CancellationHandler;
+
+/**
+ * Loads the data files written by the {@link BulkLoadTransformer}.
+ * Uses the driver's COPY API (PostgreSQL) if available, batched inserts otherwise.
+ *
+ * @author Ralf Wisser
+ */
+public class BulkLoader {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(BulkLoader.class);
+
+	/**
+	 * Maximum number of rows per insert batch.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * The session.
+	 */
+	private final Session session;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param session the session for the target database
+	 */
+	public BulkLoader(Session session) {
+		this.session = session;
+	}
+
+	/**
+	 * Executes a load directive.
+	 *
+	 * @param directive the directive (without prefix), "dialect,row count,data file,table(columns)"
+	 * where the data file name is enclosed in double quotes (see {@link #quote(String)})
+	 * @param baseDirectory directory against which the data file name is resolved
+	 * @return number of loaded rows
+	 */
+	public long load(String directive, File baseDirectory) throws IOException, SQLException {
+		String[] parts = parseDirective(directive);
+		BulkLoadDialect dialect = BulkLoadDialect.valueOf(parts[0]);
+		String fileName = parts[2];
+		String tableAndColumns = parts[3];
+		File dataFile = new File(fileName);
+		if (!dataFile.isAbsolute() && baseDirectory != null) {
+			dataFile = new File(baseDirectory, fileName);
+		}
+		long startTime = System.currentTimeMillis();
+		long rc;
+		if (dialect == BulkLoadDialect.POSTGRESQL && DBMS.POSTGRESQL.equals(session.dbms) && getCopyManager() != null) {
+			rc = copyIn(dialect, dataFile, tableAndColumns);
+		} else {
+			rc = insertBatched(dialect, dataFile, tableAndColumns);
+		}
+		_log.info(rc + " rows loaded into " + tableAndColumns.substring(0, Math.max(0, tableAndColumns.indexOf('('))) + " in " + (System.currentTimeMillis() - startTime) + " ms");
+		return rc;
+	}
+
+	/**
+	 * Encloses a data file name in double quotes (doubling embedded quotes)
+	 * so that it may contain commas.
+	 *
+	 * @param fileName the file name
+	 * @return the quoted file name
+	 */
+	public static String quote(String fileName) {
+		return "\"" + fileName.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * Splits a load directive into dialect, row count, data file name and table(columns).
+	 * Unquoted data file names (which must not contain a comma) are accepted as well.
+	 *
+	 * @param directive the directive (without prefix)
+	 * @return the four parts of the directive
+	 */
+	static String[] parseDirective(String directive) {
+		int c1 = directive.indexOf(',');
+		int c2 = directive.indexOf(',', c1 + 1);
+		if (c1 < 0 || c2 < 0) {
+			throw new IllegalArgumentException("invalid bulk load directive: " + directive);
+		}
+		String fileName;
+		int c3;
+		int i = c2 + 1;
+		while (i < directive.length() && Character.isWhitespace(directive.charAt(i))) {
+			++i;
+		}
+		if (i < directive.length() && directive.charAt(i) == '"') {
+			StringBuilder name = new StringBuilder();
+			++i;
+			for (;;) {
+				if (i >= directive.length()) {
+					throw new IllegalArgumentException("unterminated file name in bulk load directive: " + directive);
+				}
+				char c = directive.charAt(i++);
+				if (c == '"') {
+					if (i < directive.length() && directive.charAt(i) == '"') {
+						++i;
+					} else {
+						break;
+					}
+				}
+				name.append(c);
+			}
+			fileName = name.toString();
+			c3 = directive.indexOf(',', i);
+		} else {
+			c3 = directive.indexOf(',', c2 + 1);
+			fileName = c3 < 0? null : directive.substring(c2 + 1, c3).trim();
+		}
+		if (c3 < 0) {
+			throw new IllegalArgumentException("invalid bulk load directive: " + directive);
+		}
+		return new String[] { directive.substring(0, c1).trim(), directive.substring(c1 + 1, c2).trim(), fileName, directive.substring(c3 + 1).trim() };
+	}
+
+	/**
+	 * Gets the PostgreSQL CopyManager of the current connection.
+	 *
+	 * @return the copy manager or <code>null</code> if the driver has no copy API
+	 */
+	private Object getCopyManager() {
+		try {
+			Connection connection = session.getConnection();
+			Class<?> pgConnection = Class.forName("org.postgresql.PGConnection", true, connection.getClass().getClassLoader());
+			if (!connection.isWrapperFor(pgConnection)) {
+				return null;
+			}
+			Object pgCon = connection.unwrap(pgConnection);
+			return pgConnection.getMethod("getCopyAPI").invoke(pgCon);
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+
+	/**
+	 * Loads a data file via COPY FROM STDIN.
+	 */
+	private long copyIn(BulkLoadDialect dialect, File dataFile, String tableAndColumns) throws IOException, SQLException {
+		Object copyManager = getCopyManager();
+		Reader reader = new InputStreamReader(new FileInputStream(dataFile), Charset.forName("UTF-8"));
+		try {
+			Method copyIn = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+			Object rc = copyIn.invoke(copyManager, "COPY " + tableAndColumns + " FROM STDIN", reader);
+			return ((Number) rc).longValue();
+		} catch (java.lang.reflect.InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException(e);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Loads a data file via batched prepared inserts.
+	 */
+	private long insertBatched(BulkLoadDialect dialect, File dataFile, String tableAndColumns) throws IOException, SQLException {
+		int p = tableAndColumns.indexOf('(');
+		String tableName = tableAndColumns.substring(0, p);
+		String columns = tableAndColumns.substring(p + 1, tableAndColumns.lastIndexOf(')'));
+		Connection connection = session.getConnection();
+
+		int[] types;
+		Statement statement = connection.createStatement();
+		try {
+			ResultSet resultSet = statement.executeQuery("SELECT " + columns + " FROM " + tableName + " WHERE 1=0");
+			ResultSetMetaData metaData = resultSet.getMetaData();
+			types = new int[metaData.getColumnCount()];
+			for (int i = 0; i < types.length; ++i) {
+				types[i] = metaData.getColumnType(i + 1);
+			}
+			resultSet.close();
+		} finally {
+			statement.close();
+		}
+
+		StringBuilder params = new StringBuilder();
+		for (int i = 0; i < types.length; ++i) {
+			params.append(i == 0? "?" : ", ?");
+		}
+		String insert = "INSERT INTO " + tableAndColumns + " VALUES (" + params + ")";
+		Session._log.info(insert);
+
+		long rc = 0;
+		int batchSize = 0;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(dataFile), Charset.forName("UTF-8")), 1 << 16);
+		PreparedStatement preparedStatement = connection.prepareStatement(insert);
+		try {
+			String record;
+			while ((record = dialect.readRecord(reader)) != null) {
+				String[] fields = dialect.parseRecord(record, types.length);
+				for (int i = 0; i < types.length; ++i) {
+					setParameter(preparedStatement, i + 1, types[i], fields[i]);
+				}
+				preparedStatement.addBatch();
+				++rc;
+				if (++batchSize >= BATCH_SIZE) {
+					preparedStatement.executeBatch();
+					batchSize = 0;
+					CancellationHandler.checkForCancellation(null);
+				}
+			}
+			if (batchSize > 0) {
+				preparedStatement.executeBatch();
+			}
+		} finally {
+			preparedStatement.close();
+			reader.close();
+		}
+		return rc;
+	}
+
+	/**
+	 * Binds the textual representation of a value to a parameter.
+	 */
+	private void setParameter(PreparedStatement statement, int index, int type, String value) throws SQLException {
+		if (value == null) {
+			statement.setNull(index, type);
+			return;
+		}
+		switch (type) {
+		case Types.BIT:
+		case Types.BOOLEAN:
+			statement.setBoolean(index, "1".equals(value) || "t".equalsIgnoreCase(value) || "true".equalsIgnoreCase(value));
+			break;
+		case Types.TINYINT:
+		case Types.SMALLINT:
+		case Types.INTEGER:
+		case Types.BIGINT:
+			statement.setLong(index, Long.parseLong(value));
+			break;
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+			statement.setBigDecimal(index, new BigDecimal(value));
+			break;
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			statement.setDouble(index, Double.parseDouble(value));
+			break;
+		case Types.DATE:
+			if (value.length() > 10) {
+				statement.setTimestamp(index, Timestamp.valueOf(value));
+			} else {
+				statement.setDate(index, java.sql.Date.valueOf(value));
+			}
+			break;
+		case Types.TIMESTAMP:
+			statement.setTimestamp(index, Timestamp.valueOf(value.length() == 10? value + " 00:00:00" : value));
+			break;
+		case Types.TIME:
+			statement.setTime(index, Time.valueOf(value.length() > 8? value.substring(0, 8) : value));
+			break;
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+		case Types.BLOB:
+			statement.setBytes(index, fromHex(value.startsWith("\\x")? value.substring(2) : value));
+			break;
+		case Types.OTHER:
+			statement.setObject(index, value, Types.OTHER);
+			break;
+		default:
+			statement.setString(index, value);
+		}
+	}
+
+	private static byte[] fromHex(String hex) {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+		}
+		return bytes;
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.columnar;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads files written by {@link ColumnarFileWriter}, one row group at a time.
+ *
+ * @author Ralf Wisser
+ */
+public class ColumnarFileReader {
+
+	private final File file;
+	private final List<String> columnNames = new ArrayList<String>();
+	private final List<ColumnarType> columnTypes = new ArrayList<ColumnarType>();
+	private final List<long[]> rowGroups = new ArrayList<long[]>();
+	private long rowCount;
+
+	/**
+	 * Constructor. Reads the footer.
+	 *
+	 * @param file the file
+	 */
+	public ColumnarFileReader(File file) throws IOException {
+		this.file = file;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			byte[] magic = new byte[4];
+			raf.seek(raf.length() - 8);
+			int footerLength = raf.readInt();
+			raf.readFully(magic);
+			if (!Arrays.equals(magic, ColumnarFileWriter.MAGIC)) {
+				throw new IOException("not a columnar file: " + file);
+			}
+			byte[] footerBytes = new byte[footerLength];
+			raf.seek(raf.length() - 8 - footerLength);
+			raf.readFully(footerBytes);
+			DataInputStream footer = new DataInputStream(new ByteArrayInputStream(footerBytes));
+			int columns = footer.readInt();
+			for (int i = 0; i < columns; ++i) {
+				columnNames.add(footer.readUTF());
+				columnTypes.add(ColumnarType.values()[footer.readByte()]);
+			}
+			int groups = footer.readInt();
+			for (int i = 0; i < groups; ++i) {
+				rowGroups.add(new long[] { footer.readLong(), footer.readInt() });
+			}
+			rowCount = footer.readLong();
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Gets the names of the columns.
+	 */
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Gets the types of the columns.
+	 */
+	public List<ColumnarType> getColumnTypes() {
+		return columnTypes;
+	}
+
+	/**
+	 * Gets the number of row groups.
+	 */
+	public int getRowGroupCount() {
+		return rowGroups.size();
+	}
+
+	/**
+	 * Gets the total number of rows.
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Reads a row group.
+	 *
+	 * @param index index of the row group
+	 * @return the column values, one array per column
+	 */
+	public Object[][] readRowGroup(int index) throws IOException {
+		long[] rowGroup = rowGroups.get(index);
+		int size = (int) rowGroup[1];
+		FileInputStream fileIn = new FileInputStream(file);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn, 1 << 16));
+		try {
+			long toSkip = rowGroup[0];
+			while (toSkip > 0) {
+				toSkip -= in.skip(toSkip);
+			}
+			Object[][] result = new Object[columnTypes.size()][];
+			for (int c = 0; c < columnTypes.size(); ++c) {
+				result[c] = readColumnChunk(in, columnTypes.get(c), size);
+			}
+			return result;
+		} finally {
+			in.close();
+		}
+	}
+
+	private Object[] readColumnChunk(DataInputStream in, ColumnarType type, int size) throws IOException {
+		int encoding = in.readByte();
+		boolean[] isNull = new boolean[size];
+		int nullRuns = in.readInt();
+		int pos = 0;
+		for (int r = 0; r < nullRuns; ++r) {
+			int length = in.readInt();
+			if (r % 2 == 1) {
+				Arrays.fill(isNull, pos, pos + length, true);
+			}
+			pos += length;
+		}
+		Object[] values = new Object[size];
+		if (encoding == ColumnarFileWriter.PLAIN) {
+			for (int i = 0; i < size; ++i) {
+				if (!isNull[i]) {
+					values[i] = type.read(in);
+				}
+			}
+		} else {
+			Object[] dictionary = null;
+			if (encoding == ColumnarFileWriter.DICTIONARY) {
+				dictionary = new Object[in.readInt()];
+				for (int i = 0; i < dictionary.length; ++i) {
+					dictionary[i] = type.read(in);
+				}
+			}
+			int runs = in.readInt();
+			int i = 0;
+			for (int r = 0; r < runs; ++r) {
+				Object value = dictionary != null? dictionary[in.readInt()] : type.read(in);
+				int length = in.readInt();
+				while (length > 0) {
+					if (!isNull[i]) {
+						values[i] = value;
+						--length;
+					}
+					++i;
+				}
+			}
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows of a table into a columnar file.<br>
+ * <br>
+ * Layout (all numbers big-endian):
+ * <pre>
+ * "JCOL" version(byte)
+ * row group*
+ * footer
+ * footer length(int) "JCOL"
+ * </pre>
+ * A row group holds one chunk per column:
+ * <pre>
+ * encoding(byte) null runs: count(int) length(int)* (alternating, starting with a non-null run)
+ * PLAIN:      value*
+ * DICTIONARY: size(int) value* runs(int) (index(int) length(int))*
+ * RLE:        runs(int) (value length(int))*
+ * </pre>
+ * The footer describes the columns (name, type) and the offset and row count of each row group.<br>
+ * Only one row group is buffered at a time, so memory consumption is bounded per table.
+ *
+ * @author Ralf Wisser
+ */
+public class ColumnarFileWriter {
+
+	/**
+	 * File magic.
+	 */
+	public static final byte[] MAGIC = "JCOL".getBytes(Charset.forName("US-ASCII"));
+
+	/**
+	 * Format version.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Column chunk encodings.
+	 */
+	public static final int PLAIN = 0, DICTIONARY = 1, RLE = 2;
+
+	/**
+	 * Default maximum number of rows per row group.
+	 */
+	public static final int DEFAULT_ROW_GROUP_SIZE = 65536;
+
+	/**
+	 * Default maximum (estimated) size of a buffered row group.
+	 */
+	public static final long DEFAULT_ROW_GROUP_BYTES = 32L * 1024 * 1024;
+
+	/**
+	 * Maximum dictionary size.
+	 */
+	private static final int MAX_DICTIONARY_SIZE = 65536;
+
+	private final List<String> columnNames;
+	private final List<ColumnarType> columnTypes;
+	private final int rowGroupSize;
+	private final long rowGroupBytes;
+	private final CountingOutputStream counter;
+	private final DataOutputStream out;
+
+	private final List<Object[]> columnValues = new ArrayList<Object[]>();
+	private int bufferedRows = 0;
+	private long bufferedBytes = 0;
+	private long rowCount = 0;
+	private final List<long[]> rowGroups = new ArrayList<long[]>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file the file to write
+	 * @param columnNames names of the columns
+	 * @param columnTypes types of the columns
+	 * @param rowGroupSize maximum number of rows per row group
+	 * @param rowGroupBytes maximum (estimated) size of a buffered row group
+	 */
+	public ColumnarFileWriter(File file, List<String> columnNames, List<ColumnarType> columnTypes, int rowGroupSize, long rowGroupBytes) throws IOException {
+		this.columnNames = new ArrayList<String>(columnNames);
+		this.columnTypes = new ArrayList<ColumnarType>(columnTypes);
+		this.rowGroupSize = rowGroupSize;
+		this.rowGroupBytes = rowGroupBytes;
+		this.counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		this.out = new DataOutputStream(counter);
+		for (int i = 0; i < columnNames.size(); ++i) {
+			columnValues.add(new Object[Math.min(rowGroupSize, 1024)]);
+		}
+		out.write(MAGIC);
+		out.writeByte(VERSION);
+	}
+
+	/**
+	 * Adds a row.
+	 *
+	 * @param row canonical values (see {@link ColumnarType#normalize(Object)}), <code>null</code> for SQL NULL
+	 */
+	public void addRow(Object[] row) throws IOException {
+		for (int i = 0; i < row.length; ++i) {
+			Object[] values = columnValues.get(i);
+			if (bufferedRows == values.length) {
+				values = Arrays.copyOf(values, Math.min(rowGroupSize, values.length * 2));
+				columnValues.set(i, values);
+			}
+			values[bufferedRows] = row[i];
+			if (row[i] != null) {
+				bufferedBytes += columnTypes.get(i).estimateSize(row[i]);
+			}
+		}
+		++bufferedRows;
+		++rowCount;
+		if (bufferedRows >= rowGroupSize || bufferedBytes >= rowGroupBytes) {
+			flushRowGroup();
+		}
+	}
+
+	/**
+	 * Writes the buffered rows as row group.
+	 */
+	private void flushRowGroup() throws IOException {
+		if (bufferedRows == 0) {
+			return;
+		}
+		rowGroups.add(new long[] { counter.count, bufferedRows });
+		for (int i = 0; i < columnTypes.size(); ++i) {
+			writeColumnChunk(columnTypes.get(i), columnValues.get(i), bufferedRows);
+			Arrays.fill(columnValues.get(i), 0, bufferedRows, null);
+		}
+		bufferedRows = 0;
+		bufferedBytes = 0;
+	}
+
+	/**
+	 * Writes a column chunk choosing the most compact encoding.
+	 */
+	private void writeColumnChunk(ColumnarType type, Object[] values, int size) throws IOException {
+		// null runs
+		List<Integer> nullRuns = new ArrayList<Integer>();
+		boolean isNull = false;
+		int run = 0;
+		List<Object> nonNull = new ArrayList<Object>(size);
+		for (int i = 0; i < size; ++i) {
+			if ((values[i] == null) != isNull) {
+				nullRuns.add(run);
+				run = 0;
+				isNull = !isNull;
+			}
+			++run;
+			if (values[i] != null) {
+				nonNull.add(values[i]);
+			}
+		}
+		nullRuns.add(run);
+
+		// value runs and dictionary
+		int valueRuns = 0;
+		Object prev = null;
+		Map<Object, Integer> dictionary = new HashMap<Object, Integer>();
+		boolean dictionaryFull = false;
+		for (Object value: nonNull) {
+			Object key = type == ColumnarType.BINARY? new Key((byte[]) value) : value;
+			if (prev == null || !prev.equals(key)) {
+				++valueRuns;
+			}
+			prev = key;
+			if (!dictionaryFull && !dictionary.containsKey(key)) {
+				if (dictionary.size() >= MAX_DICTIONARY_SIZE) {
+					dictionaryFull = true;
+				} else {
+					dictionary.put(key, dictionary.size());
+				}
+			}
+		}
+
+		int encoding = PLAIN;
+		if (valueRuns <= nonNull.size() / 2) {
+			encoding = RLE;
+		} else if (!dictionaryFull && type != ColumnarType.BOOLEAN && dictionary.size() <= nonNull.size() / 2) {
+			encoding = DICTIONARY;
+		}
+
+		out.writeByte(encoding);
+		out.writeInt(nullRuns.size());
+		for (Integer r: nullRuns) {
+			out.writeInt(r);
+		}
+		if (encoding == PLAIN) {
+			for (Object value: nonNull) {
+				type.write(out, value);
+			}
+		} else if (encoding == RLE) {
+			out.writeInt(valueRuns);
+			writeRuns(type, nonNull, null);
+		} else {
+			Object[] entries = new Object[dictionary.size()];
+			for (Map.Entry<Object, Integer> e: dictionary.entrySet()) {
+				entries[e.getValue()] = e.getKey() instanceof Key? ((Key) e.getKey()).bytes : e.getKey();
+			}
+			out.writeInt(entries.length);
+			for (Object entry: entries) {
+				type.write(out, entry);
+			}
+			out.writeInt(valueRuns);
+			writeRuns(type, nonNull, dictionary);
+		}
+	}
+
+	/**
+	 * Writes runs of equal values, either as values or as dictionary indexes.
+	 */
+	private void writeRuns(ColumnarType type, List<Object> values, Map<Object, Integer> dictionary) throws IOException {
+		Object prev = null;
+		Object prevValue = null;
+		int run = 0;
+		for (Object value: values) {
+			Object key = type == ColumnarType.BINARY? new Key((byte[]) value) : value;
+			if (prev != null && !prev.equals(key)) {
+				writeRun(type, prevValue, prev, run, dictionary);
+				run = 0;
+			}
+			prev = key;
+			prevValue = value;
+			++run;
+		}
+		if (run > 0) {
+			writeRun(type, prevValue, prev, run, dictionary);
+		}
+	}
+
+	private void writeRun(ColumnarType type, Object value, Object key, int run, Map<Object, Integer> dictionary) throws IOException {
+		if (dictionary != null) {
+			out.writeInt(dictionary.get(key));
+		} else {
+			type.write(out, value);
+		}
+		out.writeInt(run);
+	}
+
+	/**
+	 * Writes the last row group and the footer and closes the file.
+	 */
+	public void close() throws IOException {
+		flushRowGroup();
+		ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+		DataOutputStream footer = new DataOutputStream(footerBytes);
+		footer.writeInt(columnNames.size());
+		for (int i = 0; i < columnNames.size(); ++i) {
+			footer.writeUTF(columnNames.get(i));
+			footer.writeByte(columnTypes.get(i).ordinal());
+		}
+		footer.writeInt(rowGroups.size());
+		for (long[] rowGroup: rowGroups) {
+			footer.writeLong(rowGroup[0]);
+			footer.writeInt((int) rowGroup[1]);
+		}
+		footer.writeLong(rowCount);
+		footer.close();
+		out.write(footerBytes.toByteArray());
+		out.writeInt(footerBytes.size());
+		out.write(MAGIC);
+		out.close();
+	}
+
+	/**
+	 * Gets the number of written rows.
+	 *
+	 * @return the number of written rows
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Gets the number of row groups.
+	 *
+	 * @return the number of row groups
+	 */
+	public int getRowGroupCount() {
+		return rowGroups.size() + (bufferedRows > 0? 1 : 0);
+	}
+
+	/**
+	 * Binary value as hash key.
+	 */
+	private static class Key {
+		final byte[] bytes;
+
+		Key(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(bytes);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && Arrays.equals(bytes, ((Key) obj).bytes);
+		}
+	}
+
+	/**
+	 * Keeps track of the current file offset.
+	 */
+	private static class CountingOutputStream extends OutputStream {
+		private final OutputStream out;
+		long count = 0;
+
+		CountingOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			++count;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.columnar;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.AbstractResultSetReader;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.subsetting.TransformerFactory;
+import net.sf.jailer.util.CellContentConverter;
+import net.sf.jailer.util.SqlUtil;
+
+/**
+ * A {@link ResultSetReader} that writes the read rows into a columnar file (one file per table).
+ *
+ * @see ColumnarFileWriter
+ * @author Ralf Wisser
+ */
+public class ColumnarTransformer extends AbstractResultSetReader {
+
+	/**
+	 * Extension of the data files.
+	 */
+	public static final String FILE_EXTENSION = ".jcol";
+
+	/**
+	 * A table's file.
+	 */
+	private static class TableFile {
+		File file;
+		ColumnarFileWriter writer;
+		List<String> columnNames = new ArrayList<String>();
+		List<ColumnarType> columnTypes = new ArrayList<ColumnarType>();
+		List<Column> columns = new ArrayList<Column>();
+	}
+
+	/**
+	 * Factory. Keeps the file of each table open until {@link #close()}.
+	 */
+	public static class Factory implements TransformerFactory {
+
+		private final File dataDirectory;
+		private final Session session;
+		private final DBMS targetDBMSConfiguration;
+		private final Map<Table, TableFile> tableFiles = new TreeMap<Table, TableFile>();
+		private final Set<String> fileNames = new HashSet<String>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param dataDirectory directory for the data files
+		 * @param session the session
+		 * @param targetDBMSConfiguration configuration of the target DBMS
+		 */
+		public Factory(File dataDirectory, Session session, DBMS targetDBMSConfiguration) {
+			this.dataDirectory = dataDirectory;
+			this.session = session;
+			this.targetDBMSConfiguration = targetDBMSConfiguration;
+			dataDirectory.mkdirs();
+		}
+
+		/**
+		 * Creates transformer (as {@link ResultSetReader} which
+		 * transforms rows of a given table into an external representation.
+		 *
+		 * @param table the table
+		 * @return a transformer
+		 */
+		@Override
+		public ResultSetReader create(Table table) throws SQLException {
+			return new ColumnarTransformer(table, this);
+		}
+
+		/**
+		 * Gets (and opens on first call) the file of a table.
+		 */
+		private synchronized TableFile getTableFile(Table table, ResultSet resultSet, ResultSetMetaData metaData) throws SQLException {
+			TableFile tableFile = tableFiles.get(table);
+			if (tableFile == null) {
+				tableFile = new TableFile();
+				List<Column> selectionClause = table.getSelectionClause();
+				for (int i = 1; i <= metaData.getColumnCount(); ++i) {
+					Column column = i <= selectionClause.size()? selectionClause.get(i - 1) : null;
+					int type = SqlUtil.getColumnType(session.dbms, resultSet, metaData, i, null);
+					if (type == Types.DATE && DBMS.ORACLE.equals(session.dbms)) {
+						type = Types.TIMESTAMP;
+					}
+					tableFile.columns.add(column);
+					tableFile.columnNames.add(column != null? column.name : metaData.getColumnLabel(i));
+					tableFile.columnTypes.add(ColumnarType.forColumn(type, column));
+				}
+				tableFile.file = new File(dataDirectory, uniqueFileName(table.getName(), fileNames));
+				try {
+					tableFile.writer = new ColumnarFileWriter(tableFile.file, tableFile.columnNames, tableFile.columnTypes, ColumnarFileWriter.DEFAULT_ROW_GROUP_SIZE, ColumnarFileWriter.DEFAULT_ROW_GROUP_BYTES);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				tableFiles.put(table, tableFile);
+			}
+			return tableFile;
+		}
+
+		/**
+		 * Gets the name of a table's file. Names that would collide with the file of another table
+		 * (such as "S1.T" and "S1_T", or names differing only in case) get a numeric suffix.
+		 *
+		 * @param tableName the table name
+		 * @param usedNames the (lower case) names of the files already created, the new name is added
+		 * @return file name
+		 */
+		static String uniqueFileName(String tableName, Set<String> usedNames) {
+			String base = tableName.replaceAll("[^\\w$#]", "_");
+			String name = base;
+			for (int n = 2; !usedNames.add(name.toLowerCase(Locale.ENGLISH)); ++n) {
+				name = base + "_" + n;
+			}
+			return name + FILE_EXTENSION;
+		}
+
+		/**
+		 * Closes all files.
+		 */
+		public synchronized void close() throws IOException {
+			for (TableFile tableFile: tableFiles.values()) {
+				tableFile.writer.close();
+			}
+		}
+
+		/**
+		 * Writes the manifest, a JSON document describing the files and the association graph between the tables.
+		 * The entry of each table contains the name of the table's file.
+		 *
+		 * @param out to write into
+		 * @param dataModel the data model
+		 * @param tables the exported tables
+		 */
+		public synchronized void writeManifest(Writer out, DataModel dataModel, Set<Table> tables) throws IOException {
+			out.write("{\n  \"format\": \"jailer-columnar\",\n  \"version\": " + ColumnarFileWriter.VERSION + ",\n  \"tables\": [");
+			boolean first = true;
+			for (Map.Entry<Table, TableFile> e: tableFiles.entrySet()) {
+				Table table = e.getKey();
+				TableFile tableFile = e.getValue();
+				out.write((first? "" : ",") + "\n    {\n");
+				first = false;
+				out.write("      \"name\": " + json(table.getName()) + ",\n");
+				out.write("      \"displayName\": " + json(dataModel.getDisplayName(table)) + ",\n");
+				out.write("      \"file\": " + json(dataDirectory.getName() + "/" + tableFile.file.getName()) + ",\n");
+				out.write("      \"rows\": " + tableFile.writer.getRowCount() + ",\n");
+				out.write("      \"rowGroups\": " + tableFile.writer.getRowGroupCount() + ",\n");
+				out.write("      \"primaryKey\": [");
+				if (table.primaryKey != null) {
+					boolean f = true;
+					for (Column pk: table.primaryKey.getColumns()) {
+						out.write((f? "" : ", ") + json(pk.name));
+						f = false;
+					}
+				}
+				out.write("],\n      \"columns\": [");
+				for (int i = 0; i < tableFile.columnNames.size(); ++i) {
+					Column column = tableFile.columns.get(i);
+					out.write((i == 0? "" : ",") + "\n        { \"name\": " + json(tableFile.columnNames.get(i))
+							+ ", \"type\": " + json(tableFile.columnTypes.get(i).name())
+							+ (column != null? ", \"sqlType\": " + json(column.toSQL(null).substring(column.name.length() + 1)) + ", \"nullable\": " + column.isNullable : "")
+							+ " }");
+				}
+				out.write("\n      ]\n    }");
+			}
+			out.write("\n  ],\n  \"associations\": [");
+			first = true;
+			for (Association association: associations(dataModel.namedAssociations.values(), tables)) {
+				out.write((first? "" : ",") + "\n    { \"name\": " + json(association.getName())
+						+ ", \"source\": " + json(association.source.getName())
+						+ ", \"destination\": " + json(association.destination.getName())
+						+ ", \"cardinality\": " + json(String.valueOf(association.getCardinality()))
+						+ ", \"sourceDependsOnDestination\": " + association.isInsertDestinationBeforeSource()
+						+ ", \"destinationDependsOnSource\": " + association.isInsertSourceBeforeDestination()
+						+ ", \"joinCondition\": " + json(association.getUnrestrictedJoinCondition())
+						+ " }");
+				first = false;
+			}
+			out.write("\n  ]\n}\n");
+		}
+
+		/**
+		 * Gets the non-reversed associations between exported tables.
+		 */
+		private List<Association> associations(Collection<Association> all, Set<Table> tables) {
+			List<Association> result = new ArrayList<Association>();
+			for (Association association: all) {
+				if (!association.reversed && tables.contains(association.source) && tables.contains(association.destination)) {
+					result.add(association);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Quotes a string as JSON string literal.
+	 */
+	private static String json(String s) {
+		if (s == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"': sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format(Locale.ENGLISH, "\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	private final Table table;
+	private final Factory factory;
+	private TableFile tableFile;
+	private Object[] row;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param table the table to read from
+	 * @param factory the factory
+	 */
+	private ColumnarTransformer(Table table, Factory factory) {
+		this.table = table;
+		this.factory = factory;
+	}
+
+	/**
+	 * Opens the table's file, even if the result set is empty.
+	 */
+	@Override
+	public void init(ResultSet resultSet) throws SQLException {
+		tableFile = factory.getTableFile(table, resultSet, getMetaData(resultSet));
+		row = new Object[tableFile.columnTypes.size()];
+	}
+
+	/**
+	 * Reads result-set and writes into the table's file.
+	 */
+	@Override
+	public void readCurrentRow(ResultSet resultSet) throws SQLException {
+		if (tableFile == null) {
+			init(resultSet);
+		}
+		CellContentConverter cellContentConverter = getCellContentConverter(resultSet, factory.session, factory.targetDBMSConfiguration);
+		for (int i = 0; i < row.length; ++i) {
+			Object content = cellContentConverter.getObject(resultSet, i + 1);
+			if (resultSet.wasNull()) {
+				content = null;
+			}
+			row[i] = content == null? null : tableFile.columnTypes.get(i).normalize(content);
+		}
+		synchronized (tableFile) {
+			try {
+				tableFile.writer.addRow(row);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.columnar;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Locale;
+
+import net.sf.jailer.datamodel.Column;
+
+/**
+ * Physical types of the columns of a columnar export file.
+ *
+ * @author Ralf Wisser
+ */
+public enum ColumnarType {
+
+	BOOLEAN,
+	INT64,
+	DOUBLE,
+	/**
+	 * Exact numeric, stored as plain string.
+	 */
+	DECIMAL,
+	STRING,
+	BINARY,
+	/**
+	 * Days since 1970-01-01.
+	 */
+	DATE,
+	/**
+	 * Microseconds since 1970-01-01 00:00:00 UTC.
+	 */
+	TIMESTAMP,
+	/**
+	 * Milliseconds since midnight.
+	 */
+	TIME;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Derives the type of a column.
+	 *
+	 * @param sqlType the JDBC type as reported by the result set
+	 * @param column the column of the data model, may be <code>null</code>
+	 * @return the physical type
+	 */
+	public static ColumnarType forColumn(int sqlType, Column column) {
+		switch (sqlType) {
+		case Types.BIT:
+		case Types.BOOLEAN:
+			return BOOLEAN;
+		case Types.TINYINT:
+		case Types.SMALLINT:
+		case Types.INTEGER:
+		case Types.BIGINT:
+			return INT64;
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			return DOUBLE;
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+			if (column != null && column.precision <= 0 && column.length > 0 && column.length <= 18) {
+				return INT64;
+			}
+			return DECIMAL;
+		case Types.DATE:
+			return DATE;
+		case Types.TIMESTAMP:
+		case Types.TIMESTAMP_WITH_TIMEZONE:
+			return TIMESTAMP;
+		case Types.TIME:
+		case Types.TIME_WITH_TIMEZONE:
+			return TIME;
+		case Types.BINARY:
+		case Types.VARBINARY:
+		case Types.LONGVARBINARY:
+		case Types.BLOB:
+			return BINARY;
+		case Types.OTHER:
+		case Types.JAVA_OBJECT:
+			if (column != null && column.type != null) {
+				return forTypeName(column.type);
+			}
+			return STRING;
+		default:
+			return STRING;
+		}
+	}
+
+	/**
+	 * Derives the type from the type name of a column of the data model.
+	 */
+	private static ColumnarType forTypeName(String typeName) {
+		String t = typeName.toUpperCase(Locale.ENGLISH);
+		if (t.startsWith("BOOL")) {
+			return BOOLEAN;
+		}
+		if (t.equals("INT") || t.startsWith("INTEGER") || t.endsWith("INT") || t.startsWith("SERIAL") || t.startsWith("BIGSERIAL")) {
+			return INT64;
+		}
+		if (t.startsWith("FLOAT") || t.startsWith("DOUBLE") || t.startsWith("REAL")) {
+			return DOUBLE;
+		}
+		if (t.startsWith("NUMERIC") || t.startsWith("DECIMAL") || t.startsWith("NUMBER")) {
+			return DECIMAL;
+		}
+		if (t.startsWith("TIMESTAMP") || t.startsWith("DATETIME")) {
+			return TIMESTAMP;
+		}
+		if (t.equals("DATE")) {
+			return DATE;
+		}
+		return STRING;
+	}
+
+	/**
+	 * Converts a value read by the CellContentConverter into the canonical Java representation of this type.
+	 *
+	 * @param value the value (not <code>null</code>)
+	 * @return the canonical value
+	 */
+	public Object normalize(Object value) throws SQLException {
+		if (value instanceof Clob) {
+			Clob clob = (Clob) value;
+			int length = (int) clob.length();
+			value = length > 0? clob.getSubString(1, length) : "";
+		} else if (value instanceof Blob) {
+			Blob blob = (Blob) value;
+			value = blob.getBytes(1, (int) blob.length());
+		}
+		switch (this) {
+		case BOOLEAN:
+			if (value instanceof Boolean) {
+				return value;
+			}
+			if (value instanceof Number) {
+				return ((Number) value).intValue() != 0;
+			}
+			String s = value.toString().trim();
+			return "1".equals(s) || "t".equalsIgnoreCase(s) || "true".equalsIgnoreCase(s) || "B'1'".equals(s);
+		case INT64:
+			if (value instanceof Number) {
+				return ((Number) value).longValue();
+			}
+			return Long.valueOf(value.toString().trim());
+		case DOUBLE:
+			if (value instanceof Number) {
+				return ((Number) value).doubleValue();
+			}
+			return Double.valueOf(value.toString().trim());
+		case DECIMAL:
+			if (value instanceof BigDecimal) {
+				return ((BigDecimal) value).toPlainString();
+			}
+			return value.toString();
+		case BINARY:
+			if (value instanceof byte[]) {
+				return value;
+			}
+			return value.toString().getBytes(UTF8);
+		case DATE:
+			if (value instanceof java.sql.Date) {
+				return (int) ((java.sql.Date) value).toLocalDate().toEpochDay();
+			}
+			if (value instanceof Timestamp) {
+				return (int) ((Timestamp) value).toLocalDateTime().toLocalDate().toEpochDay();
+			}
+			return (int) java.sql.Date.valueOf(value.toString().trim().substring(0, 10)).toLocalDate().toEpochDay();
+		case TIMESTAMP:
+			Timestamp ts;
+			if (value instanceof Timestamp) {
+				ts = (Timestamp) value;
+			} else if (value instanceof java.util.Date) {
+				ts = new Timestamp(((java.util.Date) value).getTime());
+			} else {
+				ts = Timestamp.valueOf(value.toString().trim());
+			}
+			return Math.floorDiv(ts.getTime(), 1000L) * 1000000L + ts.getNanos() / 1000;
+		case TIME:
+			if (value instanceof Time) {
+				return (int) (((Time) value).toLocalTime().toNanoOfDay() / 1000000L);
+			}
+			if (value instanceof Timestamp) {
+				return (int) (((Timestamp) value).toLocalDateTime().toLocalTime().toNanoOfDay() / 1000000L);
+			}
+			return (int) (Time.valueOf(value.toString().trim().substring(0, 8)).toLocalTime().toNanoOfDay() / 1000000L);
+		default:
+			if (value instanceof byte[]) {
+				return new String((byte[]) value, UTF8);
+			}
+			return value.toString();
+		}
+	}
+
+	/**
+	 * Writes a canonical value.
+	 */
+	void write(DataOutputStream out, Object value) throws IOException {
+		switch (this) {
+		case BOOLEAN:
+			out.writeBoolean((Boolean) value);
+			break;
+		case INT64:
+		case TIMESTAMP:
+			out.writeLong((Long) value);
+			break;
+		case DOUBLE:
+			out.writeDouble((Double) value);
+			break;
+		case DATE:
+		case TIME:
+			out.writeInt((Integer) value);
+			break;
+		case BINARY:
+			out.writeInt(((byte[]) value).length);
+			out.write((byte[]) value);
+			break;
+		default:
+			byte[] bytes = ((String) value).getBytes(UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Reads a canonical value.
+	 */
+	Object read(DataInputStream in) throws IOException {
+		switch (this) {
+		case BOOLEAN:
+			return in.readBoolean();
+		case INT64:
+		case TIMESTAMP:
+			return in.readLong();
+		case DOUBLE:
+			return in.readDouble();
+		case DATE:
+		case TIME:
+			return in.readInt();
+		case BINARY:
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return bytes;
+		default:
+			byte[] s = new byte[in.readInt()];
+			in.readFully(s);
+			return new String(s, UTF8);
+		}
+	}
+
+	/**
+	 * Estimates the number of bytes a canonical value occupies.
+	 */
+	int estimateSize(Object value) {
+		switch (this) {
+		case BOOLEAN:
+			return 1;
+		case DATE:
+		case TIME:
+			return 4;
+		case INT64:
+		case TIMESTAMP:
+		case DOUBLE:
+			return 8;
+		case BINARY:
+			return 4 + ((byte[]) value).length;
+		default:
+			return 4 + 2 * ((String) value).length();
+		}
+	}
+
+}
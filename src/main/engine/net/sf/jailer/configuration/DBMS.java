@@ -111,6 +111,9 @@ public class DBMS {
 		this.viewTextOrDDLQuery = other.viewTextOrDDLQuery;
 		this.synonymTableQuery = other.synonymTableQuery;
 		this.estimatedRowCountQuery = other.estimatedRowCountQuery;
+		this.tableSampleClause = other.tableSampleClause;
+		this.workingTablePartitioning = other.workingTablePartitioning;
+		this.workingTablePartitionDDL = other.workingTablePartitionDDL;
 		this.virtualColumnsQuery = other.virtualColumnsQuery;
 		this.userDefinedColumnsQuery = other.userDefinedColumnsQuery;
 		this.importedKeysQuery = other.importedKeysQuery;
@@ -315,6 +318,9 @@ public class DBMS {
 	private String synonymTableQuery;
 	private String viewTextOrDDLQuery = "SELECT VIEW_DEFINITION FROM INFORMATION_SCHEMA.VIEWS WHERE TABLE_SCHEMA = '%1$s' and TABLE_NAME = '%2$s'";
 	private String estimatedRowCountQuery = null;
+	private String tableSampleClause = null;
+	private String workingTablePartitioning = null;
+	private String workingTablePartitionDDL = null;
 	private String userDefinedColumnsQuery = null;
 	private String importedKeysQuery = null;
 	private String primaryKeysQuery = null;
@@ -1205,6 +1211,60 @@ public class DBMS {
 		this.estimatedRowCountQuery = estimatedRowCountQuery;
 	}
 
+	/**
+	 * Gets the template of a table reference that reads only a random sample of the rows.
+	 * (%1$s = table, %2$s = alias (may be empty), %3$s = percentage of the rows)
+	 *
+	 * @return the template or <code>null</code> if the DBMS does not support sampling
+	 */
+	public String getTableSampleClause() {
+		return tableSampleClause;
+	}
+
+	/**
+	 * Sets the template of a table reference that reads only a random sample of the rows.
+	 * (%1$s = table, %2$s = alias (may be empty), %3$s = percentage of the rows)
+	 */
+	public void setTableSampleClause(String tableSampleClause) {
+		this.tableSampleClause = tableSampleClause;
+	}
+
+	/**
+	 * Gets the template of the clause that hash-partitions a working table by entity-graph.
+	 * (%1$s = number of partitions)
+	 *
+	 * @return the template or <code>null</code> if the working tables can't be partitioned
+	 */
+	public String getWorkingTablePartitioning() {
+		return workingTablePartitioning;
+	}
+
+	/**
+	 * Sets the template of the clause that hash-partitions a working table by entity-graph.
+	 * (%1$s = number of partitions)
+	 */
+	public void setWorkingTablePartitioning(String workingTablePartitioning) {
+		this.workingTablePartitioning = workingTablePartitioning;
+	}
+
+	/**
+	 * Gets the template of the statement that creates a partition of a working table.
+	 * (%1$s = partitioned table, %2$s = number of partitions, %3$s = partition number (starting at 0), %4$s = create-table prefix)
+	 *
+	 * @return the template or <code>null</code> if the partitioning clause creates the partitions
+	 */
+	public String getWorkingTablePartitionDDL() {
+		return workingTablePartitionDDL;
+	}
+
+	/**
+	 * Sets the template of the statement that creates a partition of a working table.
+	 * (%1$s = partitioned table, %2$s = number of partitions, %3$s = partition number (starting at 0), %4$s = create-table prefix)
+	 */
+	public void setWorkingTablePartitionDDL(String workingTablePartitionDDL) {
+		this.workingTablePartitionDDL = workingTablePartitionDDL;
+	}
+
 	/**
 	 * Gets query to get view text.
 	 */
@@ -47,7 +47,16 @@ public class LocalDatabase {
 	 * Creates a local database.
 	 */
 	public LocalDatabase(String driverClassName, String urlPattern, String user, String password, String jarfile) throws ClassNotFoundException, FileNotFoundException, SQLException {
-		this.databaseFolder = new File(Configuration.getInstance().getTempFileFolder().replace(";", "-") + File.separator + UUID.randomUUID().toString()).getAbsolutePath();
+		this(driverClassName, urlPattern, user, password, jarfile, new File(Configuration.getInstance().getTempFileFolder().replace(";", "-") + File.separator + UUID.randomUUID().toString()).getAbsolutePath());
+	}
+
+	/**
+	 * Creates or reopens a local database.
+	 *
+	 * @param databaseFolder name of the folder containing the local database
+	 */
+	public LocalDatabase(String driverClassName, String urlPattern, String user, String password, String jarfile, String databaseFolder) throws ClassNotFoundException, FileNotFoundException, SQLException {
+		this.databaseFolder = databaseFolder;
 		new File(databaseFolder).mkdirs();
 		BasicDataSource dataSource;
 		URL[] urlArray;
@@ -71,10 +80,13 @@ public class LocalDatabase {
 	}
 
 	/**
-	 * Shut local database down. Remove all database files.
+	 * Shut local database down. Remove all database files (unless they are kept, see {@link #setKeepFiles(boolean)}).
 	 */
 	public void shutDown() throws SQLException {
 		session.shutDown();
+		if (keepFiles) {
+			return;
+		}
 		File localFolder = new File(databaseFolder);
 		File[] listFiles = localFolder.listFiles();
 		if (listFiles != null) {
@@ -85,6 +97,27 @@ public class LocalDatabase {
 		localFolder.delete();
 	}
 
+	/**
+	 * If <code>true</code>, {@link #shutDown()} keeps the database files.
+	 */
+	private boolean keepFiles = false;
+
+	/**
+	 * Keeps the database files at shut down (so that the database can be reopened).
+	 *
+	 * @param keepFiles <code>true</code> to keep the files
+	 */
+	public void setKeepFiles(boolean keepFiles) {
+		this.keepFiles = keepFiles;
+	}
+
+	/**
+	 * Gets the name of the folder containing the local database.
+	 */
+	public String getDatabaseFolder() {
+		return databaseFolder;
+	}
+
 	/**
 	 * Gets the {@link Session} for the local database.
 	 * 
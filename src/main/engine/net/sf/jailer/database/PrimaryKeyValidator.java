@@ -18,7 +18,6 @@ package net.sf.jailer.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -30,11 +29,13 @@ import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.JobManager;
-import net.sf.jailer.util.JobManager.Job;
 import net.sf.jailer.util.Quoting;
 
 /**
- * Validates all primary keys of a set of tables.
+ * Validates all primary keys of a set of tables.<br>
+ * <br>
+ * Uniqueness and absence of null values are checked with a single query per table.
+ * Primary keys that are backed by a primary key constraint of the database are not checked.
  *
  * @author Ralf Wisser
  */
@@ -60,62 +61,24 @@ public abstract class PrimaryKeyValidator {
 		updateProgressBar();
 
 		String defaultSchema = JDBCMetaDataBasedModelElementFinder.getDefaultSchema(session, session.getSchema());
-		List<JobManager.Job> jobsUDPK = new ArrayList<JobManager.Job>();
-		List<JobManager.Job> jobsRealPK = new ArrayList<JobManager.Job>();
+		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
 		for (final Table table: tables) {
 			CancellationHandler.checkForCancellation(cancellationContext);
 			if (table.primaryKey == null || table.primaryKey.getColumns().isEmpty()) {
 				// nothing to check here
 				continue;
 			}
-			boolean realPK = false;
-			try {
-				ResultSet resultSet = JDBCMetaDataBasedModelElementFinder.getPrimaryKeys(
-						session,
-						Quoting.staticUnquote(table.getSchema(defaultSchema)),
-						Quoting.staticUnquote(table.getUnqualifiedName()),
-						true);
-				Set<String> pkColumns = new HashSet<String>();
-				while (resultSet.next()) {
-					String colName = Quoting.normalizeIdentifier(resultSet.getString(4));
-					pkColumns.add(colName);
-				}
-				resultSet.close();
-				Set<String> tabPkColumns = new HashSet<String>();
-				for (Column pkCol: table.primaryKey.getColumns()) {
-					tabPkColumns.add(Quoting.normalizeIdentifier(pkCol.name));
-				}
-				if (tabPkColumns.equals(pkColumns)) {
-					// real PK
-					realPK = true;
-				}
-			} catch (Exception e) {
-				// ignore
-			}
-
-			List<JobManager.Job> jobListToAddTo;
-			if (realPK) {
-				jobListToAddTo = jobsRealPK;
-			} else {
-				jobListToAddTo = jobsUDPK;
+			if (isRealPrimaryKey(session, table, defaultSchema)) {
+				// enforced by the database
+				continue;
 			}
-
-			jobListToAddTo.add(() -> {
-				checkUniqueness(session, table, Quoting.getQuoting(session));
-				numDone.getAndIncrement();
-				updateProgressBar();
-			});
-			jobListToAddTo.add(() -> {
-				checkNoNull(session, table, Quoting.getQuoting(session));
+			jobs.add(() -> {
+				checkPrimaryKey(session, table, Quoting.getQuoting(session));
 				numDone.getAndIncrement();
 				updateProgressBar();
 			});
 		}
 
-		Collection<Job> jobs = new ArrayList<JobManager.Job>();
-		jobs.addAll(jobsUDPK);
-		jobs.addAll(jobsRealPK);
-
 		numTotal.set(jobs.size());
 		updateProgressBar();
 
@@ -128,6 +91,34 @@ public abstract class PrimaryKeyValidator {
 		CancellationHandler.checkForCancellation(cancellationContext);
 	}
 
+	/**
+	 * Checks whether the primary key of a table is a primary key constraint in the database.
+	 * The meta data is read per schema (see {@link JDBCMetaDataBasedModelElementFinder#getPrimaryKeys(Session, String, String, boolean)}).
+	 */
+	private boolean isRealPrimaryKey(Session session, Table table, String defaultSchema) {
+		try {
+			ResultSet resultSet = JDBCMetaDataBasedModelElementFinder.getPrimaryKeys(
+					session,
+					Quoting.staticUnquote(table.getSchema(defaultSchema)),
+					Quoting.staticUnquote(table.getUnqualifiedName()),
+					true);
+			Set<String> pkColumns = new HashSet<String>();
+			while (resultSet.next()) {
+				String colName = Quoting.normalizeIdentifier(resultSet.getString(4));
+				pkColumns.add(colName);
+			}
+			resultSet.close();
+			Set<String> tabPkColumns = new HashSet<String>();
+			for (Column pkCol: table.primaryKey.getColumns()) {
+				tabPkColumns.add(Quoting.normalizeIdentifier(pkCol.name));
+			}
+			return tabPkColumns.equals(pkColumns);
+		} catch (Exception e) {
+			// ignore
+			return false;
+		}
+	}
+
 	private synchronized void throwIfErrorFound() throws SqlException {
 		errorMessage.append(errorMessageLowPrio);
 		errorStatements.append(errorStatementsLowPrio);
@@ -144,51 +135,50 @@ public abstract class PrimaryKeyValidator {
 		}
 	}
 
-	private void checkUniqueness(Session session, final Table table, Quoting quoting) throws SQLException {
+	/**
+	 * Checks uniqueness and absence of null values (in non-nullable columns) in a single scan.
+	 */
+	private void checkPrimaryKey(Session session, final Table table, Quoting quoting) throws SQLException {
 		StringBuilder pks = new StringBuilder();
+		StringBuilder hasNull = new StringBuilder();
+		final List<Integer> nonNullableColumns = new ArrayList<Integer>();
+		int i = 0;
 		for (Column pkCol: table.primaryKey.getColumns()) {
+			++i;
 			if (pks.length() > 0) {
 				pks.append(", ");
 			}
 			pks.append(quoting.requote(pkCol.name));
+			if (!pkCol.isNullable) {
+				hasNull.append(" or " + quoting.requote(pkCol.name) + " is null");
+				nonNullableColumns.add(i);
+			}
 		}
-		final String sql = "Select " + pks + " from " + quoting.requote(table.getName()) + " " +
-				"Group by " + pks + " having count(*) > 1";
+		final int countColumn = i + 1;
+		final String sql = "Select " + pks + ", count(*) from " + quoting.requote(table.getName()) + " " +
+				"Group by " + pks + " having count(*) > 1" + hasNull;
+		final boolean[] valid = new boolean[] { true, true };
 		try {
 			session.executeQuery(sql, new Session.AbstractResultSetReader() {
 				@Override
 				public void readCurrentRow(ResultSet resultSet) throws SQLException {
-					addError(null, "Primary key of table \"" + table.getName() + "\" is not unique.", sql.toString());
+					if (valid[0] && resultSet.getLong(countColumn) > 1) {
+						valid[0] = false;
+						addError(null, "Primary key of table \"" + table.getName() + "\" is not unique.", sql);
+					}
+					if (valid[1]) {
+						for (int column: nonNullableColumns) {
+							if (resultSet.getObject(column) == null) {
+								valid[1] = false;
+								addError(null, "Primary key of table \"" + table.getName() + "\" contains null.", sql);
+								break;
+							}
+						}
+					}
 				}
-			}, null, cancellationContext, 1, true);
+			}, null, cancellationContext, 100, true);
 		} catch (SqlException e) {
-			addError(table, "Table \"" + table.getName() + "\": " + e.message, sql.toString());
-		}
-	}
-
-	private void checkNoNull(Session session, final Table table, Quoting quoting) throws SQLException {
-		StringBuilder hasNull = new StringBuilder();
-		for (Column pkCol: table.primaryKey.getColumns()) {
-			if (!pkCol.isNullable) {
-				if (hasNull.length() > 0) {
-					hasNull.append(" or ");
-				}
-				hasNull.append(quoting.requote(pkCol.name) + " is null");
-			}
-		}
-		if (hasNull.length() > 0) {
-			final String sql = "Select * from " + quoting.requote(table.getName()) + " " +
-					"Where " + hasNull;
-			try {
-				session.executeQuery(sql, new Session.AbstractResultSetReader() {
-					@Override
-					public void readCurrentRow(ResultSet resultSet) throws SQLException {
-						addError(null, "Primary key of table \"" + table.getName() + "\" contains null.", sql.toString());
-					}
-				}, null, cancellationContext, 1, true);
-			} catch (SqlException e) {
-				addError(table, "Table \"" + table.getName() + "\": " + e.message, sql.toString());
-			}
+			addError(table, "Table \"" + table.getName() + "\": " + e.message, sql);
 		}
 	}
 
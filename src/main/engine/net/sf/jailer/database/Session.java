@@ -46,6 +46,7 @@ import org.slf4j.LoggerFactory;
 
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.metrics.Metrics;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.CellContentConverter;
@@ -613,8 +614,12 @@ public class Session {
 			}
 		}
 		long rc = 0;
+		if (context == null) {
+			context = cancellationContext;
+		}
 		CancellationHandler.checkForCancellation(context);
 		long startTime = System.currentTimeMillis();
+		Metrics.Sample sample = metrics.start();
 		Statement statement = null;
 		try {
 			final String woSuffix = " /*!*/";
@@ -689,6 +694,7 @@ public class Session {
 		if (getLogStatements()) {
 			_log.info(rc + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
 		}
+		sample.stop(Metrics.SQL_QUERY, rc);
 		return rc;
 	}
 
@@ -776,7 +782,7 @@ public class Session {
 		if (getLogStatements()) {
 			_log.info(sqlUpdate);
 		}
-		CancellationHandler.checkForCancellation(null);
+		CancellationHandler.checkForCancellation(cancellationContext);
 		try {
 			int rowCount = 0;
 			int failures = 0;
@@ -785,12 +791,13 @@ public class Session {
 
 			while (!ok) {
 				long startTime = System.currentTimeMillis();
+				Metrics.Sample sample = metrics.start();
 				Statement statement = null;
 				Connection con = null;
 				try {
 					con = connectionFactory.getConnection();
 					statement = con.createStatement();
-					begin(statement, null);
+					begin(statement, cancellationContext);
 					if (serializeAccess) {
 						boolean acquired;
 						try {
@@ -825,9 +832,10 @@ public class Session {
 						}
 					}
 
-					end(statement, null);
+					end(statement, cancellationContext);
 					releaseConnection(con);
 					ok = true;
+					sample.stop(Metrics.SQL_UPDATE, rowCount);
 					if (getLogStatements()) {
 						_log.info("" + rowCount + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
 					}
@@ -836,8 +844,8 @@ public class Session {
 						markConnectionAsPotentiallyInvalid(con);
 					}
 					checkKilled();
-					CancellationHandler.checkForCancellation(null);
-					end(statement, null);
+					CancellationHandler.checkForCancellation(cancellationContext);
+					end(statement, cancellationContext);
 
 					boolean isRetrieable = isRetrieable(e);
 					if (++failures > MAXIMUM_NUMBER_OF_FAILURES || !isRetrieable) {
@@ -859,7 +867,7 @@ public class Session {
 			}
 			return rowCount;
 		} catch (SQLException e) {
-			CancellationHandler.checkForCancellation(null);
+			CancellationHandler.checkForCancellation(cancellationContext);
 			if (!silent) {
 				_log.error("Error executing statement", e);
 			} else {
@@ -888,20 +896,22 @@ public class Session {
 		PreparedStatement statement = null;
 		Connection con = null;
 		try {
-			CancellationHandler.checkForCancellation(null);
+			CancellationHandler.checkForCancellation(cancellationContext);
 			int rowCount = 0;
 			long startTime = System.currentTimeMillis();
+			Metrics.Sample sample = metrics.start();
 			try {
 				con = connectionFactory.getConnection();
 				statement = con.prepareStatement(sqlUpdate);
-				begin(statement, null);
+				begin(statement, cancellationContext);
 				int i = 1;
 				for (Object p: parameter) {
 					statement.setObject(i++, p);
 				}
 				rowCount = statement.executeUpdate();
-				end(statement, null);
+				end(statement, cancellationContext);
 				releaseConnection(con);
+				sample.stop(Metrics.SQL_UPDATE, rowCount);
 				if (getLogStatements()) {
 					_log.info("" + rowCount + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
 				}
@@ -916,7 +926,7 @@ public class Session {
 				markConnectionAsPotentiallyInvalid(con);
 			}
 			checkKilled();
-			CancellationHandler.checkForCancellation(null);
+			CancellationHandler.checkForCancellation(cancellationContext);
 			if (!silent) {
 				_log.error("Error executing statement", e);
 			}
@@ -937,7 +947,7 @@ public class Session {
 		try {
 			con = connectionFactory.getConnection();
 			statement = con.prepareStatement(sqlUpdate);
-			begin(statement, null);
+			begin(statement, cancellationContext);
 			InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(lobFile), "UTF-8");
 			statement.setCharacterStream(1, inputStreamReader, (int) length);
 			statement.execute();
@@ -947,13 +957,13 @@ public class Session {
 				markConnectionAsPotentiallyInvalid(con);
 			}
 			checkKilled();
-			CancellationHandler.checkForCancellation(null);
+			CancellationHandler.checkForCancellation(cancellationContext);
 			throw e;
 		} finally {
 			if (statement != null) {
 				try {
 					statement.close();
-					end(statement, null);
+					end(statement, cancellationContext);
 				} catch (SQLException e) {
 				}
 			}
@@ -971,7 +981,7 @@ public class Session {
 		try {
 			con = connectionFactory.getConnection();
 			statement = con.prepareStatement(sqlUpdate);
-			begin(statement, null);
+			begin(statement, cancellationContext);
 			InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(lobFile), "UTF-8");
 			statement.setCharacterStream(1, inputStreamReader, (int) length);
 			statement.execute();
@@ -981,13 +991,13 @@ public class Session {
 				markConnectionAsPotentiallyInvalid(con);
 			}
 			checkKilled();
-			CancellationHandler.checkForCancellation(null);
+			CancellationHandler.checkForCancellation(cancellationContext);
 			throw e;
 		} finally {
 			if (statement != null) {
 				try {
 					statement.close();
-					end(statement, null);
+					end(statement, cancellationContext);
 				} catch (SQLException e) {
 				}
 			}
@@ -1005,7 +1015,7 @@ public class Session {
 		try {
 			con = connectionFactory.getConnection();
 			statement = con.prepareStatement(sqlUpdate);
-			begin(statement, null);
+			begin(statement, cancellationContext);
 			FileInputStream fileInputStream = new FileInputStream(lobFile);
 			statement.setBinaryStream(1, fileInputStream, (int) lobFile.length());
 			statement.execute();
@@ -1015,13 +1025,13 @@ public class Session {
 				markConnectionAsPotentiallyInvalid(con);
 			}
 			checkKilled();
-			CancellationHandler.checkForCancellation(null);
+			CancellationHandler.checkForCancellation(cancellationContext);
 			throw e;
 		} finally {
 			if (statement != null) {
 				try {
 					statement.close();
-					end(statement, null);
+					end(statement, cancellationContext);
 				} catch (SQLException e) {
 				}
 			}
@@ -1046,7 +1056,7 @@ public class Session {
 		if (getLogStatements()) {
 			_log.info(sql);
 		}
-		CancellationHandler.checkForCancellation(null);
+		CancellationHandler.checkForCancellation(this.cancellationContext);
 		try {
 			int rowCount = 0;
 			int failures = 0;
@@ -1055,12 +1065,13 @@ public class Session {
 
 			while (!ok) {
 				long startTime = System.currentTimeMillis();
+				Metrics.Sample sample = metrics.start();
 				Statement statement = null;
 				Connection con = null;
 				try {
 					con = connectionFactory.getConnection();
 					statement = con.createStatement();
-					begin(statement, null);
+					begin(statement, this.cancellationContext);
 					if (serializeAccess) {
 						boolean acquired;
 						try {
@@ -1115,9 +1126,10 @@ public class Session {
 						}
 					}
 
-					end(statement, null);
+					end(statement, this.cancellationContext);
 					releaseConnection(con);
 					ok = true;
+					sample.stop(Metrics.SQL_UPDATE, rowCount);
 					if (getLogStatements()) {
 						_log.info("" + rowCount + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
 					}
@@ -1126,8 +1138,8 @@ public class Session {
 						markConnectionAsPotentiallyInvalid(con);
 					}
 					checkKilled();
-					CancellationHandler.checkForCancellation(null);
-					end(statement, null);
+					CancellationHandler.checkForCancellation(this.cancellationContext);
+					end(statement, this.cancellationContext);
 
 					boolean isRetrieable = isRetrieable(e);
 					if (++failures > MAXIMUM_NUMBER_OF_FAILURES || !isRetrieable) {
@@ -1149,7 +1161,7 @@ public class Session {
 			}
 			return rowCount;
 		} catch (SQLException e) {
-			CancellationHandler.checkForCancellation(null);
+			CancellationHandler.checkForCancellation(this.cancellationContext);
 			if (!silent) {
 				_log.error("Error executing statement", e);
 			} else {
@@ -1225,6 +1237,16 @@ public class Session {
 		_log.info("connection closed");
 	}
 
+	/**
+	 * Does each thread get its own connection?
+	 * If not, all threads share the connection of the (transactional or session local) session.
+	 *
+	 * @return <code>true</code> if connections are thread local
+	 */
+	public boolean hasConnectionPerThread() {
+		return !(transactional && !local) && scope != WorkingTableScope.SESSION_LOCAL && scope != WorkingTableScope.TRANSACTION_LOCAL;
+	}
+
 	public boolean isDown() {
 		return down.get();
 	}
@@ -1252,6 +1274,46 @@ public class Session {
 		}
 	}
 
+	private volatile Object cancellationContext = null;
+
+	/**
+	 * Sets the context for cancellation requests used for statements executed without explicit context.
+	 *
+	 * @param cancellationContext the cancellation context, <code>null</code> for the default context
+	 */
+	public void setCancellationContext(Object cancellationContext) {
+		this.cancellationContext = cancellationContext;
+	}
+
+	/**
+	 * Gets the context for cancellation requests used for statements executed without explicit context.
+	 *
+	 * @return the cancellation context, <code>null</code> for the default context
+	 */
+	public Object getCancellationContext() {
+		return cancellationContext;
+	}
+
+	private volatile Metrics metrics = Metrics.NONE;
+
+	/**
+	 * Sets the metrics receiving the timings of the statements.
+	 *
+	 * @param metrics the metrics, {@link Metrics#NONE} to discard the timings
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Gets the metrics receiving the timings of the statements.
+	 *
+	 * @return the metrics, {@link Metrics#NONE} if the timings are discarded
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
 	private long currentVersion = 0;
 	private static ThreadLocal<Long> runningVersion = new ThreadLocal<Long>();
 	private Map<Statement, Statement> runningStatements = new IdentityHashMap<Statement, Statement>();
@@ -19,9 +19,12 @@ package net.sf.jailer.database;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.Configuration;
@@ -36,6 +39,11 @@ import net.sf.jailer.util.SqlScriptExecutor;
  */
 public class SqlScriptBasedStatisticRenovator implements StatisticRenovator {
 
+	/**
+	 * Names of the working-tables.
+	 */
+	private static final String[] WORKING_TABLES = new String[] { "JAILER_ENTITY", "JAILER_GRAPH", "JAILER_DEPENDENCY", "JAILER_SET" };
+
 	/**
 	 * Name of SQL-script file.
 	 */
@@ -82,11 +90,26 @@ public class SqlScriptBasedStatisticRenovator implements StatisticRenovator {
 	 */
 	@Override
 	public void renew(Session session, ExecutionContext executionContext) throws Exception {
+		renew(session, executionContext, null);
+	}
+
+	/**
+	 * Renews the DB table statistics for some of the working-tables
+	 * by executing those statements of the SQL-script that refer to them.
+	 * 
+	 * @param session for execution of SQL-statements
+	 * @param workingTables names of the working-tables (such as "JAILER_ENTITY"), <code>null</code> for all
+	 */
+	public void renew(Session session, ExecutionContext executionContext, Set<String> workingTables) throws Exception {
 		Map<String, String> arguments = new HashMap<String, String>();
-		arguments.put("JAILER_ENTITY", SQLDialect.dmlTableReference("JAILER_ENTITY", session, executionContext));
-		arguments.put("JAILER_GRAPH", SQLDialect.dmlTableReference("JAILER_GRAPH", session, executionContext));
-		arguments.put("JAILER_DEPENDENCY", SQLDialect.dmlTableReference("JAILER_DEPENDENCY", session, executionContext));
-		arguments.put("JAILER_SET", SQLDialect.dmlTableReference("JAILER_SET", session, executionContext));
+		List<String> excludedTables = new ArrayList<String>();
+		for (String workingTable: WORKING_TABLES) {
+			if (workingTables == null || workingTables.contains(workingTable)) {
+				arguments.put(workingTable, SQLDialect.dmlTableReference(workingTable, session, executionContext));
+			} else {
+				excludedTables.add(workingTable);
+			}
+		}
 		Map<String, String> splittedArguments = new HashMap<String, String>();
 		for (Entry<String, String> e: arguments.entrySet()) {
 			String schtab = e.getValue();
@@ -106,7 +129,24 @@ public class SqlScriptBasedStatisticRenovator implements StatisticRenovator {
 		arguments.putAll(splittedArguments);
 		File file = Configuration.getInstance().createTempFile();
 		PrintWriter out = new PrintWriter(new FileOutputStream(file));
-		out.print(new PrintUtil().applyTemplate(scriptFileName.replace('/', File.separatorChar), arguments, null));
+		String script = new PrintUtil().applyTemplate(scriptFileName.replace('/', File.separatorChar), arguments, null);
+		if (!excludedTables.isEmpty()) {
+			StringBuilder sb = new StringBuilder();
+			for (String line: script.split("\n")) {
+				boolean excluded = false;
+				for (String table: excludedTables) {
+					if (line.contains("${" + table + "}") || line.contains("${TABLE_" + table + "}") || line.contains("${SCHEMA_" + table + "}")) {
+						excluded = true;
+						break;
+					}
+				}
+				if (!excluded) {
+					sb.append(line).append("\n");
+				}
+			}
+			script = sb.toString();
+		}
+		out.print(script);
 		out.close();
 		boolean silent = session.getSilent();
 		session.setSilent(true);
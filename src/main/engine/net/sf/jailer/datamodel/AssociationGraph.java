@@ -0,0 +1,351 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.datamodel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the association graph of a data model. <br>
+ * <br>
+ * Tables are numbered, the associations are stored as adjacency arrays
+ * and the state of the restrictions (ignored, restricted, dependency) is kept in bit sets.
+ * An instance reflects the model at the time of its creation and is not modified afterwards.
+ * When only the restrictions change, a new instance sharing the adjacency arrays is created (see {@link DataModel#getAssociationGraph()}).
+ * <br>
+ * The distances from a root table are computed on demand and memorized for the most recently used roots.
+ *
+ * @author Ralf Wisser
+ */
+public class AssociationGraph {
+
+	/**
+	 * Maximum number of roots for which distances are memorized.
+	 */
+	private static final int MAX_MEMORIZED_ROOTS = 32;
+
+	/**
+	 * The tables, ordered by id.
+	 */
+	private final Table[] tables;
+
+	/**
+	 * Id per table.
+	 */
+	private final Map<Table, Integer> ids;
+
+	/**
+	 * The associations of table i are the edges firstEdge[i] (inclusive) to firstEdge[i + 1] (exclusive).
+	 */
+	private final int[] firstEdge;
+
+	/**
+	 * Id of destination table per edge.
+	 */
+	private final int[] destination;
+
+	/**
+	 * Association per edge.
+	 */
+	private final Association[] associations;
+
+	/**
+	 * Edges of ignored associations.
+	 */
+	private final BitSet ignored;
+
+	/**
+	 * Edges of restricted (including ignored) associations.
+	 */
+	private final BitSet restricted;
+
+	/**
+	 * Edges of associations whose destination must be inserted before the source.
+	 */
+	private final BitSet dependency;
+
+	/**
+	 * Memorized distances per root, least recently used first.
+	 */
+	private final Map<Integer, int[]> distances = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = -1570939582313398733L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+			return size() > MAX_MEMORIZED_ROOTS;
+		}
+	};
+
+	/**
+	 * Creates the index.
+	 *
+	 * @param tables all tables of the model
+	 */
+	AssociationGraph(Collection<Table> tables) {
+		this.tables = tables.toArray(new Table[0]);
+		this.ids = new HashMap<Table, Integer>();
+		int numEdges = 0;
+		for (int i = 0; i < this.tables.length; ++i) {
+			ids.put(this.tables[i], i);
+			numEdges += this.tables[i].associations.size();
+		}
+		firstEdge = new int[this.tables.length + 1];
+		destination = new int[numEdges];
+		associations = new Association[numEdges];
+		int edge = 0;
+		for (int i = 0; i < this.tables.length; ++i) {
+			firstEdge[i] = edge;
+			for (Association association: this.tables[i].associations) {
+				Integer destId = ids.get(association.destination);
+				destination[edge] = destId == null? -1 : destId;
+				associations[edge] = association;
+				++edge;
+			}
+		}
+		firstEdge[this.tables.length] = edge;
+		ignored = new BitSet(numEdges);
+		restricted = new BitSet(numEdges);
+		dependency = new BitSet(numEdges);
+		readRestrictions();
+	}
+
+	/**
+	 * Creates an index with the same tables and associations as a given one, but with the current restrictions.
+	 *
+	 * @param structure the index to share the tables and associations with
+	 */
+	private AssociationGraph(AssociationGraph structure) {
+		tables = structure.tables;
+		ids = structure.ids;
+		firstEdge = structure.firstEdge;
+		destination = structure.destination;
+		associations = structure.associations;
+		ignored = new BitSet(associations.length);
+		restricted = new BitSet(associations.length);
+		dependency = new BitSet(associations.length);
+		readRestrictions();
+	}
+
+	private void readRestrictions() {
+		for (int edge = 0; edge < associations.length; ++edge) {
+			Association association = associations[edge];
+			if (association.isIgnored()) {
+				ignored.set(edge);
+			}
+			if (association.isRestricted()) {
+				restricted.set(edge);
+			}
+			if (association.isInsertDestinationBeforeSource()) {
+				dependency.set(edge);
+			}
+		}
+	}
+
+	/**
+	 * Creates an index for the current restrictions.
+	 *
+	 * @return index sharing the tables and associations with this one
+	 */
+	AssociationGraph withCurrentRestrictions() {
+		return new AssociationGraph(this);
+	}
+
+	/**
+	 * Checks whether this index still reflects the tables and associations of a model.
+	 *
+	 * @param tables all tables of the model
+	 */
+	boolean hasStructureOf(Collection<Table> tables) {
+		if (tables.size() != this.tables.length) {
+			return false;
+		}
+		for (Table table: tables) {
+			int id = getId(table);
+			if (id < 0 || firstEdge[id + 1] - firstEdge[id] != table.associations.size()) {
+				return false;
+			}
+			int edge = firstEdge[id];
+			for (Association association: table.associations) {
+				if (associations[edge++] != association) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the id of a table.
+	 *
+	 * @param table the table
+	 * @return the id or <code>-1</code> if the table is not part of the index
+	 */
+	public int getId(Table table) {
+		Integer id = ids.get(table);
+		if (id == null || tables[id] != table) {
+			return -1;
+		}
+		return id;
+	}
+
+	/**
+	 * Is a table part of the index?
+	 *
+	 * @param table the table
+	 */
+	public boolean contains(Table table) {
+		return getId(table) >= 0;
+	}
+
+	/**
+	 * Gets the distance between two tables, following all non-ignored associations.
+	 *
+	 * @param root the table to start from
+	 * @param table the table to reach
+	 * @return the distance, <code>-1</code> if the table cannot be reached
+	 */
+	public int getDistance(Table root, Table table) {
+		int rootId = getId(root);
+		int id = getId(table);
+		if (rootId < 0 || id < 0) {
+			return -1;
+		}
+		return distances(rootId)[id];
+	}
+
+	/**
+	 * Gets the closure of a table (all tables associated (in-)directly with it via non-ignored associations).
+	 *
+	 * @param root the table
+	 * @return the closure
+	 */
+	public Set<Table> getClosure(Table root) {
+		Set<Table> closure = new HashSet<Table>();
+		int rootId = getId(root);
+		if (rootId >= 0) {
+			int[] distance = distances(rootId);
+			for (int i = 0; i < tables.length; ++i) {
+				if (distance[i] >= 0) {
+					closure.add(tables[i]);
+				}
+			}
+		}
+		return closure;
+	}
+
+	/**
+	 * Gets the number of distinct tables associated directly with a table via non-ignored associations.
+	 *
+	 * @param table the table
+	 * @return the degree of the table
+	 */
+	public int getDegree(Table table) {
+		int id = getId(table);
+		if (id < 0) {
+			return 0;
+		}
+		BitSet neighbors = new BitSet(tables.length);
+		for (int edge = firstEdge[id]; edge < firstEdge[id + 1]; ++edge) {
+			if (!ignored.get(edge) && destination[edge] >= 0) {
+				neighbors.set(destination[edge]);
+			}
+		}
+		return neighbors.cardinality();
+	}
+
+	/**
+	 * Is there a restricted (or ignored) association of a table?
+	 *
+	 * @param table the table
+	 */
+	public boolean hasRestrictedAssociation(Table table) {
+		int id = getId(table);
+		if (id < 0) {
+			return false;
+		}
+		int next = restricted.nextSetBit(firstEdge[id]);
+		return next >= 0 && next < firstEdge[id + 1];
+	}
+
+	/**
+	 * Gets all independent tables (i.e. tables which don't depend on other tables in the set)
+	 * of a given table-set.
+	 *
+	 * @param tableSet the table-set, all tables must be part of the index
+	 * @param associationsToConsider the associations to consider, <code>null</code> for all associations
+	 * @return the sub-set of independent tables of the table-set
+	 */
+	Set<Table> getIndependentTables(Set<Table> tableSet, Set<Association> associationsToConsider, Set<Table> independentTables) {
+		BitSet inSet = new BitSet(tables.length);
+		for (Table table: tableSet) {
+			inSet.set(getId(table));
+		}
+		for (int id = inSet.nextSetBit(0); id >= 0; id = inSet.nextSetBit(id + 1)) {
+			boolean depends = false;
+			for (int edge = dependency.nextSetBit(firstEdge[id]); edge >= 0 && edge < firstEdge[id + 1]; edge = dependency.nextSetBit(edge + 1)) {
+				if (destination[edge] >= 0 && inSet.get(destination[edge])) {
+					if (associationsToConsider == null || associationsToConsider.contains(associations[edge])) {
+						depends = true;
+						break;
+					}
+				}
+			}
+			if (!depends) {
+				independentTables.add(tables[id]);
+			}
+		}
+		return independentTables;
+	}
+
+	/**
+	 * Gets the distances from a root table (breadth first search).
+	 */
+	private int[] distances(int rootId) {
+		synchronized (distances) {
+			int[] distance = distances.get(rootId);
+			if (distance != null) {
+				return distance;
+			}
+		}
+		int[] distance = new int[tables.length];
+		Arrays.fill(distance, -1);
+		int[] queue = new int[tables.length];
+		int head = 0;
+		int tail = 0;
+		distance[rootId] = 0;
+		queue[tail++] = rootId;
+		while (head < tail) {
+			int id = queue[head++];
+			for (int edge = firstEdge[id]; edge < firstEdge[id + 1]; ++edge) {
+				int dest = destination[edge];
+				if (dest >= 0 && distance[dest] < 0 && !ignored.get(edge)) {
+					distance[dest] = distance[id] + 1;
+					queue[tail++] = dest;
+				}
+			}
+		}
+		synchronized (distances) {
+			distances.put(rootId, distance);
+		}
+		return distance;
+	}
+
+}
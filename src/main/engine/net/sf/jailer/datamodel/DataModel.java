@@ -58,6 +58,7 @@ import net.sf.jailer.restrictionmodel.RestrictionModel;
 import net.sf.jailer.subsetting.ScriptFormat;
 import net.sf.jailer.util.CsvFile;
 import net.sf.jailer.util.CsvFile.LineFilter;
+import net.sf.jailer.util.CycleIndex;
 import net.sf.jailer.util.PrintUtil;
 import net.sf.jailer.util.Quoting;
 import net.sf.jailer.util.SqlUtil;
@@ -754,6 +755,18 @@ public class DataModel {
 	public Set<Table> getIndependentTables(Set<Table> tableSet, Set<Association> associations) {
 		Set<Table> independentTables = new TreeSet<Table>();
 
+		AssociationGraph associationGraph = getAssociationGraph();
+		boolean indexed = true;
+		for (Table table: tableSet) {
+			if (!associationGraph.contains(table)) {
+				indexed = false;
+				break;
+			}
+		}
+		if (indexed) {
+			return associationGraph.getIndependentTables(tableSet, associations, independentTables);
+		}
+
 		for (Table table: tableSet) {
 			boolean depends = false;
 			for (Association a: table.associations) {
@@ -882,6 +895,51 @@ public class DataModel {
 		return version;
 	}
 
+	/**
+	 * Cycle index and the version for which it has been created.
+	 */
+	private CycleIndex cycleIndex;
+	private long cycleIndexVersion;
+
+	/**
+	 * Gets the strongly connected components of the dependency graph.
+	 * The index is created on demand and renewed after modifications of the model (see {@link #getVersion()}).
+	 *
+	 * @return the cycle index
+	 */
+	public synchronized CycleIndex getCycleIndex() {
+		if (cycleIndex == null || cycleIndexVersion != version) {
+			cycleIndexVersion = version;
+			cycleIndex = new CycleIndex(getTables());
+		}
+		return cycleIndex;
+	}
+
+	/**
+	 * Association graph index and the version for which it has been created.
+	 */
+	private AssociationGraph associationGraph;
+	private long associationGraphVersion;
+
+	/**
+	 * Gets the index of the association graph.
+	 * After modifications of the model (see {@link #getVersion()}) the index is renewed.
+	 * If the tables and associations are unchanged, only the state of the restrictions is read again.
+	 *
+	 * @return the association graph index
+	 */
+	public synchronized AssociationGraph getAssociationGraph() {
+		if (associationGraph == null || associationGraphVersion != version) {
+			if (associationGraph != null && associationGraph.hasStructureOf(getTables())) {
+				associationGraph = associationGraph.withCurrentRestrictions();
+			} else {
+				associationGraph = new AssociationGraph(getTables());
+			}
+			associationGraphVersion = version;
+		}
+		return associationGraph;
+	}
+
 	/**
 	 * Thrown if a table has no primary key.
 	 */
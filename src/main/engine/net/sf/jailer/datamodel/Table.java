@@ -268,6 +268,12 @@ public class Table extends ModelElement implements Comparable<Table> {
 	 * @return closure of the table (all tables associated (in-)direct with table)
 	 */
 	public Set<Table> closure(Set<Table> tablesToIgnore) {
+		if (tablesToIgnore.isEmpty() && !associations.isEmpty() && associations.get(0).getDataModel() != null) {
+			AssociationGraph associationGraph = associations.get(0).getDataModel().getAssociationGraph();
+			if (associationGraph.contains(this)) {
+				return associationGraph.getClosure(this);
+			}
+		}
 		Set<Table> closure = new HashSet<Table>();
 		List<Table> toCheck = new LinkedList<Table>();
 		Set<Table> checked = new HashSet<Table>(tablesToIgnore);
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -219,6 +220,10 @@ public class DDLCreator {
 			arguments.put("create-index-suffix", tableManager.getCreateIndexSuffix());
 			arguments.put("index-table-prefix", tableManager.getIndexTablePrefix());
 			arguments.put("schema", schema + tableManager.getDdlTableReferencePrefix());
+			arguments.put("create-partitioned-table", arguments.get("create-table"));
+			arguments.put("partitioning", "");
+			arguments.put("entity-partitions", "");
+			arguments.put("dependency-partitions", "");
 		} else {
 			String suffix = "";
 			String prefix = "";
@@ -236,6 +241,7 @@ public class DDLCreator {
 			arguments.put("create-index", "CREATE INDEX ");
 			arguments.put("create-index-suffix", "");
 			arguments.put("index-table-prefix", "");
+			putPartitioningArguments(arguments, session, schema, withTableProperties);
 		}
 
 		Map<String, List<String>> listArguments = new HashMap<String, List<String>>();
@@ -291,6 +297,42 @@ public class DDLCreator {
 		return true;
 	}
 
+	/**
+	 * Puts the arguments for hash-partitioning the entity and dependency tables by entity-graph
+	 * (see {@link ExecutionContext#getWorkingTablePartitions()}). Queries and deletions of an entity-graph
+	 * are then confined to one partition, and concurrent exports mostly work on different partitions.<br>
+	 * <br>
+	 * A partition holds the rows of several entity-graphs, so the rows of a graph are still removed with a
+	 * (partition-pruned) DELETE, not by dropping or truncating the partition.
+	 * Entity-graphs with typed entity tables (see {@link ExecutionContext#isTypedEntityTables()}) drop their tables instead.
+	 */
+	private void putPartitioningArguments(Map<String, String> arguments, Session session, String schema, boolean withTableProperties) {
+		int partitions = executionContext.getWorkingTablePartitions();
+		String partitioning = targetDBMS(session).getWorkingTablePartitioning();
+		String partitionDDL = targetDBMS(session).getWorkingTablePartitionDDL();
+		String createTable = arguments.get("create-table");
+		arguments.put("create-partitioned-table", createTable);
+		arguments.put("partitioning", "");
+		arguments.put("entity-partitions", "");
+		arguments.put("dependency-partitions", "");
+		if (partitions > 1 && partitioning != null && withTableProperties) {
+			// the partitioning clause follows the table properties
+			arguments.put("partitioning", " " + String.format(Locale.ENGLISH, partitioning, partitions));
+			if (partitionDDL != null) {
+				// table properties apply to the partitions
+				arguments.put("create-partitioned-table", "CREATE TABLE ");
+				StringBuilder entityPartitions = new StringBuilder();
+				StringBuilder dependencyPartitions = new StringBuilder();
+				for (int i = 0; i < partitions; ++i) {
+					entityPartitions.append(String.format(Locale.ENGLISH, partitionDDL, schema + "JAILER_ENTITY", partitions, i, createTable)).append(";\n");
+					dependencyPartitions.append(String.format(Locale.ENGLISH, partitionDDL, schema + "JAILER_DEPENDENCY", partitions, i, createTable)).append(";\n");
+				}
+				arguments.put("entity-partitions", entityPartitions.toString());
+				arguments.put("dependency-partitions", dependencyPartitions.toString());
+			}
+		}
+	}
+
 	private boolean supportsSchemasInIndexDefinitions(Session session) {
 		Boolean result = targetDBMS(session).getSupportsSchemasInIndexDefinitions();
 		if (result == null) {
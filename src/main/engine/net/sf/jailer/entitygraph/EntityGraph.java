@@ -378,6 +378,15 @@ public abstract class EntityGraph {
 	 */
 	public abstract long getTotalRowcount();
 
+	/**
+	 * Gets the number of rows inserted into the dependency table (part of the total row-count).
+	 *
+	 * @return number of dependencies
+	 */
+	public long getDependencyRowcount() {
+		return 0;
+	}
+
 	/**
 	 * Gets the universal primary key.
 	 *
@@ -408,6 +417,15 @@ public abstract class EntityGraph {
 
 	private static AtomicLong nextGraphId = new AtomicLong(System.currentTimeMillis() % 30000);
 
+	/**
+	 * Makes sure that {@link #createUniqueGraphID()} doesn't return the ID of an existing graph that is reopened.
+	 *
+	 * @param graphID ID of the reopened graph
+	 */
+	public static void reserveGraphID(int graphID) {
+		nextGraphId.updateAndGet(id -> Math.max(id, graphID + 1L));
+	}
+
 	private int lobCount = 0;
 
 	/**
@@ -433,6 +451,22 @@ public abstract class EntityGraph {
 		deleteRows(getSession(), dmlTableReference(DEPENDENCY, getSession()), "depend_id=" + association.getId() + " and r_entitygraph=" + graphID);
 	}
 
+	/**
+	 * Removes all entities born after a given day (the entities collected on the day an export was interrupted).
+	 *
+	 * @param day the day
+	 */
+	public void removeEntitiesBornAfter(int day) throws SQLException {
+		deleteRows(getSession(), dmlTableReference(ENTITY, getSession()), "r_entitygraph=" + graphID + " and birthday>" + day);
+	}
+
+	/**
+	 * Removes all dependencies.
+	 */
+	public void removeAllDependencies() throws SQLException {
+		deleteRows(getSession(), dmlTableReference(DEPENDENCY, getSession()), "r_entitygraph=" + graphID);
+	}
+
 	public abstract Session getTargetSession();
 
 	public void setDeleteMode(boolean deleteMode) {
@@ -627,6 +661,15 @@ public abstract class EntityGraph {
 		Long cnt = (Long) getSession().getSessionProperty(EntityGraph.class, "ExportedCount");
 		return cnt == null? 0 : cnt;
 	}
+
+	/**
+	 * Sets the number of exported rows (when resuming an interrupted export).
+	 *
+	 * @param count the number of rows exported before the interruption
+	 */
+	public void setExportedCount(long count) {
+		getSession().setSessionProperty(EntityGraph.class, "ExportedCount", count);
+	}
 	
 	/**
 	 * Gets all non-virtual columns of the table in the order in which they are selected.
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.entitygraph;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.SQLDialect;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.TemporaryTableManager;
+import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKey;
+import net.sf.jailer.datamodel.RowIdSupport;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.util.Quoting;
+
+/**
+ * Working tables of an entity-graph with one entity table per table
+ * (see {@link ExecutionContext#isTypedEntityTables()}). <br>
+ * The entity table of a table has the columns of the universal primary key that match the table's primary key,
+ * but with the native types of the primary key columns, and no "r_entitygraph" and "type" columns.
+ * Entities are thus compared with their rows using plain equi-joins. <br>
+ * Dependencies are stored in one table per pair of source and destination table,
+ * set elements in one table per table. <br>
+ * The tables are created on demand and dropped together with the graph.
+ *
+ * @author Ralf Wisser
+ */
+public class TypedWorkingTables {
+
+	/**
+	 * Name prefixes of the tables.
+	 */
+	private static final String ENTITY_PREFIX = "JAILER_E";
+	private static final String DEPENDENCY_PREFIX = "JAILER_D";
+	private static final String SET_PREFIX = "JAILER_S";
+
+	private final int graphID;
+	private final Session session;
+	private final PrimaryKey universalPrimaryKey;
+	private final RowIdSupport rowIdSupport;
+	private final ExecutionContext executionContext;
+
+	/**
+	 * DML references of the created tables.
+	 */
+	private final Map<Table, String> entityTables = new LinkedHashMap<Table, String>();
+	private final Map<Table, Map<Table, String>> dependencyTables = new LinkedHashMap<Table, Map<Table, String>>();
+	private final Map<Table, String> setTables = new LinkedHashMap<Table, String>();
+
+	/**
+	 * DDL references of the created tables (for dropping them).
+	 */
+	private final List<String> createdTables = new ArrayList<String>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param graphID the ID of the graph
+	 * @param session session in which the tables are created
+	 * @param universalPrimaryKey the universal primary key
+	 * @param rowIdSupport gives the primary key of each table
+	 */
+	public TypedWorkingTables(int graphID, Session session, PrimaryKey universalPrimaryKey, RowIdSupport rowIdSupport, ExecutionContext executionContext) {
+		this.graphID = graphID;
+		this.session = session;
+		this.universalPrimaryKey = universalPrimaryKey;
+		this.rowIdSupport = rowIdSupport;
+		this.executionContext = executionContext;
+	}
+
+	/**
+	 * Gets the entity table of a table. Creates it if it doesn't exist yet.
+	 *
+	 * @param table the table
+	 * @return DML reference of the entity table
+	 */
+	public synchronized String getEntityTable(Table table) throws SQLException {
+		String reference = entityTables.get(table);
+		if (reference == null) {
+			String name = ENTITY_PREFIX + graphID + "_" + table.getOrdinal();
+			reference = createTable(name,
+					columns(table, "") + ", " +
+					"birthday INTEGER NOT NULL, " +
+					"orig_birthday INTEGER" + nullableConstraint(),
+					columnList(table, "") + ", birthday", "birthday");
+			entityTables.put(table, reference);
+		}
+		return reference;
+	}
+
+	/**
+	 * Gets the dependency table of a pair of tables. Creates it if it doesn't exist yet.
+	 *
+	 * @param from source of the dependencies
+	 * @param to destination of the dependencies
+	 * @return DML reference of the dependency table
+	 */
+	public synchronized String getDependencyTable(Table from, Table to) throws SQLException {
+		String reference = getExistingDependencyTable(from, to);
+		if (reference == null) {
+			String name = DEPENDENCY_PREFIX + graphID + "_" + from.getOrdinal() + "_" + to.getOrdinal();
+			reference = createTable(name,
+					"assoc INTEGER NOT NULL, " +
+					"depend_id INTEGER NOT NULL, " +
+					"traversed INTEGER" + nullableConstraint() + ", " +
+					columns(from, "FROM_") + ", " +
+					columns(to, "TO_"),
+					"assoc, " + columnList(from, "FROM_"), columnList(to, "TO_"));
+			Map<Table, String> tables = dependencyTables.get(from);
+			if (tables == null) {
+				tables = new LinkedHashMap<Table, String>();
+				dependencyTables.put(from, tables);
+			}
+			tables.put(to, reference);
+		}
+		return reference;
+	}
+
+	/**
+	 * Gets the dependency table of a pair of tables.
+	 *
+	 * @param from source of the dependencies
+	 * @param to destination of the dependencies
+	 * @return DML reference of the dependency table or <code>null</code> if there is no dependency between the tables
+	 */
+	public synchronized String getExistingDependencyTable(Table from, Table to) {
+		Map<Table, String> tables = dependencyTables.get(from);
+		return tables == null? null : tables.get(to);
+	}
+
+	/**
+	 * Gets the set table of a table. Creates it if it doesn't exist yet.
+	 *
+	 * @param table the table
+	 * @return DML reference of the set table
+	 */
+	public synchronized String getSetTable(Table table) throws SQLException {
+		String reference = setTables.get(table);
+		if (reference == null) {
+			String name = SET_PREFIX + graphID + "_" + table.getOrdinal();
+			reference = createTable(name,
+					"set_id INTEGER NOT NULL, " +
+					columns(table, ""),
+					"set_id, " + columnList(table, ""));
+			setTables.put(table, reference);
+		}
+		return reference;
+	}
+
+	/**
+	 * Gets the entity tables.
+	 *
+	 * @return DML references of the entity tables per table
+	 */
+	public synchronized Map<Table, String> getEntityTables() {
+		return new LinkedHashMap<Table, String>(entityTables);
+	}
+
+	/**
+	 * Gets the tables of all dependencies from a given table.
+	 *
+	 * @param from source of the dependencies
+	 * @return DML references of the dependency tables per destination table
+	 */
+	public synchronized Map<Table, String> getDependencyTablesFrom(Table from) {
+		Map<Table, String> tables = dependencyTables.get(from);
+		return tables == null? new LinkedHashMap<Table, String>() : new LinkedHashMap<Table, String>(tables);
+	}
+
+	/**
+	 * Gets the tables of all dependencies to a given table.
+	 *
+	 * @param to destination of the dependencies
+	 * @return DML references of the dependency tables per source table
+	 */
+	public synchronized Map<Table, String> getDependencyTablesTo(Table to) {
+		Map<Table, String> result = new LinkedHashMap<Table, String>();
+		for (Map.Entry<Table, Map<Table, String>> e: dependencyTables.entrySet()) {
+			if (e.getValue().containsKey(to)) {
+				result.put(e.getKey(), e.getValue().get(to));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the tables of all dependencies.
+	 *
+	 * @return DML references of the dependency tables
+	 */
+	public synchronized List<String> getDependencyTables() {
+		List<String> result = new ArrayList<String>();
+		for (Map<Table, String> tables: dependencyTables.values()) {
+			result.addAll(tables.values());
+		}
+		return result;
+	}
+
+	/**
+	 * Drops all tables.
+	 */
+	public synchronized void drop() {
+		String dropTablePrefix = "DROP TABLE ";
+		TemporaryTableManager tableManager = getTableManager();
+		if (tableManager != null) {
+			// temporary tables that are not dropped explicitly at the end of the session are dropped here nevertheless
+			dropTablePrefix = tableManager.getDropTablePrefix().replaceFirst("^\\s*--\\s*", "");
+		}
+		boolean wasSilent = session.getSilent();
+		try {
+			session.setSilent(true);
+			for (String table: createdTables) {
+				try {
+					session.execute(dropTablePrefix + table);
+				} catch (SQLException e) {
+					// ignore
+				}
+			}
+		} finally {
+			session.setSilent(wasSilent);
+		}
+		createdTables.clear();
+		entityTables.clear();
+		dependencyTables.clear();
+		setTables.clear();
+	}
+
+	/**
+	 * Creates a table and its indexes.
+	 *
+	 * @param name the table name
+	 * @param columns the column definitions
+	 * @param indexes the column lists of the indexes
+	 * @return DML reference of the table
+	 */
+	private String createTable(String name, String columns, String... indexes) throws SQLException {
+		TemporaryTableManager tableManager = getTableManager();
+		String schema = "";
+		if (executionContext.getScope() != WorkingTableScope.LOCAL_DATABASE && executionContext.getWorkingTableSchema() != null) {
+			schema = Quoting.getQuoting(session).requote(executionContext.getWorkingTableSchema()) + ".";
+		}
+		String indexSchema = supportsSchemasInIndexDefinitions()? schema : "";
+		String createTable;
+		String createTableSuffix;
+		String createIndex;
+		String createIndexSuffix;
+		String indexTablePrefix;
+		String tableSuffix;
+		if (tableManager != null) {
+			createTable = tableManager.getCreateTablePrefix();
+			createTableSuffix = tableManager.getCreateTableSuffix();
+			createIndex = tableManager.getCreateIndexPrefix();
+			createIndexSuffix = tableManager.getCreateIndexSuffix();
+			indexTablePrefix = tableManager.getIndexTablePrefix();
+			schema += tableManager.getDdlTableReferencePrefix();
+			tableSuffix = "_T";
+		} else {
+			createTable = "CREATE TABLE ";
+			createTableSuffix = "";
+			createIndex = "CREATE INDEX ";
+			createIndexSuffix = "";
+			indexTablePrefix = "";
+			tableSuffix = "";
+		}
+		String ddlReference = schema + name + tableSuffix;
+		String ddl = createTable + ddlReference + "(" + columns + ")";
+		String tableProperties = session.dbms.getTableProperties();
+		if (tableManager == null && executionContext.getScope() != WorkingTableScope.LOCAL_DATABASE && tableProperties != null && tableProperties.trim().length() > 0) {
+			String prefix = tableProperties.replaceFirst("^\\s*CREATE\\s+(.*)\\s+TABLE\\s*$", "$1");
+			String ddlWithProperties;
+			if (prefix.equals(tableProperties)) {
+				ddlWithProperties = ddl + " " + tableProperties;
+			} else {
+				ddlWithProperties = "CREATE " + prefix + " TABLE " + ddlReference + "(" + columns + ")";
+			}
+			boolean wasSilent = session.getSilent();
+			try {
+				session.setSilent(true);
+				session.execute(ddlWithProperties);
+				ddl = null;
+			} catch (SQLException e) {
+				// create table without properties
+			} finally {
+				session.setSilent(wasSilent);
+			}
+		}
+		if (ddl != null) {
+			session.execute(ddl + (createTableSuffix.length() > 0? " " + createTableSuffix : ""));
+		}
+		createdTables.add(ddlReference);
+		for (int i = 0; i < indexes.length; ++i) {
+			session.execute(createIndex + indexSchema + "JLR_" + name.substring("JAILER_".length()) + "_" + i + tableSuffix + " ON " + indexTablePrefix + ddlReference + " (" + indexes[i] + ")" + (createIndexSuffix.length() > 0? " " + createIndexSuffix : ""));
+		}
+		return SQLDialect.dmlTableReference(name, session, executionContext);
+	}
+
+	/**
+	 * Gets the manager of temporary tables, <code>null</code> if the working tables are not temporary.
+	 */
+	private TemporaryTableManager getTableManager() {
+		if (executionContext.getScope() == WorkingTableScope.SESSION_LOCAL) {
+			return session.dbms.getSessionTemporaryTableManager();
+		}
+		if (executionContext.getScope() == WorkingTableScope.TRANSACTION_LOCAL) {
+			return session.dbms.getTransactionTemporaryTableManager();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the primary key of a table.
+	 *
+	 * @param table the table
+	 * @return the primary key whose columns are stored in the tables
+	 */
+	protected PrimaryKey getPrimaryKey(Table table) {
+		return rowIdSupport.getPrimaryKey(table);
+	}
+
+	/**
+	 * Gets the definitions of the columns that store the primary key of a table.
+	 */
+	private String columns(Table table, String prefix) {
+		Map<Column, Column> match = universalPrimaryKey.match(getPrimaryKey(table));
+		StringBuilder sb = new StringBuilder();
+		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn != null) {
+				if (sb.length() > 0) {
+					sb.append(", ");
+				}
+				sb.append(new Column(column.name, tableColumn.type, tableColumn.length, tableColumn.precision).toSQL(prefix, session.dbms.getTypeReplacement()));
+				sb.append(tableColumn.isNullable? nullableConstraint() : " NOT NULL");
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the names of the columns that store the primary key of a table.
+	 */
+	private String columnList(Table table, String prefix) {
+		Map<Column, Column> match = universalPrimaryKey.match(getPrimaryKey(table));
+		StringBuilder sb = new StringBuilder();
+		for (Column column: universalPrimaryKey.getColumns()) {
+			if (match.get(column) != null) {
+				if (sb.length() > 0) {
+					sb.append(", ");
+				}
+				sb.append(prefix + column.name);
+			}
+		}
+		return sb.toString();
+	}
+
+	private String nullableConstraint() {
+		String nullableContraint = session.dbms.getNullableContraint();
+		if (nullableContraint != null) {
+			return " " + nullableContraint;
+		}
+		return "";
+	}
+
+	private boolean supportsSchemasInIndexDefinitions() {
+		Boolean result = session.dbms.getSupportsSchemasInIndexDefinitions();
+		if (result == null) {
+			try {
+				result = session.getMetaData().supportsSchemasInDataManipulation();
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+		return result;
+	}
+
+}
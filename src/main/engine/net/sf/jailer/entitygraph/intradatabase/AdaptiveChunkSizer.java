@@ -0,0 +1,107 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.entitygraph.intradatabase;
+
+/**
+ * Determines the number of rows per chunk when copying the rows of a table
+ * in separately committed chunks.<br>
+ * <br>
+ * The size is adjusted after each chunk so that a chunk takes about
+ * {@link #TARGET_CHUNK_TIME} milliseconds, based on the observed throughput (rows per second).
+ * If committing takes a considerable part of the chunk time, the chunks are enlarged
+ * in order to commit less often. After a failure the size is halved, down to {@link #MIN_CHUNK_SIZE}.
+ *
+ * @author Ralf Wisser
+ */
+public class AdaptiveChunkSizer {
+
+	/**
+	 * Initial number of rows per chunk.
+	 */
+	public static final long INITIAL_CHUNK_SIZE = 1000;
+
+	/**
+	 * Minimum number of rows per chunk.
+	 */
+	public static final long MIN_CHUNK_SIZE = 100;
+
+	/**
+	 * Maximum number of rows per chunk.
+	 */
+	public static final long MAX_CHUNK_SIZE = 1000000;
+
+	/**
+	 * Desired duration (in ms) of copying and committing a chunk.
+	 */
+	public static final long TARGET_CHUNK_TIME = 2000;
+
+	/**
+	 * Maximum factor by which the size changes from one chunk to the next.
+	 */
+	private static final double MAX_GROWTH = 4.0;
+
+	private long chunkSize = INITIAL_CHUNK_SIZE;
+	private double rowsPerSecond = -1;
+
+	/**
+	 * Gets the size of the next chunk.
+	 *
+	 * @return number of rows
+	 */
+	public synchronized long getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Records the execution of a chunk and adjusts the size.
+	 *
+	 * @param rows number of copied rows
+	 * @param copyTime time (in ms) needed to copy the rows
+	 * @param commitTime time (in ms) needed to commit
+	 */
+	public synchronized void chunkCommitted(long rows, long copyTime, long commitTime) {
+		if (rows < chunkSize) {
+			// last chunk, not representative
+			return;
+		}
+		long totalTime = Math.max(1, copyTime + commitTime);
+		double observed = rows * 1000.0 / totalTime;
+		rowsPerSecond = rowsPerSecond < 0? observed : (rowsPerSecond + observed) / 2.0;
+
+		double newSize = rowsPerSecond * TARGET_CHUNK_TIME / 1000.0;
+		if (commitTime * 4 > totalTime) {
+			// commit latency dominates
+			newSize = Math.max(newSize, chunkSize * 2.0);
+		}
+		newSize = Math.min(newSize, chunkSize * MAX_GROWTH);
+		newSize = Math.max(newSize, chunkSize / MAX_GROWTH);
+		chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, (long) newSize));
+	}
+
+	/**
+	 * Records the failure of a chunk and halves the size.
+	 *
+	 * @return <code>false</code> if the size is already the minimum size
+	 */
+	public synchronized boolean chunkFailed() {
+		if (chunkSize <= MIN_CHUNK_SIZE) {
+			return false;
+		}
+		chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize / 2);
+		return true;
+	}
+
+}
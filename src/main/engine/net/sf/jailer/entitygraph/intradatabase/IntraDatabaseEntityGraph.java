@@ -19,16 +19,19 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
-import net.sf.jailer.database.SQLDialect;
 import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.AbstractResultSetReader;
 import net.sf.jailer.database.SqlException;
 import net.sf.jailer.database.StatementBuilder;
 import net.sf.jailer.database.UpdateTransformer;
@@ -39,6 +42,7 @@ import net.sf.jailer.datamodel.PrimaryKey;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.entitygraph.EntityGraph;
 import net.sf.jailer.entitygraph.remote.RemoteEntityGraph;
+import net.sf.jailer.util.CellContentConverter;
 import net.sf.jailer.util.JobManager;
 import net.sf.jailer.util.LogUtil;
 import net.sf.jailer.util.Quoting;
@@ -108,6 +112,26 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 		return entityGraph;
 	}
 
+	/**
+	 * Opens an existing entity-graph (of an interrupted export).
+	 *
+	 * @param graphID
+	 *            the unique ID of the graph
+	 * @param session
+	 *            for executing SQL-Statements
+	 * @param universalPrimaryKey
+	 *            the universal primary key
+	 * @return the entity-graph
+	 */
+	public static IntraDatabaseEntityGraph open(DataModel dataModel,
+			int graphID, Session session, PrimaryKey universalPrimaryKey, Runnable updateStatistics, ExecutionContext executionContext) throws SQLException {
+		IntraDatabaseEntityGraph entityGraph = new IntraDatabaseEntityGraph(
+				dataModel, graphID, session, universalPrimaryKey, updateStatistics, executionContext);
+		entityGraph.checkExist(executionContext);
+		reserveGraphID(graphID);
+		return entityGraph;
+	}
+
 	/**
 	 * Copies an entity-graph.
 	 *
@@ -123,14 +147,7 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 		IntraDatabaseEntityGraph entityGraph = create(dataModel, newGraphID,
 				session, universalPrimaryKey, null, executionContext);
 		entityGraph.setBirthdayOfSubject(birthdayOfSubject);
-		session.executeUpdate("Insert into "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext)
-				+ "(r_entitygraph, " + universalPrimaryKey.columnList(null)
-				+ ", birthday, orig_birthday, type) " + "Select " + newGraphID
-				+ ", " + universalPrimaryKey.columnList(null)
-				+ ", birthday, birthday, type From "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext)
-				+ " Where r_entitygraph=" + graphID + "");
+		copyEntities(entityGraph, session);
 		entityGraph.setTransformerFactory(getTransformerFactory());
 		return entityGraph;
 	}
@@ -161,11 +178,10 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 			throws SQLException {
 		String selectionSchema = filteredSelectionClause(table, COLUMN_PREFIX, quoting, true);
 		readEntitiesByQuery(table, "Select " + selectionSchema + " From "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " E join "
+				+ entityTable(table) + " E join "
 				+ quoting.requote(table.getName()) + " T on "
 				+ pkEqualsEntityID(table, "T", "E")
-				+ " Where (E.birthday=0 and E.r_entitygraph=" + graphID
-				+ " and E.type=" + typeName(table) + ")");
+				+ " Where (E.birthday=0" + andOfGraph(table, "E") + ")");
 	}
 
 	/**
@@ -179,13 +195,15 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 	@Override
 	public void readEntities(Table table, boolean orderByPK)
 			throws SQLException {
+		if (executionContext.isAdaptiveTransactionSize() && !executionContext.getTransactional() && readEntitiesInChunks(table)) {
+			return;
+		}
 		long incSize = session.dbms.getLimitTransactionSize().getSize(executionContext);
 		if (incSize > 0) {
 			String update =
-					"Update " + session.dbms.getLimitTransactionSize().afterSelectFragment(executionContext) + SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " " +
+					"Update " + session.dbms.getLimitTransactionSize().afterSelectFragment(executionContext) + entityTable(table) + " " +
 					"Set birthday=0 " +
-					"Where (birthday>=0 and r_entitygraph=" + graphID + " " +
-					"and type=" + typeName(table) + ") " + session.dbms.getLimitTransactionSize().additionalWhereConditionFragment(executionContext) +
+					"Where (birthday>=0" + andOfGraph(table, null) + ") " + session.dbms.getLimitTransactionSize().additionalWhereConditionFragment(executionContext) +
 					session.dbms.getLimitTransactionSize().statementSuffixFragment(executionContext);
 			for (;;) {
 				long rc = session.executeUpdate(update);
@@ -194,21 +212,187 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 				}
 				readMarkedEntities(table, orderByPK);
 				session.executeUpdate(
-						"Delete from " + SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " " +
-						"Where birthday=0 and r_entitygraph=" + graphID + " " +
-						"and type=" + typeName(table) + "");
+						"Delete from " + entityTable(table) + " " +
+						"Where birthday=0" + andOfGraph(table, null));
 				if (rc != incSize) {
 					break;
 				}
 			}
 		} else {
 			readEntitiesByQuery(table, "Select " + filteredSelectionClause(table, COLUMN_PREFIX, quoting, true) + " From "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " E join "
+				+ entityTable(table) + " E join "
+				+ quoting.requote(table.getName()) + " T on "
+				+ pkEqualsEntityID(table, "T", "E")
+				+ " Where (E.birthday>=0" + andOfGraph(table, "E") + ")");
+		}
+	}
+
+	/**
+	 * Copies the entities of a given table in separately committed chunks.<br>
+	 * A chunk is a range of the universal primary key. The upper bound is the n-th entity after the previous chunk,
+	 * read in key order with a row limit, so that each chunk only reads the keys of its own range.
+	 * The copied entities are deleted from the graph in the same transaction. A failed chunk is rolled back
+	 * and retried with a smaller chunk size, the export fails if the chunk size cannot be reduced any further.
+	 * The chunk size is tuned by an {@link AdaptiveChunkSizer}.
+	 *
+	 * @param table the table
+	 * @return <code>false</code> if the table cannot be copied in chunks
+	 */
+	private boolean readEntitiesInChunks(Table table) throws SQLException {
+		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
+		List<String> keyColumns = new ArrayList<String>();
+		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn != null) {
+				if (tableColumn.isNullable) {
+					return false;
+				}
+				keyColumns.add(column.name);
+			}
+		}
+		if (keyColumns.isEmpty()) {
+			return false;
+		}
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		long total = 0;
+		int chunks = 0;
+		String[] lowerBound = null;
+		for (;;) {
+			String[] upperBound = readChunkUpperBound(table, keyColumns, lowerBound, chunkSizer.getChunkSize());
+			try {
+				total += copyChunk(table, keyColumns, lowerBound, upperBound, chunkSizer);
+			} catch (SQLException e) {
+				if (!chunkSizer.chunkFailed()) {
+					throw e;
+				}
+				Session._log.info("chunk failed, retrying with " + chunkSizer.getChunkSize() + " rows (" + e.getMessage() + ")");
+				continue;
+			}
+			++chunks;
+			if (upperBound == null) {
+				break;
+			}
+			lowerBound = upperBound;
+		}
+		Session._log.info(total + " rows of " + table.getName() + " copied in " + chunks + " chunk(s), final chunk size " + chunkSizer.getChunkSize());
+		return true;
+	}
+
+	/**
+	 * Gets the primary key of the n-th remaining entity of a table after a given key.
+	 *
+	 * @param lowerBound the key of the last entity of the previous chunk, <code>null</code> for the first chunk
+	 * @return the key values as SQL literals or <code>null</code> if there are less than n remaining entities
+	 */
+	private String[] readChunkUpperBound(Table table, List<String> keyColumns, String[] lowerBound, final long n) throws SQLException {
+		StringBuilder columns = new StringBuilder();
+		for (String column: keyColumns) {
+			if (columns.length() > 0) {
+				columns.append(", ");
+			}
+			columns.append(column);
+		}
+		String condition = remainingEntitiesCondition(table, null);
+		if (lowerBound != null) {
+			condition += " and (" + keyCondition(keyColumns, lowerBound, "", false) + ")";
+		}
+		final String[] upperBound = new String[keyColumns.size()];
+		long rc = session.executeQuery(
+				"Select " + columns + " " +
+				"From " + entityTable(table) + " " +
+				"Where " + condition + " " +
+				"Order by " + columns, new AbstractResultSetReader() {
+			private long rowNumber = 0;
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				if (++rowNumber == n) {
+					CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, session.dbms);
+					for (int i = 0; i < upperBound.length; ++i) {
+						upperBound[i] = cellContentConverter.toSql(cellContentConverter.getObject(resultSet, i + 1));
+					}
+				}
+			}
+		}, null, null, n);
+		return rc >= n? upperBound : null;
+	}
+
+	/**
+	 * Copies the entities of a table within a key range and deletes them from the graph in one transaction.
+	 * The transaction is rolled back if copying fails.
+	 *
+	 * @param lowerBound the key of the last entity of the previous chunk (exclusive), <code>null</code> for the first chunk
+	 * @param upperBound the key of the last entity of the chunk, <code>null</code> for all remaining entities
+	 * @return number of copied rows
+	 */
+	private long copyChunk(Table table, List<String> keyColumns, String[] lowerBound, String[] upperBound, AdaptiveChunkSizer chunkSizer) throws SQLException {
+		String chunk = remainingEntitiesCondition(table, "E");
+		String deleteChunk = remainingEntitiesCondition(table, null);
+		if (lowerBound != null) {
+			chunk += " and (" + keyCondition(keyColumns, lowerBound, "E.", false) + ")";
+			deleteChunk += " and (" + keyCondition(keyColumns, lowerBound, "", false) + ")";
+		}
+		if (upperBound != null) {
+			chunk += " and (" + keyCondition(keyColumns, upperBound, "E.", true) + ")";
+			deleteChunk += " and (" + keyCondition(keyColumns, upperBound, "", true) + ")";
+		}
+		String select = "Select " + filteredSelectionClause(table, COLUMN_PREFIX, quoting, true) + " From "
+				+ entityTable(table) + " E join "
 				+ quoting.requote(table.getName()) + " T on "
 				+ pkEqualsEntityID(table, "T", "E")
-				+ " Where (E.birthday>=0 and E.r_entitygraph=" + graphID
-				+ " and E.type=" + typeName(table) + ")");
+				+ " Where (" + chunk + ")";
+		String delete = "Delete from " + entityTable(table) + " Where " + deleteChunk;
+
+		long rc;
+		Connection connection = session.getConnection();
+		synchronized (connection) {
+			boolean autoCommit = connection.getAutoCommit();
+			try {
+				long startTime = System.currentTimeMillis();
+				connection.setAutoCommit(false);
+				rc = copyEntities(table, select);
+				session.executeUpdate(delete);
+				long commitStartTime = System.currentTimeMillis();
+				connection.commit();
+				long endTime = System.currentTimeMillis();
+				chunkSizer.chunkCommitted(rc, commitStartTime - startTime, endTime - commitStartTime);
+			} catch (SQLException e) {
+				try {
+					connection.rollback();
+				} catch (SQLException re) {
+					Session._log.warn("rollback failed", re);
+				}
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+		executionContext.getProgressListenerRegistry().fireExported(table, rc);
+		addExportedCount(rc);
+		return rc;
+	}
+
+	/**
+	 * Gets condition for the not yet copied entities of a table.
+	 */
+	private String remainingEntitiesCondition(Table table, String entityAlias) {
+		return (entityAlias == null? "" : entityAlias + ".") + "birthday>=0" + andOfGraph(table, entityAlias);
+	}
+
+	/**
+	 * Gets condition for "key is lexicographically less than or equal to the bound" or "key is lexicographically greater than the bound".
+	 */
+	private String keyCondition(List<String> keyColumns, String[] bound, String entityAlias, boolean lessOrEqual) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = keyColumns.size() - 1; i >= 0; --i) {
+			String column = entityAlias + keyColumns.get(i);
+			if (sb.length() == 0) {
+				sb.append(column + (lessOrEqual? "<=" : ">") + bound[i]);
+			} else {
+				sb.insert(0, column + (lessOrEqual? "<" : ">") + bound[i] + " or (" + column + "=" + bound[i] + " and (");
+				sb.append("))");
+			}
 		}
+		return sb.toString();
 	}
 
 	/**
@@ -243,6 +427,20 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 	 * @param sql retrieves the entities
 	 */
 	private void readEntitiesByQuery(Table table, String sql) throws SQLException {
+		long rc = copyEntities(table, sql);
+		executionContext.getProgressListenerRegistry().fireExported(table, rc);
+		addExportedCount(rc);
+	}
+
+	/**
+	 * Copies entities of a given table.
+	 *
+	 * @param table
+	 *            the table
+	 * @param sql retrieves the entities
+	 * @return number of copied rows
+	 */
+	private long copyEntities(Table table, String sql) throws SQLException {
 		boolean tableHasIdentityColumn = false;
 		if (session.dbms.isIdentityInserts()) {
 			for (Column c: table.getColumns()) {
@@ -270,8 +468,7 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 				rc = insertRows(table, sql);
 			}
 		}
-		executionContext.getProgressListenerRegistry().fireExported(table, rc);
-		addExportedCount(rc);
+		return rc;
 	}
 
 	/**
@@ -15,6 +15,7 @@
  */
 package net.sf.jailer.entitygraph.local;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -22,6 +23,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -50,6 +52,7 @@ import net.sf.jailer.datamodel.RowIdSupport;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.ddl.DDLCreator;
 import net.sf.jailer.entitygraph.EntityGraph;
+import net.sf.jailer.entitygraph.TypedWorkingTables;
 import net.sf.jailer.extractionmodel.SubjectLimitDefinition;
 import net.sf.jailer.util.CellContentConverter;
 import net.sf.jailer.util.Quoting;
@@ -201,6 +204,28 @@ public class LocalEntityGraph extends EntityGraph {
 	private final RowIdSupport rowIdSupport;
 	private final Quoting quoting;
 
+	/**
+	 * The working tables per table, <code>null</code> if the entities are stored in the universal working tables
+	 * (see {@link ExecutionContext#isTypedEntityTables()}).
+	 */
+	private final TypedWorkingTables typedTables;
+
+	/**
+	 * Creates the working tables per table in the local database, if typed entity tables are used.
+	 */
+	private TypedWorkingTables createTypedTables(ExecutionContext executionContext) {
+		if (!executionContext.isTypedEntityTables()) {
+			return null;
+		}
+		return new TypedWorkingTables(graphID, localSession, universalPrimaryKey, rowIdSupport, executionContext) {
+			@Override
+			protected PrimaryKey getPrimaryKey(Table table) {
+				// the local primary key (the keys are stored as SQL literals)
+				return rowIdSupport.getPrimaryKey(getDatamodel().getTable(table.getName()));
+			}
+		};
+	}
+
 	/**
 	 * Copy constructor.
 	 */
@@ -221,14 +246,16 @@ public class LocalEntityGraph extends EntityGraph {
 		this.birthdayOfSubject = birthdayOfSubject;
 		this.rowIdSupport = rowIdSupport;
 		this.quoting = new Quoting(remoteSession);
+		this.typedTables = createTypedTables(executionContext);
 	}
 
 	/**
 	 * Constructor.
 	 *
 	 * @param remoteSession
+	 * @param localDatabaseFolder folder of an existing local database to reopen, <code>null</code> to create a new one
 	 */
-	private LocalEntityGraph(int graphID, Session remoteSession, ExecutionContext executionContext) throws IOException, SQLException {
+	private LocalEntityGraph(int graphID, Session remoteSession, String localDatabaseFolder, ExecutionContext executionContext) throws IOException, SQLException {
 		super(graphID, new DataModel(new PrimaryKeyFactory(executionContext) {
 			@Override
 			public PrimaryKey createPrimaryKey(List<Column> columns, String tableName) {
@@ -249,12 +276,17 @@ public class LocalEntityGraph extends EntityGraph {
 		this.remoteSession = remoteSession;
 		this.quoting = new Quoting(remoteSession);
 		this.rowIdSupport = new RowIdSupport(getDatamodel(), remoteSession.dbms, getConfiguration().getLocalPKType(), executionContext);
-		this.localDatabase = createLocalDatabase(getConfiguration().getDriver(), getConfiguration().getUrlPattern(), getConfiguration().getUser(), getConfiguration().getPassword(), getConfiguration().getLib());
+		this.localDatabase = createLocalDatabase(getConfiguration().getDriver(), getConfiguration().getUrlPattern(), getConfiguration().getUser(), getConfiguration().getPassword(), getConfiguration().getLib(), localDatabaseFolder);
 		this.localSession = this.localDatabase.getSession();
+		this.localSession.setCancellationContext(executionContext.getCancellationContext());
+		this.localSession.setMetrics(remoteSession.getMetrics());
 		this.universalPrimaryKey = rowIdSupport.getUniversalPrimaryKey();
 		this.localInlineViewStyle = InlineViewStyle.forSession(localSession);
 		this.remoteInlineViewStyle = InlineViewStyle.forSession(remoteSession);
-		new DDLCreator(executionContext).createDDL(getDatamodel(), localSession, WorkingTableScope.GLOBAL, rowIdSupport, null);
+		if (localDatabaseFolder == null) {
+			new DDLCreator(executionContext).createDDL(getDatamodel(), localSession, WorkingTableScope.GLOBAL, rowIdSupport, null);
+		}
+		this.typedTables = createTypedTables(executionContext);
 	}
 
 	/**
@@ -264,8 +296,11 @@ public class LocalEntityGraph extends EntityGraph {
 	 * @return the localSession
 	 * @
 	 */
-	private LocalDatabase createLocalDatabase(String driverClassName, String urlPattern, String user, String password, String jarfile) throws FileNotFoundException, SQLException {
+	private LocalDatabase createLocalDatabase(String driverClassName, String urlPattern, String user, String password, String jarfile, String localDatabaseFolder) throws FileNotFoundException, SQLException {
 		try {
+			if (localDatabaseFolder != null) {
+				return new LocalDatabase(driverClassName, urlPattern, user, password, jarfile, localDatabaseFolder);
+			}
 			return new LocalDatabase(driverClassName, urlPattern, user, password, jarfile);
 		} catch (ClassNotFoundException e) {
 			throw new RuntimeException(e);
@@ -280,6 +315,22 @@ public class LocalEntityGraph extends EntityGraph {
 		localDatabase.shutDown();
 	}
 
+	/**
+	 * Keeps the local database when the graph is closed (so that the graph can be reopened).
+	 *
+	 * @param keep <code>true</code> to keep the local database
+	 */
+	public void setKeepLocalDatabase(boolean keep) {
+		localDatabase.setKeepFiles(keep);
+	}
+
+	/**
+	 * Gets the name of the folder containing the local database.
+	 */
+	public String getLocalDatabaseFolder() {
+		return localDatabase.getDatabaseFolder();
+	}
+
 	/**
 	 * The universal primary key.
 	 */
@@ -309,7 +360,7 @@ public class LocalEntityGraph extends EntityGraph {
 	 * @return the newly created entity-graph
 	 */
 	public static LocalEntityGraph create(DataModel dataModel, int graphID, Session remoteSession, ExecutionContext executionContext) throws IOException, SQLException {
-		LocalEntityGraph entityGraph = new LocalEntityGraph(graphID, remoteSession, executionContext);
+		LocalEntityGraph entityGraph = new LocalEntityGraph(graphID, remoteSession, null, executionContext);
 		try {
 			entityGraph.localSession.executeUpdate("Insert into " + SQLDialect.dmlTableReference(ENTITY_GRAPH, entityGraph.localSession, executionContext) + "(id, age) values (" + graphID + ", 1)");
 		} catch (SQLException e) {
@@ -320,6 +371,24 @@ public class LocalEntityGraph extends EntityGraph {
 		return entityGraph;
 	}
 
+	/**
+	 * Opens an existing entity-graph (of an interrupted export).
+	 *
+	 * @param graphID the unique ID of the graph
+	 * @param remoteSession for executing SQL-Statements
+	 * @param localDatabaseFolder the folder containing the local database (see {@link #getLocalDatabaseFolder()})
+	 * @return the entity-graph
+	 */
+	public static LocalEntityGraph open(DataModel dataModel, int graphID, Session remoteSession, String localDatabaseFolder, ExecutionContext executionContext) throws IOException, SQLException {
+		if (!new File(localDatabaseFolder).isDirectory()) {
+			throw new RuntimeException("Local database \"" + localDatabaseFolder + "\" not found");
+		}
+		LocalEntityGraph entityGraph = new LocalEntityGraph(graphID, remoteSession, localDatabaseFolder, executionContext);
+		entityGraph.checkExist(executionContext);
+		reserveGraphID(graphID);
+		return entityGraph;
+	}
+
 	/**
 	 * Copies an entity-graph.
 	 *
@@ -330,13 +399,51 @@ public class LocalEntityGraph extends EntityGraph {
 	public EntityGraph copy(int newGraphID, Session _unused) throws SQLException {
 		LocalEntityGraph entityGraph = new LocalEntityGraph(newGraphID, dataModel, remoteSession, localSession, localDatabase, localInlineViewStyle, remoteInlineViewStyle, upkColumnNames, universalPrimaryKey, birthdayOfSubject, rowIdSupport, executionContext);
 		entityGraph.setBirthdayOfSubject(birthdayOfSubject);
-		localSession.executeUpdate(
-				"Insert into " + dmlTableReference(ENTITY, localSession) + "(r_entitygraph, " + universalPrimaryKey.columnList(null) + ", birthday, orig_birthday, type) " +
-					"Select " + newGraphID + ", " + universalPrimaryKey.columnList(null) + ", birthday, birthday, type From " + dmlTableReference(ENTITY, localSession) + " Where r_entitygraph=" + graphID + "");
+		if (typedTables == null) {
+			localSession.executeUpdate(
+					"Insert into " + dmlTableReference(ENTITY, localSession) + "(r_entitygraph, " + universalPrimaryKey.columnList(null) + ", birthday, orig_birthday, type) " +
+						"Select " + newGraphID + ", " + universalPrimaryKey.columnList(null) + ", birthday, birthday, type From " + dmlTableReference(ENTITY, localSession) + " Where r_entitygraph=" + graphID + "");
+		} else {
+			for (Table table: typedTables.getEntityTables().keySet()) {
+				copyEntities(entityGraph, table, null);
+			}
+		}
 		entityGraph.setTransformerFactory(getTransformerFactory());
 		return entityGraph;
 	}
 
+	/**
+	 * Copies the entities of a table into another graph (typed entity tables only).
+	 *
+	 * @param entityGraph the other graph
+	 * @param table the table
+	 * @param condition optional condition the entities must fulfill
+	 */
+	private void copyEntities(LocalEntityGraph entityGraph, Table table, String condition) throws SQLException {
+		String columns = upkColumnList(table, null);
+		localSession.executeUpdate(
+				"Insert into " + entityGraph.entityTable(table) + "(" + columns + ", birthday, orig_birthday) " +
+					"Select " + columns + ", birthday, birthday From " + entityTable(table) + (condition != null? " Where " + condition : ""));
+	}
+
+	/**
+	 * Copies the graph, only entities of given tables are copied.
+	 *
+	 * @param tables the tables
+	 * @return the copy
+	 */
+	@Override
+	public EntityGraph copy(Set<Table> tables) throws SQLException {
+		if (typedTables == null) {
+			return super.copy(tables);
+		}
+		LocalEntityGraph entityGraph = (LocalEntityGraph) createNewGraph();
+		for (Table table: tables) {
+			copyEntities(entityGraph, table, "birthday>=0");
+		}
+		return entityGraph;
+	}
+
 	/**
 	 * Creates a new entity-graph of same type and session.
 	 */
@@ -384,6 +491,9 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long getSize() throws SQLException {
+		if (typedTables != null) {
+			return getSize(typedTables.getEntityTables().keySet());
+		}
 		final int[] size = new int[1];
 		size[0] = -1;
 		localSession.executeQuery("Select count(*) From " + dmlTableReference(ENTITY, localSession) + " Where r_entitygraph=" + graphID + " and birthday >= 0", new Session.ResultSetReader() {
@@ -398,15 +508,40 @@ public class LocalEntityGraph extends EntityGraph {
 		return size[0];
 	}
 
+	/**
+	 * Gets the number of entities from given tables in the graph.
+	 *
+	 * @return the number of entities in the graph
+	 */
+	@Override
+	public long getSize(Set<Table> tables) throws SQLException {
+		if (typedTables == null) {
+			return super.getSize(tables);
+		}
+		long total = 0;
+		Set<Table> entityTables = typedTables.getEntityTables().keySet();
+		for (Table table: tables) {
+			if (entityTables.contains(table)) {
+				total += countEntities(table);
+			}
+		}
+		return total;
+	}
+
 	/**
 	 * Deletes the graph.
 	 */
 	@Override
 	public void delete(boolean forced) {
+		if (typedTables != null && forced) {
+			typedTables.drop();
+		}
 		if (!isTruncated && forced) {
 			try {
-				localSession.executeUpdate("Delete from " + dmlTableReference(DEPENDENCY, localSession) + " Where r_entitygraph=" + graphID + "");
-				localSession.executeUpdate("Delete from " + dmlTableReference(ENTITY, localSession) + " Where r_entitygraph=" + graphID + "");
+				if (typedTables == null) {
+					localSession.executeUpdate("Delete from " + dmlTableReference(DEPENDENCY, localSession) + " Where r_entitygraph=" + graphID + "");
+					localSession.executeUpdate("Delete from " + dmlTableReference(ENTITY, localSession) + " Where r_entitygraph=" + graphID + "");
+				}
 				localSession.executeUpdate("Delete from " + dmlTableReference(ENTITY_GRAPH, localSession) + " Where id=" + graphID + "");
 			} catch (SQLException e) {
 				// ignore
@@ -490,14 +625,14 @@ public class LocalEntityGraph extends EntityGraph {
 			// ----
 
 			final Table destination = association.destination;
-			final String condition = "E.r_entitygraph=" + graphID + " and E.birthday = " + (today - 1) + " and E.type=" + typeName(table) + "";
+			final String condition = "E.birthday = " + (today - 1) + andOfGraph(table, "E");
 			final Table source = association.source;
 
 			String select;
 
 			select =
 			  "Select " + upkColumnList(source, "E", null) +
-			  " From " + dmlTableReference(ENTITY, localSession) + " E" +
+			  " From " + entityTable(table) + " E" +
 			  " Where " + condition;
 
 			final long[] rc = new long[1];
@@ -516,10 +651,13 @@ public class LocalEntityGraph extends EntityGraph {
 							Map<Column, Column> match = upkMatch(destination);
 							StringBuffer sb = new StringBuffer();
 							for (Column column: universalPrimaryKey.getColumns()) {
+								Column tableColumn = match.get(column);
+								if (tableColumn == null && typedTables != null) {
+									continue;
+								}
 								if (sb.length() > 0) {
 									sb.append(" and ");
 								}
-								Column tableColumn = match.get(column);
 								if (tableColumn != null && tableColumn.isNullable) {
 									sb.append("(Duplicate." + column.name);
 									sb.append("=" + destAlias + "." + column.name + " or ");
@@ -536,13 +674,13 @@ public class LocalEntityGraph extends EntityGraph {
 							}
 
 							String entityJoinCondition = sb.toString();
-							String select = "Select " + graphID + " as graph_id, " + upkColumnList(destination, destAlias, null) + ", " + today + " as birthday, " + typeName(destination) + " as type" +
+							String select = "Select " + graphValues(destination) + upkColumnList(destination, destAlias, null) + ", " + today + " as birthday" +
 							" From " + inlineView +
-							" left join " + dmlTableReference(ENTITY, localSession) + " Duplicate on Duplicate.r_entitygraph=" + graphID + " and Duplicate.type=" + typeName(destination) + " and " +
-							entityJoinCondition +
-							" Where Duplicate.type is null";
+							" left join " + entityTable(destination) + " Duplicate on " +
+							entityJoinCondition + andOfGraph(destination, "Duplicate") +
+							" Where Duplicate.birthday is null";
 
-							String insert = "Insert into " + dmlTableReference(ENTITY, localSession) + " (r_entitygraph, " + upkColumnList(destination, null) + ", birthday, type) " + select;
+							String insert = "Insert into " + entityTable(destination) + " (" + graphColumns() + upkColumnList(destination, null) + ", birthday) " + select;
 							rc[0] += localSession.executeUpdate(insert);
 							totalRowcount += rc[0];
 						}
@@ -582,14 +720,16 @@ public class LocalEntityGraph extends EntityGraph {
 		// ----
 
 		final Table destination = association.destination;
-		final String condition = "E.r_entitygraph=" + graphID + " and E.birthday >= 0 and E.type=" + typeName(association.destination) + "";
+		final String condition = "E.birthday >= 0" + andOfGraph(association.destination, "E");
 		final Table source = association.source;
+		final LocalEntityGraph other = (LocalEntityGraph) otherGraph;
+		final LocalEntityGraph univers = (LocalEntityGraph) universum;
 
 		String select;
 
 		select =
 			  "Select " + upkColumnList(source, "E", null) +
-			  " From " + dmlTableReference(ENTITY, localSession) + " E" +
+			  " From " + entityTable(association.destination) + " E" +
 			  " Where " + condition;
 
 		final long[] rc = new long[1];
@@ -609,10 +749,13 @@ public class LocalEntityGraph extends EntityGraph {
 							Function<String, String> entityJoinCondition = dup -> {
 								StringBuilder sb = new StringBuilder();
 								for (Column column: universalPrimaryKey.getColumns()) {
+									Column tableColumn = match.get(column);
+									if (tableColumn == null && typedTables != null) {
+										continue;
+									}
 									if (sb.length() > 0) {
 										sb.append(" and ");
 									}
-									Column tableColumn = match.get(column);
 									if (tableColumn != null && tableColumn.isNullable) {
 										sb.append("(" + dup + "." + column.name);
 										sb.append("=" + sourceAlias + "." + column.name + " or ");
@@ -630,16 +773,16 @@ public class LocalEntityGraph extends EntityGraph {
 								return sb.toString();
 							};
 
-							String select = "Select " + otherGraph.graphID + " as graph_id, " + upkColumnList(source, sourceAlias, null) + ", " + 1 + " as birthday, " + typeName(source) + " as type" +
+							String select = "Select " + other.graphValues(source) + upkColumnList(source, sourceAlias, null) + ", " + 1 + " as birthday" +
 							" From " + inlineView +
-							" left join " + dmlTableReference(ENTITY, localSession) + " Duplicate on Duplicate.r_entitygraph=" + otherGraph.graphID + " and Duplicate.type=" + typeName(source) + " and " +
-							entityJoinCondition.apply("Duplicate") +
-							" left join " + dmlTableReference(ENTITY, localSession) + " DUnivers on DUnivers.r_entitygraph=" + universum.graphID + " and DUnivers.type=" + typeName(source) + " and " +
-							entityJoinCondition.apply("DUnivers") +
-							" Where Duplicate.type is null and DUnivers.type " +
+							" left join " + other.entityTable(source) + " Duplicate on " +
+							entityJoinCondition.apply("Duplicate") + other.andOfGraph(source, "Duplicate") +
+							" left join " + univers.entityTable(source) + " DUnivers on " +
+							entityJoinCondition.apply("DUnivers") + univers.andOfGraph(source, "DUnivers") +
+							" Where Duplicate.birthday is null and DUnivers.birthday " +
 							(forDelete? "is null" : "is not null");
 
-							String insert = "Insert into " + dmlTableReference(ENTITY, localSession) + " (r_entitygraph, " + upkColumnList(source, null) + ", birthday, type) " + select;
+							String insert = "Insert into " + other.entityTable(source) + " (" + graphColumns() + upkColumnList(source, null) + ", birthday) " + select;
 							rc[0] += localSession.executeUpdate(insert);
 							totalRowcount += rc[0];
 						}
@@ -678,17 +821,20 @@ public class LocalEntityGraph extends EntityGraph {
 		ResultSetReader reader = new LocalInlineViewBuilder(alias, upkColumnList(table, null)) {
 			@Override
 			protected void process(String inlineView) throws SQLException {
-				String select = "Select " + graphID + " as graph_id, " + upkColumnList(table, alias, null) + ", " + today + " as birthday, " + typeName(table) + " as type" +
+				String select = "Select " + graphValues(table) + upkColumnList(table, alias, null) + ", " + today + " as birthday" +
 				" From " + inlineView;
 
 				if (joinWithEntity) {
 					Map<Column, Column> match = upkMatch(table);
 					StringBuffer sb = new StringBuffer();
 					for (Column column: universalPrimaryKey.getColumns()) {
+						Column tableColumn = match.get(column);
+						if (tableColumn == null && typedTables != null) {
+							continue;
+						}
 						if (sb.length() > 0) {
 							sb.append(" and ");
 						}
-						Column tableColumn = match.get(column);
 						if (tableColumn != null && tableColumn.isNullable) {
 							sb.append("(Duplicate." + column.name);
 							sb.append("=" + alias + "." + column.name + " or ");
@@ -703,13 +849,12 @@ public class LocalEntityGraph extends EntityGraph {
 							}
 						}
 					}
-					select += " left join " + dmlTableReference(ENTITY, localSession) +
-							" Duplicate on Duplicate.r_entitygraph=" + graphID + " and Duplicate.type=" + typeName(table) +
-							" and (" + sb + ")" +
-							" Where Duplicate.type is null";
+					select += " left join " + entityTable(table) +
+							" Duplicate on (" + sb + ")" + andOfGraph(table, "Duplicate") +
+							" Where Duplicate.birthday is null";
 				}
 
-				String insert = "Insert into " + dmlTableReference(ENTITY, localSession) + " (r_entitygraph, " + upkColumnList(table, null) + ", birthday, type) " + select;
+				String insert = "Insert into " + entityTable(table) + " (" + graphColumns() + upkColumnList(table, null) + ", birthday) " + select;
 
 				rc[0] += localSession.executeUpdate(insert);
 				totalRowcount += rc[0];
@@ -737,9 +882,8 @@ public class LocalEntityGraph extends EntityGraph {
 		checkPseudoColumns(from, condition);
 		String upkColumnList = upkColumnList(from, "E1", null);
 		String select =
-				"Select " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E1 " +
-				" Where E1.r_entitygraph=" + graphID +
-				" and E1.type=" + typeName(from) + "";
+				"Select " + upkColumnList + " From " + entityTable(from) + " E1" +
+				where(andOfGraph(from, "E1"));
 
 		localSession.executeQuery(select, new RemoteInlineViewBuilder("E1", upkColumnList(from, null, null)) {
 			@Override
@@ -776,14 +920,15 @@ public class LocalEntityGraph extends EntityGraph {
 							}
 						}
 						String pkEqualsEntityID = sb.toString();
-						String insert = "Insert into " + dmlTableReference(DEPENDENCY, localSession) + "(r_entitygraph, assoc, depend_id, from_type, to_type, " + upkColumnList(from, "FROM_") + ", " + upkColumnList(to, "TO_") + ") " +
-								"Select " + graphID + ", " + aggregationId  + ", " + dependencyId + ", " + typeName(from) + ", " + typeName(to) + ", " + upkColumnList(from, "E1E2", "E1") + ", " + upkColumnList(to, "E1E2", "E2") +
-								" From " + inlineView + ", " + dmlTableReference(ENTITY, localSession) + " E2" +
-								" Where E2.r_entitygraph=" + graphID + "" +
-								" and E2.type=" + typeName(to) + "" +
-								" and " + pkEqualsEntityID;
-
-							totalRowcount += localSession.executeUpdate(insert);
+						String insert = "Insert into " + dependencyTable(from, to) + "(" + (typedTables == null? "r_entitygraph, from_type, to_type, " : "") + "assoc, depend_id, " + upkColumnList(from, "FROM_") + ", " + upkColumnList(to, "TO_") + ") " +
+								"Select " + (typedTables == null? graphID + ", " + typeName(from) + ", " + typeName(to) + ", " : "") + aggregationId  + ", " + dependencyId + ", " + upkColumnList(from, "E1E2", "E1") + ", " + upkColumnList(to, "E1E2", "E2") +
+								" From " + inlineView + ", " + entityTable(to) + " E2" +
+								" Where " + pkEqualsEntityID +
+								andOfGraph(to, "E2");
+
+							long rc = localSession.executeUpdate(insert);
+							totalRowcount += rc;
+							dependencyRowcount += rc;
 					}
 				}, withExplicitCommit());
 			}
@@ -795,17 +940,19 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public Set<Integer> getDistinctDependencyIDs() throws SQLException {
-		String select = "Select distinct depend_id from " + dmlTableReference(DEPENDENCY, localSession) + " Where r_entitygraph=" + graphID;
 		final Set<Integer> ids = new HashSet<Integer>();
-		localSession.executeQuery(select, new Session.ResultSetReader() {
-			@Override
-			public void readCurrentRow(ResultSet resultSet) throws SQLException {
-				ids.add(resultSet.getInt(1));
-			}
-			@Override
-			public void close() {
-			}
-		});
+		for (String dependencyTable: dependencyTables()) {
+			String select = "Select distinct depend_id from " + dependencyTable + (typedTables == null? " Where r_entitygraph=" + graphID : "");
+			localSession.executeQuery(select, new Session.ResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					ids.add(resultSet.getInt(1));
+				}
+				@Override
+				public void close() {
+				}
+			});
+		}
 		return ids;
 	}
 
@@ -815,30 +962,17 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void markIndependentEntities(Table table) throws SQLException {
-		StringBuffer fromEqualsPK = new StringBuffer();
-		Map<Column, Column> match = upkMatch(table);
-		for (Column column: universalPrimaryKey.getColumns()) {
-			if (fromEqualsPK.length() > 0) {
-				fromEqualsPK.append(" and ");
-			}
-			if (match.get(column) != null) {
-				if (match.get(column).isNullable) {
-					fromEqualsPK.append("(D.FROM_" + column.name + "=" + dmlTableReference(ENTITY, localSession) + "." + column.name + " or (");
-					fromEqualsPK.append("D.FROM_" + column.name + " is null and " + dmlTableReference(ENTITY, localSession) + "." + column.name + " is null))");
-				} else {
-					fromEqualsPK.append("D.FROM_" + column.name + "=" + dmlTableReference(ENTITY, localSession) + "." + column.name);
-				}
-			} else {
-				fromEqualsPK.append("D.FROM_" + column.name + " is null and " + dmlTableReference(ENTITY, localSession) + "." + column.name + " is null");
-			}
+		String entityTable = entityTable(table);
+		StringBuilder independent = new StringBuilder();
+		for (Map.Entry<Table, String> dependencies: dependencyTablesFrom(table).entrySet()) {
+			independent.append(" and " +
+					   "not exists (Select * from " + dependencies.getValue() + " D " +
+						   "Where D.assoc=0" + andOfDependencyGraph(table, dependencies.getKey(), "D") + " and " +
+								 dependencyEqualsEntity(table, "D", "FROM_", entityTable) + ")");
 		}
 		localSession.executeUpdate(
-				"Update " + dmlTableReference(ENTITY, localSession) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and " +
-						"type=" + typeName(table) + " and " +
-						"not exists (Select * from " + dmlTableReference(DEPENDENCY, localSession) + " D " +
-						   "Where D.r_entitygraph=" + graphID + " and D.assoc=0 and D.from_type=" + dmlTableReference(ENTITY, localSession) + ".type and " +
-								 fromEqualsPK + ")");
+				"Update " + entityTable + " set birthday=0 " +
+				"Where birthday>0" + andOfGraph(table, null) + independent);
 	}
 
 	private Map<Column, Column> upkMatch(Table table) {
@@ -850,28 +984,17 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void markRoots(Table table) throws SQLException {
-		StringBuffer toEqualsPK = new StringBuffer();
-		Map<Column, Column> match = upkMatch(table);
-		for (Column column: universalPrimaryKey.getColumns()) {
-			if (toEqualsPK.length() > 0) {
-				toEqualsPK.append(" and ");
-			}
-			Column tabColumn = match.get(column);
-			if (tabColumn != null && tabColumn.isNullable) {
-				toEqualsPK.append("(D.TO_" + column.name + "=" + dmlTableReference(ENTITY, localSession) + "." + column.name + " or (");
-				toEqualsPK.append("D.TO_" + column.name + " is null and " + dmlTableReference(ENTITY, localSession) + "." + column.name + " is null))");
-			} else if (tabColumn != null) {
-				toEqualsPK.append("D.TO_" + column.name + "=" + dmlTableReference(ENTITY, localSession) + "." + column.name);
-			} else {
-				toEqualsPK.append("D.TO_" + column.name + " is null and " + dmlTableReference(ENTITY, localSession) + "." + column.name + " is null");
-			}
+		String entityTable = entityTable(table);
+		StringBuilder roots = new StringBuilder();
+		for (Map.Entry<Table, String> dependencies: dependencyTablesTo(table).entrySet()) {
+			roots.append(" and " +
+					   "not exists (Select * from " + dependencies.getValue() + " D " +
+						   "Where " + dependencyEqualsEntity(table, "D", "TO_", entityTable) +
+								 andOfDependencyGraph(dependencies.getKey(), table, "D") + ")");
 		}
 		localSession.executeUpdate(
-				"Update " + dmlTableReference(ENTITY, localSession) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and type=" + typeName(table) + " and " +
-					   "not exists (Select * from " + dmlTableReference(DEPENDENCY, localSession) + " D " +
-						   "Where D.r_entitygraph=" +graphID + " and D.to_type=" + dmlTableReference(ENTITY, localSession) + ".type and " +
-								 toEqualsPK + ")");
+				"Update " + entityTable + " set birthday=0 " +
+				"Where birthday>0" + andOfGraph(table, null) + roots);
 	}
 
 	/**
@@ -901,8 +1024,8 @@ public class LocalEntityGraph extends EntityGraph {
 		}
 
 		String select =
-				"Select " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E" +
-				" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+				"Select " + upkColumnList + " From " + entityTable(table) + " E" +
+				" Where E.birthday=0" + andOfGraph(table, "E") +
 				orderBy;
 
 		localSession.executeQuery(select, new RemoteInlineViewBuilder("E", upkColumnList) {
@@ -946,8 +1069,8 @@ public class LocalEntityGraph extends EntityGraph {
 		}
 
 		String select =
-				"Select " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E" +
-				" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+				"Select " + upkColumnList + " From " + entityTable(table) + " E" +
+				" Where E.birthday=0" + andOfGraph(table, "E") +
 				orderBy;
 
 		localSession.executeQuery(select, new RemoteInlineViewBuilder("E", upkColumnList) {
@@ -1006,8 +1129,8 @@ public class LocalEntityGraph extends EntityGraph {
 	private long readEntities(final Table table, final boolean orderByPK, final Session.ResultSetReader reader, final boolean fireProgressEvents) throws SQLException {
 		String upkColumnList = upkColumnList(table, "E", null);
 		String select =
-				"Select " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E " +
-				" Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "";
+				"Select " + upkColumnList + " From " + entityTable(table) + " E " +
+				" Where E.birthday>=0" + andOfGraph(table, "E");
 		if (orderByPK) {
 			select += " order by " + upkColumnList;
 		}
@@ -1048,8 +1171,8 @@ public class LocalEntityGraph extends EntityGraph {
 	public long readUnfilteredEntityColumns(final Table table, final List<Column> columns, final Session.ResultSetReader reader) throws SQLException {
 		String upkColumnList = upkColumnList(table, "E", null);
 		String select =
-				"Select distinct " + upkColumnList + " From " + dmlTableReference(ENTITY, localSession) + " E " +
-				" Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "";
+				"Select distinct " + upkColumnList + " From " + entityTable(table) + " E " +
+				" Where E.birthday>=0" + andOfGraph(table, "E");
 
 		StringBuilder sb = new StringBuilder();
 		boolean first = true;
@@ -1132,56 +1255,28 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void deleteIndependentEntities(Table table) throws SQLException {
-		StringBuffer fromEqualsPK = new StringBuffer();
-		StringBuffer toEqualsPK = new StringBuffer();
-		Map<Column, Column> match = upkMatch(table);
-		for (Column column: universalPrimaryKey.getColumns()) {
-			if (fromEqualsPK.length() > 0) {
-				fromEqualsPK.append(" and ");
-			}
-			if (match.get(column) != null) {
-				if (match.get(column).isNullable) {
-					fromEqualsPK.append("(" + dmlTableReference(DEPENDENCY, localSession) + ".FROM_" + column.name + "=" + column.name + " or (");
-					fromEqualsPK.append(dmlTableReference(DEPENDENCY, localSession) + ".FROM_" + column.name + " is null and " + column.name + " is null))");
-				}
-				else {
-					fromEqualsPK.append(dmlTableReference(DEPENDENCY, localSession) + ".FROM_" + column.name + "=" + column.name);
-				}
-			} else {
-				fromEqualsPK.append(dmlTableReference(DEPENDENCY, localSession) + ".FROM_" + column.name + " is null and " + column.name + " is null");
-			}
-			if (toEqualsPK.length() > 0) {
-				toEqualsPK.append(" and ");
-			}
-			if (match.get(column) != null) {
-				if (match.get(column).isNullable) {
-					toEqualsPK.append("(" + dmlTableReference(DEPENDENCY, localSession) + ".TO_" + column.name + "=" + column.name + " or (");
-					toEqualsPK.append(dmlTableReference(DEPENDENCY, localSession) + ".TO_" + column.name + " is null and " + column.name + " is null))");
-				} else {
-					toEqualsPK.append(dmlTableReference(DEPENDENCY, localSession) + ".TO_" + column.name + "=" + column.name);
-				}
-			} else {
-				toEqualsPK.append(dmlTableReference(DEPENDENCY, localSession) + ".TO_" + column.name + " is null and " + column.name + " is null");
-			}
+		String entityTable = entityTable(table);
+		for (Map.Entry<Table, String> dependencies: dependencyTablesFrom(table).entrySet()) {
+			String dependencyTable = dependencies.getValue();
+			localSession.executeUpdate(
+					"Delete From " + dependencyTable + " " +
+					"Where assoc=0" + andOfDependencyGraph(table, dependencies.getKey(), dependencyTable) + " and " +
+						  "exists (Select * from " + entityTable + " E Where " +
+							  dependencyEqualsEntity(table, dependencyTable, "FROM_", "E") + andOfGraph(table, "E") + " and " +
+							  "E.birthday=0)");
+		}
+		for (Map.Entry<Table, String> dependencies: dependencyTablesTo(table).entrySet()) {
+			String dependencyTable = dependencies.getValue();
+			localSession.executeUpdate(
+					"Delete From " + dependencyTable + " " +
+					"Where assoc=0" + andOfDependencyGraph(dependencies.getKey(), table, dependencyTable) + " and " +
+						  "exists (Select * from " + entityTable + " E Where " +
+							  dependencyEqualsEntity(table, dependencyTable, "TO_", "E") + andOfGraph(table, "E") + " and " +
+							  "E.birthday=0)");
 		}
 		localSession.executeUpdate(
-				"Delete From " + dmlTableReference(DEPENDENCY, localSession) + " " +
-				"Where " + dmlTableReference(DEPENDENCY, localSession) + ".r_entitygraph=" + graphID + " and assoc=0 and from_type=" + typeName(table) + " and " +
-					  "exists (Select * from " + dmlTableReference(ENTITY, localSession) + " E Where " +
-						  "E.r_entitygraph=" + graphID + " and " +
-						  fromEqualsPK + " and " + dmlTableReference(DEPENDENCY, localSession) + ".from_type=E.type and " +
-						  "E.birthday=0)");
-		localSession.executeUpdate(
-				"Delete From " + dmlTableReference(DEPENDENCY, localSession) + " " +
-				"Where " + dmlTableReference(DEPENDENCY, localSession) + ".r_entitygraph=" + graphID + " and assoc=0 and to_type=" + typeName(table) + " and " +
-					  "exists (Select * from " + dmlTableReference(ENTITY, localSession) + " E Where " +
-						  "E.r_entitygraph=" + graphID + " and " +
-						  toEqualsPK + " and " + dmlTableReference(DEPENDENCY, localSession) + ".to_type=E.type and " +
-						  "E.birthday=0)");
-		localSession.executeUpdate(
-				"Delete From " + dmlTableReference(ENTITY, localSession) + " " +
-				"Where r_entitygraph=" + graphID + " and type=" + typeName(table) + " and " +
-					   "birthday=0");
+				"Delete From " + entityTable + " " +
+				"Where birthday=0" + andOfGraph(table, null));
 	}
 
 	/**
@@ -1189,6 +1284,9 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long deleteEntities(Table table) throws SQLException {
+		if (typedTables != null) {
+			return localSession.executeUpdate("Delete From " + entityTable(table));
+		}
 		return localSession.executeUpdate(
 				"Delete From " + dmlTableReference(ENTITY, localSession) + " " +
 				"Where r_entitygraph=" + graphID + " and " +
@@ -1205,8 +1303,8 @@ public class LocalEntityGraph extends EntityGraph {
 	public long countEntities(Table table) throws SQLException {
 		final long[] count = new long[1];
 		localSession.executeQuery(
-				"Select count(*) from " + dmlTableReference(ENTITY, localSession) + " E " +
-				"Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "",
+				"Select count(*) from " + entityTable(table) + " E " +
+				"Where E.birthday>=0" + andOfGraph(table, "E"),
 				new Session.AbstractResultSetReader() {
 					@Override
 					public void readCurrentRow(ResultSet resultSet) throws SQLException {
@@ -1252,10 +1350,13 @@ public class LocalEntityGraph extends EntityGraph {
 
 			final long[] rc = new long[1];
 
+			final Table destination = association.destination;
+			final String entityTable = entityTable(destination);
+			final String setTable = typedTables != null? typedTables.getSetTable(destination) : dmlTableReference(ENTITY_SET_ELEMENT, localSession);
+			final String andOfSetType = typedTables != null? "" : " and S.type=" + typeName(destination);
 			String selectEB =
-					"Select " + upkColumnList(association.destination, "EB", "") + " from " + dmlTableReference(ENTITY, localSession) + " EB " +
-					"Where " + (deletedEntitiesAreMarked? "EB.birthday>=0 and " : "") +
-					"EB.r_entitygraph=" + graphID + " and EB.type=" + typeName(association.destination) + " ";
+					"Select " + upkColumnList(association.destination, "EB", "") + " from " + entityTable + " EB" +
+					where((deletedEntitiesAreMarked? " and EB.birthday>=0" : "") + andOfGraph(destination, "EB"));
 
 			final String finalJc = jc;
 
@@ -1274,7 +1375,7 @@ public class LocalEntityGraph extends EntityGraph {
 						@Override
 						protected void process(String inlineView) throws SQLException {
 							String selectEB =
-								"Select distinct " + setId + ", " + typeName(association.destination) + ", " + upkColumnList(association.destination, "EBA", "EB") +
+								"Select distinct " + setId + ", " + (typedTables == null? typeName(association.destination) + ", " : "") + upkColumnList(association.destination, "EBA", "EB") +
 								" from " + inlineView;
 							if (checkDest) {
 								Map<Column, Column> match = upkMatch(association.source);
@@ -1297,48 +1398,22 @@ public class LocalEntityGraph extends EntityGraph {
 									}
 								}
 
-								selectEB += (deletedEntitiesAreMarked? " join " : " left join ") + dmlTableReference(ENTITY, localSession) + " EA" +
-									" on EA.r_entitygraph=" + graphID + " and EA.type=" + typeName(association.source) + "" +
-									(eBAEqualsEA.length() > 0? " and " + eBAEqualsEA : "") +
-									" Where " + (deletedEntitiesAreMarked? "EA.birthday=-1" : "EA.type is null");
+								String on = (eBAEqualsEA.length() > 0? " and " + eBAEqualsEA : "") + andOfGraph(association.source, "EA");
+								selectEB += (deletedEntitiesAreMarked? " join " : " left join ") + entityTable(association.source) + " EA" +
+									" on " + (on.length() > 0? on.substring(" and ".length()) : "1=1") +
+									" Where " + (deletedEntitiesAreMarked? "EA.birthday=-1" : "EA.birthday is null");
 							}
 
-							String remove = "Insert into " + dmlTableReference(ENTITY_SET_ELEMENT, localSession) +
-									"(set_id, type, " + upkColumnList(association.destination, null, "") + ") " +
+							String remove = "Insert into " + setTable +
+									"(set_id, " + (typedTables == null? "type, " : "") + upkColumnList(association.destination, null, "") + ") " +
 									selectEB;
 
 							long rcl = localSession.executeUpdate(remove);
 							totalRowcount += rcl;
 							if (rcl > 0) {
-								Map<Column, Column> match = upkMatch(association.destination);
-								StringBuffer sEqualsE = new StringBuffer();
-								StringBuffer sEqualsEWoAlias = new StringBuffer();
-								for (Column column: universalPrimaryKey.getColumns()) {
-									if (sEqualsE.length() > 0) {
-										sEqualsE.append(" and ");
-									}
-									if (sEqualsEWoAlias.length() > 0) {
-										sEqualsEWoAlias.append(" and ");
-									}
-									if (match.get(column) != null) {
-										if (match.get(column).isNullable) {
-											sEqualsE.append("(S." + column.name + "=E." + column.name + " or (");
-											sEqualsE.append("S." + column.name + " is null and E." + column.name + " is null))");
-
-											sEqualsEWoAlias.append("(S." + column.name + "=" + dmlTableReference(ENTITY, localSession) + "." + column.name + " or (");
-											sEqualsEWoAlias.append("S." + column.name + " is null and " + dmlTableReference(ENTITY, localSession) + "." + column.name + " is null))");
-										} else {
-											sEqualsE.append("S." + column.name + "=E." + column.name);
-											sEqualsEWoAlias.append("S." + column.name + "=" + dmlTableReference(ENTITY, localSession) + "." + column.name);
-										}
-									} else {
-										sEqualsE.append("S." + column.name + " is null and E." + column.name + " is null");
-										sEqualsEWoAlias.append("S." + column.name + " is null and " + dmlTableReference(ENTITY, localSession) + "." + column.name + " is null");
-									}
-								}
-								remove = "Update " + dmlTableReference(ENTITY, localSession) + " E set E.birthday=-1 Where E.r_entitygraph=" + graphID + " and E.type=" + typeName(association.destination) + " " +
-										  "and exists (Select * from " + dmlTableReference(ENTITY_SET_ELEMENT, localSession) + " S where S.set_id=" + setId + " and E.type=S.type and " + sEqualsE + ") " +
-										  "and E.birthday<>-1";
+								String sEqualsE = dependencyEqualsEntity(destination, "S", "", "E");
+								remove = "Update " + entityTable + " E set E.birthday=-1 Where E.birthday<>-1" + andOfGraph(destination, "E") + " " +
+										  "and exists (Select * from " + setTable + " S where S.set_id=" + setId + andOfSetType + " and " + sEqualsE + ")";
 								boolean silent = localSession.getSilent();
 								try {
 									localSession.setSilent(true);
@@ -1347,14 +1422,14 @@ public class LocalEntityGraph extends EntityGraph {
 								} catch (SQLException e) {
 									// postgreSQL
 									Session._log.debug("failed, retry without alias (" + e.getMessage() + ")");
-									remove = "Update " + dmlTableReference(ENTITY, localSession) + " set birthday=-1 Where " + dmlTableReference(ENTITY, localSession) + ".r_entitygraph=" + graphID + " and " + dmlTableReference(ENTITY, localSession) + ".type=" + typeName(association.destination) + " " +
-									"and exists (Select * from " + dmlTableReference(ENTITY_SET_ELEMENT, localSession) + " S where S.set_id=" + setId + " and " + dmlTableReference(ENTITY, localSession) + ".type=S.type and " + sEqualsEWoAlias + ") " +
-									"and " + dmlTableReference(ENTITY, localSession) + ".birthday<>-1";
+									String sEqualsEWoAlias = dependencyEqualsEntity(destination, "S", "", entityTable);
+									remove = "Update " + entityTable + " set birthday=-1 Where " + entityTable + ".birthday<>-1" + andOfGraph(destination, entityTable) + " " +
+									"and exists (Select * from " + setTable + " S where S.set_id=" + setId + andOfSetType + " and " + sEqualsEWoAlias + ")";
 									rc[0] += localSession.executeUpdate(remove);
 								} finally {
 									localSession.setSilent(silent);
 								}
-								localSession.executeUpdate("Delete from " + dmlTableReference(ENTITY_SET_ELEMENT, localSession) + " where set_id=" + setId + "");
+								localSession.executeUpdate("Delete from " + setTable + " where set_id=" + setId + "");
 							}
 						}
 					}, withExplicitCommit());
@@ -1377,12 +1452,14 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void readDependentEntities(final Table table, final Association association, final ResultSet resultSet, ResultSetMetaData resultSetMetaData, final ResultSetReader reader, final Map<String, Integer> theTypeCache, final String selectionSchema, final String originalPKAliasPrefix) throws SQLException {
+		String dependencyTable = existingDependencyTable(association.source, table);
+		if (dependencyTable == null) {
+			return;
+		}
 		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, localSession, localSession.dbms);
-		String select = "Select " + upkColumnList(table, "TO_") + " from " + dmlTableReference(DEPENDENCY, localSession) + " D" +
+		String select = "Select " + upkColumnList(table, "TO_") + " from " + dependencyTable + " D" +
 				 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
-				 " and D.to_type=" + typeName(table) + "" +
-				 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
-				 " and D.r_entitygraph=" + graphID;
+				 " and assoc=" + association.getId() + andOfDependencyGraph(association.source, table, "D");
 
 		localSession.executeQuery(select, new RemoteInlineViewBuilder("D", upkColumnList(table, "TO_"), true) {
 			@Override
@@ -1421,18 +1498,20 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void markDependentEntitiesAsTraversed(Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, Map<String, Integer> typeCache) throws SQLException {
+		String dependencyTable = existingDependencyTable(association.source, association.destination);
+		if (dependencyTable == null) {
+			return;
+		}
 		String update;
 		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, localSession, localSession.dbms);
 		if (DBMS.SYBASE.equals(localSession.dbms)) {
-			update = "Update " + dmlTableReference(DEPENDENCY, localSession) + " set traversed=1" +
-			 " Where " + pkEqualsEntityID(association.source, resultSet, dmlTableReference(DEPENDENCY, localSession), "FROM_", cellContentConverter) +
-			 " and " + dmlTableReference(DEPENDENCY, localSession) + ".from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
-			 " and " + dmlTableReference(DEPENDENCY, localSession) + ".r_entitygraph=" + graphID;
+			update = "Update " + dependencyTable + " set traversed=1" +
+			 " Where " + pkEqualsEntityID(association.source, resultSet, dependencyTable, "FROM_", cellContentConverter) +
+			 " and assoc=" + association.getId() + andOfDependencyGraph(association.source, null, dependencyTable);
 		} else {
-			update = "Update " + dmlTableReference(DEPENDENCY, localSession) + " D set traversed=1" +
+			update = "Update " + dependencyTable + " D set traversed=1" +
 			 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
-			 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
-			 " and D.r_entitygraph=" + graphID;
+			 " and assoc=" + association.getId() + andOfDependencyGraph(association.source, null, "D");
 		}
 		localSession.executeUpdate(update);
 	}
@@ -1445,6 +1524,14 @@ public class LocalEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void readNonTraversedDependencies(Table table, ResultSetReader reader) throws SQLException {
+		if (typedTables != null) {
+			for (Map.Entry<Table, String> dependencies: typedTables.getDependencyTablesFrom(table).entrySet()) {
+				String select = "Select " + typeName(table) + " as from_type, " + typeName(dependencies.getKey()) + " as to_type, D.* from " + dependencies.getValue() + " D " +
+					 " Where (traversed is null or traversed <> 1)";
+				localSession.executeQuery(select, reader);
+			}
+			return;
+		}
 		String select = "Select * from " + dmlTableReference(DEPENDENCY, localSession) + " D " +
 			 " Where (traversed is null or traversed <> 1)" +
 			 " and D.from_type=" + typeName(table) + "" +
@@ -1477,12 +1564,12 @@ public class LocalEntityGraph extends EntityGraph {
 				}
 			}
 		}
-		String delete = "Delete from " + dmlTableReference(DEPENDENCY, localSession) +
-			" Where " + sb +
-			" and from_type=" + typeName(table) + "" +
-			" and to_type=" + typeName(table) + "" +
-			" and r_entitygraph=" + graphID;
-		localSession.executeUpdate(delete);
+		String dependencyTable = existingDependencyTable(table, table);
+		if (dependencyTable != null) {
+			String delete = "Delete from " + dependencyTable +
+				" Where " + sb + andOfDependencyGraph(table, table, null);
+			localSession.executeUpdate(delete);
+		}
 	}
 
 	/**
@@ -1496,11 +1583,14 @@ public class LocalEntityGraph extends EntityGraph {
 		Map<Column, Column> match = upkMatch(table);
 		StringBuffer sb = new StringBuffer();
 		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn == null && typedTables != null) {
+				continue;
+			}
 			if (sb.length() > 0) {
 				sb.append(" and ");
 			}
 			sb.append(alias + "." + columnPrefix + column.name);
-			Column tableColumn = match.get(column);
 			if (tableColumn != null) {
 				int i = 0;
 				for (Column c: rowIdSupport.getPrimaryKey(table).getColumns()) {
@@ -1533,7 +1623,7 @@ public class LocalEntityGraph extends EntityGraph {
 		StringBuffer sb = new StringBuffer();
 		for (Column column: universalPrimaryKey.getColumns()) {
 			Column tableColumn = match.get(column);
-			if (checkNull || tableColumn != null) {
+			if ((checkNull && typedTables == null) || tableColumn != null) {
 				if (sb.length() > 0) {
 					sb.append(" and ");
 				}
@@ -1634,6 +1724,211 @@ public class LocalEntityGraph extends EntityGraph {
 		return sb.toString();
 	}
 
+	/**
+	 * Gets the table holding the entities of a given table.
+	 *
+	 * @param table the table
+	 * @return the entity table of <code>table</code> if typed entity tables are used, else the shared entity table
+	 */
+	private String entityTable(Table table) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getEntityTable(table);
+		}
+		return dmlTableReference(ENTITY, localSession);
+	}
+
+	/**
+	 * Gets the condition restricting the rows of the shared entity table to the entities of a given table in this graph.
+	 *
+	 * @param table the table
+	 * @param alias alias of the entity table or <code>null</code>
+	 * @return " and "-prefixed condition, empty if typed entity tables are used
+	 */
+	private String andOfGraph(Table table, String alias) {
+		if (typedTables != null) {
+			return "";
+		}
+		String prefix = alias == null? "" : alias + ".";
+		return " and " + prefix + "r_entitygraph=" + graphID + " and " + prefix + "type=" + typeName(table);
+	}
+
+	/**
+	 * Gets the graph columns of the shared entity table (for Insert clause).
+	 */
+	private String graphColumns() {
+		return typedTables != null? "" : "r_entitygraph, type, ";
+	}
+
+	/**
+	 * Gets the values of the graph columns of the shared entity table (for Select clause).
+	 *
+	 * @param table the table
+	 */
+	private String graphValues(Table table) {
+		return typedTables != null? "" : graphID + " as graph_id, " + typeName(table) + " as type, ";
+	}
+
+	/**
+	 * Gets the table holding the dependencies between entities of two tables.
+	 */
+	private String dependencyTable(Table from, Table to) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTable(from, to);
+		}
+		return dmlTableReference(DEPENDENCY, localSession);
+	}
+
+	/**
+	 * Gets the table holding the dependencies between entities of two tables.
+	 *
+	 * @return the dependency table or <code>null</code> if there are no dependencies between the tables
+	 */
+	private String existingDependencyTable(Table from, Table to) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getExistingDependencyTable(from, to);
+		}
+		return dmlTableReference(DEPENDENCY, localSession);
+	}
+
+	/**
+	 * Gets all tables holding dependencies of this graph.
+	 */
+	private List<String> dependencyTables() throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTables();
+		}
+		return Collections.singletonList(dmlTableReference(DEPENDENCY, localSession));
+	}
+
+	/**
+	 * Gets the tables holding the dependencies from the entities of a given table, keyed by the destination table.
+	 * (The shared dependency table is keyed by <code>null</code>.)
+	 */
+	private Map<Table, String> dependencyTablesFrom(Table table) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTablesFrom(table);
+		}
+		return Collections.singletonMap(null, dmlTableReference(DEPENDENCY, localSession));
+	}
+
+	/**
+	 * Gets the tables holding the dependencies to the entities of a given table, keyed by the source table.
+	 * (The shared dependency table is keyed by <code>null</code>.)
+	 */
+	private Map<Table, String> dependencyTablesTo(Table table) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTablesTo(table);
+		}
+		return Collections.singletonMap(null, dmlTableReference(DEPENDENCY, localSession));
+	}
+
+	/**
+	 * Gets the condition restricting the rows of the shared dependency table to the dependencies of this graph.
+	 *
+	 * @param from source table or <code>null</code>
+	 * @param to destination table or <code>null</code>
+	 * @param alias alias of the dependency table or <code>null</code>
+	 * @return " and "-prefixed condition, empty if typed entity tables are used
+	 */
+	private String andOfDependencyGraph(Table from, Table to, String alias) {
+		if (typedTables != null) {
+			return "";
+		}
+		String prefix = alias == null? "" : alias + ".";
+		return " and " + prefix + "r_entitygraph=" + graphID
+				+ (from == null? "" : " and " + prefix + "from_type=" + typeName(from))
+				+ (to == null? "" : " and " + prefix + "to_type=" + typeName(to));
+	}
+
+	/**
+	 * Turns a " and "-prefixed condition into a where-clause.
+	 *
+	 * @param andCondition " and "-prefixed condition, may be empty
+	 */
+	private String where(String andCondition) {
+		if (andCondition.length() == 0) {
+			return "";
+		}
+		return " Where " + andCondition.substring(" and ".length());
+	}
+
+	/**
+	 * Gets a SQL comparison expression for comparing dependencies with entities.
+	 *
+	 * @param table the table of the entities
+	 * @param dependencyAlias alias of the dependency table
+	 * @param columnPrefix "FROM_" or "TO_"
+	 * @param entityAlias alias of the entity table
+	 */
+	private String dependencyEqualsEntity(Table table, String dependencyAlias, String columnPrefix, String entityAlias) {
+		Map<Column, Column> match = upkMatch(table);
+		StringBuffer sb = new StringBuffer();
+		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn == null) {
+				// entities of the same type are null in all columns not matching the table's primary key
+				continue;
+			}
+			if (sb.length() > 0) {
+				sb.append(" and ");
+			}
+			String dependencyColumn = dependencyAlias + "." + columnPrefix + column.name;
+			String entityColumn = entityAlias + "." + column.name;
+			if (tableColumn.isNullable) {
+				sb.append("(" + dependencyColumn + "=" + entityColumn + " or (" + dependencyColumn + " is null and " + entityColumn + " is null))");
+			} else {
+				sb.append(dependencyColumn + "=" + entityColumn);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Removes all dependencies for a given association.
+	 *
+	 * @param association the asociation
+	 */
+	@Override
+	public void removeDependencies(Association association) throws SQLException {
+		if (typedTables == null) {
+			super.removeDependencies(association);
+			return;
+		}
+		for (String dependencyTable: typedTables.getDependencyTables()) {
+			deleteRows(localSession, dependencyTable, "depend_id=" + association.getId());
+		}
+	}
+
+	/**
+	 * Removes all entities born after a given day (the entities collected on the day an export was interrupted).
+	 *
+	 * @param day the day
+	 */
+	@Override
+	public void removeEntitiesBornAfter(int day) throws SQLException {
+		if (typedTables == null) {
+			super.removeEntitiesBornAfter(day);
+			return;
+		}
+		for (String entityTable: typedTables.getEntityTables().values()) {
+			deleteRows(localSession, entityTable, "birthday>" + day);
+		}
+	}
+
+	/**
+	 * Removes all dependencies.
+	 */
+	@Override
+	public void removeAllDependencies() throws SQLException {
+		if (typedTables == null) {
+			super.removeAllDependencies();
+			return;
+		}
+		for (String dependencyTable: typedTables.getDependencyTables()) {
+			deleteRows(localSession, dependencyTable, "1=1");
+		}
+	}
+
 	/**
 	 * Total row-count.
 	 */
@@ -1649,6 +1944,21 @@ public class LocalEntityGraph extends EntityGraph {
 		return totalRowcount;
 	}
 
+	/**
+	 * Number of rows inserted into the dependency table.
+	 */
+	private long dependencyRowcount = 0;
+
+	/**
+	 * Gets the number of rows inserted into the dependency table.
+	 *
+	 * @return number of dependencies
+	 */
+	@Override
+	public long getDependencyRowcount() {
+		return dependencyRowcount;
+	}
+
 	/**
 	 * Gets the universal primary key.
 	 *
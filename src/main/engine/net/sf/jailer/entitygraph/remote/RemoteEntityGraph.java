@@ -20,6 +20,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -42,6 +43,8 @@ import net.sf.jailer.datamodel.PrimaryKey;
 import net.sf.jailer.datamodel.RowIdSupport;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.entitygraph.EntityGraph;
+import net.sf.jailer.entitygraph.TypedWorkingTables;
+import net.sf.jailer.metrics.PlanRecorder;
 import net.sf.jailer.extractionmodel.SubjectLimitDefinition;
 import net.sf.jailer.util.CellContentConverter;
 import net.sf.jailer.util.Quoting;
@@ -79,6 +82,12 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	private final Runnable updateStatistics;
 
+	/**
+	 * The working tables per table, <code>null</code> if the entities are stored in the universal working tables
+	 * (see {@link ExecutionContext#isTypedEntityTables()}).
+	 */
+	protected final TypedWorkingTables typedTables;
+
 	/**
 	 * Constructor.
 	 *
@@ -93,6 +102,7 @@ public class RemoteEntityGraph extends EntityGraph {
 		this.universalPrimaryKey = universalPrimaryKey;
 		this.updateStatistics = updateStatistics;
 		this.rowIdSupport = new RowIdSupport(dataModel, session.dbms, executionContext);
+		this.typedTables = executionContext.isTypedEntityTables()? new TypedWorkingTables(graphID, session, universalPrimaryKey, rowIdSupport, executionContext) : null;
 	}
 
 	private final Quoting quoting;
@@ -121,6 +131,21 @@ public class RemoteEntityGraph extends EntityGraph {
 		return entityGraph;
 	}
 
+	/**
+	 * Opens an existing entity-graph (of an interrupted export).
+	 *
+	 * @param graphID the unique ID of the graph
+	 * @param session for executing SQL-Statements
+	 * @param universalPrimaryKey the universal primary key
+	 * @return the entity-graph
+	 */
+	public static RemoteEntityGraph open(DataModel dataModel, int graphID, Session session, PrimaryKey universalPrimaryKey, Runnable updateStatistics, ExecutionContext executionContext) throws SQLException {
+		RemoteEntityGraph entityGraph = new RemoteEntityGraph(dataModel, graphID, session, universalPrimaryKey, updateStatistics, executionContext);
+		entityGraph.checkExist(executionContext);
+		reserveGraphID(graphID);
+		return entityGraph;
+	}
+
 	/**
 	 * Initializes a new entity-graph.
 	 *
@@ -150,13 +175,62 @@ public class RemoteEntityGraph extends EntityGraph {
 	public EntityGraph copy(int newGraphID, Session session) throws SQLException {
 		RemoteEntityGraph entityGraph = create(dataModel, newGraphID, session, universalPrimaryKey, null, executionContext);
 		entityGraph.setBirthdayOfSubject(birthdayOfSubject);
-		session.executeUpdate(
-				"Insert into " + dmlTableReference(ENTITY, session) + "(r_entitygraph, " + universalPrimaryKey.columnList(null) + ", birthday, orig_birthday, type) " +
-					"Select " + newGraphID + ", " + universalPrimaryKey.columnList(null) + ", birthday, birthday, type From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + "");
+		copyEntities(entityGraph, session);
 		entityGraph.setTransformerFactory(getTransformerFactory());
 		return entityGraph;
 	}
 
+	/**
+	 * Copies all entities into another graph.
+	 *
+	 * @param entityGraph the other graph
+	 * @param session for executing SQL-Statements
+	 */
+	protected void copyEntities(RemoteEntityGraph entityGraph, Session session) throws SQLException {
+		if (typedTables == null) {
+			session.executeUpdate(
+					"Insert into " + dmlTableReference(ENTITY, session) + "(r_entitygraph, " + universalPrimaryKey.columnList(null) + ", birthday, orig_birthday, type) " +
+						"Select " + entityGraph.graphID + ", " + universalPrimaryKey.columnList(null) + ", birthday, birthday, type From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + "");
+		} else {
+			for (Table table: typedTables.getEntityTables().keySet()) {
+				copyEntities(entityGraph, session, table, null);
+			}
+		}
+	}
+
+	/**
+	 * Copies the entities of a table into another graph (typed entity tables only).
+	 *
+	 * @param entityGraph the other graph
+	 * @param session for executing SQL-Statements
+	 * @param table the table
+	 * @param condition optional condition the entities must fulfill
+	 */
+	private void copyEntities(RemoteEntityGraph entityGraph, Session session, Table table, String condition) throws SQLException {
+		String columns = upkColumnList(table, null);
+		session.executeUpdate(
+				"Insert into " + entityGraph.entityTable(table) + "(" + columns + ", birthday, orig_birthday) " +
+					"Select " + columns + ", birthday, birthday From " + entityTable(table) + (condition != null? " Where " + condition : ""));
+	}
+
+	/**
+	 * Copies the graph, only entities of given tables are copied.
+	 *
+	 * @param tables the tables
+	 * @return the copy
+	 */
+	@Override
+	public EntityGraph copy(Set<Table> tables) throws SQLException {
+		if (typedTables == null) {
+			return super.copy(tables);
+		}
+		RemoteEntityGraph entityGraph = (RemoteEntityGraph) createNewGraph();
+		for (Table table: tables) {
+			copyEntities(entityGraph, session, table, "birthday>=0");
+		}
+		return entityGraph;
+	}
+
 	/**
 	 * Creates a new entity-graph of same type and session.
 	 */
@@ -204,6 +278,9 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long getSize() throws SQLException {
+		if (typedTables != null) {
+			return getSize(typedTables.getEntityTables().keySet());
+		}
 		final int[] size = new int[1];
 		size[0] = -1;
 		session.executeQuery("Select count(*) From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + " and birthday >= 0", new Session.ResultSetReader() {
@@ -228,7 +305,14 @@ public class RemoteEntityGraph extends EntityGraph {
 	public long getSize(final Set<Table> tables) throws SQLException {
 		final long[] total = new long[1];
 		total[0] = 0;
-		if (!tables.isEmpty()) {
+		if (typedTables != null) {
+			Set<Table> entityTables = typedTables.getEntityTables().keySet();
+			for (Table table: tables) {
+				if (entityTables.contains(table)) {
+					total[0] += countEntities(table);
+				}
+			}
+		} else if (!tables.isEmpty()) {
 			session.executeQuery("Select type, count(*) From " + dmlTableReference(ENTITY, session) + " Where r_entitygraph=" + graphID + " and birthday>=0 group by type", new Session.AbstractResultSetReader() {
 				@Override
 				public void readCurrentRow(ResultSet resultSet) throws SQLException {
@@ -248,10 +332,17 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void delete(boolean force) {
+		if (typedTables != null) {
+			typedTables.drop();
+		}
 		if (!isTruncated) {
 			try {
-				deleteRows(session, dmlTableReference(DEPENDENCY, session), "r_entitygraph=" + graphID + "");
-				deleteRows(session, dmlTableReference(ENTITY, session), "r_entitygraph=" + graphID + "");
+				if (typedTables == null) {
+					// hash-partitioned working tables (see DDLCreator) confine these deletions to one partition,
+					// which is shared with other graphs and therefore can't be truncated
+					deleteRows(session, dmlTableReference(DEPENDENCY, session), "r_entitygraph=" + graphID + "");
+					deleteRows(session, dmlTableReference(ENTITY, session), "r_entitygraph=" + graphID + "");
+				}
 				deleteRows(session, dmlTableReference(ENTITY_GRAPH, session), "id=" + graphID + "");
 			} catch (SQLException e) {
 				// ignore
@@ -302,8 +393,8 @@ public class RemoteEntityGraph extends EntityGraph {
 		final int MAX_BATCH_SIZE = 200;
 
 		String insSQL =
-				"Insert into " + dmlTableReference(ENTITY, session) + " (r_entitygraph, birthday, type, " + upkColumnList(table, null) + ") " +
-				"values (" + graphID + ", " + today + ", " + typeName(table);
+				"Insert into " + entityTable(table) + " (" + graphColumns() + "birthday, " + upkColumnList(table, null) + ") " +
+				"values (" + (typedTables == null? graphID + ", " + typeName(table) + ", " : "") + today;
 		for (Column column: universalPrimaryKey.getColumns()) {
 			Column tableColumn = match.get(column);
 			if (tableColumn != null) {
@@ -316,10 +407,13 @@ public class RemoteEntityGraph extends EntityGraph {
 		if (joinWithEntity) {
 			StringBuffer sb = new StringBuffer();
 			for (Column column: universalPrimaryKey.getColumns()) {
+				Column tableColumn = match.get(column);
+				if (tableColumn == null && typedTables != null) {
+					continue;
+				}
 				if (sb.length() > 0) {
 					sb.append(" and ");
 				}
-				Column tableColumn = match.get(column);
 				if (tableColumn != null) {
 					if (tableColumn.isNullable) {
 						sb.append("(");
@@ -338,9 +432,8 @@ public class RemoteEntityGraph extends EntityGraph {
 				}
 			}
 			delSQL =
-				"Delete from " + dmlTableReference(ENTITY, session) +
-				" Where r_entitygraph=" + graphID + " and type=" + typeName(table) +
-				" and (" + sb + ")";
+				"Delete from " + entityTable(table) +
+				" Where (" + sb + ")" + andOfGraph(table, null);
 		}
 
 		final String insert = insSQL;
@@ -479,7 +572,7 @@ public class RemoteEntityGraph extends EntityGraph {
 				destAlias = "B";
 				sourceAlias = "A";
 			}
-			return addEntities(association.destination, destAlias, "E.r_entitygraph=" + graphID + " and E.birthday = " + (today - 1) + " and E.type=" + typeName(table) + " and " + pkEqualsEntityID(table, sourceAlias, "E"), table, sourceAlias, association.source, jc, true, today, association.reversed);
+			return addEntities(association.destination, destAlias, "E.birthday = " + (today - 1) + andOfGraph(table, "E") + " and " + pkEqualsEntityID(table, sourceAlias, "E"), table, sourceAlias, association.source, jc, true, today, association.reversed);
 		}
 		return -1;
 	}
@@ -506,31 +599,33 @@ public class RemoteEntityGraph extends EntityGraph {
 				destAlias = "B";
 				sourceAlias = "A";
 			}
+			RemoteEntityGraph other = (RemoteEntityGraph) otherGraph;
+			RemoteEntityGraph univers = (RemoteEntityGraph) universum;
 			Table table1 = association.destination;
-			String condition = "E.r_entitygraph=" + graphID + " and E.birthday >= 0 and E.type=" + typeName(association.destination) + " and " + pkEqualsEntityID(association.destination, destAlias, "E");
+			String condition = "E.birthday >= 0" + andOfGraph(association.destination, "E") + " and " + pkEqualsEntityID(association.destination, destAlias, "E");
 			Table source = association.source;
 			String select;
 			LimitTransactionSizeInfo limitTransactionSize = session.dbms.getLimitTransactionSize();
 			select =
-					"Select " + (table != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + otherGraph.graphID + " as graph_id, " + pkList(source, sourceAlias) + ", " + 1 + " as birthday, " + typeName(source) + " as type" +
+					"Select " + (table != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + other.graphValues(source) + pkList(source, sourceAlias) + ", " + 1 + " as birthday" +
 							" From " + quoting.requote(table1.getName()) + " " + destAlias +
-							" left join " + dmlTableReference(ENTITY, session) + " Duplicate on Duplicate.r_entitygraph=" + otherGraph.graphID + " and Duplicate.type=" + typeName(table1) + " and " +
-							pkEqualsEntityID(table1, destAlias, "Duplicate") +
+							" left join " + other.entityTable(table1) + " Duplicate on " +
+							pkEqualsEntityID(table1, destAlias, "Duplicate") + other.andOfGraph(table1, "Duplicate") +
 							(table != null? ", " + quoting.requote(table.getName()) + " " + sourceAlias + " ": "") +
-							" left join " + dmlTableReference(ENTITY, session) + " DUnivers on DUnivers.r_entitygraph=" + universum.graphID + " and DUnivers.type=" + typeName(source) + " and " +
-							pkEqualsEntityID(source, sourceAlias, "DUnivers") +
-							", " + dmlTableReference(ENTITY, session) + " E" +
-							" Where (" + condition + ") and Duplicate.type is null and DUnivers.type " +
+							" left join " + univers.entityTable(source) + " DUnivers on " +
+							pkEqualsEntityID(source, sourceAlias, "DUnivers") + univers.andOfGraph(source, "DUnivers") +
+							", " + entityTable(table1) + " E" +
+							" Where (" + condition + ") and Duplicate.birthday is null and DUnivers.birthday " +
 							(forDelete? "is null" : "is not null") +
 							(table != null? " and (" + jc + ") " : " ") + limitTransactionSize.additionalWhereConditionFragment(executionContext) +
 							limitTransactionSize.statementSuffixFragment(executionContext);
 
 			long incrementSize = limitTransactionSize.getSize(executionContext);
-			String insert = "Insert into " + dmlTableReference(ENTITY, session) + " (r_entitygraph, " + upkColumnList(source, null) + ", birthday, type) " + select;
+			String insert = "Insert into " + other.entityTable(source) + " (" + graphColumns() + upkColumnList(source, null) + ", birthday) " + select;
 			if (DBMS.SYBASE.equals(session.dbms)) session.execute("set forceplan on ");
 			long rc = 0;
 			for (;;) {
-				long incRc = session.executeUpdate(insert);
+				long incRc = PlanRecorder.executeUpdate(session, insert);
 				rc += incRc;
 				totalRowcount += incRc;
 				if (updateStatistics != null) {
@@ -567,7 +662,7 @@ public class RemoteEntityGraph extends EntityGraph {
 		LimitTransactionSizeInfo limitTransactionSize = session.dbms.getLimitTransactionSize();
 		if (joinedTable == null && !joinWithEntity && !limitTransactionSize.isApplicable(executionContext)) {
 			select =
-					"Select " + graphID + " " + limitTransactionSize.afterSelectFragment(executionContext) + "as graph_id, " + pkList(table, alias) + ", " + today + " as birthday, " + typeName(table) + " as type" +
+					"Select " + limitTransactionSize.afterSelectFragment(executionContext) + graphValues(table) + pkList(table, alias) + ", " + today + " as birthday" +
 					" From " + quoting.requote(table.getName()) + " " + alias +
 					(condition != null && !SqlUtil.SQL_TRUE.equals(condition) ? " Where (" + condition + ") " : " ") + 
 					limitTransactionSize.additionalWhereConditionFragment(executionContext) +
@@ -579,41 +674,40 @@ public class RemoteEntityGraph extends EntityGraph {
 
 				// TODO is this still necessary?
 				select =
-					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphID + " as graph_id, " + pkList(table, alias) + ", " + today + " as birthday, " + typeName(table) + " as type" +
+					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphValues(table) + pkList(table, alias) + ", " + today + " as birthday" +
 					" From " + quoting.requote(table.getName()) + " " + alias
 						+
 					(joinedTable != null? ", " + quoting.requote(joinedTable.getName()) + " " + joinedTableAlias + " ": "") +
-					(joinWithEntity? ", " + dmlTableReference(ENTITY, session) + " E" : "") +
+					(joinWithEntity? ", " + entityTable(joinedTable) + " E" : "") +
 					" Where (" + condition + ") " +
 						// CW	"and Duplicate.type is null" +
 					(joinedTable != null? " and (" + joinCondition + ")" : "") +
 
-						" AND NOT EXISTS (select * from " + dmlTableReference(ENTITY, session)
-						+ " DuplicateExists where r_entitygraph=" + graphID + " " + "AND DuplicateExists.type="
-						+ typeName(table)
-						+ " and " + pkEqualsEntityID(table, alias, "DuplicateExists") + ") " + limitTransactionSize.additionalWhereConditionFragment(executionContext) +
+						" AND NOT EXISTS (select * from " + entityTable(table)
+						+ " DuplicateExists where " + pkEqualsEntityID(table, alias, "DuplicateExists")
+						+ andOfGraph(table, "DuplicateExists") + ") " + limitTransactionSize.additionalWhereConditionFragment(executionContext) +
 						limitTransactionSize.statementSuffixFragment(executionContext);
 
 			} else {
 				select =
-					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphID + " as graph_id, " + pkList(table, alias) + ", " + today + " as birthday, " + typeName(table) + " as type" +
+					"Select " + (joinedTable != null? "distinct " : "") + limitTransactionSize.afterSelectFragment(executionContext) + graphValues(table) + pkList(table, alias) + ", " + today + " as birthday" +
 					" From " + quoting.requote(table.getName()) + " " + alias +
-					" left join " + dmlTableReference(ENTITY, session) + " Duplicate on Duplicate.r_entitygraph=" + graphID + " and Duplicate.type=" + typeName(table) + " and " +
-					pkEqualsEntityID(table, alias, "Duplicate") +
+					" left join " + entityTable(table) + " Duplicate on " +
+					pkEqualsEntityID(table, alias, "Duplicate") + andOfGraph(table, "Duplicate") +
 					(joinedTable != null? ", " + quoting.requote(joinedTable.getName()) + " " + joinedTableAlias + " ": "") +
-					(joinWithEntity? ", " + dmlTableReference(ENTITY, session) + " E" : "") +
-					" Where (" + condition + ") and Duplicate.type is null" +
+					(joinWithEntity? ", " + entityTable(joinedTable) + " E" : "") +
+					" Where (" + condition + ") and Duplicate.birthday is null" +
 					(joinedTable != null? " and (" + joinCondition + ") " : " ") + limitTransactionSize.additionalWhereConditionFragment(executionContext) +
 					limitTransactionSize.statementSuffixFragment(executionContext);
 			}
 		}
 
 		long incrementSize = limitTransactionSize.getSize(executionContext);
-		String insert = "Insert into " + dmlTableReference(ENTITY, session) + " (r_entitygraph, " + upkColumnList(table, null) + ", birthday, type) " + select;
+		String insert = "Insert into " + entityTable(table) + " (" + graphColumns() + upkColumnList(table, null) + ", birthday) " + select;
 		if (DBMS.SYBASE.equals(session.dbms)) session.execute("set forceplan on ");
 		long rc = 0;
 		for (;;) {
-			long incRc = session.executeUpdate(insert);
+			long incRc = PlanRecorder.executeUpdate(session, insert);
 			rc += incRc;
 			totalRowcount += incRc;
 			if (updateStatistics != null) {
@@ -641,15 +735,16 @@ public class RemoteEntityGraph extends EntityGraph {
 	@Override
 	public void addDependencies(Table from, String fromAlias, Table to, String toAlias, String condition, int aggregationId, int dependencyId, boolean isAssociationReversed) throws SQLException {
 		condition = SqlUtil.resolvePseudoColumns(condition, isAssociationReversed? "E1" : "E2", isAssociationReversed? "E2" : "E1", 0, birthdayOfSubject, inDeleteMode);
-		String insert = "Insert into " + dmlTableReference(DEPENDENCY, session) + "(r_entitygraph, assoc, depend_id, from_type, to_type, " + upkColumnList(from, "FROM_") + ", " + upkColumnList(to, "TO_") + ") " +
-			"Select " + graphID + ", " + aggregationId  + ", " + dependencyId + ", " + typeName(from) + ", " + typeName(to) + ", " + pkList(from, fromAlias, "FROM") + ", " + pkList(to, toAlias, "TO") +
-			" From " + dmlTableReference(ENTITY, session) + " E1, " + dmlTableReference(ENTITY, session) + " E2, " + quoting.requote(from.getName()) + " " + fromAlias + " ," + quoting.requote(to.getName()) + " " + toAlias + " " +
-			" Where E1.r_entitygraph=" + graphID + " and E2.r_entitygraph=" + graphID + "" +
-			" and (" + condition + ")" +
-			" and E1.type=" + typeName(from) + " and E2.type=" + typeName(to) + "" +
+		String insert = "Insert into " + dependencyTable(from, to) + "(" + (typedTables == null? "r_entitygraph, from_type, to_type, " : "") + "assoc, depend_id, " + upkColumnList(from, "FROM_") + ", " + upkColumnList(to, "TO_") + ") " +
+			"Select " + (typedTables == null? graphID + ", " + typeName(from) + ", " + typeName(to) + ", " : "") + aggregationId  + ", " + dependencyId + ", " + pkList(from, fromAlias, "FROM") + ", " + pkList(to, toAlias, "TO") +
+			" From " + entityTable(from) + " E1, " + entityTable(to) + " E2, " + quoting.requote(from.getName()) + " " + fromAlias + " ," + quoting.requote(to.getName()) + " " + toAlias + " " +
+			" Where (" + condition + ")" +
+			andOfGraph(from, "E1") + andOfGraph(to, "E2") +
 			" and " + pkEqualsEntityID(from, fromAlias, "E1") +
 			" and " + pkEqualsEntityID(to, toAlias, "E2");
-		totalRowcount += session.executeUpdate(insert);
+		long rc = PlanRecorder.executeUpdate(session, insert);
+		totalRowcount += rc;
+		dependencyRowcount += rc;
 	}
 
 	/**
@@ -657,17 +752,19 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public Set<Integer> getDistinctDependencyIDs() throws SQLException {
-		String select = "Select distinct depend_id from " + dmlTableReference(DEPENDENCY, session) + " Where r_entitygraph=" + graphID;
 		final Set<Integer> ids = new HashSet<Integer>();
-		session.executeQuery(select, new Session.ResultSetReader() {
-			@Override
-			public void readCurrentRow(ResultSet resultSet) throws SQLException {
-				ids.add(resultSet.getInt(1));
-			}
-			@Override
-			public void close() {
-			}
-		});
+		for (String dependencyTable: dependencyTables()) {
+			String select = "Select distinct depend_id from " + dependencyTable + (typedTables == null? " Where r_entitygraph=" + graphID : "");
+			session.executeQuery(select, new Session.ResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					ids.add(resultSet.getInt(1));
+				}
+				@Override
+				public void close() {
+				}
+			});
+		}
 		return ids;
 	}
 
@@ -677,30 +774,17 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void markIndependentEntities(Table table) throws SQLException {
-		StringBuffer fromEqualsPK = new StringBuffer();
-		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
-		for (Column column: universalPrimaryKey.getColumns()) {
-			if (fromEqualsPK.length() > 0) {
-				fromEqualsPK.append(" and ");
-			}
-			if (match.get(column) != null) {
-				if (match.get(column).isNullable) {
-					fromEqualsPK.append("(D.FROM_" + column.name + "=" + dmlTableReference(ENTITY, session) + "." + column.name + " or (");
-					fromEqualsPK.append("D.FROM_" + column.name + " is null and " + dmlTableReference(ENTITY, session) + "." + column.name + " is null))");
-				} else {
-					fromEqualsPK.append("D.FROM_" + column.name + "=" + dmlTableReference(ENTITY, session) + "." + column.name);
-				}
-			} else {
-				fromEqualsPK.append("D.FROM_" + column.name + " is null and " + dmlTableReference(ENTITY, session) + "." + column.name + " is null");
-			}
+		String entityTable = entityTable(table);
+		StringBuilder independent = new StringBuilder();
+		for (Map.Entry<Table, String> dependencies: dependencyTablesFrom(table).entrySet()) {
+			independent.append(" and " +
+					   "not exists (Select * from " + dependencies.getValue() + " D " +
+						   "Where D.assoc=0" + andOfDependencyGraph(table, dependencies.getKey(), "D") + " and " +
+								 dependencyEqualsEntity(table, "D", "FROM_", entityTable) + ")");
 		}
 		session.executeUpdate(
-				"Update " + dmlTableReference(ENTITY, session) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and " +
-					   "type=" + typeName(table) + " and " +
-					   "not exists (Select * from " + dmlTableReference(DEPENDENCY, session) + " D " +
-						   "Where D.r_entitygraph=" + graphID + " and D.assoc=0 and D.from_type=" + dmlTableReference(ENTITY, session) + ".type and " +
-								 fromEqualsPK + ")");
+				"Update " + entityTable + " set birthday=0 " +
+				"Where birthday>0" + andOfGraph(table, null) + independent);
 	}
 
 	/**
@@ -708,29 +792,17 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void markRoots(Table table) throws SQLException {
-		StringBuffer toEqualsPK = new StringBuffer();
-		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
-		for (Column column: universalPrimaryKey.getColumns()) {
-			if (toEqualsPK.length() > 0) {
-				toEqualsPK.append(" and ");
-			}
-			if (match.get(column) != null) {
-				if (match.get(column).isNullable) {
-					toEqualsPK.append("(D.TO_" + column.name + "=" + dmlTableReference(ENTITY, session) + "." + column.name + " or (");
-					toEqualsPK.append("D.TO_" + column.name + " is null and " + dmlTableReference(ENTITY, session) + "." + column.name + " is null))");
-				} else {
-					toEqualsPK.append("D.TO_" + column.name + "=" + dmlTableReference(ENTITY, session) + "." + column.name);
-				}
-			} else {
-				toEqualsPK.append("D.TO_" + column.name + " is null and " + dmlTableReference(ENTITY, session) + "." + column.name + " is null");
-			}
+		String entityTable = entityTable(table);
+		StringBuilder roots = new StringBuilder();
+		for (Map.Entry<Table, String> dependencies: dependencyTablesTo(table).entrySet()) {
+			roots.append(" and " +
+					   "not exists (Select * from " + dependencies.getValue() + " D " +
+						   "Where " + dependencyEqualsEntity(table, "D", "TO_", entityTable) +
+								 andOfDependencyGraph(dependencies.getKey(), table, "D") + ")");
 		}
 		session.executeUpdate(
-				"Update " + dmlTableReference(ENTITY, session) + " set birthday=0 " +
-				"Where r_entitygraph=" + graphID + " and birthday>0 and type=" + typeName(table) + " and " +
-					   "not exists (Select * from " + dmlTableReference(DEPENDENCY, session) + " D " +
-						   "Where D.r_entitygraph=" +graphID + " and D.to_type=" + dmlTableReference(ENTITY, session) + ".type and " +
-								 toEqualsPK + ")");
+				"Update " + entityTable + " set birthday=0 " +
+				"Where birthday>0" + andOfGraph(table, null) + roots);
 	}
 
 	/**
@@ -758,9 +830,9 @@ public class RemoteEntityGraph extends EntityGraph {
 			orderBy = " order by " + rowIdSupport.getPrimaryKey(table).columnList("T.", quoting);
 		}
 		long rc = session.executeQuery(
-				"Select " + selectionSchema + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
+				"Select " + selectionSchema + " From " + entityTable(table) + " E join " + quoting.requote(table.getName()) + " T on " +
 				pkEqualsEntityID(table, "T", "E") +
-				" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+				" Where E.birthday=0" + andOfGraph(table, "E") +
 				orderBy,
 				reader, withExplicitCommit());
 		executionContext.getProgressListenerRegistry().fireExported(table, rc);
@@ -794,9 +866,9 @@ public class RemoteEntityGraph extends EntityGraph {
 		}
 		orderBy = "order by " + sb;
 		String sqlQuery = "Select " + selectionSchema + " From (" +
-						"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
+						"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + " From " + entityTable(table) + " E join " + quoting.requote(table.getName()) + " T on " +
 						pkEqualsEntityID(table, "T", "E") +
-						" Where E.birthday=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "" +
+						" Where E.birthday=0" + andOfGraph(table, "E") +
 						") T ";
 		long rc = session.executeQuery(
 				sqlQuery + (orderByPK? orderBy : ""),
@@ -842,9 +914,9 @@ public class RemoteEntityGraph extends EntityGraph {
 		}
 		final String columnList = sb.toString();
 
-		String sqlQuery = "Select " + columnList + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
+		String sqlQuery = "Select " + columnList + " From " + entityTable(table) + " E join " + quoting.requote(table.getName()) + " T on " +
 				pkEqualsEntityID(table, "T", "E") +
-				" Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "";
+				" Where E.birthday>=0" + andOfGraph(table, "E");
 		return session.executeQuery(sqlQuery, reader, withExplicitCommit());
 	}
 
@@ -855,9 +927,9 @@ public class RemoteEntityGraph extends EntityGraph {
 	 * @param orderByPK if <code>true</code>, result will be ordered by primary keys
 	 */
 	protected long readEntities(Table table, boolean orderByPK, Session.ResultSetReader reader) throws SQLException {
-		String sqlQuery = "Select " + filteredSelectionClause(table, false) + " From " + dmlTableReference(ENTITY, session) + " E join " + quoting.requote(table.getName()) + " T on " +
+		String sqlQuery = "Select " + filteredSelectionClause(table, false) + " From " + entityTable(table) + " E join " + quoting.requote(table.getName()) + " T on " +
 			pkEqualsEntityID(table, "T", "E") +
-			" Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "";
+			" Where E.birthday>=0" + andOfGraph(table, "E");
 		long rc;
 		if (orderByPK) {
 			String sqlQueryWithOrderBy = sqlQuery +
@@ -953,55 +1025,28 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void deleteIndependentEntities(Table table) throws SQLException {
-		StringBuffer fromEqualsPK = new StringBuffer();
-		StringBuffer toEqualsPK = new StringBuffer();
-		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
-		for (Column column: universalPrimaryKey.getColumns()) {
-			if (fromEqualsPK.length() > 0) {
-				fromEqualsPK.append(" and ");
-			}
-			if (match.get(column) != null) {
-				if (match.get(column).isNullable) {
-					fromEqualsPK.append("(" + dmlTableReference(DEPENDENCY, session) + ".FROM_" + column.name + "=" + column.name + " or (");
-					fromEqualsPK.append(dmlTableReference(DEPENDENCY, session) + ".FROM_" + column.name + " is null and " + column.name + " is null))");
-				} else {
-					fromEqualsPK.append(dmlTableReference(DEPENDENCY, session) + ".FROM_" + column.name + "=" + column.name);
-				}
-			} else {
-				fromEqualsPK.append(dmlTableReference(DEPENDENCY, session) + ".FROM_" + column.name + " is null and " + column.name + " is null");
-			}
-			if (toEqualsPK.length() > 0) {
-				toEqualsPK.append(" and ");
-			}
-			if (match.get(column) != null) {
-				if (match.get(column).isNullable) {
-					toEqualsPK.append("(" + dmlTableReference(DEPENDENCY, session) + ".TO_" + column.name + "=" + column.name + " or (");
-					toEqualsPK.append(dmlTableReference(DEPENDENCY, session) + ".TO_" + column.name + " is null and " + column.name + " is null))");
-				} else {
-					toEqualsPK.append(dmlTableReference(DEPENDENCY, session) + ".TO_" + column.name + "=" + column.name);
-				}
-			} else {
-				toEqualsPK.append(dmlTableReference(DEPENDENCY, session) + ".TO_" + column.name + " is null and " + column.name + " is null");
-			}
+		String entityTable = entityTable(table);
+		for (Map.Entry<Table, String> dependencies: dependencyTablesFrom(table).entrySet()) {
+			String dependencyTable = dependencies.getValue();
+			deleteRows(session,
+					dependencyTable,
+					"assoc=0" + andOfDependencyGraph(table, dependencies.getKey(), dependencyTable) + " and " +
+						  "exists (Select * from " + entityTable + " E Where " +
+							  dependencyEqualsEntity(table, dependencyTable, "FROM_", "E") + andOfGraph(table, "E") + " and " +
+							  "E.birthday=0)");
+		}
+		for (Map.Entry<Table, String> dependencies: dependencyTablesTo(table).entrySet()) {
+			String dependencyTable = dependencies.getValue();
+			deleteRows(session,
+					dependencyTable,
+					"assoc=0" + andOfDependencyGraph(dependencies.getKey(), table, dependencyTable) + " and " +
+						  "exists (Select * from " + entityTable + " E Where " +
+							  dependencyEqualsEntity(table, dependencyTable, "TO_", "E") + andOfGraph(table, "E") + " and " +
+							  "E.birthday=0)");
 		}
 		deleteRows(session,
-				dmlTableReference(DEPENDENCY, session),
-				dmlTableReference(DEPENDENCY, session) + ".r_entitygraph=" + graphID + " and assoc=0 and from_type=" + typeName(table) + " and " +
-					  "exists (Select * from " + dmlTableReference(ENTITY, session) + " E Where " +
-						  "E.r_entitygraph=" + graphID + " and " +
-						  fromEqualsPK + " and " + dmlTableReference(DEPENDENCY, session) + ".from_type=E.type and " +
-						  "E.birthday=0)");
-		deleteRows(session,
-				dmlTableReference(DEPENDENCY, session),
-				dmlTableReference(DEPENDENCY, session) + ".r_entitygraph=" + graphID + " and assoc=0 and to_type=" + typeName(table) + " and " +
-					  "exists (Select * from " + dmlTableReference(ENTITY, session) + " E Where " +
-						  "E.r_entitygraph=" + graphID + " and " +
-						  toEqualsPK + " and " + dmlTableReference(DEPENDENCY, session) + ".to_type=E.type and " +
-						  "E.birthday=0)");
-		deleteRows(session,
-				dmlTableReference(ENTITY, session),
-				"r_entitygraph=" + graphID + " and type=" + typeName(table) + " and " +
-					   "birthday=0");
+				entityTable,
+				"birthday=0" + andOfGraph(table, null));
 	}
 
 	/**
@@ -1009,6 +1054,9 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public long deleteEntities(Table table) throws SQLException {
+		if (typedTables != null) {
+			return deleteRows(session, entityTable(table), "1=1");
+		}
 		return deleteRows(session,
 				dmlTableReference(ENTITY, session),
 				"r_entitygraph=" + graphID + " and " +
@@ -1025,8 +1073,8 @@ public class RemoteEntityGraph extends EntityGraph {
 	public long countEntities(Table table) throws SQLException {
 		final long[] count = new long[1];
 		session.executeQuery(
-				"Select count(*) from " + dmlTableReference(ENTITY, session) + " E " +
-				"Where E.birthday>=0 and E.r_entitygraph=" + graphID + " and E.type=" + typeName(table) + "",
+				"Select count(*) from " + entityTable(table) + " E " +
+				"Where E.birthday>=0" + andOfGraph(table, "E"),
 				new Session.AbstractResultSetReader() {
 					@Override
 					public void readCurrentRow(ResultSet resultSet) throws SQLException {
@@ -1064,67 +1112,48 @@ public class RemoteEntityGraph extends EntityGraph {
 				jc = jc.replace("EA.orig_birthday", "(null)");
 			}
 
-			String remove = "Insert into " + dmlTableReference(ENTITY_SET_ELEMENT, session) + "(set_id, type, " + universalPrimaryKey.columnList(null) + ") " +
-				"Select distinct " + setId + ", EB.type, " + universalPrimaryKey.columnList("EB.") + " from " + dmlTableReference(ENTITY, session) + " EB " +
-				"join " + quoting.requote(association.destination.getName()) + " " + destAlias + " on "+ pkEqualsEntityID(association.destination, destAlias, "EB") + " " +
+			Table destination = association.destination;
+			String entityTable = entityTable(destination);
+			String setTable = typedTables != null? typedTables.getSetTable(destination) : dmlTableReference(ENTITY_SET_ELEMENT, session);
+			String andOfSetType = typedTables != null? "" : " and S.type=" + typeName(destination);
+			String remove = "Insert into " + setTable + "(set_id, " + (typedTables == null? "type, " : "") + upkColumnList(destination, null) + ") " +
+				"Select distinct " + setId + ", " + (typedTables == null? "EB.type, " : "") + upkColumnList(destination, "EB.") + " from " + entityTable + " EB " +
+				"join " + quoting.requote(destination.getName()) + " " + destAlias + " on "+ pkEqualsEntityID(destination, destAlias, "EB") + " " +
 				"join " + quoting.requote(association.source.getName()) + " " + sourceAlias + " " +
 				"on (" + jc + ") " +
 				(checkDest?
-						(deletedEntitiesAreMarked? "join " : "left join ") + dmlTableReference(ENTITY, session) + " EA on EA.r_entitygraph=" + graphID + " and EA.type=" + typeName(association.source) + " and " + pkEqualsEntityID(association.source, sourceAlias, "EA") + " "
+						(deletedEntitiesAreMarked? "join " : "left join ") + entityTable(association.source) + " EA on " + pkEqualsEntityID(association.source, sourceAlias, "EA") + andOfGraph(association.source, "EA") + " "
 						:
-						"") +
-				"Where EB.r_entitygraph=" + graphID + " and EB.type=" + typeName(association.destination);
+						"");
+				String where = andOfGraph(destination, "EB");
 				if (checkDest) {
-					remove += " and " + (deletedEntitiesAreMarked? "EA.birthday=-1 and EB.birthday>=0" : "EA.type is null");
+					where += " and " + (deletedEntitiesAreMarked? "EA.birthday=-1 and EB.birthday>=0" : "EA.birthday is null");
 				}
-			long rc = session.executeUpdate(remove);
-			if (rc > 0) {
-				Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(association.destination));
-				StringBuffer sEqualsE = new StringBuffer();
-				StringBuffer sEqualsEWoAlias = new StringBuffer();
-				for (Column column: universalPrimaryKey.getColumns()) {
-					if (sEqualsE.length() > 0) {
-						sEqualsE.append(" and ");
-					}
-					if (sEqualsEWoAlias.length() > 0) {
-						sEqualsEWoAlias.append(" and ");
-					}
-					if (match.get(column) != null) {
-						if (match.get(column).isNullable) {
-							sEqualsE.append("(S." + column.name + "=E." + column.name + " or (");
-							sEqualsE.append("S." + column.name + " is null and E." + column.name + " is null))");
-
-							sEqualsEWoAlias.append("(S." + column.name + "=" + dmlTableReference(ENTITY, session) + "." + column.name + " or (");
-							sEqualsEWoAlias.append("S." + column.name + " is null and " + dmlTableReference(ENTITY, session) + "." + column.name + " is null))");
-						} else {
-							sEqualsE.append("S." + column.name + "=E." + column.name);
-							sEqualsEWoAlias.append("S." + column.name + "=" + dmlTableReference(ENTITY, session) + "." + column.name);
-						}
-					} else {
-						sEqualsE.append("S." + column.name + " is null and E." + column.name + " is null");
-						sEqualsEWoAlias.append("S." + column.name + " is null and " + dmlTableReference(ENTITY, session) + "." + column.name + " is null");
-					}
+				if (where.length() > 0) {
+					remove += "Where " + where.substring(" and ".length());
 				}
-				remove = "Update " + dmlTableReference(ENTITY, session) + " E set E.birthday=-1 Where E.r_entitygraph=" + graphID + " and E.type=" + typeName(association.destination) + " " +
-						  "and exists (Select * from " + dmlTableReference(ENTITY_SET_ELEMENT, session) + " S where S.set_id=" + setId + " and E.type=S.type and " + sEqualsE + ") " +
-						  "and E.birthday<>-1";
-				String removeWOAlias = "Update " + dmlTableReference(ENTITY, session) + " set birthday=-1 Where " + dmlTableReference(ENTITY, session) + ".r_entitygraph=" + graphID + " and " + dmlTableReference(ENTITY, session) + ".type=" + typeName(association.destination) + " " +
-						"and exists (Select * from " + dmlTableReference(ENTITY_SET_ELEMENT, session) + " S where S.set_id=" + setId + " and " + dmlTableReference(ENTITY, session) + ".type=S.type and " + sEqualsEWoAlias + ") " +
-						"and " + dmlTableReference(ENTITY, session) + ".birthday<>-1";
+			long rc = PlanRecorder.executeUpdate(session, remove);
+			if (rc > 0) {
+				String sEqualsE = dependencyEqualsEntity(destination, "S", "", "E");
+				String sEqualsEWoAlias = dependencyEqualsEntity(destination, "S", "", entityTable);
+				remove = "Update " + entityTable + " E set E.birthday=-1 Where E.birthday<>-1" + andOfGraph(destination, "E") + " " +
+						  "and exists (Select * from " + setTable + " S where S.set_id=" + setId + andOfSetType + " and " + sEqualsE + ")";
+				String removeWOAlias = "Update " + entityTable + " set birthday=-1 Where " + entityTable + ".birthday<>-1" + andOfGraph(destination, entityTable) + " " +
+						"and exists (Select * from " + setTable + " S where S.set_id=" + setId + andOfSetType + " and " + sEqualsEWoAlias + ")";
 				boolean tryWithAliasFirst = !DBMS.POSTGRESQL.equals(session.dbms);
 				boolean silent = session.getSilent();
 				try {
 					session.setSilent(true);
-					rc = session.executeUpdate(tryWithAliasFirst? remove : removeWOAlias);
+					rc = PlanRecorder.executeUpdate(session, tryWithAliasFirst? remove : removeWOAlias);
 					totalRowcount += rc;
 				} catch (SQLException e) {
 					Session._log.debug("failed, retry with/without alias (" + e.getMessage() + ")");
-					rc = session.executeUpdate(tryWithAliasFirst? removeWOAlias : remove);
+					rc = PlanRecorder.executeUpdate(session, tryWithAliasFirst? removeWOAlias : remove);
 					totalRowcount += rc;
 				} finally {
 					session.setSilent(silent);
 				}
-				deleteRows(session, dmlTableReference(ENTITY_SET_ELEMENT, session), "set_id=" + setId + "");
+				deleteRows(session, setTable, "set_id=" + setId + "");
 			}
 			return rc;
 		}
@@ -1142,6 +1171,10 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void readDependentEntities(Table table, Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, ResultSetReader reader, Map<String, Integer> typeCache, String selectionSchema, String originalPKAliasPrefix) throws SQLException {
+		String dependencyTable = existingDependencyTable(association.source, table);
+		if (dependencyTable == null) {
+			return;
+		}
 		String select;
 		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, session, session.dbms);
 		if (originalPKAliasPrefix != null) {
@@ -1155,17 +1188,15 @@ public class RemoteEntityGraph extends EntityGraph {
 			}
 			select =
 				"Select " + selectionSchema + " from (" +
-				"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + " from " + quoting.requote(table.getName()) + " T join " + dmlTableReference(DEPENDENCY, session) + " D on " +
-				 pkEqualsEntityID(table, "T", "D", "TO_") + " and D.to_type=" + typeName(table) + "" +
+				"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + " from " + quoting.requote(table.getName()) + " T join " + dependencyTable + " D on " +
+				 pkEqualsEntityID(table, "T", "D", "TO_") +
 				 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
-				 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
-				 " and D.r_entitygraph=" + graphID + ") T";
+				 " and assoc=" + association.getId() + andOfDependencyGraph(association.source, table, "D") + ") T";
 		} else {
-			select = "Select " + selectionSchema + " from " + quoting.requote(table.getName()) + " T join " + dmlTableReference(DEPENDENCY, session) + " D on " +
-				 pkEqualsEntityID(table, "T", "D", "TO_") + " and D.to_type=" + typeName(table) + "" +
+			select = "Select " + selectionSchema + " from " + quoting.requote(table.getName()) + " T join " + dependencyTable + " D on " +
+				 pkEqualsEntityID(table, "T", "D", "TO_") +
 				 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
-				 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
-				 " and D.r_entitygraph=" + graphID;
+				 " and assoc=" + association.getId() + andOfDependencyGraph(association.source, table, "D");
 		}
 		long rc = session.executeQuery(select, reader, withExplicitCommit());
 		executionContext.getProgressListenerRegistry().fireExported(table, rc);
@@ -1181,18 +1212,20 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void markDependentEntitiesAsTraversed(Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, Map<String, Integer> typeCache) throws SQLException {
+		String dependencyTable = existingDependencyTable(association.source, association.destination);
+		if (dependencyTable == null) {
+			return;
+		}
 		String update;
 		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, session, session.dbms);
 		if (DBMS.SYBASE.equals(session.dbms)) {
-			update = "Update " + dmlTableReference(DEPENDENCY, session) + " set traversed=1" +
-			 " Where " + pkEqualsEntityID(association.source, resultSet, dmlTableReference(DEPENDENCY, session), "FROM_", cellContentConverter) +
-			 " and " + dmlTableReference(DEPENDENCY, session) + ".from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
-			 " and " + dmlTableReference(DEPENDENCY, session) + ".r_entitygraph=" + graphID;
+			update = "Update " + dependencyTable + " set traversed=1" +
+			 " Where " + pkEqualsEntityID(association.source, resultSet, dependencyTable, "FROM_", cellContentConverter) +
+			 " and assoc=" + association.getId() + andOfDependencyGraph(association.source, null, dependencyTable);
 		} else {
-			update = "Update " + dmlTableReference(DEPENDENCY, session) + " D set traversed=1" +
+			update = "Update " + dependencyTable + " D set traversed=1" +
 			 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
-			 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
-			 " and D.r_entitygraph=" + graphID;
+			 " and assoc=" + association.getId() + andOfDependencyGraph(association.source, null, "D");
 		}
 		session.executeUpdate(update);
 	}
@@ -1205,6 +1238,14 @@ public class RemoteEntityGraph extends EntityGraph {
 	 */
 	@Override
 	public void readNonTraversedDependencies(Table table, ResultSetReader reader) throws SQLException {
+		if (typedTables != null) {
+			for (Map.Entry<Table, String> dependencies: typedTables.getDependencyTablesFrom(table).entrySet()) {
+				String select = "Select " + typeName(table) + " as from_type, " + typeName(dependencies.getKey()) + " as to_type, D.* from " + dependencies.getValue() + " D " +
+					 " Where (traversed is null or traversed <> 1)";
+				session.executeQuery(select, reader, withExplicitCommit());
+			}
+			return;
+		}
 		String select = "Select * from " + dmlTableReference(DEPENDENCY, session) + " D " +
 			 " Where (traversed is null or traversed <> 1)" +
 			 " and D.from_type=" + typeName(table) + "" +
@@ -1235,10 +1276,10 @@ public class RemoteEntityGraph extends EntityGraph {
 				}
 			}
 		}
-		deleteRows(session, dmlTableReference(DEPENDENCY, session), sb +
-			" and from_type=" + typeName(table) + "" +
-			" and to_type=" + typeName(table) + "" +
-			" and r_entitygraph=" + graphID);
+		String dependencyTable = existingDependencyTable(table, table);
+		if (dependencyTable != null) {
+			deleteRows(session, dependencyTable, sb + andOfDependencyGraph(table, table, null));
+		}
 	}
 
 	/**
@@ -1252,11 +1293,14 @@ public class RemoteEntityGraph extends EntityGraph {
 		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
 		StringBuffer sb = new StringBuffer();
 		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn == null && typedTables != null) {
+				continue;
+			}
 			if (sb.length() > 0) {
 				sb.append(" and ");
 			}
 			sb.append(alias + "." + columnPrefix + column.name);
-			Column tableColumn = match.get(column);
 			if (tableColumn != null) {
 				int i = 0;
 				for (Column c: rowIdSupport.getPrimaryKey(table).getColumns()) {
@@ -1298,10 +1342,14 @@ public class RemoteEntityGraph extends EntityGraph {
 		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
 		StringBuffer sb = new StringBuffer();
 		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn == null && typedTables != null) {
+				// the entity table has only the columns matching the table's primary key
+				continue;
+			}
 			if (sb.length() > 0) {
 				sb.append(" and ");
 			}
-			Column tableColumn = match.get(column);
 			if (tableColumn != null) {
 				if (tableColumn.isNullable) {
 					sb.append("(");
@@ -1382,6 +1430,199 @@ public class RemoteEntityGraph extends EntityGraph {
 		return sb.toString();
 	}
 
+	/**
+	 * Gets the table holding the entities of a given table.
+	 *
+	 * @param table the table
+	 * @return the entity table of <code>table</code> if typed entity tables are used, else the shared entity table
+	 */
+	protected String entityTable(Table table) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getEntityTable(table);
+		}
+		return dmlTableReference(ENTITY, session);
+	}
+
+	/**
+	 * Gets the condition restricting the rows of the shared entity table to the entities of a given table in this graph.
+	 *
+	 * @param table the table
+	 * @param alias alias of the entity table or <code>null</code>
+	 * @return " and "-prefixed condition, empty if typed entity tables are used
+	 */
+	protected String andOfGraph(Table table, String alias) {
+		if (typedTables != null) {
+			return "";
+		}
+		String prefix = alias == null? "" : alias + ".";
+		return " and " + prefix + "r_entitygraph=" + graphID + " and " + prefix + "type=" + typeName(table);
+	}
+
+	/**
+	 * Gets the graph columns of the shared entity table (for Insert clause).
+	 */
+	private String graphColumns() {
+		return typedTables != null? "" : "r_entitygraph, type, ";
+	}
+
+	/**
+	 * Gets the values of the graph columns of the shared entity table (for Select clause).
+	 *
+	 * @param table the table
+	 */
+	private String graphValues(Table table) {
+		return typedTables != null? "" : graphID + " as graph_id, " + typeName(table) + " as type, ";
+	}
+
+	/**
+	 * Gets the table holding the dependencies between entities of two tables.
+	 */
+	private String dependencyTable(Table from, Table to) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTable(from, to);
+		}
+		return dmlTableReference(DEPENDENCY, session);
+	}
+
+	/**
+	 * Gets the table holding the dependencies between entities of two tables.
+	 *
+	 * @return the dependency table or <code>null</code> if there are no dependencies between the tables
+	 */
+	private String existingDependencyTable(Table from, Table to) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getExistingDependencyTable(from, to);
+		}
+		return dmlTableReference(DEPENDENCY, session);
+	}
+
+	/**
+	 * Gets all tables holding dependencies of this graph.
+	 */
+	private List<String> dependencyTables() throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTables();
+		}
+		return Collections.singletonList(dmlTableReference(DEPENDENCY, session));
+	}
+
+	/**
+	 * Gets the tables holding the dependencies from the entities of a given table, keyed by the destination table.
+	 * (The shared dependency table is keyed by <code>null</code>.)
+	 */
+	private Map<Table, String> dependencyTablesFrom(Table table) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTablesFrom(table);
+		}
+		return Collections.singletonMap(null, dmlTableReference(DEPENDENCY, session));
+	}
+
+	/**
+	 * Gets the tables holding the dependencies to the entities of a given table, keyed by the source table.
+	 * (The shared dependency table is keyed by <code>null</code>.)
+	 */
+	private Map<Table, String> dependencyTablesTo(Table table) throws SQLException {
+		if (typedTables != null) {
+			return typedTables.getDependencyTablesTo(table);
+		}
+		return Collections.singletonMap(null, dmlTableReference(DEPENDENCY, session));
+	}
+
+	/**
+	 * Gets the condition restricting the rows of the shared dependency table to the dependencies of this graph.
+	 *
+	 * @param from source table or <code>null</code>
+	 * @param to destination table or <code>null</code>
+	 * @param alias alias of the dependency table or <code>null</code>
+	 * @return " and "-prefixed condition, empty if typed entity tables are used
+	 */
+	private String andOfDependencyGraph(Table from, Table to, String alias) {
+		if (typedTables != null) {
+			return "";
+		}
+		String prefix = alias == null? "" : alias + ".";
+		return " and " + prefix + "r_entitygraph=" + graphID
+				+ (from == null? "" : " and " + prefix + "from_type=" + typeName(from))
+				+ (to == null? "" : " and " + prefix + "to_type=" + typeName(to));
+	}
+
+	/**
+	 * Gets a SQL comparison expression for comparing dependencies with entities.
+	 *
+	 * @param table the table of the entities
+	 * @param dependencyAlias alias of the dependency table
+	 * @param columnPrefix "FROM_" or "TO_"
+	 * @param entityAlias alias of the entity table
+	 */
+	private String dependencyEqualsEntity(Table table, String dependencyAlias, String columnPrefix, String entityAlias) {
+		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
+		StringBuffer sb = new StringBuffer();
+		for (Column column: universalPrimaryKey.getColumns()) {
+			Column tableColumn = match.get(column);
+			if (tableColumn == null) {
+				// entities of the same type are null in all columns not matching the table's primary key
+				continue;
+			}
+			if (sb.length() > 0) {
+				sb.append(" and ");
+			}
+			String dependencyColumn = dependencyAlias + "." + columnPrefix + column.name;
+			String entityColumn = entityAlias + "." + column.name;
+			if (tableColumn.isNullable) {
+				sb.append("(" + dependencyColumn + "=" + entityColumn + " or (" + dependencyColumn + " is null and " + entityColumn + " is null))");
+			} else {
+				sb.append(dependencyColumn + "=" + entityColumn);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Removes all dependencies for a given association.
+	 *
+	 * @param association the asociation
+	 */
+	@Override
+	public void removeDependencies(Association association) throws SQLException {
+		if (typedTables == null) {
+			super.removeDependencies(association);
+			return;
+		}
+		for (String dependencyTable: typedTables.getDependencyTables()) {
+			deleteRows(session, dependencyTable, "depend_id=" + association.getId());
+		}
+	}
+
+	/**
+	 * Removes all entities born after a given day (the entities collected on the day an export was interrupted).
+	 *
+	 * @param day the day
+	 */
+	@Override
+	public void removeEntitiesBornAfter(int day) throws SQLException {
+		if (typedTables == null) {
+			super.removeEntitiesBornAfter(day);
+			return;
+		}
+		for (String entityTable: typedTables.getEntityTables().values()) {
+			deleteRows(session, entityTable, "birthday>" + day);
+		}
+	}
+
+	/**
+	 * Removes all dependencies.
+	 */
+	@Override
+	public void removeAllDependencies() throws SQLException {
+		if (typedTables == null) {
+			super.removeAllDependencies();
+			return;
+		}
+		for (String dependencyTable: typedTables.getDependencyTables()) {
+			deleteRows(session, dependencyTable, "1=1");
+		}
+	}
+
 	/**
 	 * Total row-count.
 	 */
@@ -1397,6 +1638,21 @@ public class RemoteEntityGraph extends EntityGraph {
 		return totalRowcount;
 	}
 
+	/**
+	 * Number of rows inserted into the dependency table.
+	 */
+	private long dependencyRowcount = 0;
+
+	/**
+	 * Gets the number of rows inserted into the dependency table.
+	 *
+	 * @return number of dependencies
+	 */
+	@Override
+	public long getDependencyRowcount() {
+		return dependencyRowcount;
+	}
+
 	/**
 	 * Gets the universal primary key.
 	 *
@@ -87,6 +87,7 @@ public abstract class ImportFilterManager implements ImportFilterTransformer {
 				throw new RuntimeException(e);
 			}
 			theLocalSession = theLocalDatabase.getSession();
+			theLocalSession.setCancellationContext(executionContext.getCancellationContext());
 		}
 		return theLocalSession;
 	}
@@ -156,6 +157,13 @@ public abstract class ImportFilterManager implements ImportFilterTransformer {
 		}
 	}
 
+	/**
+	 * Are there any columns whose values are mapped at import time (using mapping tables)?
+	 */
+	public boolean hasMappedColumns() {
+		return !nonderivedFilteredColumnsPerTable.isEmpty();
+	}
+
 	/**
 	 * Creates the DDL for the mapping tables. 
 	 */
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link MetricsRegistry} that aggregates the measurements per metric and tags
+ * (count, total and maximum duration, amount) and writes them as CSV into a file on {@link #close()}.
+ *
+ * @author Ralf Wisser
+ */
+public class AggregatingMetricsRegistry implements MetricsRegistry {
+
+	/**
+	 * Aggregated measurements of a metric with given tags.
+	 */
+	public static class Aggregate {
+		public final String name;
+		public final String tags;
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private long amount;
+
+		private Aggregate(String name, String tags) {
+			this.name = name;
+			this.tags = tags;
+		}
+
+		private synchronized void add(long durationNanos, long amount) {
+			++count;
+			totalNanos += durationNanos;
+			maxNanos = Math.max(maxNanos, durationNanos);
+			this.amount += amount;
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		public synchronized long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public synchronized long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public synchronized long getAmount() {
+			return amount;
+		}
+	}
+
+	private final File file;
+	private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<String, Aggregate>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file the file to write into on {@link #close()}, <code>null</code> if the data is only kept in memory
+	 */
+	public AggregatingMetricsRegistry(File file) {
+		this.file = file;
+	}
+
+	@Override
+	public void timer(String name, long durationNanos, long amount, String... tags) {
+		aggregate(name, tags).add(durationNanos, amount);
+	}
+
+	@Override
+	public void counter(String name, long amount, String... tags) {
+		aggregate(name, tags).add(0, amount);
+	}
+
+	private Aggregate aggregate(String name, String[] tags) {
+		String tagString = tagString(tags);
+		String key = name + "\t" + tagString;
+		Aggregate aggregate = aggregates.get(key);
+		if (aggregate == null) {
+			synchronized (aggregates) {
+				aggregate = aggregates.get(key);
+				if (aggregate == null) {
+					aggregate = new Aggregate(name, tagString);
+					aggregates.put(key, aggregate);
+				}
+			}
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Renders tags as "key=value,key=value".
+	 */
+	static String tagString(String[] tags) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i + 1 < tags.length; i += 2) {
+			if (tags[i + 1] != null) {
+				if (sb.length() > 0) {
+					sb.append(',');
+				}
+				sb.append(tags[i]).append('=').append(tags[i + 1]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the aggregates, ordered by total duration (descending).
+	 *
+	 * @return the aggregates
+	 */
+	public List<Aggregate> getAggregates() {
+		List<Aggregate> result = new ArrayList<Aggregate>(aggregates.values());
+		Collections.sort(result, (a, b) -> {
+			int c = Long.compare(b.getTotalNanos(), a.getTotalNanos());
+			if (c == 0) {
+				c = (a.name + a.tags).compareTo(b.name + b.tags);
+			}
+			return c;
+		});
+		return result;
+	}
+
+	/**
+	 * Writes the aggregates as CSV.
+	 *
+	 * @param out to write into
+	 */
+	public void write(Writer out) throws IOException {
+		out.write("metric;tags;count;total ms;max ms;amount\n");
+		for (Aggregate aggregate: getAggregates()) {
+			out.write(aggregate.name + ";" + csv(aggregate.tags) + ";" + aggregate.getCount() + ";"
+					+ String.format(Locale.ENGLISH, "%.3f", aggregate.getTotalNanos() / 1000000.0) + ";"
+					+ String.format(Locale.ENGLISH, "%.3f", aggregate.getMaxNanos() / 1000000.0) + ";"
+					+ aggregate.getAmount() + "\n");
+		}
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(';') >= 0 || value.indexOf('"') >= 0) {
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (file != null) {
+			Writer out = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+			try {
+				write(out);
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+}
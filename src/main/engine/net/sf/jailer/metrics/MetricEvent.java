@@ -0,0 +1,146 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.metrics;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Flight recorder event for a measurement (see {@link Metrics}).<br>
+ * <br>
+ * The engine is compiled for Java 8, so the event type is defined at runtime
+ * via <code>jdk.jfr.EventFactory</code> using reflection. If the JVM doesn't support JFR, no events are emitted.
+ *
+ * @author Ralf Wisser
+ */
+class MetricEvent {
+
+	/**
+	 * Indexes of the fields of the event.
+	 */
+	private static final int METRIC = 0;
+	private static final int TAGS = 1;
+	private static final int PHASE = 2;
+	private static final int AMOUNT = 3;
+
+	private static final Object factory;
+	private static final Method newEvent;
+	private static final Method begin;
+	private static final Method shouldCommit;
+	private static final Method set;
+	private static final Method commit;
+
+	static {
+		Object theFactory = null;
+		Method theNewEvent = null;
+		Method theBegin = null;
+		Method theShouldCommit = null;
+		Method theSet = null;
+		Method theCommit = null;
+		try {
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+			Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+			Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+			Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+			List<Object> annotations = new ArrayList<Object>();
+			annotations.add(annotationElement.newInstance(Class.forName("jdk.jfr.Name"), "net.sf.jailer.Metric"));
+			annotations.add(annotationElement.newInstance(Class.forName("jdk.jfr.Label"), "Jailer Metric"));
+			annotations.add(annotationElement.newInstance(Class.forName("jdk.jfr.Category"), new String[] { "Jailer" }));
+			annotations.add(annotationElement.newInstance(Class.forName("jdk.jfr.Description"), "Timed operation or counter of the Jailer engine"));
+
+			Class<?> label = Class.forName("jdk.jfr.Label");
+			List<Object> fields = new ArrayList<Object>();
+			fields.add(valueDescriptor.newInstance(String.class, "metric", Collections.singletonList(annotationElement.newInstance(label, "Metric"))));
+			fields.add(valueDescriptor.newInstance(String.class, "tags", Collections.singletonList(annotationElement.newInstance(label, "Tags"))));
+			fields.add(valueDescriptor.newInstance(String.class, "phase", Collections.singletonList(annotationElement.newInstance(label, "Phase"))));
+			fields.add(valueDescriptor.newInstance(long.class, "amount", Collections.singletonList(annotationElement.newInstance(label, "Amount"))));
+
+			theFactory = eventFactoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+			theNewEvent = eventFactoryClass.getMethod("newEvent");
+			theBegin = eventClass.getMethod("begin");
+			theShouldCommit = eventClass.getMethod("shouldCommit");
+			theSet = eventClass.getMethod("set", int.class, Object.class);
+			theCommit = eventClass.getMethod("commit");
+		} catch (Throwable t) {
+			// no JFR
+			theFactory = null;
+		}
+		factory = theFactory;
+		newEvent = theNewEvent;
+		begin = theBegin;
+		shouldCommit = theShouldCommit;
+		set = theSet;
+		commit = theCommit;
+	}
+
+	private MetricEvent() {
+	}
+
+	/**
+	 * Does the JVM support the flight recorder?
+	 */
+	static boolean isAvailable() {
+		return factory != null;
+	}
+
+	/**
+	 * Starts the timing of an event.
+	 *
+	 * @return the event or <code>null</code> if JFR isn't available
+	 */
+	static Object start() {
+		if (factory == null) {
+			return null;
+		}
+		try {
+			Object event = newEvent.invoke(factory);
+			begin.invoke(event);
+			return event;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Commits an event.
+	 *
+	 * @param event the started event or <code>null</code> for an event without duration
+	 */
+	static void commit(Object event, String metric, String tags, String phase, long amount) {
+		if (factory == null) {
+			return;
+		}
+		try {
+			Object metricEvent = event == null? newEvent.invoke(factory) : event;
+			if (Boolean.TRUE.equals(shouldCommit.invoke(metricEvent))) {
+				set.invoke(metricEvent, METRIC, metric);
+				set.invoke(metricEvent, TAGS, tags);
+				set.invoke(metricEvent, PHASE, phase);
+				set.invoke(metricEvent, AMOUNT, amount);
+				commit.invoke(metricEvent);
+			}
+		} catch (Exception e) {
+			// ignore
+		}
+	}
+
+}
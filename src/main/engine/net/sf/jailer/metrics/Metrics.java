@@ -0,0 +1,227 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.metrics;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.ExecutionContext;
+
+/**
+ * Access point for the measurements (timers and counters) of an export or import.<br>
+ * <br>
+ * Each export has its own instance (see {@link #create(ExecutionContext)}), which is attached to the sessions of the export
+ * (see {@link net.sf.jailer.database.Session#setMetrics(Metrics)}), so that concurrent exports within the same JVM don't mix their measurements.
+ * Measurements are discarded if no {@link MetricsRegistry} is configured ({@link #NONE}).
+ * If the JVM supports the flight recorder, each measurement is also emitted as {@link MetricEvent}.
+ * Each measurement is tagged with the current phase (the stage of the export).
+ *
+ * @author Ralf Wisser
+ */
+public final class Metrics {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(Metrics.class);
+
+	/**
+	 * Name of the metrics.
+	 */
+	public static final String SQL_QUERY = "jailer.sql.query";
+	public static final String SQL_UPDATE = "jailer.sql.update";
+	public static final String JOB = "jailer.job";
+	public static final String COLLECT = "jailer.collect";
+	public static final String EXPORT = "jailer.export";
+	public static final String STATISTICS = "jailer.statistics";
+	public static final String ROWS_EXPORTED = "jailer.rows.exported";
+	public static final String BYTES_WRITTEN = "jailer.bytes.written";
+	public static final String IMPORT_STATEMENTS = "jailer.import.statements";
+	public static final String IMPORT_ROWS = "jailer.import.rows";
+
+	/**
+	 * Discards all measurements.
+	 */
+	public static final Metrics NONE = new Metrics(null);
+
+	private static final boolean jfrAvailable = MetricEvent.isAvailable();
+
+	private final MetricsRegistry registry;
+	private volatile String phase = null;
+
+	private Metrics(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * An ongoing timed operation.
+	 */
+	public class Sample {
+		private final long startTime;
+		private final Object event;
+
+		private Sample(long startTime, Object event) {
+			this.startTime = startTime;
+			this.event = event;
+		}
+
+		/**
+		 * Stops the timing and records the operation.
+		 *
+		 * @param name name of the metric
+		 * @param amount number of processed rows
+		 * @param tags the tags (alternating key-value pairs)
+		 */
+		public void stop(String name, long amount, String... tags) {
+			if (registry == null) {
+				return;
+			}
+			registry.timer(name, System.nanoTime() - startTime, amount, withPhase(tags));
+			if (event != null) {
+				MetricEvent.commit(event, name, AggregatingMetricsRegistry.tagString(tags), phase, amount);
+			}
+		}
+	}
+
+	private final Sample noSample = new Sample(0, null);
+
+	/**
+	 * Creates the metrics of an export or import using the registry configured in an execution context
+	 * (see {@link ExecutionContext#getMetricsRegistry()} and {@link ExecutionContext#getMetricsFile()}).
+	 *
+	 * @param executionContext the execution context
+	 * @return the metrics, {@link #NONE} if no registry is configured
+	 */
+	public static Metrics create(ExecutionContext executionContext) {
+		MetricsRegistry theRegistry = executionContext.getMetricsRegistry();
+		if (theRegistry == null && executionContext.getMetricsFile() != null) {
+			theRegistry = new AggregatingMetricsRegistry(new File(executionContext.getMetricsFile()));
+		}
+		return theRegistry == null? NONE : new Metrics(theRegistry);
+	}
+
+	/**
+	 * Closes the registry after the export or import.
+	 */
+	public void close() {
+		if (registry != null) {
+			try {
+				registry.close();
+			} catch (IOException e) {
+				_log.warn("can't write metrics", e);
+			}
+		}
+	}
+
+	/**
+	 * Starts timing an operation.
+	 *
+	 * @return the sample to stop
+	 */
+	public Sample start() {
+		if (registry == null) {
+			return noSample;
+		}
+		return new Sample(System.nanoTime(), jfrAvailable? MetricEvent.start() : null);
+	}
+
+	/**
+	 * Increments a counter.
+	 *
+	 * @param name name of the metric
+	 * @param amount the increment
+	 * @param tags the tags (alternating key-value pairs)
+	 */
+	public void count(String name, long amount, String... tags) {
+		if (registry != null) {
+			registry.counter(name, amount, withPhase(tags));
+			if (jfrAvailable) {
+				MetricEvent.commit(null, name, AggregatingMetricsRegistry.tagString(tags), phase, amount);
+			}
+		}
+	}
+
+	/**
+	 * Are measurements being recorded?
+	 */
+	public boolean isEnabled() {
+		return registry != null;
+	}
+
+	/**
+	 * Sets the current phase.
+	 *
+	 * @param thePhase the phase
+	 */
+	public void setPhase(String thePhase) {
+		if (registry != null) {
+			phase = thePhase;
+		}
+	}
+
+	private String[] withPhase(String[] tags) {
+		String thePhase = phase;
+		if (thePhase == null) {
+			return tags;
+		}
+		String[] result = new String[tags.length + 2];
+		result[0] = "phase";
+		result[1] = thePhase;
+		System.arraycopy(tags, 0, result, 2, tags.length);
+		return result;
+	}
+
+	/**
+	 * Counts the bytes written into a stream (metric {@link #BYTES_WRITTEN}).
+	 *
+	 * @param out the stream
+	 * @param tags the tags
+	 * @return the counting stream, or <code>out</code> if no measurements are being recorded
+	 */
+	public OutputStream countBytes(OutputStream out, final String... tags) {
+		if (registry == null) {
+			return out;
+		}
+		return new FilterOutputStream(out) {
+			private long bytes = 0;
+
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				++bytes;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				bytes += len;
+			}
+
+			@Override
+			public void close() throws IOException {
+				super.close();
+				count(BYTES_WRITTEN, bytes, tags);
+				bytes = 0;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.ModelElement;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.progress.ProgressListener;
+import net.sf.jailer.util.Pair;
+
+/**
+ * Turns progress events into measurements: collection jobs are timed
+ * (metric {@link Metrics#COLLECT}, tagged by table, association and day),
+ * exported rows are counted (metric {@link Metrics#ROWS_EXPORTED}, tagged by table)
+ * and the stages define the phase.
+ *
+ * @author Ralf Wisser
+ */
+public class MetricsProgressListener implements ProgressListener {
+
+	private final Metrics metrics;
+	private final Map<Pair<Integer, ModelElement>, Metrics.Sample> runningJobs = new HashMap<Pair<Integer, ModelElement>, Metrics.Sample>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param metrics the metrics of the export
+	 */
+	public MetricsProgressListener(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void collectionJobEnqueued(int day, ModelElement modelElement) {
+	}
+
+	@Override
+	public synchronized void collectionJobStarted(int day, ModelElement modelElement) {
+		runningJobs.put(new Pair<Integer, ModelElement>(day, modelElement), metrics.start());
+	}
+
+	@Override
+	public void collected(int day, ModelElement modelElement, long rc) {
+		Metrics.Sample sample;
+		synchronized (this) {
+			sample = runningJobs.remove(new Pair<Integer, ModelElement>(day, modelElement));
+		}
+		if (sample != null) {
+			if (modelElement instanceof Association) {
+				Association association = (Association) modelElement;
+				sample.stop(Metrics.COLLECT, rc, "table", association.destination.getName(), "association", association.getName(), "day", String.valueOf(day));
+			} else if (modelElement instanceof Table) {
+				sample.stop(Metrics.COLLECT, rc, "table", ((Table) modelElement).getName(), "day", String.valueOf(day));
+			}
+		}
+	}
+
+	@Override
+	public void exported(Table table, long rc) {
+		metrics.count(Metrics.ROWS_EXPORTED, rc, "table", table.getName());
+	}
+
+	@Override
+	public void newStage(String stage, boolean isErrorStage, boolean isFinalStage) {
+		metrics.setPhase(stage);
+	}
+
+	@Override
+	public void prepareExport() {
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.metrics;
+
+import java.io.IOException;
+
+/**
+ * Receives the measurements of the engine.<br>
+ * Tags are given as alternating key-value pairs, for instance
+ * <code>"table", "EMPLOYEE", "day", "3"</code>. Implementations must be thread-safe.
+ *
+ * @see Metrics
+ * @author Ralf Wisser
+ */
+public interface MetricsRegistry {
+
+	/**
+	 * Records a timed operation.
+	 *
+	 * @param name name of the metric
+	 * @param durationNanos duration of the operation
+	 * @param amount number of rows (or other units) processed by the operation
+	 * @param tags the tags
+	 */
+	void timer(String name, long durationNanos, long amount, String... tags);
+
+	/**
+	 * Increments a counter.
+	 *
+	 * @param name name of the metric
+	 * @param amount the increment
+	 * @param tags the tags
+	 */
+	void counter(String name, long amount, String... tags);
+
+	/**
+	 * Called after the export or import. Flushes the collected data.
+	 */
+	void close() throws IOException;
+
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.metrics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.Session;
+
+/**
+ * Captures the execution plans and timings of the statements that collect the rows
+ * (see {@link ExecutionContext#getPlanFile()}).<br>
+ * <br>
+ * Statements that differ only in their literals (such as entity-graph IDs) have the same shape. The plan of each shape is
+ * explained once (using the DBMS's explain templates) and its executions are timed. The result is written into the plan file.
+ * Its previous content is taken as baseline: shapes whose average execution time has regressed or whose plan has changed
+ * are reported.
+ *
+ * @author Ralf Wisser
+ */
+public final class PlanRecorder {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(PlanRecorder.class);
+
+	/**
+	 * Factor by which the average execution time must exceed the baseline to be regarded as regressed.
+	 */
+	private static final double REGRESSION_FACTOR = 2.0;
+
+	/**
+	 * Minimum increase of the average execution time (in ms) to be regarded as regressed.
+	 */
+	private static final long MIN_REGRESSION_TIME = 1000;
+
+	/**
+	 * Name of the session property holding the recorder.
+	 */
+	private static final String RECORDER = "recorder";
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'([^']|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.$])\\d+(\\.\\d+)?");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	/**
+	 * Plan and timing of a statement shape.
+	 */
+	private static class StatementPlan {
+		String plan = "";
+		long executions = 0;
+		long time = 0;
+	}
+
+	private final File file;
+	private final Session session;
+	private final Map<String, StatementPlan> baseline;
+	private final Map<String, StatementPlan> plans = new LinkedHashMap<String, StatementPlan>();
+
+	private PlanRecorder(File file, Session session) {
+		this.file = file;
+		this.session = session;
+		this.baseline = load(file);
+	}
+
+	/**
+	 * Executes a statement that collects rows. Captures plan and timing if a recorder is installed for the session.
+	 *
+	 * @param session the session
+	 * @param sql the statement
+	 * @return update count
+	 */
+	public static long executeUpdate(Session session, String sql) throws SQLException {
+		PlanRecorder theRecorder = (PlanRecorder) session.getSessionProperty(PlanRecorder.class, RECORDER);
+		if (theRecorder == null) {
+			return session.executeUpdate(sql);
+		}
+		return theRecorder.record(session, sql);
+	}
+
+	private long record(Session session, String sql) throws SQLException {
+		String shape = shapeOf(sql);
+		StatementPlan statementPlan;
+		boolean isNew = false;
+		synchronized (this) {
+			statementPlan = plans.get(shape);
+			if (statementPlan == null) {
+				statementPlan = new StatementPlan();
+				plans.put(shape, statementPlan);
+				isNew = true;
+			}
+		}
+		if (isNew) {
+			String plan = explain(session, sql);
+			synchronized (this) {
+				statementPlan.plan = plan;
+			}
+		}
+		long startTime = System.currentTimeMillis();
+		long rc = session.executeUpdate(sql);
+		long time = System.currentTimeMillis() - startTime;
+		synchronized (this) {
+			++statementPlan.executions;
+			statementPlan.time += time;
+		}
+		return rc;
+	}
+
+	/**
+	 * Explains a statement.
+	 *
+	 * @return the plan, or the reason why the statement can't be explained
+	 */
+	private String explain(Session session, String sql) {
+		String explainQuery = session.dbms.getExplainQuery();
+		if (explainQuery == null || explainQuery.isEmpty()) {
+			return "(no explain template)";
+		}
+		String explainPrepare = session.dbms.getExplainPrepare();
+		String explainCleanup = session.dbms.getExplainCleanup();
+		String stmtId = "jlr" + System.nanoTime() % 1000000;
+		final StringBuilder plan = new StringBuilder();
+		boolean silent = session.getSilent();
+		session.setSilent(true);
+		try {
+			if (explainPrepare != null && !explainPrepare.isEmpty()) {
+				session.execute(String.format(Locale.ENGLISH, explainPrepare, sql, stmtId));
+			}
+			try {
+				session.executeQuery(String.format(Locale.ENGLISH, explainQuery, sql, stmtId), new Session.AbstractResultSetReader() {
+					@Override
+					public void readCurrentRow(ResultSet resultSet) throws SQLException {
+						int columnCount = getMetaData(resultSet).getColumnCount();
+						StringBuilder line = new StringBuilder();
+						for (int i = 1; i <= columnCount; ++i) {
+							Object value = resultSet.getObject(i);
+							if (value != null) {
+								if (line.length() > 0) {
+									line.append(" ");
+								}
+								line.append(value);
+							}
+						}
+						plan.append(line).append("\n");
+					}
+				});
+			} finally {
+				if (explainCleanup != null && !explainCleanup.isEmpty()) {
+					session.execute(String.format(Locale.ENGLISH, explainCleanup, sql, stmtId));
+				}
+			}
+		} catch (Throwable t) {
+			return "(" + t.getMessage() + ")";
+		} finally {
+			session.setSilent(silent);
+		}
+		return plan.toString().trim();
+	}
+
+	/**
+	 * Gets the shape of a statement (all literals replaced by "?").
+	 */
+	private static String shapeOf(String sql) {
+		String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+		shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+		return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+	}
+
+	/**
+	 * Gets the structure of a plan, ignoring the estimates.
+	 */
+	private static String structureOf(String plan) {
+		return WHITESPACE.matcher(NUMBER_LITERAL.matcher(plan).replaceAll("#")).replaceAll(" ").trim();
+	}
+
+	/**
+	 * Installs a recorder for the statements of a session if a plan file is configured (see {@link ExecutionContext#getPlanFile()}).
+	 * Statements of other sessions (such as those of concurrent exports) are not recorded.
+	 *
+	 * @param executionContext the execution context
+	 * @param session the session
+	 * @return the installed recorder or <code>null</code> if no plan file is configured
+	 */
+	public static PlanRecorder install(ExecutionContext executionContext, Session session) {
+		if (executionContext.getPlanFile() == null) {
+			return null;
+		}
+		PlanRecorder recorder = new PlanRecorder(new File(executionContext.getPlanFile()), session);
+		session.setSessionProperty(PlanRecorder.class, RECORDER, recorder);
+		return recorder;
+	}
+
+	/**
+	 * Uninstalls a recorder and writes the plan file.
+	 *
+	 * @param theRecorder the recorder returned by {@link #install(ExecutionContext, Session)}, may be <code>null</code>
+	 * @return descriptions of the statement shapes that have regressed compared to the previous content of the plan file
+	 */
+	public static List<String> uninstall(PlanRecorder theRecorder) {
+		List<String> regressions = new ArrayList<String>();
+		if (theRecorder != null) {
+			if (theRecorder.session.getSessionProperty(PlanRecorder.class, RECORDER) == theRecorder) {
+				theRecorder.session.setSessionProperty(PlanRecorder.class, RECORDER, null);
+			}
+			synchronized (theRecorder) {
+				regressions = theRecorder.regressions();
+				theRecorder.save();
+			}
+			for (String regression: regressions) {
+				_log.warn(regression);
+			}
+		}
+		return regressions;
+	}
+
+	private List<String> regressions() {
+		List<String> regressions = new ArrayList<String>();
+		for (Map.Entry<String, StatementPlan> e: plans.entrySet()) {
+			StatementPlan previous = baseline.get(e.getKey());
+			StatementPlan current = e.getValue();
+			if (previous == null || current.executions == 0) {
+				continue;
+			}
+			String reason = null;
+			if (previous.executions > 0) {
+				long previousTime = previous.time / previous.executions;
+				long time = current.time / current.executions;
+				if (time >= previousTime * REGRESSION_FACTOR && time - previousTime >= MIN_REGRESSION_TIME) {
+					reason = "average time regressed from " + previousTime + " ms to " + time + " ms";
+				}
+			}
+			if (!structureOf(previous.plan).equals(structureOf(current.plan))) {
+				reason = (reason == null? "" : reason + ", ") + "plan changed";
+			}
+			if (reason != null) {
+				regressions.add(reason + ": " + e.getKey());
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * Writes the plans. Shapes of the baseline that have not been executed again are retained.
+	 */
+	private void save() {
+		Map<String, StatementPlan> all = new LinkedHashMap<String, StatementPlan>(baseline);
+		all.putAll(plans);
+		try {
+			PrintWriter out = new PrintWriter(new FileWriter(file));
+			for (Map.Entry<String, StatementPlan> e: all.entrySet()) {
+				out.println("statement: " + e.getKey());
+				out.println("executions: " + e.getValue().executions);
+				out.println("time: " + e.getValue().time);
+				out.println("plan:");
+				for (String line: e.getValue().plan.split("\n")) {
+					out.println("\t" + line);
+				}
+				out.println();
+			}
+			out.close();
+		} catch (IOException e) {
+			_log.warn("can't write plans", e);
+		}
+	}
+
+	private static Map<String, StatementPlan> load(File file) {
+		Map<String, StatementPlan> result = new LinkedHashMap<String, StatementPlan>();
+		if (!file.exists()) {
+			return result;
+		}
+		try {
+			BufferedReader in = new BufferedReader(new FileReader(file));
+			String line;
+			String shape = null;
+			StatementPlan statementPlan = null;
+			StringBuilder plan = new StringBuilder();
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith("statement: ")) {
+					shape = line.substring(11);
+					statementPlan = new StatementPlan();
+					plan.setLength(0);
+				} else if (statementPlan != null) {
+					if (line.startsWith("executions: ")) {
+						statementPlan.executions = Long.parseLong(line.substring(12).trim());
+					} else if (line.startsWith("time: ")) {
+						statementPlan.time = Long.parseLong(line.substring(6).trim());
+					} else if (line.startsWith("\t")) {
+						plan.append(line.substring(1)).append("\n");
+					} else if (line.isEmpty()) {
+						statementPlan.plan = plan.toString().trim();
+						result.put(shape, statementPlan);
+						statementPlan = null;
+					}
+				}
+			}
+			if (statementPlan != null) {
+				statementPlan.plan = plan.toString().trim();
+				result.put(shape, statementPlan);
+			}
+			in.close();
+		} catch (IOException | NumberFormatException e) {
+			_log.warn("can't read plans from " + file, e);
+		}
+		return result;
+	}
+
+}
@@ -41,6 +41,16 @@ public class ProgressListenerRegistry {
 		progressListeners.add(theProgressListener);
 	}
 
+	/**
+	 * Removes a {@link ProgressListener}.
+	 *
+	 * @param theProgressListener
+	 *            to remove
+	 */
+	public synchronized void removeProgressListener(ProgressListener theProgressListener) {
+		progressListeners.remove(theProgressListener);
+	}
+
 	public synchronized void fireCollectionJobEnqueued(int day, ModelElement modelElement) {
 		for (ProgressListener listener : progressListeners) {
 			listener.collectionJobEnqueued(day, modelElement);
@@ -22,7 +22,7 @@ ${create-table}${schema}JAILER_GRAPH${table-suffix}
 --   ,CONSTRAINT jlr_pk_graph PRIMARY KEY(id)
 ) ${create-table-suffix};
 
-${create-table}${schema}JAILER_ENTITY${table-suffix}
+${create-partitioned-table}${schema}JAILER_ENTITY${table-suffix}
 (
    r_entitygraph   INTEGER NOT NULL,
 
@@ -34,7 +34,8 @@ ${create-table}${schema}JAILER_ENTITY${table-suffix}
    association     INTEGER${constraint}
 
 -- ,  CONSTRAINT jlr_fk_graph_e FOREIGN KEY (r_entitygraph) REFERENCES ${schema}JAILER_GRAPH${table-suffix}(id)
-) ${create-table-suffix};
+) ${create-table-suffix}${partitioning};
+${entity-partitions}
 
 ${create-index}${index-schema}jlr_enty_brthdy${table-suffix} ON ${index-table-prefix}${schema}JAILER_ENTITY${table-suffix} (r_entitygraph, type, birthday) ${create-index-suffix};
 ${for-each:column-list}${create-index}${index-schema}jlr_enty_upk${table-suffix}$i ON ${index-table-prefix}${schema}JAILER_ENTITY${table-suffix} (r_entitygraph $, type, birthday) ${create-index-suffix};
@@ -50,7 +51,7 @@ ${create-table}${schema}JAILER_SET${table-suffix}
 ${for-each:column-list}${create-index}${index-schema}jlr_pk_set${table-suffix}$i ON ${index-table-prefix}${schema}JAILER_SET${table-suffix} (set_id $, type) ${create-index-suffix};
 ${end}
 
-${create-table}${schema}JAILER_DEPENDENCY${table-suffix}
+${create-partitioned-table}${schema}JAILER_DEPENDENCY${table-suffix}
 (
    r_entitygraph   INTEGER NOT NULL,
    assoc           INTEGER NOT NULL,
@@ -62,7 +63,8 @@ ${create-table}${schema}JAILER_DEPENDENCY${table-suffix}
    ${to}   
 
 -- ,  CONSTRAINT jlr_fk_graph_d FOREIGN KEY (r_entitygraph) REFERENCES ${schema}JAILER_GRAPH${table-suffix}(id)
-) ${create-table-suffix};
+) ${create-table-suffix}${partitioning};
+${dependency-partitions}
 
 ${for-each:column-list-from}${create-index}${index-schema}jlr_dep_from${table-suffix}$i ON ${index-table-prefix}${schema}JAILER_DEPENDENCY${table-suffix} (r_entitygraph, assoc $) ${create-index-suffix};
 ${end}
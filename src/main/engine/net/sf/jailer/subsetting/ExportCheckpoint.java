@@ -0,0 +1,328 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Persisted state of an export that allows to resume it after a failure
+ * (see {@link net.sf.jailer.ExecutionContext#isCheckpoint()}).<br>
+ * <br>
+ * The entity graph itself is kept in the working tables (or in the local database), the checkpoint
+ * only refers to it and holds the state of the {@link SubsettingEngine} between two steps:
+ * <ul>
+ * <li>while collecting rows: the day, the tables having progress that day, the completed tables and the tables having had any progress,</li>
+ * <li>after collecting rows: the number of collected rows per table,</li>
+ * <li>while writing the export script: the length of the script, the tables whose rows are written completely,
+ * the tables whose marked (already written) entities are still to be removed from the graph and the number of exported rows.</li>
+ * </ul>
+ * Steps that can't be repeated are recorded as {@link Stage#NOT_RESUMABLE}.
+ *
+ * @author Ralf Wisser
+ */
+class ExportCheckpoint {
+
+	/**
+	 * Stage of the export.
+	 */
+	enum Stage {
+		COLLECTING, COLLECTED, WRITING, NOT_RESUMABLE
+	}
+
+	private final File file;
+	private final File scriptFile;
+	private final DataModel dataModel;
+	private final Map<String, String> export;
+	private final Properties properties = new Properties();
+	private final Set<Table> totalProgress = new HashSet<Table>();
+	private final Set<Table> writtenTables = new HashSet<Table>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scriptFile the export script
+	 * @param dataModel the data model
+	 * @param export identifies the export (extraction model, subject condition, script format etc.)
+	 */
+	ExportCheckpoint(String scriptFile, DataModel dataModel, Map<String, String> export) {
+		this.file = new File(scriptFile + ".checkpoint");
+		this.scriptFile = new File(scriptFile);
+		this.dataModel = dataModel;
+		this.export = export;
+	}
+
+	/**
+	 * Gets the checkpoint file.
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the current length of the export script.
+	 */
+	long getScriptLength() {
+		return scriptFile.length();
+	}
+
+	/**
+	 * Reads the last checkpoint of a failed export.
+	 */
+	void read() throws IOException {
+		if (!file.exists()) {
+			throw new RuntimeException("Can't resume the export, checkpoint \"" + file.getAbsolutePath() + "\" not found.");
+		}
+		InputStream in = new FileInputStream(file);
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		for (Map.Entry<String, String> e: export.entrySet()) {
+			if (!String.valueOf(e.getValue()).equals(properties.getProperty("export." + e.getKey()))) {
+				throw new RuntimeException("Can't resume the export, the checkpoint \"" + file.getAbsolutePath() + "\" belongs to an export with a different " + e.getKey()
+					+ " (\"" + properties.getProperty("export." + e.getKey()) + "\").");
+			}
+		}
+		if (getStage() == Stage.NOT_RESUMABLE) {
+			throw new RuntimeException("Can't resume the export, it failed while " + properties.getProperty("reason") + ". Please restart it.");
+		}
+		totalProgress.addAll(getTables("total-progress"));
+		writtenTables.addAll(getTables("written"));
+	}
+
+	/**
+	 * Starts a new export.
+	 *
+	 * @param graphID ID of the entity graph
+	 * @param localDatabaseFolder folder of the local database holding the entity graph, or <code>null</code>
+	 */
+	void start(int graphID, String localDatabaseFolder) {
+		properties.clear();
+		for (Map.Entry<String, String> e: export.entrySet()) {
+			properties.setProperty("export." + e.getKey(), String.valueOf(e.getValue()));
+		}
+		properties.setProperty("graph", Integer.toString(graphID));
+		if (localDatabaseFolder != null) {
+			properties.setProperty("local-database", localDatabaseFolder);
+		}
+	}
+
+	/**
+	 * Sets the birthday of subject rows (persisted with the next checkpoint).
+	 */
+	void setBirthdayOfSubject(int birthdayOfSubject) {
+		properties.setProperty("birthday-of-subject", Integer.toString(birthdayOfSubject));
+	}
+
+	/**
+	 * Persists the state after a day of collecting rows.
+	 *
+	 * @param day the day
+	 * @param progress tables having progress that day
+	 * @param completedTables tables from which all rows are collected
+	 */
+	void collecting(int day, Set<Table> progress, Set<Table> completedTables) throws IOException {
+		totalProgress.addAll(progress);
+		properties.setProperty("stage", Stage.COLLECTING.name());
+		properties.setProperty("day", Integer.toString(day));
+		setTables("progress", progress);
+		setTables("completed", completedTables);
+		setTables("total-progress", totalProgress);
+		save();
+	}
+
+	/**
+	 * Persists the state after all rows are collected.
+	 *
+	 * @param progress all tables from which rows are collected
+	 * @param collectedRows number of collected rows per table
+	 */
+	void collected(Set<Table> progress, Map<Table, Long> collectedRows) throws IOException {
+		totalProgress.addAll(progress);
+		properties.setProperty("stage", Stage.COLLECTED.name());
+		setTables("total-progress", totalProgress);
+		for (Map.Entry<Table, Long> e: collectedRows.entrySet()) {
+			properties.setProperty("collected." + e.getKey().getName(), Long.toString(e.getValue()));
+		}
+		save();
+	}
+
+	/**
+	 * Persists the state of writing the export script.
+	 *
+	 * @param position length of the export script
+	 * @param newWrittenTables tables whose rows have been written completely since the last checkpoint
+	 * @param pendingDeletion tables whose marked entities are written but not yet removed from the entity graph
+	 * @param exportedCount number of exported rows
+	 */
+	void writing(long position, Set<Table> newWrittenTables, Set<Table> pendingDeletion, long exportedCount) throws IOException {
+		writtenTables.addAll(newWrittenTables);
+		properties.setProperty("stage", Stage.WRITING.name());
+		properties.setProperty("position", Long.toString(position));
+		properties.setProperty("exported", Long.toString(exportedCount));
+		setTables("written", writtenTables);
+		setTables("pending-deletion", pendingDeletion);
+		save();
+	}
+
+	/**
+	 * Records that the export can't be resumed if it fails in the current step.
+	 *
+	 * @param reason describes the step
+	 */
+	void notResumable(String reason) throws IOException {
+		properties.setProperty("stage", Stage.NOT_RESUMABLE.name());
+		properties.setProperty("reason", reason);
+		save();
+	}
+
+	/**
+	 * Removes the checkpoint (after the export has been completed).
+	 */
+	void delete() {
+		file.delete();
+	}
+
+	/**
+	 * Can the export be resumed from this checkpoint?
+	 */
+	boolean isResumable() {
+		return getStage() != null && getStage() != Stage.NOT_RESUMABLE;
+	}
+
+	Stage getStage() {
+		String stage = properties.getProperty("stage");
+		return stage == null? null : Stage.valueOf(stage);
+	}
+
+	int getGraphID() {
+		return Integer.parseInt(properties.getProperty("graph"));
+	}
+
+	String getLocalDatabaseFolder() {
+		return properties.getProperty("local-database");
+	}
+
+	int getDay() {
+		return Integer.parseInt(properties.getProperty("day"));
+	}
+
+	int getBirthdayOfSubject() {
+		return Integer.parseInt(properties.getProperty("birthday-of-subject"));
+	}
+
+	Set<Table> getProgress() {
+		return getTables("progress");
+	}
+
+	Set<Table> getCompletedTables() {
+		return getTables("completed");
+	}
+
+	Set<Table> getTotalProgress() {
+		return new HashSet<Table>(totalProgress);
+	}
+
+	Map<Table, Long> getCollectedRows() {
+		Map<Table, Long> result = new HashMap<Table, Long>();
+		for (String key: properties.stringPropertyNames()) {
+			if (key.startsWith("collected.")) {
+				result.put(getTable(key.substring("collected.".length())), Long.parseLong(properties.getProperty(key)));
+			}
+		}
+		return result;
+	}
+
+	long getPosition() {
+		return Long.parseLong(properties.getProperty("position", "0"));
+	}
+
+	Set<Table> getWrittenTables() {
+		return new HashSet<Table>(writtenTables);
+	}
+
+	Set<Table> getPendingDeletion() {
+		return getTables("pending-deletion");
+	}
+
+	long getExportedCount() {
+		return Long.parseLong(properties.getProperty("exported", "0"));
+	}
+
+	private void setTables(String key, Set<Table> tables) {
+		Set<String> names = new TreeSet<String>();
+		for (Table table: tables) {
+			names.add(table.getName());
+		}
+		properties.setProperty(key, String.join("\n", names));
+	}
+
+	private Set<Table> getTables(String key) {
+		Set<Table> tables = new HashSet<Table>();
+		String names = properties.getProperty(key, "");
+		for (String name: names.split("\n")) {
+			if (name.length() > 0) {
+				tables.add(getTable(name));
+			}
+		}
+		return tables;
+	}
+
+	private Table getTable(String name) {
+		Table table = dataModel.getTable(name);
+		if (table == null) {
+			throw new RuntimeException("Can't resume the export, unknown table \"" + name + "\" in checkpoint \"" + file.getAbsolutePath() + "\".");
+		}
+		return table;
+	}
+
+	/**
+	 * Writes the checkpoint. Replaces the previous one atomically (if supported by the file system).
+	 */
+	private void save() throws IOException {
+		File tmpFile = new File(file.getPath() + ".tmp");
+		OutputStream out = new FileOutputStream(tmpFile);
+		try {
+			properties.store(out, "Jailer export checkpoint");
+		} finally {
+			out.close();
+		}
+		try {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.Cardinality;
+import net.sf.jailer.datamodel.ParameterHandler;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.extractionmodel.ExtractionModel;
+import net.sf.jailer.extractionmodel.ExtractionModel.AdditionalSubject;
+import net.sf.jailer.progress.ProgressListenerRegistry;
+import net.sf.jailer.util.CancellationHandler;
+import net.sf.jailer.util.Quoting;
+import net.sf.jailer.util.SqlUtil;
+
+/**
+ * Estimates the outcome of an export without collecting any rows (dry run).<br>
+ * <br>
+ * Walks the same day-by-day traversal as the {@link SubsettingEngine}, but instead of resolving an association
+ * it multiplies the number of rows found in the source table the day before with the fan-out of the association.
+ * The fan-out is the number of destination rows joined with a sample of about {@link #SAMPLE_SIZE} source rows,
+ * divided by the size of the sample. The sample is random if the DBMS supports sampling (see {@link net.sf.jailer.configuration.DBMS#getTableSampleClause()}),
+ * otherwise it consists of the first rows of the table. Assuming that the joined rows are evenly distributed over the destination table
+ * (of the size according to the DBMS statistics), the expected number of distinct rows is derived from that, minus the share
+ * of rows that have already been collected. The traversal ends when no association adds at least half a row.<br>
+ * The projected runtime extrapolates the time the sample joins took. It doesn't account for writing the working tables
+ * and the export script, so it is a lower bound.<br>
+ * The estimated row counts are reported as collected rows to the progress listeners.
+ *
+ * @author Ralf Wisser
+ */
+public class ExportEstimator {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(ExportEstimator.class);
+
+	/**
+	 * Number of source rows to determine the fan-out of an association with.
+	 */
+	public static final int SAMPLE_SIZE = 1000;
+
+	/**
+	 * Maximum number of days (guards against endless cycles of tiny estimates).
+	 */
+	private static final int MAX_DAYS = 100;
+
+	/**
+	 * The estimated outcome of an export.
+	 */
+	public static class Estimate {
+		private final Map<Table, Double> rowCounts = new LinkedHashMap<Table, Double>();
+		private final Map<Association, Double> fanOuts = new LinkedHashMap<Association, Double>();
+		private double projectedRuntime = 0;
+		private int days = 0;
+
+		/**
+		 * Gets the estimated number of exported rows per table.
+		 */
+		public Map<Table, Long> getRowCounts() {
+			Map<Table, Long> result = new LinkedHashMap<Table, Long>();
+			rowCounts.forEach((table, rc) -> result.put(table, Math.round(rc)));
+			return result;
+		}
+
+		/**
+		 * Gets the estimated number of exported rows.
+		 */
+		public long getTotal() {
+			double total = 0;
+			for (Double rc: rowCounts.values()) {
+				total += rc;
+			}
+			return Math.round(total);
+		}
+
+		/**
+		 * Gets the fan-out (average number of destination rows per source row) of each resolved association.
+		 */
+		public Map<Association, Double> getFanOuts() {
+			return fanOuts;
+		}
+
+		/**
+		 * Gets the projected time (in ms) needed to collect the rows (lower bound).
+		 */
+		public long getProjectedRuntime() {
+			return Math.round(projectedRuntime);
+		}
+
+		/**
+		 * Gets the number of days of the traversal.
+		 */
+		public int getDays() {
+			return days;
+		}
+
+		/**
+		 * Creates a human readable report.
+		 *
+		 * @return the lines of the report
+		 */
+		public List<String> createReport() {
+			List<String> result = new ArrayList<String>();
+			result.add("Estimated Rows:    " + getTotal() + " (dry run, " + days + " days)");
+			List<Table> tables = new ArrayList<Table>(rowCounts.keySet());
+			tables.sort((a, b) -> Double.compare(rowCounts.get(b), rowCounts.get(a)));
+			for (Table table: tables) {
+				result.add(String.format(Locale.ENGLISH, "   %-24s %10d", table.getName(), Math.round(rowCounts.get(table))));
+			}
+			result.add("Fan-out per Association:");
+			for (Map.Entry<Association, Double> e: fanOuts.entrySet()) {
+				Association association = e.getKey();
+				result.add(String.format(Locale.ENGLISH, "   %-48s %10.2f", association.source.getName() + " -> " + association.destination.getName() + " (" + association.getName() + ")", e.getValue()));
+			}
+			result.add(String.format(Locale.ENGLISH, "Projected Runtime: at least %.1f s (collecting rows)", getProjectedRuntime() / 1000.0));
+			return result;
+		}
+	}
+
+	private final Session session;
+	private final ExecutionContext executionContext;
+	private final Quoting quoting;
+	private final TableStatistics statistics;
+
+	/**
+	 * Table sizes that are known exactly or from the statistics (<code>null</code> if unknown).
+	 */
+	private final Map<Table, Long> tableSizes = new HashMap<Table, Long>();
+
+	/**
+	 * Fan-out of the sampled associations.
+	 */
+	private final Map<Association, Double> fanOuts = new HashMap<Association, Double>();
+
+	/**
+	 * Time (in ms) per source row needed to resolve an association.
+	 */
+	private final Map<Association, Double> timePerRow = new HashMap<Association, Double>();
+
+	/**
+	 * Number of rows that fulfill a subject condition, per table and condition.
+	 */
+	private final Map<Table, Map<String, Long>> subjectRowCounts = new HashMap<Table, Map<String, Long>>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param session the session for the source database
+	 * @param executionContext the execution context
+	 */
+	public ExportEstimator(Session session, ExecutionContext executionContext) throws SQLException {
+		this.session = session;
+		this.executionContext = executionContext;
+		this.quoting = Quoting.getQuoting(session);
+		this.statistics = new TableStatistics(session);
+	}
+
+	/**
+	 * Estimates the outcome of an export.
+	 *
+	 * @param extractionModel the extraction model
+	 * @param subjectCondition the condition of the subject (overrides the condition of the extraction model), <code>null</code> for the model's condition
+	 * @return the estimate
+	 */
+	public Estimate estimate(ExtractionModel extractionModel, String subjectCondition) throws SQLException {
+		Estimate estimate = estimate(extractionModel, subjectCondition, 1.0, executionContext.getProgressListenerRegistry());
+		for (String line: estimate.createReport()) {
+			_log.info(line);
+		}
+		return estimate;
+	}
+
+	/**
+	 * Determines the fraction of the subjects to be sampled so that the export contains (approximately) a given number of rows.
+	 *
+	 * @param extractionModel the extraction model
+	 * @param subjectCondition the condition of the subject (overrides the condition of the extraction model), <code>null</code> for the model's condition
+	 * @param targetRowCount the targeted number of exported rows
+	 * @return the fraction (between 0 exclusive and 1 inclusive)
+	 */
+	public double subjectFraction(ExtractionModel extractionModel, String subjectCondition, long targetRowCount) throws SQLException {
+		ProgressListenerRegistry silent = new ProgressListenerRegistry();
+		Estimate estimate = estimate(extractionModel, subjectCondition, 1.0, silent);
+		if (estimate.getTotal() <= targetRowCount) {
+			return 1.0;
+		}
+		// the estimated number of rows grows monotonously with the fraction,
+		// all statistics and fan-outs are cached, so the bisection doesn't query the database anymore
+		double low = 0.0;
+		double high = 1.0;
+		for (int i = 0; i < 40 && high - low > 1e-9; ++i) {
+			double fraction = (low + high) / 2.0;
+			long total = estimate(extractionModel, subjectCondition, fraction, silent).getTotal();
+			if (total == targetRowCount) {
+				return fraction;
+			}
+			if (total < targetRowCount) {
+				low = fraction;
+			} else {
+				high = fraction;
+			}
+		}
+		return low > 0.0? low : high;
+	}
+
+	/**
+	 * Counts the rows of a table that fulfill a subject condition.
+	 *
+	 * @param table the subject table
+	 * @param condition the condition (with assigned parameters), empty for all rows
+	 * @return the number of rows
+	 */
+	public long subjectRowCount(Table table, String condition) throws SQLException {
+		condition = condition.trim();
+		Map<String, Long> counts = subjectRowCounts.computeIfAbsent(table, t -> new HashMap<String, Long>());
+		Long rc = counts.get(condition);
+		if (rc == null) {
+			if (condition.length() == 0 || SqlUtil.SQL_TRUE.equals(condition)) {
+				rc = tableSize(table);
+			} else {
+				rc = count("Select count(*) From " + quoting.requote(table.getName()) + " T Where (" + condition + ")");
+			}
+			counts.put(condition, rc);
+		}
+		return rc;
+	}
+
+	/**
+	 * Estimates the outcome of an export of a fraction of the subjects.
+	 *
+	 * @param fraction the fraction of the subjects
+	 * @param progressListenerRegistry receives the estimated row counts
+	 */
+	private Estimate estimate(ExtractionModel extractionModel, String subjectCondition, double fraction, ProgressListenerRegistry progressListenerRegistry) throws SQLException {
+		Estimate estimate = new Estimate();
+		int today = 0;
+
+		List<AdditionalSubject> allSubjects = new ArrayList<AdditionalSubject>(extractionModel.additionalSubjects);
+		allSubjects.add(new AdditionalSubject(extractionModel.subject, subjectCondition != null? subjectCondition : extractionModel.getCondition(), extractionModel.subjectLimitDefinition));
+		Set<Table> completedTables = new HashSet<Table>();
+		Map<Table, Double> progress = new HashMap<Table, Double>();
+		Map<Table, Collection<Association>> progressAssociations = new HashMap<Table, Collection<Association>>();
+		for (AdditionalSubject as: allSubjects) {
+			CancellationHandler.checkForCancellation(executionContext.getCancellationContext());
+			Table table = as.getSubject();
+			String condition = ParameterHandler.assignParameterValues(as.getCondition() == null? "" : as.getCondition(), executionContext.getParameters()).trim();
+			boolean all = condition.length() == 0 || SqlUtil.SQL_TRUE.equals(condition);
+			progressListenerRegistry.fireCollectionJobEnqueued(today, table);
+			progressListenerRegistry.fireCollectionJobStarted(today, table);
+			long startTime = System.currentTimeMillis();
+			double rc = subjectRowCount(table, condition) * fraction;
+			estimate.projectedRuntime += System.currentTimeMillis() - startTime;
+			Long limit = as.getSubjectLimitDefinition().limit;
+			if (limit != null) {
+				rc = Math.min(rc, limit);
+			} else if (all && fraction >= 1.0) {
+				completedTables.add(table);
+			}
+			double current = estimate.rowCounts.getOrDefault(table, 0.0);
+			double added = Math.max(0, Math.min(rc, tableSize(table) - current));
+			estimate.rowCounts.put(table, current + added);
+			progressListenerRegistry.fireCollected(today, table, Math.round(added));
+			if (added >= 0.5) {
+				progress.merge(table, added, Double::sum);
+				progressAssociations.put(table, new ArrayList<Association>());
+			}
+		}
+
+		while (!progress.isEmpty() && today < MAX_DAYS) {
+			_log.debug("day " + today + ", progress: " + SubsettingEngine.asString(progress.keySet()));
+			++today;
+			Map<Table, Double> newProgress = new HashMap<Table, Double>();
+			Map<Table, Collection<Association>> newProgressAssociations = new HashMap<Table, Collection<Association>>();
+			for (Table table: new TreeMap<String, Table>(tableNames(progress.keySet())).values()) {
+				double sourceRows = progress.get(table);
+				Collection<Association> as = progressAssociations.get(table);
+				for (Association association: table.associations) {
+					CancellationHandler.checkForCancellation(executionContext.getCancellationContext());
+					if (as != null && as.size() == 1 && as.iterator().next() == association.reversalAssociation) {
+						if (association.getCardinality() == Cardinality.MANY_TO_ONE || association.getCardinality() == Cardinality.ONE_TO_ONE) {
+							continue;
+						}
+					}
+					if (completedTables.contains(association.destination) || association.getJoinCondition() == null) {
+						continue;
+					}
+					progressListenerRegistry.fireCollectionJobEnqueued(today, association);
+					progressListenerRegistry.fireCollectionJobStarted(today, association);
+					double fanOut = fanOut(association);
+					estimate.fanOuts.put(association, fanOut);
+					estimate.projectedRuntime += timePerRow.get(association) * sourceRows;
+					double added = add(estimate, association.destination, sourceRows * fanOut);
+					progressListenerRegistry.fireCollected(today, association, Math.round(added));
+					if (added >= 0.5) {
+						newProgress.merge(association.destination, added, Double::sum);
+						newProgressAssociations.computeIfAbsent(association.destination, t -> new ArrayList<Association>()).add(association);
+					}
+				}
+			}
+			progress = newProgress;
+			progressAssociations = newProgressAssociations;
+		}
+		estimate.days = today;
+		return estimate;
+	}
+
+	/**
+	 * Adds the rows joined by an association.
+	 *
+	 * @param joinedRows the expected number of joined (not necessarily distinct) rows
+	 * @return the expected number of new rows
+	 */
+	private double add(Estimate estimate, Table table, double joinedRows) throws SQLException {
+		double current = estimate.rowCounts.getOrDefault(table, 0.0);
+		long size = tableSize(table);
+		double added = 0;
+		if (size > 0) {
+			double distinct = size * (1.0 - Math.pow(1.0 - 1.0 / size, joinedRows));
+			added = Math.max(0, distinct * (1.0 - current / size));
+		}
+		estimate.rowCounts.put(table, current + added);
+		return added;
+	}
+
+	/**
+	 * Gets the size of a table (from the statistics, or else counted).
+	 */
+	private long tableSize(Table table) throws SQLException {
+		Long size = tableSizes.get(table);
+		if (size == null) {
+			size = statistics.estimatedRowCount(table);
+			if (size == null) {
+				size = count("Select count(*) From " + quoting.requote(table.getName()));
+			}
+			tableSizes.put(table, size);
+		}
+		return size;
+	}
+
+	/**
+	 * Determines the fan-out of an association by joining a sample of source rows with the destination table.
+	 */
+	private double fanOut(Association association) throws SQLException {
+		Double fanOut = fanOuts.get(association);
+		if (fanOut == null) {
+			fanOut = sampleFanOut(association);
+			fanOuts.put(association, fanOut);
+		}
+		return fanOut;
+	}
+
+	private double sampleFanOut(Association association) throws SQLException {
+		String randomSample = randomSample(association.source);
+		if (randomSample != null) {
+			Double fanOut = sampleFanOut(association, randomSample, false);
+			if (fanOut != null) {
+				return fanOut;
+			}
+		}
+		String firstRows = firstRows(association.source);
+		if (firstRows != null) {
+			Double fanOut = sampleFanOut(association, firstRows, true);
+			if (fanOut != null) {
+				return fanOut;
+			}
+		}
+		// no sample, derive the fan-out from the table sizes
+		timePerRow.put(association, 0.0);
+		if (association.getCardinality() == Cardinality.MANY_TO_ONE || association.getCardinality() == Cardinality.ONE_TO_ONE) {
+			return 1.0;
+		}
+		long sourceSize = tableSize(association.source);
+		return sourceSize == 0? 0.0 : Math.max(1.0, (double) tableSize(association.destination) / sourceSize);
+	}
+
+	/**
+	 * Determines the fan-out of an association by joining a sample of source rows with the destination table.
+	 *
+	 * @param sample derived table containing the sample
+	 * @param isFirstRows <code>true</code> if the sample consists of the first {@link #SAMPLE_SIZE} rows of the source table
+	 * @return the fan-out or <code>null</code> if the sample is not usable
+	 */
+	private Double sampleFanOut(Association association, String sample, boolean isFirstRows) {
+		String sourceAlias = association.reversed? "B" : "A";
+		String destAlias = association.reversed? "A" : "B";
+		String join = " From " + sample + " " + sourceAlias + " join " + quoting.requote(association.destination.getName()) + " " + destAlias + " on (" + association.getJoinCondition() + ")";
+		try {
+			long startTime = System.currentTimeMillis();
+			long sampleSize = count("Select count(*) From " + sample + " " + sourceAlias);
+			if (sampleSize == 0 && !isFirstRows) {
+				// random sample happens to be empty
+				return null;
+			}
+			long destinationRows = count("Select count(*)" + join);
+			long time = System.currentTimeMillis() - startTime;
+			if (isFirstRows && sampleSize < SAMPLE_SIZE) {
+				tableSizes.put(association.source, sampleSize);
+			}
+			timePerRow.put(association, sampleSize == 0? 0.0 : (double) time / sampleSize);
+			return sampleSize == 0? 0.0 : (double) destinationRows / sampleSize;
+		} catch (SQLException e) {
+			_log.warn("can't sample " + association.source.getName() + " -> " + association.destination.getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Gets a derived table containing a random sample of about {@link #SAMPLE_SIZE} rows of a table.
+	 *
+	 * @return the derived table or <code>null</code> if the DBMS doesn't support sampling or the table is not larger than the sample
+	 */
+	private String randomSample(Table table) throws SQLException {
+		String tableSampleClause = session.dbms.getTableSampleClause();
+		if (tableSampleClause == null) {
+			return null;
+		}
+		long size = tableSize(table);
+		if (size <= SAMPLE_SIZE) {
+			return null;
+		}
+		String percentage = String.format(Locale.ENGLISH, "%.6f", SAMPLE_SIZE * 100.0 / size);
+		return "(Select * From " + String.format(Locale.ENGLISH, tableSampleClause, quoting.requote(table.getName()), "", percentage).trim() + ")";
+	}
+
+	/**
+	 * Gets a derived table containing the first {@link #SAMPLE_SIZE} rows of a table.
+	 *
+	 * @return the derived table or <code>null</code> if the DBMS doesn't support limiting the number of rows
+	 */
+	private String firstRows(Table table) {
+		String sqlLimitSuffix = session.dbms.getSqlLimitSuffix();
+		if (sqlLimitSuffix == null) {
+			return null;
+		}
+		boolean limitSuffixInSelectClause =
+				sqlLimitSuffix.toLowerCase(Locale.ENGLISH).startsWith("top ") || sqlLimitSuffix.toLowerCase(Locale.ENGLISH).startsWith("first ");
+		String limit = sqlLimitSuffix.replace("%s", Integer.toString(SAMPLE_SIZE));
+		return "(Select " + (limitSuffixInSelectClause? limit + " " : "") + "* From " + quoting.requote(table.getName())
+				+ (limitSuffixInSelectClause? "" : " " + limit) + ")";
+	}
+
+	private long count(String sql) throws SQLException {
+		final long[] count = new long[1];
+		session.executeQuery(sql, new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				count[0] = resultSet.getLong(1);
+			}
+		});
+		return count[0];
+	}
+
+	private Map<String, Table> tableNames(Set<Table> tables) {
+		Map<String, Table> result = new HashMap<String, Table>();
+		for (Table table: tables) {
+			result.put(table.getName(), table);
+		}
+		return result;
+	}
+
+}
@@ -15,7 +15,9 @@
  */
 package net.sf.jailer.subsetting;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.sf.jailer.datamodel.Table;
@@ -29,6 +31,8 @@ public class ExportStatistic {
 
 	private Map<Table, Long> exportedRows = new HashMap<Table, Long>();
 	private long total;
+	private List<String> planRegressions = new ArrayList<String>();
+	private Long projectedRuntime;
 
 	/**
 	 * Gets number of exported rows per table.
@@ -65,5 +69,43 @@ public class ExportStatistic {
 	public void setTotal(long total) {
 		this.total = total;
 	}
+
+	/**
+	 * Gets the statements collecting the rows whose execution time has regressed or whose plan has changed
+	 * compared to the previous run (empty if no plans are captured, see {@link net.sf.jailer.ExecutionContext#getPlanFile()}).
+	 * 
+	 * @return descriptions of the regressed statements
+	 */
+	public List<String> getPlanRegressions() {
+		return planRegressions;
+	}
+
+	/**
+	 * Sets the statements collecting the rows whose execution time has regressed or whose plan has changed.
+	 * 
+	 * @param planRegressions descriptions of the regressed statements
+	 */
+	public void setPlanRegressions(List<String> planRegressions) {
+		this.planRegressions = planRegressions;
+	}
+
+	/**
+	 * Gets the projected time (in ms) needed to collect the rows, if the export has only been estimated
+	 * (see {@link net.sf.jailer.ExecutionContext#isDryRun()}). The row counts are estimates as well in that case.
+	 * 
+	 * @return the projected time or <code>null</code> if the export has been executed
+	 */
+	public Long getProjectedRuntime() {
+		return projectedRuntime;
+	}
+
+	/**
+	 * Sets the projected time (in ms) needed to collect the rows.
+	 * 
+	 * @param projectedRuntime the projected time or <code>null</code> if the export has been executed
+	 */
+	public void setProjectedRuntime(Long projectedRuntime) {
+		this.projectedRuntime = projectedRuntime;
+	}
 	
 }
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.extractionmodel.ExtractionModel;
+import net.sf.jailer.extractionmodel.ExtractionModel.AdditionalSubject;
+import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
+import net.sf.jailer.modelbuilder.MetaDataCache;
+import net.sf.jailer.util.Quoting;
+
+/**
+ * Proposes indexes for the join columns of the associations an extraction model resolves.<br>
+ * <br>
+ * Resolving an association joins the destination table on the destination-side columns of the join condition.
+ * If no index of the destination table starts with one of these columns, each resolution scans the whole table.
+ * Only equi-joins of associations that are reachable from a subject and not ignored (or restricted to "false") are analyzed.
+ * The proposals are ranked by the number of rows (statistics of the database) that would be scanned in one
+ * resolution of all associations served by the index.
+ *
+ * @author Ralf Wisser
+ */
+public class IndexAdvisor {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+	/**
+	 * Proposed index.
+	 */
+	public static class Proposal {
+		public final Table table;
+		public final List<Column> columns;
+		public final List<Association> associations = new ArrayList<Association>();
+		public final Long estimatedRowCount;
+
+		private Proposal(Table table, List<Column> columns, Long estimatedRowCount) {
+			this.table = table;
+			this.columns = columns;
+			this.estimatedRowCount = estimatedRowCount;
+		}
+
+		/**
+		 * Gets the estimated number of rows scanned in one resolution of all associations without the index.
+		 */
+		public long getCostImpact() {
+			return estimatedRowCount == null? 0 : estimatedRowCount * associations.size();
+		}
+	}
+
+	private final Session session;
+	private final Map<String, MetaDataCache> indexInfoPerSchema = new HashMap<String, MetaDataCache>();
+	private final TableStatistics statistics;
+
+	/**
+	 * Cardinalities of tables from the JDBC index statistics.
+	 */
+	private final Map<Table, Long> cardinalities = new HashMap<Table, Long>();
+
+	/**
+	 * Associations that cannot be analyzed because the join condition is not an equi-join.
+	 */
+	private final List<Association> notAnalyzed = new ArrayList<Association>();
+
+	/**
+	 * Number of analyzed associations whose join columns are covered by an index.
+	 */
+	private int numCovered = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param session the session for the source database
+	 */
+	public IndexAdvisor(Session session) {
+		this.session = session;
+		this.statistics = new TableStatistics(session);
+	}
+
+	/**
+	 * Gets the subject and the additional subjects of an extraction model.
+	 *
+	 * @param extractionModel the extraction model
+	 * @return the subject tables
+	 */
+	public static Set<Table> getSubjects(ExtractionModel extractionModel) {
+		Set<Table> subjects = new HashSet<Table>();
+		subjects.add(extractionModel.subject);
+		if (extractionModel.additionalSubjects != null) {
+			for (AdditionalSubject as: extractionModel.additionalSubjects) {
+				subjects.add(as.getSubject());
+			}
+		}
+		return subjects;
+	}
+
+	/**
+	 * Analyzes the associations reachable from the subjects.
+	 *
+	 * @param subjects the subject tables (see {@link #getSubjects(ExtractionModel)})
+	 * @return the proposed indexes, ranked by cost impact
+	 */
+	public List<Proposal> analyze(Set<Table> subjects) throws SQLException {
+		notAnalyzed.clear();
+		numCovered = 0;
+
+		Set<Table> closure = new HashSet<Table>();
+		for (Table subject: subjects) {
+			closure.addAll(subject.closure(closure));
+		}
+
+		Map<String, Proposal> proposals = new LinkedHashMap<String, Proposal>();
+		Map<Table, Collection<List<String>>> indexes = new HashMap<Table, Collection<List<String>>>();
+		for (Table table: new TreeMap<String, Table>(tableNames(closure)).values()) {
+			for (Association association: table.associations) {
+				if (association.getJoinCondition() == null) {
+					continue;
+				}
+				Collection<Column> joinColumns = association.createSourceToDestinationKeyMapping().values();
+				if (joinColumns.isEmpty()) {
+					notAnalyzed.add(association);
+					continue;
+				}
+				Table destination = association.destination;
+				Collection<List<String>> destinationIndexes = indexes.get(destination);
+				if (destinationIndexes == null) {
+					destinationIndexes = readIndexes(destination);
+					indexes.put(destination, destinationIndexes);
+				}
+				if (isCovered(joinColumns, destinationIndexes)) {
+					++numCovered;
+					continue;
+				}
+				List<Column> columns = new ArrayList<Column>(joinColumns);
+				StringBuilder key = new StringBuilder(destination.getName());
+				for (Column column: columns) {
+					key.append("\n" + Quoting.normalizeIdentifier(column.name));
+				}
+				Proposal proposal = proposals.get(key.toString());
+				if (proposal == null) {
+					proposal = new Proposal(destination, columns, estimatedRowCount(destination));
+					proposals.put(key.toString(), proposal);
+				}
+				proposal.associations.add(association);
+			}
+		}
+
+		List<Proposal> result = new ArrayList<Proposal>(proposals.values());
+		result.sort((a, b) -> {
+			int c = Long.compare(b.getCostImpact(), a.getCostImpact());
+			if (c == 0) {
+				c = Integer.compare(b.associations.size(), a.associations.size());
+			}
+			return c;
+		});
+		return result;
+	}
+
+	/**
+	 * Analyzes the associations reachable from the subjects and creates a script with the proposed indexes.
+	 *
+	 * @param subjects the subject tables (see {@link #getSubjects(ExtractionModel)})
+	 * @return the DDL script
+	 */
+	public String createScript(Set<Table> subjects) throws SQLException {
+		List<Proposal> proposals = analyze(subjects);
+		StringBuilder script = new StringBuilder();
+		script.append("-- Proposed indexes for the join columns of the associations" + System.lineSeparator());
+		script.append("-- " + (numCovered + notAnalyzed.size() + proposals.stream().mapToInt(p -> p.associations.size()).sum()) + " reachable associations, "
+				+ numCovered + " covered by an index" + System.lineSeparator());
+		script.append("-- Ranked by the estimated number of rows scanned when resolving the associations without the index." + System.lineSeparator());
+		Set<String> indexNames = new HashSet<String>();
+		int rank = 1;
+		for (Proposal proposal: proposals) {
+			script.append(System.lineSeparator());
+			script.append("-- " + rank++ + ". " + proposal.table.getName() + " (" + (proposal.estimatedRowCount == null? "row count unknown" : "~" + proposal.estimatedRowCount + " rows")
+				+ (proposal.associations.size() > 1? ", " + proposal.associations.size() + " associations" : "") + ")" + System.lineSeparator());
+			for (Association association: proposal.associations) {
+				script.append("--    " + association.source.getName() + " -> " + association.destination.getName() + " (" + association.getName() + ")"
+						+ (proposal.estimatedRowCount == null? "" : ": full scan of ~" + proposal.estimatedRowCount + " rows per resolution") + System.lineSeparator());
+			}
+			StringBuilder columnList = new StringBuilder();
+			for (Column column: proposal.columns) {
+				if (columnList.length() > 0) {
+					columnList.append(", ");
+				}
+				columnList.append(column.name);
+			}
+			script.append("CREATE INDEX " + indexName(proposal.table, indexNames) + " ON " + proposal.table.getName() + "(" + columnList + ");" + System.lineSeparator());
+		}
+		if (!notAnalyzed.isEmpty()) {
+			script.append(System.lineSeparator());
+			script.append("-- Not analyzed (no equi-join):" + System.lineSeparator());
+			for (Association association: notAnalyzed) {
+				script.append("--    " + association.source.getName() + " -> " + association.destination.getName() + " (" + association.getName() + ")" + System.lineSeparator());
+			}
+		}
+		return script.toString();
+	}
+
+	private Map<String, Table> tableNames(Set<Table> tables) {
+		Map<String, Table> result = new HashMap<String, Table>();
+		for (Table table: tables) {
+			result.put(table.getName(), table);
+		}
+		return result;
+	}
+
+	/**
+	 * Is there an index whose leading column is a join column?
+	 */
+	private boolean isCovered(Collection<Column> joinColumns, Collection<List<String>> indexes) {
+		Set<String> columnNames = new HashSet<String>();
+		for (Column column: joinColumns) {
+			columnNames.add(Quoting.normalizeIdentifier(column.name));
+		}
+		for (List<String> index: indexes) {
+			if (!index.isEmpty() && columnNames.contains(index.get(0))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the indexes of a table.
+	 *
+	 * @return the (normalized) column names of each index, ordered by position
+	 */
+	private Collection<List<String>> readIndexes(Table table) {
+		String schema = Quoting.staticUnquote(table.getSchema(statistics.getDefaultSchema()));
+		String tableName = Quoting.staticUnquote(table.getUnqualifiedName());
+		Map<String, TreeMap<Integer, String>> indexes = new HashMap<String, TreeMap<Integer, String>>();
+		try {
+			MetaDataCache indexInfo = indexInfoPerSchema.get(schema);
+			if (indexInfo == null) {
+				indexInfo = MetaDataCache.readIndexInfo(session, schema);
+				indexInfoPerSchema.put(schema, indexInfo);
+			}
+			ResultSet resultSet = indexInfo.forTable(tableName);
+			if (resultSet != null) {
+				readIndexes(resultSet, indexes, null);
+			}
+			// the Oracle index info query only covers unique constraints
+			if (resultSet == null || DBMS.ORACLE.equals(session.dbms)) {
+				readIndexes(JDBCMetaDataBasedModelElementFinder.getIndexes(session, schema, tableName), indexes, table);
+			}
+		} catch (SQLException e) {
+			_log.warn("can't read indexes of " + table.getName() + ": " + e.getMessage());
+		}
+		List<List<String>> result = new ArrayList<List<String>>();
+		for (TreeMap<Integer, String> index: indexes.values()) {
+			result.add(new ArrayList<String>(index.values()));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads index info (as returned by {@link DatabaseMetaData#getIndexInfo(String, String, String, boolean, boolean)}).
+	 *
+	 * @param table if not <code>null</code>, remember the cardinality of this table
+	 */
+	private void readIndexes(ResultSet resultSet, Map<String, TreeMap<Integer, String>> indexes, Table table) throws SQLException {
+		try {
+			while (resultSet.next()) {
+				String indexName = resultSet.getString(6);
+				String columnName = resultSet.getString(9);
+				if (indexName == null || columnName == null) {
+					if (table != null && resultSet.getInt(7) == DatabaseMetaData.tableIndexStatistic) {
+						long cardinality = resultSet.getLong(11);
+						if (!resultSet.wasNull() && cardinality >= 0) {
+							cardinalities.put(table, cardinality);
+						}
+					}
+					continue;
+				}
+				TreeMap<Integer, String> index = indexes.get(indexName);
+				if (index == null) {
+					index = new TreeMap<Integer, String>();
+					indexes.put(indexName, index);
+				}
+				int position = resultSet.getInt(8);
+				if (resultSet.wasNull() || position <= 0 || index.containsKey(position)) {
+					position = index.isEmpty()? 1 : index.lastKey() + 1;
+				}
+				index.put(position, Quoting.normalizeIdentifier(columnName));
+			}
+		} finally {
+			resultSet.close();
+		}
+	}
+
+	/**
+	 * Gets the estimated number of rows of a table.
+	 *
+	 * @return the estimated number of rows or <code>null</code> if no estimation is available
+	 */
+	private Long estimatedRowCount(Table table) {
+		Long count = statistics.estimatedRowCount(table);
+		return count == null? cardinalities.get(table) : count;
+	}
+
+	/**
+	 * Creates a unique name for a proposed index.
+	 */
+	private String indexName(Table table, Set<String> indexNames) {
+		String prefix = "JX_" + Quoting.staticUnquote(table.getUnqualifiedName()).toUpperCase(Locale.ENGLISH).replaceAll("[^A-Z0-9_]", "_");
+		if (prefix.length() > 26) {
+			prefix = prefix.substring(0, 26);
+		}
+		for (int i = 1; ; ++i) {
+			String name = prefix + "_" + i;
+			if (indexNames.add(name)) {
+				return name;
+			}
+		}
+	}
+
+}
@@ -40,6 +40,17 @@ public enum ScriptFormat {
 	
 	LIQUIBASE_XML("Liquibase", "Liquibase Export", ".xml"),
 
+	/**
+	 * Delimited data files for the native bulk loader of the target DBMS
+	 * (COPY, LOAD DATA, SQL*Loader, BULK INSERT) plus a load manifest.
+	 */
+	BULK_LOAD("Bulk load files", "Bulk Load Export - Manifest File", ".sql"),
+
+	/**
+	 * One columnar binary file per table plus a JSON manifest.
+	 */
+	COLUMNAR("Columnar files", "Columnar Export - Manifest File", ".json"),
+
 	/**
 	 * Template based XML.
 	 */
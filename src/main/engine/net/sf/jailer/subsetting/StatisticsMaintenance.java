@@ -0,0 +1,145 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Decides when and for which working tables the DB statistics are to be renewed.<br>
+ * <br>
+ * The rows inserted into the entity table and into the dependency table are accounted separately,
+ * so that only the tables that have grown significantly are analyzed. A table is due as soon as it has grown by
+ * as many rows as it had at its last renewal (at least {@link #MIN_ROWS}, at most {@link #MAX_ROWS}).<br>
+ * The execution times of the collection jobs before and after each renewal are recorded
+ * to make the effect of the renewal visible.
+ *
+ * @author Ralf Wisser
+ */
+class StatisticsMaintenance {
+
+	/**
+	 * Names of the working tables.
+	 */
+	static final String ENTITY = "JAILER_ENTITY";
+	static final String DEPENDENCY = "JAILER_DEPENDENCY";
+
+	/**
+	 * Minimum number of inserted rows between two renewals of a table.
+	 */
+	private static final long MIN_ROWS = 1000;
+
+	/**
+	 * Maximum number of inserted rows between two renewals of a table.
+	 */
+	private static final long MAX_ROWS = 5000000;
+
+	private boolean initialRenewalDone = false;
+	private long entityRows = 0;
+	private long entityRowsAtRenewal = 0;
+	private long dependencyRows = 0;
+	private long dependencyRowsAtRenewal = 0;
+
+	private long jobCount = 0;
+	private long jobTime = 0;
+	private long jobCountBefore = 0;
+	private long jobTimeBefore = 0;
+
+	/**
+	 * Accounts the current row-counts of the entity graph.
+	 *
+	 * @param totalRowcount total number of inserted rows
+	 * @param dependencyRowcount number of rows inserted into the dependency table
+	 */
+	synchronized void account(long totalRowcount, long dependencyRowcount) {
+		entityRows = totalRowcount - dependencyRowcount;
+		dependencyRows = dependencyRowcount;
+	}
+
+	/**
+	 * Gets the working tables whose statistics are to be renewed now. Assumes that they will be renewed.
+	 *
+	 * @return the tables, <code>null</code> for all working tables, or an empty set if no renewal is due
+	 */
+	synchronized Set<String> dueTables() {
+		if (!initialRenewalDone) {
+			initialRenewalDone = true;
+			entityRowsAtRenewal = entityRows;
+			dependencyRowsAtRenewal = dependencyRows;
+			return null;
+		}
+		Set<String> tables = new LinkedHashSet<String>();
+		if (isDue(entityRows, entityRowsAtRenewal)) {
+			tables.add(ENTITY);
+			entityRowsAtRenewal = entityRows;
+		}
+		if (isDue(dependencyRows, dependencyRowsAtRenewal)) {
+			tables.add(DEPENDENCY);
+			dependencyRowsAtRenewal = dependencyRows;
+		}
+		return tables;
+	}
+
+	private boolean isDue(long rows, long rowsAtRenewal) {
+		return rows - rowsAtRenewal >= Math.max(MIN_ROWS, Math.min(MAX_ROWS, rowsAtRenewal));
+	}
+
+	/**
+	 * Gets the number of rows in the entity table.
+	 */
+	synchronized long getEntityRows() {
+		return entityRows;
+	}
+
+	/**
+	 * Gets the number of rows in the dependency table.
+	 */
+	synchronized long getDependencyRows() {
+		return dependencyRows;
+	}
+
+	/**
+	 * Records the execution of a collection job.
+	 *
+	 * @param time the execution time in ms
+	 */
+	synchronized void jobExecuted(long time) {
+		++jobCount;
+		jobTime += time;
+	}
+
+	/**
+	 * Describes how the average execution time of the collection jobs has changed since the previous renewal
+	 * and starts a new measurement period.
+	 *
+	 * @return the description, or <code>null</code> if no jobs have been executed since the previous renewal
+	 */
+	synchronized String renewed() {
+		String result = null;
+		if (jobCount > 0) {
+			result = "average collection-job time after previous renewal: " + (jobTime / jobCount) + " ms (" + jobCount + " jobs)";
+			if (jobCountBefore > 0) {
+				result += ", before it: " + (jobTimeBefore / jobCountBefore) + " ms (" + jobCountBefore + " jobs)";
+			}
+			jobCountBefore = jobCount;
+			jobTimeBefore = jobTime;
+		}
+		jobCount = 0;
+		jobTime = 0;
+		return result;
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.extractionmodel.ExtractionModel;
+import net.sf.jailer.extractionmodel.ExtractionModel.AdditionalSubject;
+import net.sf.jailer.extractionmodel.SubjectLimitDefinition;
+import net.sf.jailer.util.Quoting;
+import net.sf.jailer.util.SqlUtil;
+
+/**
+ * Restricts the subjects of an export to a random sample so that the export contains approximately
+ * a given number of rows (see {@link ExecutionContext#getTargetRowCount()}).<br>
+ * <br>
+ * The size of the sample is the fraction of the subjects for which the {@link ExportEstimator} estimates the targeted number of rows.
+ * The subject condition is extended by the sampling clause of the DBMS (see {@link net.sf.jailer.configuration.DBMS#getTableSampleClause()}).
+ * If the DBMS has none or the table has no primary key, the number of subjects is limited instead (which is not random).<br>
+ * Only the subjects are sampled, all associations are resolved as usual, so the export remains referentially complete.
+ *
+ * @author Ralf Wisser
+ */
+class SubjectSampler {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(SubjectSampler.class);
+
+	private final Session session;
+	private final ExportEstimator estimator;
+	private final Quoting quoting;
+	private final double fraction;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param session the session for the source database
+	 * @param executionContext the execution context
+	 * @param extractionModel the extraction model
+	 * @param subjectCondition the condition of the subject
+	 * @param targetRowCount the targeted number of exported rows
+	 */
+	SubjectSampler(Session session, ExecutionContext executionContext, ExtractionModel extractionModel, String subjectCondition, long targetRowCount) throws SQLException {
+		this.session = session;
+		this.estimator = new ExportEstimator(session, executionContext);
+		this.quoting = Quoting.getQuoting(session);
+		this.fraction = estimator.subjectFraction(extractionModel, subjectCondition, targetRowCount);
+		_log.info(String.format(Locale.ENGLISH, "sampling %.4f%% of the subjects (target: %d rows)", fraction * 100.0, targetRowCount));
+	}
+
+	/**
+	 * Gets the fraction of the subjects to be exported.
+	 */
+	double getFraction() {
+		return fraction;
+	}
+
+	/**
+	 * Restricts a subject to the sample.
+	 *
+	 * @param subject the subject (with assigned parameters)
+	 * @return the restricted subject
+	 */
+	AdditionalSubject sample(AdditionalSubject subject) throws SQLException {
+		if (fraction >= 1.0) {
+			return subject;
+		}
+		Table table = subject.getSubject();
+		String condition = subject.getCondition() == null? "" : subject.getCondition().trim();
+		if (SqlUtil.SQL_TRUE.equals(condition)) {
+			condition = "";
+		}
+		SubjectLimitDefinition limitDefinition = subject.getSubjectLimitDefinition();
+		String tableSampleClause = session.dbms.getTableSampleClause();
+
+		if (tableSampleClause != null && !table.primaryKey.getColumns().isEmpty()) {
+			StringBuilder pk = new StringBuilder();
+			StringBuilder samplePk = new StringBuilder();
+			StringBuilder pkEquality = new StringBuilder();
+			for (Column column: table.primaryKey.getColumns()) {
+				if (pk.length() > 0) {
+					pk.append(", ");
+					samplePk.append(", ");
+					pkEquality.append(" and ");
+				}
+				String name = quoting.requote(column.name);
+				pk.append("T." + name);
+				samplePk.append("S." + name);
+				pkEquality.append("S." + name + " = T." + name);
+			}
+			String sample = String.format(Locale.ENGLISH, tableSampleClause, quoting.requote(table.getName()), "S", String.format(Locale.ENGLISH, "%.6f", fraction * 100.0)).trim();
+			String sampleCondition;
+			if (table.primaryKey.getColumns().size() == 1) {
+				sampleCondition = pk + " in (Select " + samplePk + " From " + sample + ")";
+			} else if (!DBMS.MSSQL.equals(session.dbms)) {
+				sampleCondition = "(" + pk + ") in (Select " + samplePk + " From " + sample + ")";
+			} else {
+				// no row value constructors
+				sampleCondition = "exists (Select 1 From " + sample + " Where " + pkEquality + ")";
+			}
+			return new AdditionalSubject(table, condition.length() == 0? sampleCondition : "(" + condition + ") and " + sampleCondition, limitDefinition);
+		}
+
+		long limit = Math.max(1, Math.round(estimator.subjectRowCount(table, condition) * fraction));
+		if (limitDefinition.limit != null) {
+			limit = Math.min(limit, limitDefinition.limit);
+		}
+		return new AdditionalSubject(table, condition, new SubjectLimitDefinition(limit, limitDefinition.orderBy));
+	}
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.configuration.DBMS;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.AbstractResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
+import net.sf.jailer.util.Quoting;
+import net.sf.jailer.util.SqlUtil;
+
+/**
+ * Splits the (unlimited) condition of a subject into disjoint slices
+ * which can be collected in parallel.<br>
+ * <br>
+ * Only tables with an estimated row count of at least twice {@link #MIN_ROWS_PER_SLICE} are split.
+ * The slices are
+ * <ul>
+ * <li>groups of the leaf partitions (PostgreSQL, declarative partitioning) or else</li>
+ * <li>equally sized ranges between minimum and maximum of the first primary key column, if it is numeric.</li>
+ * </ul>
+ *
+ * @author Ralf Wisser
+ */
+public class SubjectSlicer {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(SubjectSlicer.class);
+
+	/**
+	 * Minimum (estimated) number of rows per slice.
+	 */
+	public static final long MIN_ROWS_PER_SLICE = 100000;
+
+	private final Session session;
+	private final int maxSlices;
+	private final Quoting quoting;
+	private final Map<String, Map<String, Long>> estimatedRowCountsPerSchema = new HashMap<String, Map<String, Long>>();
+	private String defaultSchema;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param session the session
+	 * @param maxSlices maximum number of slices per table
+	 */
+	public SubjectSlicer(Session session, int maxSlices) throws SQLException {
+		this.session = session;
+		this.maxSlices = maxSlices;
+		this.quoting = Quoting.getQuoting(session);
+	}
+
+	/**
+	 * Splits a subject condition.
+	 *
+	 * @param table the subject table (alias "T")
+	 * @param condition the condition, empty or {@link SqlUtil#SQL_TRUE} for all rows
+	 * @return disjoint conditions the union of which is equivalent to the condition.
+	 *         Contains only the condition itself if the table is not split.
+	 */
+	public List<String> slice(Table table, String condition) {
+		List<String> result = new ArrayList<String>();
+		List<String> slices = null;
+		if (maxSlices > 1) {
+			boolean silent = session.getSilent();
+			session.setSilent(true);
+			try {
+				long estimatedRowCount = estimatedRowCount(table);
+				int n = (int) Math.min(maxSlices, estimatedRowCount / MIN_ROWS_PER_SLICE);
+				if (n > 1) {
+					slices = partitionSlices(table, n);
+					if (slices == null) {
+						slices = rangeSlices(table, n);
+					}
+				}
+			} catch (SQLException e) {
+				_log.info("can't slice " + table.getName() + ": " + e.getMessage());
+				slices = null;
+			} finally {
+				session.setSilent(silent);
+			}
+		}
+		if (slices == null || slices.size() < 2) {
+			result.add(condition);
+			return result;
+		}
+		boolean all = condition.trim().length() == 0 || SqlUtil.SQL_TRUE.equals(condition);
+		for (String slice: slices) {
+			result.add(all? slice : "(" + condition + ") and (" + slice + ")");
+		}
+		_log.info(table.getName() + " split into " + result.size() + " slices");
+		return result;
+	}
+
+	/**
+	 * Gets the estimated number of rows of a table.
+	 *
+	 * @return the estimated number of rows or 0 if no estimation is available
+	 */
+	private long estimatedRowCount(Table table) throws SQLException {
+		String query = session.dbms.getEstimatedRowCountQuery();
+		if (query == null) {
+			return 0;
+		}
+		String schema = table.getOriginalSchema("");
+		if (schema.length() == 0) {
+			if (defaultSchema == null) {
+				defaultSchema = JDBCMetaDataBasedModelElementFinder.getDefaultSchema(session, session.getSchema());
+			}
+			schema = defaultSchema;
+		}
+		schema = quoting.unquote(schema);
+		Map<String, Long> estimatedRowCounts = estimatedRowCountsPerSchema.get(schema);
+		if (estimatedRowCounts == null) {
+			final Map<String, Long> counts = new HashMap<String, Long>();
+			session.executeQuery(String.format(Locale.ENGLISH, query, schema), new AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					String tableName = resultSet.getString(1);
+					long rowCount = resultSet.getLong(2);
+					if (tableName != null && !resultSet.wasNull() && rowCount >= 0) {
+						counts.put(tableName, rowCount);
+					}
+				}
+			});
+			estimatedRowCounts = counts;
+			estimatedRowCountsPerSchema.put(schema, estimatedRowCounts);
+		}
+		Long count = estimatedRowCounts.get(quoting.unquote(table.getUnqualifiedName()));
+		return count == null? 0 : count;
+	}
+
+	/**
+	 * Distributes the leaf partitions of a partitioned table over n slices.
+	 *
+	 * @return the slices or <code>null</code> if the table is not partitioned
+	 */
+	private List<String> partitionSlices(Table table, int n) {
+		if (!DBMS.POSTGRESQL.equals(session.dbms)) {
+			return null;
+		}
+		final List<Long> partitions = new ArrayList<Long>();
+		try {
+			session.executeQuery(
+					"Select relid::bigint From pg_partition_tree('" + quoting.requote(table.getName()).replace("'", "''") + "'::regclass) " +
+					"Where isleaf order by relid", new AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					partitions.add(resultSet.getLong(1));
+				}
+			});
+		} catch (SQLException e) {
+			// pg_partition_tree is not available prior to PostgreSQL 12
+			return null;
+		}
+		if (partitions.size() < 2) {
+			return null;
+		}
+		n = Math.min(n, partitions.size());
+		List<StringBuilder> oidLists = new ArrayList<StringBuilder>();
+		for (int i = 0; i < partitions.size(); ++i) {
+			if (i < n) {
+				oidLists.add(new StringBuilder());
+			}
+			StringBuilder oidList = oidLists.get(i % n);
+			oidList.append((oidList.length() > 0? ", " : "") + partitions.get(i));
+		}
+		List<String> slices = new ArrayList<String>();
+		for (StringBuilder oidList: oidLists) {
+			slices.add("T.tableoid in (" + oidList + ")");
+		}
+		return slices;
+	}
+
+	/**
+	 * Splits the range of the first primary key column into n slices.
+	 *
+	 * @return the slices or <code>null</code> if the key is not numeric
+	 */
+	private List<String> rangeSlices(Table table, int n) throws SQLException {
+		if (table.primaryKey == null || table.primaryKey.getColumns().isEmpty()) {
+			return null;
+		}
+		Column column = table.primaryKey.getColumns().get(0);
+		if (column.isNullable || !isNumeric(column)) {
+			return null;
+		}
+		final String columnName = "T." + quoting.requote(column.name);
+		final BigDecimal[] minMax = new BigDecimal[2];
+		session.executeQuery("Select min(" + columnName + "), max(" + columnName + ") From " + quoting.requote(table.getName()) + " T", new AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				minMax[0] = resultSet.getBigDecimal(1);
+				minMax[1] = resultSet.getBigDecimal(2);
+			}
+		});
+		if (minMax[0] == null || minMax[1] == null) {
+			return null;
+		}
+		List<BigDecimal> bounds = new ArrayList<BigDecimal>();
+		BigDecimal width = minMax[1].subtract(minMax[0]);
+		for (int i = 1; i < n; ++i) {
+			BigDecimal bound = minMax[0].add(width.multiply(BigDecimal.valueOf(i)).divide(BigDecimal.valueOf(n), 0, RoundingMode.FLOOR));
+			if (bound.compareTo(minMax[0]) > 0 && (bounds.isEmpty() || bound.compareTo(bounds.get(bounds.size() - 1)) > 0)) {
+				bounds.add(bound);
+			}
+		}
+		if (bounds.isEmpty()) {
+			return null;
+		}
+		List<String> slices = new ArrayList<String>();
+		for (int i = 0; i <= bounds.size(); ++i) {
+			String lower = i == 0? null : columnName + ">=" + bounds.get(i - 1).toPlainString();
+			String upper = i == bounds.size()? null : columnName + "<" + bounds.get(i).toPlainString();
+			slices.add(lower == null? upper : upper == null? lower : lower + " and " + upper);
+		}
+		return slices;
+	}
+
+	private boolean isNumeric(Column column) {
+		String type = column.type == null? "" : column.type.toUpperCase(Locale.ENGLISH);
+		return type.matches("(TINY|SMALL|MEDIUM|BIG)?INT(EGER|[248])?\\b.*|(NUMBER|NUMERIC|DECIMAL|BIGSERIAL|SERIAL)\\b.*");
+	}
+
+}
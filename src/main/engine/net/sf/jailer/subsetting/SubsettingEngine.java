@@ -20,6 +20,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
 import java.net.InetAddress;
 import java.net.URL;
 import java.net.UnknownHostException;
@@ -34,6 +35,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -61,11 +63,14 @@ import org.xml.sax.helpers.AttributesImpl;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.JailerVersion;
+import net.sf.jailer.bulkload.BulkLoadTransformer;
+import net.sf.jailer.columnar.ColumnarTransformer;
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.DMLTransformer;
 import net.sf.jailer.database.DeletionTransformer;
 import net.sf.jailer.database.Session;
+import net.sf.jailer.database.SqlScriptBasedStatisticRenovator;
 import net.sf.jailer.database.StatisticRenovator;
 import net.sf.jailer.database.WorkingTableScope;
 import net.sf.jailer.datamodel.AggregationSchema;
@@ -88,6 +93,9 @@ import net.sf.jailer.extractionmodel.ExtractionModel;
 import net.sf.jailer.extractionmodel.ExtractionModel.AdditionalSubject;
 import net.sf.jailer.importfilter.ImportFilterManager;
 import net.sf.jailer.liquibase.LiquibaseXMLTransformer;
+import net.sf.jailer.metrics.Metrics;
+import net.sf.jailer.metrics.MetricsProgressListener;
+import net.sf.jailer.metrics.PlanRecorder;
 import net.sf.jailer.progress.ProgressListener;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
@@ -156,6 +164,11 @@ public class SubsettingEngine {
 	 */
 	private final JobManager jobManager;
 
+	/**
+	 * The metrics of the export.
+	 */
+	private Metrics metrics = Metrics.NONE;
+
 	/**
 	 * The logger.
 	 */
@@ -176,6 +189,26 @@ public class SubsettingEngine {
 	 */
 	private ExportStatistic exportStatistic;
 
+	/**
+	 * Restricts the subjects to a sample, <code>null</code> if all subjects are exported.
+	 */
+	private SubjectSampler subjectSampler;
+
+	/**
+	 * Persists the state of the export, <code>null</code> if checkpoints are disabled (see {@link ExecutionContext#isCheckpoint()}).
+	 */
+	private ExportCheckpoint checkpoint;
+
+	/**
+	 * The checkpoint while writing an export script that can be resumed, else <code>null</code>.
+	 */
+	private ExportCheckpoint writerCheckpoint;
+
+	/**
+	 * Whether the export script of a failed export is continued.
+	 */
+	private boolean resumeWriting = false;
+
 	/**
 	 * Gets the entity-graph to be used for finding the transitive closure.
 	 *
@@ -233,7 +266,7 @@ public class SubsettingEngine {
 	 *
 	 * @return set of tables from which entities are added
 	 */
-	private Set<Table> export(Table table, String condition, Collection<Table> progressOfYesterday, Set<Table> completedTables, boolean withRestDep) throws SQLException {
+	private Set<Table> export(Table table, String condition, Collection<Table> progressOfYesterday, Set<Table> completedTables, boolean withRestDep) throws SQLException, IOException {
 		_log.info("exporting " + datamodel.getDisplayName(table) + " Where " + condition.replace('\n', ' ').replace('\r', ' '));
 		int today = entityGraph.getAge();
 		entityGraph.setAge(today + 1);
@@ -251,6 +284,12 @@ public class SubsettingEngine {
 			++today;
 			entityGraph.setAge(today + 1);
 			progress = resolveAssociations(today, progress, completedTables);
+			if (checkpoint != null) {
+				checkpoint.collecting(today, progress.keySet(), completedTables);
+			}
+		}
+		if (checkpoint != null) {
+			totalProgress.addAll(checkpoint.getTotalProgress());
 		}
 
 		_log.info("exported " + datamodel.getDisplayName(table) + " Where " + condition.replace('\n', ' ').replace('\r', ' '));
@@ -315,6 +354,11 @@ public class SubsettingEngine {
 		}
 		allSubjects.add(new AdditionalSubject(extractionModel.subject, subjectCondition.equals(SqlUtil.SQL_TRUE)? "" : subjectCondition, extractionModel.subjectLimitDefinition));
 		st.add(extractionModel.subject);
+		if (subjectSampler != null) {
+			for (int i = 0; i < allSubjects.size(); ++i) {
+				allSubjects.set(i, subjectSampler.sample(allSubjects.get(i)));
+			}
+		}
 
 		if (entityGraph.getTargetSession().dbms.getRowidName() == null || (!executionContext.getUseRowid() && !executionContext.getUseRowIdsOnlyForTablesWithoutPK())) {
 			datamodel.checkForPrimaryKey(st, false);
@@ -347,11 +391,44 @@ public class SubsettingEngine {
 			}
 		}
 		final Set<Table> progress = Collections.synchronizedSet(new HashSet<Table>());
+
+		// collect large unlimited subjects in parallel slices
+		final Map<Table, AtomicLong> slicedRowCounts = new HashMap<Table, AtomicLong>();
+		if (executionContext.getNumberOfThreads() > 1) {
+			SubjectSlicer slicer = new SubjectSlicer(entityGraph.getTargetSession(), executionContext.getNumberOfThreads());
+			List<JobManager.Job> sliceJobs = new ArrayList<JobManager.Job>();
+			for (Entry<Table, String> e: conditionPerUnlimitedTable.entrySet()) {
+				final Table table = e.getKey();
+				List<String> slices = slicer.slice(table, e.getValue());
+				if (slices.size() > 1) {
+					final int today = entityGraph.getAge();
+					final AtomicLong rowCount = new AtomicLong();
+					slicedRowCounts.put(table, rowCount);
+					executionContext.getProgressListenerRegistry().fireCollectionJobEnqueued(today, table);
+					executionContext.getProgressListenerRegistry().fireCollectionJobStarted(today, table);
+					for (final String slice: slices) {
+						sliceJobs.add(new JobManager.Job() {
+							@Override
+							public void run() throws SQLException {
+								long rc = entityGraph.addEntities(table, slice, today);
+								rowCount.addAndGet(rc);
+								checkRowLimit(rc);
+							}
+						});
+					}
+				}
+			}
+			if (!sliceJobs.isEmpty()) {
+				jobManager.executeJobs(sliceJobs);
+			}
+		}
+
 		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
 		for (Entry<Table, List<AdditionalSubject>> e: subjectsPerTables.entrySet()) {
 			final Table table = e.getKey();
 			final String condition = conditionPerUnlimitedTable.get(table);
 			final List<AdditionalSubject> subjects = new ArrayList<AdditionalSubject>(e.getValue());
+			final AtomicLong slicedRowCount = slicedRowCounts.get(table);
 			if (condition != null) {
 				if (condition.length() > 0) {
 					_log.info("exporting " + datamodel.getDisplayName(table) + " Where " + condition);
@@ -368,18 +445,25 @@ public class SubsettingEngine {
 					boolean moreRows = true;
 					boolean joinWithEntity = false;
 
-					executionContext.getProgressListenerRegistry().fireCollectionJobEnqueued(today, table);
-					executionContext.getProgressListenerRegistry().fireCollectionJobStarted(today, table);
+					if (slicedRowCount == null) {
+						executionContext.getProgressListenerRegistry().fireCollectionJobEnqueued(today, table);
+						executionContext.getProgressListenerRegistry().fireCollectionJobStarted(today, table);
+					}
 
 					// unlimited
 					if (condition != null) {
-						long rc = entityGraph.addEntities(table, condition.length() > 0? condition : SqlUtil.SQL_TRUE, today);
+						long rc;
+						if (slicedRowCount != null) {
+							rc = slicedRowCount.get();
+						} else {
+							rc = entityGraph.addEntities(table, condition.length() > 0? condition : SqlUtil.SQL_TRUE, today);
+							checkRowLimit(rc);
+						}
 						sumRc += rc;
 						if (rc > 0) {
 							progress.add(table);
 							joinWithEntity = true;
 						}
-						checkRowLimit(rc);
 
 						if (condition.length() == 0 || SqlUtil.SQL_TRUE.equals(condition)) {
 							// no more rows left
@@ -466,7 +550,9 @@ public class SubsettingEngine {
 							_log.info("resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true) + "...");
 						}
 						executionContext.getProgressListenerRegistry().fireCollectionJobStarted(today, association);
+						long startTime = System.currentTimeMillis();
 						long rc = entityGraph.resolveAssociation(table, association, today);
+						statisticsMaintenance.jobExecuted(System.currentTimeMillis() - startTime);
 						executionContext.getProgressListenerRegistry().fireCollected(today, association, rc);
 						if (rc >= 0) {
 							_log.info(rc + " entities found resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true));
@@ -590,7 +676,9 @@ public class SubsettingEngine {
 	 *            if <code>true</code>, result will be ordered by primary keys
 	 */
 	private void writeEntities(Table table, boolean orderByPK) throws SQLException {
+		Metrics.Sample sample = metrics.start();
 		entityGraph.readEntities(table, orderByPK);
+		sample.stop(Metrics.EXPORT, 0, "table", table.getName());
 	}
 
 	/**
@@ -634,6 +722,9 @@ public class SubsettingEngine {
 						executionContext.getXmlTimeStampPattern(),
 						targetSession,
 						executionContext);
+			} else if (ScriptFormat.BULK_LOAD.equals(executionContext.getScriptFormat())) {
+				File manifest = new File(filepath);
+				return new BulkLoadTransformer.Factory(outputWriter, new File(manifest.getAbsoluteFile().getParentFile(), manifest.getName() + ".data"), targetSession, targetDBMSConfiguration(targetSession), executionContext);
 			} else {
 				return new DMLTransformer.Factory(outputWriter, executionContext.getUpsertOnly(), executionContext.getNumberOfEntities(), targetSession, targetDBMSConfiguration(targetSession), executionContext);
 			}
@@ -665,7 +756,17 @@ public class SubsettingEngine {
 		if (parentFile != null) {
 			parentFile.mkdirs();
 		}
-		OutputStream outputStream = new FileOutputStream(file);
+		if (resumeWriting) {
+			// continue at the last checkpoint
+			RandomAccessFile scriptFile = new RandomAccessFile(file, "rw");
+			try {
+				scriptFile.setLength(writerCheckpoint.getPosition());
+			} finally {
+				scriptFile.close();
+			}
+			_log.info("resuming at position " + writerCheckpoint.getPosition());
+		}
+		OutputStream outputStream = metrics.countBytes(new FileOutputStream(file, resumeWriting), "file", file.getName());
 		if (sqlScriptFile.toLowerCase(Locale.ENGLISH).endsWith(".zip")) {
 			outputStream = new ZipOutputStream(outputStream);
 			String zipFileName = file.getName();
@@ -710,12 +811,14 @@ public class SubsettingEngine {
 			} else {
 				result = new OutputStreamWriter(outputStream);
 			}
-			result.append(commentHeader);
-			for (ScriptEnhancer enhancer: Configuration.getScriptEnhancer()) {
-				enhancer.addComments(result, scriptType, session, targetDBMSConfiguration(session), entityGraph, progress, executionContext);
-			}
-			for (ScriptEnhancer enhancer: Configuration.getScriptEnhancer()) {
-				enhancer.addProlog(result, scriptType, session, targetDBMSConfiguration(session), entityGraph, progress, executionContext);
+			if (!resumeWriting) {
+				result.append(commentHeader);
+				for (ScriptEnhancer enhancer: Configuration.getScriptEnhancer()) {
+					enhancer.addComments(result, scriptType, session, targetDBMSConfiguration(session), entityGraph, progress, executionContext);
+				}
+				for (ScriptEnhancer enhancer: Configuration.getScriptEnhancer()) {
+					enhancer.addProlog(result, scriptType, session, targetDBMSConfiguration(session), entityGraph, progress, executionContext);
+				}
 			}
 			Session localSession = null;
 			if (entityGraph instanceof LocalEntityGraph) {
@@ -736,6 +839,10 @@ public class SubsettingEngine {
 			};
 
 			entityGraph.setImportFilterManager(importFilterManager);
+			if (writerCheckpoint != null && importFilterManager.hasMappedColumns()) {
+				writerCheckpoint.notResumable("writing an export script with import filters");
+				writerCheckpoint = null;
+			}
 		}
 
 		entityGraph.setTransformerFactory(createTransformerFactory(result, transformerHandler, scriptType, sqlScriptFile));
@@ -822,9 +929,12 @@ public class SubsettingEngine {
 					independentTables = datamodel.getIndependentTables(remaining, relevantAssociations);
 				}
 			} else {
-				rest = writeIndependentEntities(result, dependentTables, entityGraph);
+				rest = writeIndependentEntities(result, dependentTables, entityGraph, true);
 				appendSync(result);
 				if (rest > 0) {
+					if (writerCheckpoint != null) {
+						writerCheckpoint.notResumable("writing rows with cyclic dependencies");
+					}
 					EntityGraph egCopy = entityGraph.copy(EntityGraph.createUniqueGraphID(), entityGraph.getSession());
 					egCopy.setImportFilterManager(entityGraph.getImportFilterManager());
 
@@ -853,7 +963,7 @@ public class SubsettingEngine {
 					}
 
 					if (scriptType != ScriptType.DELETE) {
-						rest = writeIndependentEntities(result, dependentTables, entityGraph);
+						rest = writeIndependentEntities(result, dependentTables, entityGraph, false);
 
 						for (Runnable runnable: resetFilters) {
 							runnable.run();
@@ -869,11 +979,12 @@ public class SubsettingEngine {
 						}
 
 						appendSync(result);
-						rest = writeIndependentEntities(result, dependentTables, entityGraph);
+						rest = writeIndependentEntities(result, dependentTables, entityGraph, false);
 					}
 
 					egCopy.delete(true);
 					appendSync(result);
+					saveWriterCheckpoint(result, Collections.<Table>emptySet(), Collections.<Table>emptySet());
 				}
 			}
 			if (rest > 0) {
@@ -935,7 +1046,7 @@ public class SubsettingEngine {
 			} catch (Exception e) {
 				_log.warn(e.getMessage());
 			}
-			Set<Table> cycle = CycleFinder.getCycle(dependentTables);
+			Set<Table> cycle = CycleFinder.getCycle(datamodel, dependentTables);
 			String msgTitel = rest + " entities not exported due to cyclic dependencies.\n";
 			String msg = msgTitel + (cycle.size() == 1? "Table" : "Tables") + " with cyclic dependencies: " + asString(cycle);
 			_log.error(msg);
@@ -965,7 +1076,7 @@ public class SubsettingEngine {
 				}
 				msg = sMsg + "\nConsider to disable the option \"sort topologically\" in the Data Export dialog";
 			} catch (CancellationException e) {
-				CancellationHandler.reset(null);
+				CancellationHandler.reset(executionContext.getCancellationContext());
 			} catch (Throwable t) {
 				_log.warn("cycle analysis failed: " + t.getMessage());
 			}
@@ -1030,9 +1141,10 @@ public class SubsettingEngine {
 	 * @param result writer to output file
 	 * @param dependentTables tables to consider
 	 * @param theEntityGraph the entity graph
+	 * @param withCheckpoints persist a checkpoint (if any) after each step
 	 * @return number of remaining entities
 	 */
-	private long writeIndependentEntities(OutputStreamWriter result, Set<Table> dependentTables, final EntityGraph theEntityGraph)
+	private long writeIndependentEntities(OutputStreamWriter result, Set<Table> dependentTables, final EntityGraph theEntityGraph, boolean withCheckpoints)
 			throws SQLException, IOException {
 		long rest;
 		rest = theEntityGraph.getSize(dependentTables);
@@ -1057,9 +1169,16 @@ public class SubsettingEngine {
 				appendSync(result);
 			}
 			jobManager.executeJobs(jobs);
+			if (withCheckpoints) {
+				// the marked entities are written, but still in the graph
+				saveWriterCheckpoint(result, Collections.<Table>emptySet(), dependentTables);
+			}
 			for (final Table table : dependentTables) {
 				theEntityGraph.deleteIndependentEntities(table);
 			}
+			if (withCheckpoints) {
+				saveWriterCheckpoint(result, Collections.<Table>emptySet(), Collections.<Table>emptySet());
+			}
 			long newRest = theEntityGraph.getSize(dependentTables);
 			if (newRest == 0) {
 				rest = 0;
@@ -1080,32 +1199,8 @@ public class SubsettingEngine {
 	 * @return subset of tables
 	 */
 	private Set<Table> getDescentants(Set<Table> tables) {
-		Set<Table> result = new HashSet<Table>();
-
-		for (;;) {
-			Set<Table> des = new HashSet<Table>();
-			for (Table table: tables) {
-				if (!result.contains(table)) {
-					boolean isParent = false;
-					for (Association a: table.associations) {
-						if (a.isInsertSourceBeforeDestination()) {
-							if (tables.contains(a.destination) && !result.contains(a.destination)) {
-								isParent = true;
-								break;
-							}
-						}
-					}
-					if (!isParent) {
-						des.add(table);
-					}
-				}
-			}
-			result.addAll(des);
-			if (des.isEmpty()) {
-				break;
-			}
-		}
-
+		Set<Table> result = new HashSet<Table>(tables);
+		result.removeAll(CycleFinder.getCycleAndDependencies(datamodel, tables));
 		return result;
 	}
 
@@ -1143,7 +1238,7 @@ public class SubsettingEngine {
 	private void writeEntitiesAsXml(String xmlFile, final Set<Table> progress, final Set<Table> subjects, Session session) throws IOException, CancellationException, SQLException, SAXException {
 		_log.info("writing file '" + xmlFile + "'...");
 
-		OutputStream outputStream = new FileOutputStream(new File(xmlFile));
+		OutputStream outputStream = metrics.countBytes(new FileOutputStream(new File(xmlFile)), "file", new File(xmlFile).getName());
 		if (xmlFile.toLowerCase(Locale.ENGLISH).endsWith(".zip")) {
 			outputStream = new ZipOutputStream(outputStream);
 			String zipFileName = new File(xmlFile).getName();
@@ -1243,6 +1338,47 @@ public class SubsettingEngine {
 		_log.info("file '" + xmlFile + "' written.");
 	}
 
+	/**
+	 * Writes entities into columnar files, one per table, and a manifest.
+	 *
+	 * @param manifestFile
+	 *            the name of the manifest file
+	 * @param progress
+	 *            set of tables to account for extraction
+	 */
+	private void writeEntitiesAsColumnar(String manifestFile, final Set<Table> progress) throws IOException, CancellationException, SQLException {
+		_log.info("writing file '" + manifestFile + "'...");
+
+		File file = new File(manifestFile);
+		if (file.getAbsoluteFile().getParentFile() != null) {
+			file.getAbsoluteFile().getParentFile().mkdirs();
+		}
+		Session targetSession = entityGraph.getTargetSession();
+		ColumnarTransformer.Factory factory = new ColumnarTransformer.Factory(new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".data"), targetSession, targetDBMSConfiguration(targetSession));
+		entityGraph.setTransformerFactory(factory);
+
+		executionContext.getProgressListenerRegistry().fireNewStage("exporting rows", false, false);
+		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+		for (final Table table: progress) {
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException {
+					entityGraph.readEntities(table, false);
+				}
+			});
+		}
+		try {
+			jobManager.executeJobs(jobs);
+		} finally {
+			factory.close();
+		}
+
+		OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF8"));
+		factory.writeManifest(out, datamodel, progress);
+		out.close();
+		_log.info("file '" + manifestFile + "' written.");
+	}
+
 	/**
 	 * Gets set of cyclic aggregated tables.
 	 */
@@ -1314,6 +1450,10 @@ public class SubsettingEngine {
 			_log.info("independent tables: " + asString(independentTables));
 			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
 			for (final Table independentTable : independentTables) {
+				if (writerCheckpoint != null && writerCheckpoint.getWrittenTables().contains(independentTable)) {
+					// written before the export was interrupted
+					continue;
+				}
 				if (executionContext.getOrderByPK()
 						|| ScriptFormat.DBUNIT_FLAT_XML.equals(executionContext.getScriptFormat())
 						|| ScriptFormat.LIQUIBASE_XML.equals(executionContext.getScriptFormat())) {
@@ -1335,6 +1475,7 @@ public class SubsettingEngine {
 				}
 				jobManager.executeJobs(jobs);
 			}
+			saveWriterCheckpoint(result, independentTables, Collections.<Table>emptySet());
 			tables.removeAll(independentTables);
 			independentTables = datamodel.getIndependentTables(tables);
 		}
@@ -1348,6 +1489,20 @@ public class SubsettingEngine {
 		}
 	}
 
+	/**
+	 * Persists the state of writing the export script (if it can be resumed).
+	 *
+	 * @param result writer to output file
+	 * @param writtenTables tables whose rows have been written completely
+	 * @param pendingDeletion tables whose marked entities are written but not yet removed from the entity graph
+	 */
+	private void saveWriterCheckpoint(OutputStreamWriter result, Set<Table> writtenTables, Set<Table> pendingDeletion) throws IOException {
+		if (writerCheckpoint != null && result != null) {
+			result.flush();
+			writerCheckpoint.writing(writerCheckpoint.getScriptLength(), writtenTables, pendingDeletion, entityGraph.getExportedCount());
+		}
+	}
+
 	/**
 	 * Prevents multiple shutdowns.
 	 */
@@ -1383,27 +1538,37 @@ public class SubsettingEngine {
 	}
 
 	/**
-	 * Total row-count at last runstats run.
+	 * Decides when and for which working tables the DB-statistics are to be updated.
 	 */
-	private long lastRunstats = 0;
+	private final StatisticsMaintenance statisticsMaintenance = new StatisticsMaintenance();
 
 	/**
-	 * Runs script for updating the DB-statistics.
+	 * Runs script for updating the DB-statistics of the working tables that have grown significantly.
 	 */
 	private synchronized void runstats() {
 		if (entityGraph != null) {
 			Session session = entityGraph.getSession();
-			if (lastRunstats == 0 || (lastRunstats * 2 <= entityGraph.getTotalRowcount() && entityGraph.getTotalRowcount() > 1000)) {
-				lastRunstats = entityGraph.getTotalRowcount();
-
+			statisticsMaintenance.account(entityGraph.getTotalRowcount(), entityGraph.getDependencyRowcount());
+			Set<String> workingTables = statisticsMaintenance.dueTables();
+			if (workingTables == null || !workingTables.isEmpty()) {
 				StatisticRenovator statisticRenovator = session.dbms.getStatisticRenovator();
 				if (statisticRenovator != null) {
-					_log.info("gather statistics after " + lastRunstats + " inserted rows...");
+					_log.info("gather statistics" + (workingTables == null? "" : " of " + workingTables) + " after " + statisticsMaintenance.getEntityRows() + " inserted entities and " + statisticsMaintenance.getDependencyRows() + " dependencies...");
+					String jobTimes = statisticsMaintenance.renewed();
+					if (jobTimes != null) {
+						_log.info(jobTimes);
+					}
+					Metrics.Sample sample = metrics.start();
 					try {
-						statisticRenovator.renew(session, executionContext);
+						if (workingTables != null && statisticRenovator instanceof SqlScriptBasedStatisticRenovator) {
+							((SqlScriptBasedStatisticRenovator) statisticRenovator).renew(session, executionContext, workingTables);
+						} else {
+							statisticRenovator.renew(session, executionContext);
+						}
 					} catch (Throwable t) {
 						_log.warn("unable to update table statistics: " + t.getMessage());
 					}
+					sample.stop(Metrics.STATISTICS, 0, "tables", workingTables == null? "all" : String.join(",", workingTables));
 				}
 			}
 		}
@@ -1450,14 +1615,25 @@ public class SubsettingEngine {
 
 		Lock readLock = null;
 		Lock writeLock = null;
+		metrics = Metrics.create(executionContext);
+		jobManager.setMetrics(metrics);
+		MetricsProgressListener metricsProgressListener = null;
+		if (metrics.isEnabled()) {
+			metricsProgressListener = new MetricsProgressListener(metrics);
+			executionContext.getProgressListenerRegistry().addProgressListener(metricsProgressListener);
+		}
+		PlanRecorder planRecorder = null;
 		try {
 			exportStatistic = new ExportStatistic();
 
-			if (scriptFile != null) {
+			if (scriptFile != null && !executionContext.isDryRun()) {
 				_log.info("exporting '" + extractionModelURL + "' to '" + scriptFile + "'");
 			}
 
 			Session session = new Session(dataSource, dbms, executionContext.getIsolationLevel(), executionContext.getScope(), executionContext.getTransactional());
+			session.setCancellationContext(executionContext.getCancellationContext());
+			session.setMetrics(metrics);
+			planRecorder = PlanRecorder.install(executionContext, session);
 			ExtractionModel extractionModel = null;
 			if (modelPoolSize > 0) {
 				synchronized (modelPool) {
@@ -1471,6 +1647,24 @@ public class SubsettingEngine {
 				extractionModel = new ExtractionModel(extractionModelURL, executionContext.getSourceSchemaMapping(), executionContext.getParameters(), executionContext, true);
 			}
 
+			if (executionContext.isDryRun()) {
+				try {
+					return estimate(whereClause, extractionModel, session);
+				} finally {
+					releaseExtractionModel(extractionModelURL, extractionModel, modelPoolSize);
+					jobManager.shutdown();
+					session.shutDown();
+				}
+			}
+
+			if (executionContext.isTypedEntityTables() && executionContext.getTransactional()) {
+				throw new RuntimeException("Typed entity tables can't be used with transactional exports");
+			}
+			if (executionContext.isCheckpoint() || executionContext.isResume()) {
+				checkpoint = createCheckpoint(whereClause, extractionModelURL, scriptFile, scriptFormat, extractionModel);
+			}
+			boolean resume = checkpoint != null && executionContext.isResume();
+
 			DDLCreator ddlCreator = new DDLCreator(executionContext);
 
 			if (executionContext.getScope() == WorkingTableScope.SESSION_LOCAL
@@ -1521,14 +1715,30 @@ public class SubsettingEngine {
 			};
 
 			EntityGraph entityGraph;
+			int graphID = resume? checkpoint.getGraphID() : EntityGraph.createUniqueGraphID();
 			if (scriptFormat == ScriptFormat.INTRA_DATABASE) {
 				RowIdSupport rowIdSupport = new RowIdSupport(extractionModel.dataModel, session.dbms, executionContext);
-				entityGraph = IntraDatabaseEntityGraph.create(extractionModel.dataModel, EntityGraph.createUniqueGraphID(), session, rowIdSupport.getUniversalPrimaryKey(session), updateStatistics, executionContext);
+				if (resume) {
+					entityGraph = IntraDatabaseEntityGraph.open(extractionModel.dataModel, graphID, session, rowIdSupport.getUniversalPrimaryKey(session), updateStatistics, executionContext);
+				} else {
+					entityGraph = IntraDatabaseEntityGraph.create(extractionModel.dataModel, graphID, session, rowIdSupport.getUniversalPrimaryKey(session), updateStatistics, executionContext);
+				}
 			} else if (executionContext.getScope() == WorkingTableScope.LOCAL_DATABASE) {
-				entityGraph = LocalEntityGraph.create(extractionModel.dataModel, EntityGraph.createUniqueGraphID(), session, executionContext);
+				if (resume) {
+					entityGraph = LocalEntityGraph.open(extractionModel.dataModel, graphID, session, checkpoint.getLocalDatabaseFolder(), executionContext);
+				} else {
+					entityGraph = LocalEntityGraph.create(extractionModel.dataModel, graphID, session, executionContext);
+				}
 			} else {
 				RowIdSupport rowIdSupport = new RowIdSupport(extractionModel.dataModel, session.dbms, executionContext);
-				entityGraph = RemoteEntityGraph.create(extractionModel.dataModel, EntityGraph.createUniqueGraphID(), session, rowIdSupport.getUniversalPrimaryKey(session), updateStatistics, executionContext);
+				if (resume) {
+					entityGraph = RemoteEntityGraph.open(extractionModel.dataModel, graphID, session, rowIdSupport.getUniversalPrimaryKey(session), updateStatistics, executionContext);
+				} else {
+					entityGraph = RemoteEntityGraph.create(extractionModel.dataModel, graphID, session, rowIdSupport.getUniversalPrimaryKey(session), updateStatistics, executionContext);
+				}
+			}
+			if (checkpoint != null && !resume) {
+				checkpoint.start(graphID, entityGraph instanceof LocalEntityGraph? ((LocalEntityGraph) entityGraph).getLocalDatabaseFolder() : null);
 			}
 
 			Charset charset = Charset.defaultCharset();
@@ -1589,6 +1799,13 @@ public class SubsettingEngine {
 				appendCommentHeader("");
 			}
 
+			if (executionContext.getTargetRowCount() != null && !resume) {
+				executionContext.getProgressListenerRegistry().fireNewStage("sampling subjects", false, false);
+				subjectSampler = new SubjectSampler(session, executionContext, extractionModel, subjectCondition, executionContext.getTargetRowCount());
+				appendCommentHeader(String.format(Locale.ENGLISH, "Subject Sample:    %.4f%% (target: %d rows)", subjectSampler.getFraction() * 100.0, executionContext.getTargetRowCount()));
+				appendCommentHeader("");
+			}
+
 			EntityGraph graph = entityGraph;
 			setEntityGraph(graph);
 			setDataModel(extractionModel.dataModel);
@@ -1601,10 +1818,20 @@ public class SubsettingEngine {
 				initRowLimit(executionContext.getLimit());
 				executionContext.getProgressListenerRegistry().fireNewStage("collecting rows", false, false);
 				Set<Table> completedTables = new HashSet<Table>();
-				Set<Table> progress = exportSubjects(extractionModel, completedTables);
-				entityGraph.setBirthdayOfSubject(entityGraph.getAge());
+				ExportCheckpoint.Stage resumedStage = resume? checkpoint.getStage() : null;
+				Set<Table> progress;
+				if (resumedStage == null) {
+					progress = exportSubjects(extractionModel, completedTables);
+					entityGraph.setBirthdayOfSubject(entityGraph.getAge());
+					if (checkpoint != null) {
+						checkpoint.setBirthdayOfSubject(entityGraph.getAge());
+						checkpoint.collecting(entityGraph.getAge(), progress, completedTables);
+					}
+				} else {
+					progress = resumeCollection(completedTables);
+				}
 				progress.addAll(export(extractionModel.subject, subjectCondition, progress, completedTables,
-						ScriptFormat.SQL.equals(scriptFormat) || ScriptFormat.INTRA_DATABASE.equals(scriptFormat)));
+						ScriptFormat.SQL.equals(scriptFormat) || ScriptFormat.INTRA_DATABASE.equals(scriptFormat) || ScriptFormat.BULK_LOAD.equals(scriptFormat)));
 				totalProgress.addAll(progress);
 				subjects.add(extractionModel.subject);
 				entityGraph.checkExist(executionContext);
@@ -1614,6 +1841,10 @@ public class SubsettingEngine {
 				totalProgress = datamodel.normalize(totalProgress);
 				subjects = datamodel.normalize(subjects);
 
+				if (checkpoint != null && resumedStage != ExportCheckpoint.Stage.WRITING) {
+					checkpoint.collected(totalProgress, collectedRowsCounter.getCollectedRowsCount());
+				}
+
 				if (deleteScriptFileName != null) {
 					exportedEntities = entityGraph.copy(EntityGraph.createUniqueGraphID(), session);
 				}
@@ -1626,7 +1857,7 @@ public class SubsettingEngine {
 					Map<Table, List<Association>> restrictedDependenciesForExport;
 					EntityGraph toFinallyDelete = null;
 					try {
-						if (ScriptFormat.SQL.equals(scriptFormat) || ScriptFormat.INTRA_DATABASE.equals(scriptFormat)) {
+						if (ScriptFormat.SQL.equals(scriptFormat) || ScriptFormat.INTRA_DATABASE.equals(scriptFormat) || ScriptFormat.BULK_LOAD.equals(scriptFormat)) {
 							restrictedDependenciesForExport = restrictedDependencies(totalProgress, false);
 							if (!restrictedDependenciesForExport.isEmpty()) {
 								restrictedDependenciesEntityGraph = toFinallyDelete = partCopy(restrictedDependenciesForExport, getEntityGraph());
@@ -1637,8 +1868,13 @@ public class SubsettingEngine {
 							restrictedDependenciesForExport = new HashMap<Table, List<Association>>();
 							restrictedDependenciesEntityGraph = null;
 						}
+						if (checkpoint != null) {
+							startWriterCheckpoints(scriptFile, scriptFormat, deleteScriptFileName != null, restrictedDependenciesEntityGraph != null, resumedStage == ExportCheckpoint.Stage.WRITING);
+						}
 						if (ScriptFormat.XML.equals(scriptFormat)) {
 							writeEntitiesAsXml(scriptFile, totalProgress, subjects, session);
+						} else if (ScriptFormat.COLUMNAR.equals(scriptFormat)) {
+							writeEntitiesAsColumnar(scriptFile, totalProgress);
 						} else {
 							writeEntities(scriptFile, ScriptType.INSERT, totalProgress, session, "exporting rows", startTimestamp, afterCollectionTimestamp, null, () -> {
 								if (restrictedDependenciesEntityGraph != null) {
@@ -1649,6 +1885,8 @@ public class SubsettingEngine {
 							});
 						}
 					} finally {
+						writerCheckpoint = null;
+						resumeWriting = false;
 						if (toFinallyDelete != null) {
 							toFinallyDelete.delete();
 						}
@@ -1706,10 +1944,13 @@ public class SubsettingEngine {
 				entityGraph.delete();
 				entityGraph.getSession().commitAll();
 				entityGraph.close();
+				if (checkpoint != null) {
+					checkpoint.delete();
+				}
 			} catch (CancellationException e) {
 				try {
 					_log.info("cleaning up after cancellation...");
-					CancellationHandler.reset(null);
+					CancellationHandler.reset(executionContext.getCancellationContext());
 					entityGraph.getSession().rollbackAll();
 					entityGraph.truncate(executionContext, false);
 					entityGraph.delete();
@@ -1723,6 +1964,9 @@ public class SubsettingEngine {
 					_log.info("cleaned up");
 					entityGraph.close();
 					shutDown();
+					if (checkpoint != null) {
+						checkpoint.delete();
+					}
 					executionContext.getProgressListenerRegistry().fireNewStage("cancelled", true, true);
 				} catch (Throwable t) {
 					_log.warn(t.getMessage());
@@ -1730,9 +1974,16 @@ public class SubsettingEngine {
 				throw e;
 			} catch (Exception e) {
 				try {
-					_log.info("cleaning up...");
-					entityGraph.truncate(executionContext, false);
-					entityGraph.delete();
+					if (checkpoint != null && checkpoint.isResumable()) {
+						_log.info("keeping the working tables, the export can be resumed (option -resume) from checkpoint '" + checkpoint.getFile() + "'");
+						if (entityGraph instanceof LocalEntityGraph) {
+							((LocalEntityGraph) entityGraph).setKeepLocalDatabase(true);
+						}
+					} else {
+						_log.info("cleaning up...");
+						entityGraph.truncate(executionContext, false);
+						entityGraph.delete();
+					}
 					if (exportedEntities != null) {
 						if (entityGraph.getSession().scope == WorkingTableScope.GLOBAL) {
 							exportedEntities.delete();
@@ -1748,18 +1999,7 @@ public class SubsettingEngine {
 				}
 				throw e;
 			}
-			if (modelPoolSize > 0) {
-				synchronized (modelPool) {
-					List<ExtractionModel> models = modelPool.get(extractionModelURL.toString());
-					if (models == null) {
-						models = new LinkedList<ExtractionModel>();
-						modelPool.put(extractionModelURL.toString(), models);
-					}
-					if (models.size() < modelPoolSize) {
-						models.add(extractionModel);
-					}
-				}
-			}
+			releaseExtractionModel(extractionModelURL, extractionModel, modelPoolSize);
 			shutDown();
 
 			return exportStatistic;
@@ -1770,9 +2010,145 @@ public class SubsettingEngine {
 			if (writeLock != null) {
 				writeLock.unlock();
 			}
+			if (metricsProgressListener != null) {
+				executionContext.getProgressListenerRegistry().removeProgressListener(metricsProgressListener);
+			}
+			metrics.close();
+			if (planRecorder != null) {
+				exportStatistic.setPlanRegressions(PlanRecorder.uninstall(planRecorder));
+			}
+		}
+	}
+
+	/**
+	 * Creates the checkpoint of the export (see {@link ExecutionContext#isCheckpoint()}) or, when resuming, reads it.
+	 */
+	private ExportCheckpoint createCheckpoint(String whereClause, URL extractionModelURL, String scriptFile, ScriptFormat scriptFormat, ExtractionModel extractionModel) throws IOException {
+		if (scriptFile == null) {
+			throw new RuntimeException("Checkpoints require an export script (option '-e')");
+		}
+		if (executionContext.getScope() == WorkingTableScope.SESSION_LOCAL || executionContext.getScope() == WorkingTableScope.TRANSACTION_LOCAL) {
+			throw new RuntimeException("Checkpoints require working tables that outlive the session (scope " + WorkingTableScope.GLOBAL + " or " + WorkingTableScope.LOCAL_DATABASE + ")");
+		}
+		if (executionContext.getTransactional()) {
+			throw new RuntimeException("Checkpoints can't be used with transactional exports");
+		}
+		if (executionContext.isTypedEntityTables()) {
+			throw new RuntimeException("Checkpoints can't be used with typed entity tables");
+		}
+		Map<String, String> export = new LinkedHashMap<String, String>();
+		export.put("extraction-model", String.valueOf(extractionModelURL));
+		export.put("condition", String.valueOf(whereClause));
+		export.put("format", String.valueOf(scriptFormat));
+		export.put("scope", String.valueOf(executionContext.getScope()));
+		ExportCheckpoint theCheckpoint = new ExportCheckpoint(scriptFile, extractionModel.dataModel, export);
+		if (executionContext.isResume()) {
+			theCheckpoint.read();
+			_log.info("resuming export from checkpoint '" + theCheckpoint.getFile() + "' (" + theCheckpoint.getStage() + ")");
+		} else if (theCheckpoint.getFile().exists()) {
+			_log.warn("replacing checkpoint '" + theCheckpoint.getFile() + "' of a failed export. Its working tables are not removed.");
+		}
+		return theCheckpoint;
+	}
+
+	/**
+	 * Restores the state of the collection of a failed export.
+	 *
+	 * @param completedTables receives the tables from which all rows have been collected
+	 * @return the tables having had progress on the last day before the interruption
+	 */
+	private Set<Table> resumeCollection(Set<Table> completedTables) throws SQLException {
+		entityGraph.setBirthdayOfSubject(checkpoint.getBirthdayOfSubject());
+		completedTables.addAll(checkpoint.getCompletedTables());
+		if (checkpoint.getStage() != ExportCheckpoint.Stage.COLLECTING) {
+			collectedRowsCounter.getCollectedRowsCount().putAll(checkpoint.getCollectedRows());
+			_log.info("all rows have been collected before the interruption");
+			return new HashSet<Table>();
+		}
+		// repeat the day of the interruption
+		int day = checkpoint.getDay();
+		entityGraph.removeEntitiesBornAfter(day);
+		entityGraph.setAge(day);
+		Set<Table> tables = checkpoint.getTotalProgress();
+		for (Table table: tables) {
+			long rc = entityGraph.countEntities(table);
+			if (rc > 0) {
+				collectedRowsCounter.getCollectedRowsCount().put(table, rc);
+			}
+		}
+		_log.info("continuing at day " + (day + 1) + ", progress: " + asString(checkpoint.getProgress()));
+		return checkpoint.getProgress();
+	}
+
+	/**
+	 * Enables the checkpoints of the export script, if it can be resumed at all.
+	 * Otherwise records that the export can't be resumed any longer.
+	 *
+	 * @param resume whether the script of a failed export is continued
+	 */
+	private void startWriterCheckpoints(String scriptFile, ScriptFormat scriptFormat, boolean withDeleteScript, boolean withRestrictedDependencies, boolean resume) throws SQLException, IOException {
+		String reason = null;
+		String lowerCaseFileName = scriptFile.toLowerCase(Locale.ENGLISH);
+		if (!ScriptFormat.SQL.equals(scriptFormat)) {
+			reason = "writing the export file (format " + scriptFormat + ")";
+		} else if (lowerCaseFileName.endsWith(".zip") || lowerCaseFileName.endsWith(".gz")) {
+			reason = "writing a compressed export script";
+		} else if (withDeleteScript) {
+			reason = "writing the export script and the delete script";
+		} else if (withRestrictedDependencies) {
+			reason = "writing rows with restricted dependencies";
+		}
+		if (reason != null) {
+			checkpoint.notResumable(reason);
+			return;
+		}
+		writerCheckpoint = checkpoint;
+		if (resume) {
+			for (Table table: checkpoint.getPendingDeletion()) {
+				entityGraph.deleteIndependentEntities(table);
+			}
+			// dependencies are determined again
+			entityGraph.removeAllDependencies();
+			entityGraph.setExportedCount(checkpoint.getExportedCount());
+			resumeWriting = true;
+		}
+	}
+
+	/**
+	 * Puts an extraction model back into the pool for reuse by subsequent exports.
+	 *
+	 * @param modelPoolSize size of extraction-model pool
+	 */
+	private static void releaseExtractionModel(URL extractionModelURL, ExtractionModel extractionModel, int modelPoolSize) {
+		if (modelPoolSize > 0) {
+			synchronized (modelPool) {
+				List<ExtractionModel> models = modelPool.get(extractionModelURL.toString());
+				if (models == null) {
+					models = new LinkedList<ExtractionModel>();
+					modelPool.put(extractionModelURL.toString(), models);
+				}
+				if (models.size() < modelPoolSize) {
+					models.add(extractionModel);
+				}
+			}
 		}
 	}
 
+	/**
+	 * Estimates the export instead of executing it (see {@link ExecutionContext#isDryRun()}).
+	 *
+	 * @return the estimated statistic
+	 */
+	private ExportStatistic estimate(String whereClause, ExtractionModel extractionModel, Session session) throws SQLException {
+		setDataModel(extractionModel.dataModel);
+		executionContext.getProgressListenerRegistry().fireNewStage("estimating rows", false, false);
+		ExportEstimator.Estimate estimate = new ExportEstimator(session, executionContext).estimate(extractionModel, whereClause);
+		exportStatistic.setExportedRows(new HashMap<Table, Long>(estimate.getRowCounts()));
+		exportStatistic.setTotal(estimate.getTotal());
+		exportStatistic.setProjectedRuntime(estimate.getProjectedRuntime());
+		return exportStatistic;
+	}
+
 	private EntityGraph partCopy(Map<Table, List<Association>> restrictedDependencies, EntityGraph eg) throws SQLException {
 		Set<Table> tables = new HashSet<Table>();
 		restrictedDependencies.forEach((t, al) -> al.forEach(a -> { tables.add(a.source); tables.add(a.destination); }));
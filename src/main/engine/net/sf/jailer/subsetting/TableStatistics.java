@@ -0,0 +1,97 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import net.sf.jailer.database.Session;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
+import net.sf.jailer.util.Quoting;
+
+/**
+ * Estimated row counts of tables, read from the statistics of the DBMS (see {@link net.sf.jailer.configuration.DBMS#getEstimatedRowCountQuery()}).
+ *
+ * @author Ralf Wisser
+ */
+class TableStatistics {
+
+	private final Session session;
+	private final Map<String, Map<String, Long>> estimatedRowCountsPerSchema = new HashMap<String, Map<String, Long>>();
+	private String defaultSchema;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param session the session
+	 */
+	TableStatistics(Session session) {
+		this.session = session;
+	}
+
+	/**
+	 * Gets the default schema of the session.
+	 */
+	String getDefaultSchema() {
+		if (defaultSchema == null) {
+			defaultSchema = JDBCMetaDataBasedModelElementFinder.getDefaultSchema(session, session.getSchema());
+		}
+		return defaultSchema;
+	}
+
+	/**
+	 * Gets the estimated number of rows of a table.
+	 *
+	 * @return the estimated number of rows or <code>null</code> if no estimation is available
+	 */
+	Long estimatedRowCount(Table table) {
+		String query = session.dbms.getEstimatedRowCountQuery();
+		if (query == null) {
+			return null;
+		}
+		String schema = Quoting.staticUnquote(table.getSchema(getDefaultSchema()));
+		Map<String, Long> estimatedRowCounts = estimatedRowCountsPerSchema.get(schema);
+		if (estimatedRowCounts == null) {
+			final Map<String, Long> counts = new HashMap<String, Long>();
+			boolean silent = session.getSilent();
+			session.setSilent(true);
+			try {
+				session.executeQuery(String.format(Locale.ENGLISH, query, schema), new Session.AbstractResultSetReader() {
+					@Override
+					public void readCurrentRow(ResultSet resultSet) throws SQLException {
+						String tableName = resultSet.getString(1);
+						long rowCount = resultSet.getLong(2);
+						if (tableName != null && !resultSet.wasNull() && rowCount >= 0) {
+							counts.put(tableName, rowCount);
+						}
+					}
+				});
+			} catch (SQLException e) {
+				// no statistics
+			} finally {
+				session.setSilent(silent);
+			}
+			estimatedRowCounts = counts;
+			estimatedRowCountsPerSchema.put(schema, estimatedRowCounts);
+		}
+		return estimatedRowCounts.get(Quoting.staticUnquote(table.getUnqualifiedName()));
+	}
+
+}
@@ -15,15 +15,17 @@
  */
 package net.sf.jailer.util;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 import net.sf.jailer.datamodel.Association;
@@ -31,12 +33,21 @@ import net.sf.jailer.datamodel.DataModel;
 import net.sf.jailer.datamodel.Table;
 
 /**
- * Finds dependency cycles.
+ * Finds dependency cycles.<br>
+ * <br>
+ * Tables involved in cycles are determined by decomposing the dependency graph
+ * into strongly connected components (Tarjan). Cycles are enumerated per component
+ * (Johnson), either exhaustively or as a set of shortest cycles covering all involved tables.
  * 
  * @author Ralf Wisser
  */
 public class CycleFinder {
 
+	/**
+	 * Default maximum number of cycles to be found.
+	 */
+	public static final int DEFAULT_MAX_CYCLES = 100000;
+
 	/** 
 	 * Path from n table <code>from</code> to another table <code>to</code>.
 	 * Concatenation of two paths left/right or an edge, if left and right is null.
@@ -48,6 +59,7 @@ public class CycleFinder {
 		final Path right;
 		final int birthday;
 		public final int length;
+		private List<Table> tables;
 		
 		Path(Table from, Table to, Path left, Path right, int birthday) {
 			this.from = from;
@@ -67,16 +79,21 @@ public class CycleFinder {
 			if (from != op.from || to != op.to || length != op.length) {
 				return false;
 			}
-			Set<Table> p1 = new TreeSet<Table>();
-			Set<Table> p2 = new TreeSet<Table>();
-			fillSet(p1);
-			op.fillSet(p2);
-			return p1.equals(p2);
+			return getTables().equals(op.getTables());
 		}
 		
 		@Override
 		public int hashCode() {
-			return from.hashCode() + 7 * to.hashCode() + 11 * length;
+			return getTables().hashCode();
+		}
+		
+		private synchronized List<Table> getTables() {
+			if (tables == null) {
+				List<Table> path = new ArrayList<Table>(length + 1);
+				fillPath(path);
+				tables = path;
+			}
+			return tables;
 		}
 		
 		public void fillPath(List<Table> path) {
@@ -90,22 +107,26 @@ public class CycleFinder {
 			}
 		}
 
-		private void fillSet(Set<Table> set) {
-			if (left == null) {
-				set.add(from);
-				if (to != from) {
-					set.add(to);
-				}
-			} else {
-				left.fillSet(set);
-				right.fillSet(set);
-			}
-		}
-
 		@Override
 		public String toString() {
 			return "{" + (left == null? from.getName() + "->" + to.getName() : (left + "-->" + right)) + " " + birthday + "/" + length + "}";
 		}
+
+		/**
+		 * Creates a cyclic path.
+		 * 
+		 * @param tables the tables on the cycle, each table depends on its successor, the last one on the first one
+		 */
+		static Path createCycle(List<Table> tables) {
+			Path path = null;
+			for (int i = 0; i < tables.size(); ++i) {
+				Table from = tables.get(i);
+				Table to = tables.get((i + 1) % tables.size());
+				Path edge = new Path(from, to, null, null, 0);
+				path = path == null? edge : new Path(path.from, to, path, edge, 0);
+			}
+			return path;
+		}
 	}
 	
 	/**
@@ -126,148 +147,44 @@ public class CycleFinder {
 	 * Finds all dependency cycles in a data model.
 	 * 
 	 * @param dataModel the data model
+	 * @param findExact if <code>true</code>, find all elementary cycles, else find a shortest cycle for each table involved in a cycle 
+	 * @param timeout stop searching after this number of milliseconds (optional)
 	 * @param cycleConsumer consumes cycles (optional)
 	 * 
 	 * @return all cycles in the data model
 	 */
 	public static Collection<Path> findCycle(DataModel dataModel, Collection<Table> tables, boolean findExact, Long timeout, CycleConsumer cycleConsumer) {
-		Collection<Path> allCycles = new LinkedHashSet<Path>();
-		Set<Pair<Table, Table>> tabu = new HashSet<Pair<Table,Table>>();
-		Set<Set<Table>> knownCycleSets = new HashSet<Set<Table>>();
-		long startTime = System.currentTimeMillis();
-		final int MAX_ITERATIONS = 100;
-		boolean exhaused = false;
+		return findCycle(dataModel, tables, findExact, timeout, DEFAULT_MAX_CYCLES, cycleConsumer);
+	}
 
+	/**
+	 * Finds all dependency cycles in a data model.
+	 * 
+	 * @param dataModel the data model
+	 * @param findExact if <code>true</code>, find all elementary cycles, else find a shortest cycle for each table involved in a cycle 
+	 * @param timeout stop searching after this number of milliseconds (optional)
+	 * @param maxCycles stop searching after this number of cycles
+	 * @param cycleConsumer consumes cycles (optional)
+	 * 
+	 * @return all cycles in the data model
+	 */
+	public static Collection<Path> findCycle(DataModel dataModel, Collection<Table> tables, boolean findExact, Long timeout, int maxCycles, CycleConsumer cycleConsumer) {
+		CycleSearch search = new CycleSearch(timeout, maxCycles, cycleConsumer);
 		try {
-			for (int cd = 0; cd < MAX_ITERATIONS; ++cd) {
-				tables = getCycle(tables, tabu);
-				Map<Table, List<Path>> fromToPaths = new TreeMap<Table, List<Path>>();
-				for (Table table: tables) {
-					List<Path> pathList = new ArrayList<Path>(10);
-					fromToPaths.put(table, pathList);
-				}
-				for (Table table: tables) {
-					for (Association association: table.associations) {
-						 if (!association.isIgnored()) {
-							if (association.isInsertDestinationBeforeSource()) {
-								if (tables.contains(association.destination)) {
-									Path path = new Path(association.source, association.destination, null, null, 0);
-									fromToPaths.get(path.from).add(path);
-								}
-							}
-						}
-					}
-				}
-				List<Path> newPaths = new ArrayList<Path>();
-				Set<Table> tSet = new TreeSet<Table>();
-				for (int today = 1; ; ++today) {
-					newPaths.clear();
-					int yesterday = today - 1;
-					
-					for (Map.Entry<Table, List<Path>> e: fromToPaths.entrySet()) {
-						for (Path path: e.getValue()) {
-							CancellationHandler.checkForCancellation(null);
-							if (timeout != null && System.currentTimeMillis() > startTime + timeout) {
-								return allCycles;
-							}
-							if (path.from != path.to) {
-								List<Path> list = fromToPaths.get(path.to);
-								if (list != null) {
-									for (Path toAppend: list) {
-										if (toAppend.from != toAppend.to) {
-											if (toAppend.birthday == yesterday) {
-												Path newPath = new Path(path.from, toAppend.to, path, toAppend, today);
-												if (!fromToPaths.get(newPath.from).contains(newPath)) {
-													int aSize;
-													if (newPath.from == newPath.to) {
-														aSize = newPath.length;
-													} else {
-														aSize = newPath.length + 1;
-													}
-													tSet.clear();
-													newPath.fillSet(tSet);
-													if (tSet.size() == aSize) {
-														newPaths.add(newPath);
-													}
-												}
-											}
-										}
-									}
-								}
-							}
-						}
-					}
-					if (newPaths.isEmpty()) {
-						exhaused = true;
-						break;
-					} else {
-						for (Path path: newPaths) {
-							fromToPaths.get(path.from).add(path);
-						}
-					}
-					boolean cycFound = false;
-					for (List<Path> pList: fromToPaths.values()) {
-						for (Path path: pList) {
-							if (path.from == path.to) {
-								Set<Table> taSet = new TreeSet<Table>();
-								path.fillSet(taSet);
-								if (!knownCycleSets.contains(taSet)) {
-									cycFound = true;
-									break;
-								}
-							}
-						}
-						if (cycFound) {
-							break;
-						}
-					}
-					if (cycFound) {
-						break;
-					}
-				}
-				
-				Map<Set<Table>, Path> cycles = new HashMap<Set<Table>, Path>();
-				for (List<Path> pList: fromToPaths.values()) {
-					CancellationHandler.checkForCancellation(null);
-					if (timeout != null && System.currentTimeMillis() > startTime + timeout) {
-						return allCycles;
-					}
-					for (Path path: pList) {
-						if (path.from == path.to) {
-							List<Table> pl = new ArrayList<Table>();
-							path.fillPath(pl);
-							if (!findExact) {
-								for (int i = 0; i < pl.size(); ++i) {
-									tabu.add(new Pair<Table, Table>(pl.get(i), pl.get((i + 1) % pl.size())));
-								}
-							}
-							Set<Table> taSet = new TreeSet<Table>();
-							path.fillSet(taSet);
-							knownCycleSets.add(taSet);
-							cycles.put(taSet, path);
-						}
-					}
-				}
-				boolean newCycleFound = false;
-				for (Path cycle: cycles.values()) {
-					if (allCycles.add(cycle)) {
-						newCycleFound = true;
-						if (cycleConsumer != null) {
-							if (!cycleConsumer.consume(cycle)) {
-								newCycleFound = false;
-								break;
-							}
-						}
-					}
-				}
-				if (!newCycleFound || exhaused) {
+			for (Set<Table> component: getCyclicComponents(getCycle(dataModel, tables), true)) {
+				if (search.stopped) {
 					break;
 				}
+				if (findExact) {
+					search.findAllCycles(component);
+				} else {
+					search.findShortestCycles(component);
+				}
 			}
 		} catch (OutOfMemoryError oom) {
 			// stop
 		}
-		return allCycles;
+		return search.cycles;
 	}
 
 	/**
@@ -277,47 +194,303 @@ public class CycleFinder {
 	 * @return subset of <code>tables</code> involved in a cycle
 	 */
 	public static Set<Table> getCycle(Collection<Table> tables) {
-		return getCycle(tables, new HashSet<Pair<Table,Table>>());
+		Set<Table> cycle = new TreeSet<Table>();
+		for (Set<Table> component: getCyclicComponents(tables, false)) {
+			cycle.addAll(component);
+		}
+		return cycle;
 	}
 
 	/**
-	 * Gets set of all tables involved in a cycle.
+	 * Gets set of all tables involved in a cycle. 
+	 * Uses the {@link DataModel#getCycleIndex()} to exclude tables that are not involved in any cycle of the model.
 	 * 
+	 * @param dataModel the data model
 	 * @param tables all tables
 	 * @return subset of <code>tables</code> involved in a cycle
 	 */
-	private static Set<Table> getCycle(Collection<Table> tables, Set<Pair<Table, Table>> tabu) {
-		Set<Table> cycle = new TreeSet<Table>(tables);
-		for (;;) {
-			Set<Table> notInCycle = new TreeSet<Table>();
-			for (Table table: cycle) {
-				boolean hasIn = false;
-				boolean hasOut = false;
-				for (Association association: table.associations) {
-					if (cycle.contains(association.destination)) {
-						if (association.isInsertSourceBeforeDestination()) {
-							if (!tabu.contains(new Pair<Table, Table>(association.destination, association.source))) {
-								hasOut = true;
-							}
+	public static Set<Table> getCycle(DataModel dataModel, Collection<Table> tables) {
+		CycleIndex cycleIndex = dataModel.getCycleIndex();
+		List<Table> candidates = new ArrayList<Table>();
+		for (Table table: tables) {
+			if (cycleIndex.isInCycle(table)) {
+				candidates.add(table);
+			}
+		}
+		return getCycle(candidates);
+	}
+
+	/**
+	 * Gets the tables involved in a cycle together with all tables they depend on directly or indirectly.
+	 * 
+	 * @param dataModel the data model
+	 * @param tables all tables
+	 * @return subset of <code>tables</code> involved in a cycle or to be inserted before such a table
+	 */
+	public static Set<Table> getCycleAndDependencies(DataModel dataModel, Collection<Table> tables) {
+		Set<Table> tableSet = new HashSet<Table>(tables);
+		Set<Table> result = new HashSet<Table>(getCycle(dataModel, tables));
+		Deque<Table> agenda = new ArrayDeque<Table>(result);
+		while (!agenda.isEmpty()) {
+			Table table = agenda.pop();
+			for (Association association: table.associations) {
+				if (association.isInsertDestinationBeforeSource() && tableSet.contains(association.destination)) {
+					if (result.add(association.destination)) {
+						agenda.push(association.destination);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Decomposes the dependency graph into strongly connected components (Tarjan).
+	 * 
+	 * @param tables the tables (nodes of the graph)
+	 * @param skipIgnored ignore disabled associations
+	 * @return the components consisting of more than one table or of a table depending on itself
+	 */
+	static List<Set<Table>> getCyclicComponents(Collection<Table> tables, boolean skipIgnored) {
+		Map<Table, List<Table>> graph = dependencyGraph(tables, skipIgnored);
+		List<Set<Table>> components = new ArrayList<Set<Table>>();
+		Map<Table, Integer> index = new HashMap<Table, Integer>();
+		Map<Table, Integer> lowLink = new HashMap<Table, Integer>();
+		Deque<Table> stack = new ArrayDeque<Table>();
+		Set<Table> onStack = new HashSet<Table>();
+		Deque<Pair<Table, Integer>> callStack = new ArrayDeque<Pair<Table, Integer>>();
+
+		for (Table root: graph.keySet()) {
+			if (index.containsKey(root)) {
+				continue;
+			}
+			callStack.push(new Pair<Table, Integer>(root, 0));
+			while (!callStack.isEmpty()) {
+				Pair<Table, Integer> frame = callStack.pop();
+				Table table = frame.a;
+				int next = frame.b;
+				if (next == 0) {
+					index.put(table, index.size());
+					lowLink.put(table, index.get(table));
+					stack.push(table);
+					onStack.add(table);
+				} else {
+					Table child = graph.get(table).get(next - 1);
+					lowLink.put(table, Math.min(lowLink.get(table), lowLink.get(child)));
+				}
+				List<Table> successors = graph.get(table);
+				boolean descended = false;
+				while (next < successors.size()) {
+					Table successor = successors.get(next++);
+					if (!index.containsKey(successor)) {
+						callStack.push(new Pair<Table, Integer>(table, next));
+						callStack.push(new Pair<Table, Integer>(successor, 0));
+						descended = true;
+						break;
+					} else if (onStack.contains(successor)) {
+						lowLink.put(table, Math.min(lowLink.get(table), index.get(successor)));
+					}
+				}
+				if (!descended && lowLink.get(table).equals(index.get(table))) {
+					Set<Table> component = new TreeSet<Table>();
+					Table member;
+					do {
+						member = stack.pop();
+						onStack.remove(member);
+						component.add(member);
+					} while (member != table);
+					if (component.size() > 1 || successors.contains(table)) {
+						components.add(component);
+					}
+				}
+			}
+		}
+		return components;
+	}
+
+	/**
+	 * Gets the dependencies between the given tables. 
+	 * A table depends on another one if the other one must be inserted first.
+	 */
+	private static Map<Table, List<Table>> dependencyGraph(Collection<Table> tables, boolean skipIgnored) {
+		Set<Table> tableSet = new TreeSet<Table>(tables);
+		Map<Table, List<Table>> graph = new HashMap<Table, List<Table>>();
+		for (Table table: tableSet) {
+			Set<Table> successors = new LinkedHashSet<Table>();
+			for (Association association: table.associations) {
+				if (association.isInsertDestinationBeforeSource() && tableSet.contains(association.destination)) {
+					if (!skipIgnored || !association.isIgnored()) {
+						successors.add(association.destination);
+					}
+				}
+			}
+			graph.put(table, new ArrayList<Table>(successors));
+		}
+		return graph;
+	}
+
+	/**
+	 * Enumerates cycles.
+	 */
+	private static class CycleSearch {
+		final Collection<Path> cycles = new LinkedHashSet<Path>();
+		final long startTime = System.currentTimeMillis();
+		final Long timeout;
+		final int maxCycles;
+		final CycleConsumer cycleConsumer;
+		boolean stopped = false;
+
+		CycleSearch(Long timeout, int maxCycles, CycleConsumer cycleConsumer) {
+			this.timeout = timeout;
+			this.maxCycles = maxCycles;
+			this.cycleConsumer = cycleConsumer;
+		}
+
+		/**
+		 * Adds a cycle.
+		 */
+		private void add(List<Table> cycle) {
+			Path path = Path.createCycle(cycle);
+			if (cycles.add(path)) {
+				if (cycleConsumer != null && !cycleConsumer.consume(path)) {
+					stopped = true;
+				}
+				if (cycles.size() >= maxCycles) {
+					stopped = true;
+				}
+			}
+		}
+
+		private void checkForStop() {
+			CancellationHandler.checkForCancellation(null);
+			if (timeout != null && System.currentTimeMillis() > startTime + timeout) {
+				stopped = true;
+			}
+		}
+
+		/**
+		 * Finds a shortest cycle for each table of a strongly connected component (breadth first search).
+		 */
+		void findShortestCycles(Set<Table> component) {
+			Map<Table, List<Table>> graph = dependencyGraph(component, true);
+			Set<Table> covered = new HashSet<Table>();
+			for (Table start: component) {
+				if (stopped) {
+					return;
+				}
+				if (covered.contains(start)) {
+					continue;
+				}
+				checkForStop();
+				Map<Table, Table> predecessor = new HashMap<Table, Table>();
+				Deque<Table> queue = new ArrayDeque<Table>();
+				queue.add(start);
+				Table last = null;
+				while (!queue.isEmpty() && last == null) {
+					Table table = queue.poll();
+					for (Table successor: graph.get(table)) {
+						if (successor == start) {
+							last = table;
+							break;
 						}
-						if (association.isInsertDestinationBeforeSource()) {
-							if (!tabu.contains(new Pair<Table, Table>(association.source, association.destination))) {
-								hasIn = true;
-							}
+						if (!predecessor.containsKey(successor)) {
+							predecessor.put(successor, table);
+							queue.add(successor);
 						}
 					}
 				}
-				if (!(hasIn && hasOut)) {
-					notInCycle.add(table);
+				if (last != null) {
+					List<Table> cycle = new ArrayList<Table>();
+					for (Table table = last; table != start; table = predecessor.get(table)) {
+						cycle.add(table);
+					}
+					cycle.add(start);
+					Collections.reverse(cycle);
+					covered.addAll(cycle);
+					add(cycle);
+				}
+			}
+		}
+
+		private Table start;
+		private Map<Table, List<Table>> subGraph;
+		private final Set<Table> blocked = new HashSet<Table>();
+		private final Map<Table, Set<Table>> blockedBy = new HashMap<Table, Set<Table>>();
+		private final List<Table> stack = new ArrayList<Table>();
+
+		/**
+		 * Finds all elementary cycles of a strongly connected component (Johnson).
+		 */
+		void findAllCycles(Set<Table> component) {
+			List<Table> order = new ArrayList<Table>(component);
+			for (int i = 0; i < order.size() && !stopped; ++i) {
+				start = order.get(i);
+				List<Table> remaining = order.subList(i, order.size());
+				Set<Table> startComponent = null;
+				for (Set<Table> c: getCyclicComponents(remaining, true)) {
+					if (c.contains(start)) {
+						startComponent = c;
+						break;
+					}
+				}
+				if (startComponent == null) {
+					continue;
+				}
+				subGraph = dependencyGraph(startComponent, true);
+				blocked.clear();
+				blockedBy.clear();
+				stack.clear();
+				circuit(start);
+			}
+		}
+
+		private boolean circuit(Table table) {
+			checkForStop();
+			boolean found = false;
+			stack.add(table);
+			blocked.add(table);
+			for (Table successor: subGraph.get(table)) {
+				if (stopped) {
+					return found;
+				}
+				if (successor == start) {
+					add(new ArrayList<Table>(stack));
+					found = true;
+				} else if (!blocked.contains(successor)) {
+					if (circuit(successor)) {
+						found = true;
+					}
 				}
 			}
-			if (notInCycle.isEmpty()) {
-				break;
+			if (found) {
+				unblock(table);
 			} else {
-				cycle.removeAll(notInCycle);
+				for (Table successor: subGraph.get(table)) {
+					Set<Table> b = blockedBy.get(successor);
+					if (b == null) {
+						b = new HashSet<Table>();
+						blockedBy.put(successor, b);
+					}
+					b.add(table);
+				}
+			}
+			stack.remove(stack.size() - 1);
+			return found;
+		}
+
+		private void unblock(Table table) {
+			Deque<Table> agenda = new ArrayDeque<Table>();
+			agenda.push(table);
+			while (!agenda.isEmpty()) {
+				Table t = agenda.pop();
+				if (blocked.remove(t)) {
+					Set<Table> b = blockedBy.remove(t);
+					if (b != null) {
+						agenda.addAll(b);
+					}
+				}
 			}
 		}
-		return cycle;
 	}
 
 	@SuppressWarnings("serial")
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Strongly connected components of the dependency graph of a data model.
+ * Only components containing a cycle are kept.
+ * 
+ * @see DataModel#getCycleIndex()
+ * @author Ralf Wisser
+ */
+public class CycleIndex {
+
+	/**
+	 * The cyclic components.
+	 */
+	private final List<Set<Table>> components;
+
+	/**
+	 * Component per table.
+	 */
+	private final Map<Table, Set<Table>> componentOf = new HashMap<Table, Set<Table>>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param tables all tables of the model
+	 */
+	public CycleIndex(Collection<Table> tables) {
+		components = Collections.unmodifiableList(CycleFinder.getCyclicComponents(tables, false));
+		for (Set<Table> component: components) {
+			Set<Table> unmodifiableComponent = Collections.unmodifiableSet(component);
+			for (Table table: component) {
+				componentOf.put(table, unmodifiableComponent);
+			}
+		}
+	}
+
+	/**
+	 * Gets all strongly connected components containing a cycle.
+	 * 
+	 * @return components consisting of more than one table or of a table depending on itself
+	 */
+	public List<Set<Table>> getComponents() {
+		return components;
+	}
+
+	/**
+	 * Gets the component of a table.
+	 * 
+	 * @param table the table
+	 * @return the component containing the table, or <code>null</code> if the table is not involved in any cycle
+	 */
+	public Set<Table> getComponent(Table table) {
+		return componentOf.get(table);
+	}
+
+	/**
+	 * Is a table involved in a cycle?
+	 * 
+	 * @param table the table
+	 */
+	public boolean isInCycle(Table table) {
+		return componentOf.containsKey(table);
+	}
+
+}
@@ -20,9 +20,11 @@ import java.lang.management.ThreadMXBean;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import net.sf.jsqlparser.JSQLParserException;
@@ -32,7 +34,11 @@ import net.sf.jsqlparser.parser.StringProvider;
 import net.sf.jsqlparser.statement.Statement;
 
 /**
- * SQL parsing.
+ * SQL parsing.<br>
+ * <br>
+ * Parsed statements and parse errors are cached per statement text, so all analyzers
+ * working on the same statement share a single parsing. {@link #prefetch(String, int, List)} parses
+ * a statement in the background before an analyzer asks for it.
  *
  * @see https://github.com/JSQLParser/JSqlParser
  */
@@ -48,6 +54,18 @@ public final class JSqlParserUtil {
 	 * @throws JSQLParserException if JSQLParser is not able to parse the statement
 	 */
     public static Statement parse(String sql, int timeoutSec) throws JSQLParserException {
+    	String key = cacheKey(sql);
+    	Statement cachedStatement = getCachedStatement(key);
+    	if (cachedStatement != null) {
+    		return cachedStatement;
+    	}
+    	Exception cachedError;
+    	synchronized (errors) {
+    		cachedError = errors.get(key);
+    	}
+    	if (cachedError != null) {
+    		throw new JSQLParserException(cachedError);
+    	}
     	CCJSqlParser parser = new CCJSqlParser(new StringProvider(sql)).withSquareBracketQuotation(false);
 		try {
 		    return parse(parser, sql, timeoutSec);
@@ -60,6 +78,11 @@ public final class JSqlParserUtil {
 				    // ignore
 				}
 			}
+			if (e instanceof ParseException && !timedOut.containsKey(sql)) {
+				synchronized (errors) {
+					errors.put(key, e);
+				}
+			}
 		    throw new JSQLParserException(e);
 		} catch (Throwable t) {
 			if (t instanceof StackOverflowError) {
@@ -112,7 +135,7 @@ public final class JSqlParserUtil {
     	}
     }
 
-    private static final int MAX_CACHEDENTRIES = 20;
+    private static final int MAX_CACHEDENTRIES = 200;
     @SuppressWarnings("serial")
 	private static Map<String, Statement> cache = new LinkedHashMap<String, Statement>(MAX_CACHEDENTRIES + 1, .75F, true) {
         // This method is called just after a new entry has been added
@@ -120,6 +143,78 @@ public final class JSqlParserUtil {
             return size() > MAX_CACHEDENTRIES;
         }
     };
+    @SuppressWarnings("serial")
+	private static Map<String, Exception> errors = new LinkedHashMap<String, Exception>(MAX_CACHEDENTRIES + 1, .75F, true) {
+        // This method is called just after a new entry has been added
+        public boolean removeEldestEntry(Map.Entry<String, Exception> eldest) {
+            return size() > MAX_CACHEDENTRIES;
+        }
+    };
+
+    /**
+     * Trailing white spaces don't change the statement (nor the positions of its tokens).
+     */
+    private static String cacheKey(String sql) {
+    	int end = sql.length();
+    	while (end > 0 && Character.isWhitespace(sql.charAt(end - 1))) {
+    		--end;
+    	}
+    	return end == sql.length()? sql : sql.substring(0, end);
+    }
+
+    private static Statement getCachedStatement(String key) {
+    	synchronized (cache) {
+    		return cache.get(key);
+    	}
+    }
+
+    private static final long PREFETCH_DELAY = 300;
+    private static final LinkedBlockingQueue<Runnable> prefetchQueue = new LinkedBlockingQueue<Runnable>();
+    private static Thread prefetchThread;
+
+    /**
+     * Parses a statement in the background, so that subsequent calls of {@link #parse(String, int)} find it in the cache.
+     * Requests are debounced: only the latest one is processed after the statement has remained unchanged for a short time.
+     *
+     * @param sql the statement
+     * @param timeoutSec timeout in seconds
+     * @param preparations the preparations the analyzers apply to the statement before parsing it
+     */
+    public static synchronized void prefetch(String sql, int timeoutSec, List<Function<String, String>> preparations) {
+    	prefetchQueue.clear();
+    	prefetchQueue.add(() -> {
+    		for (Function<String, String> preparation: preparations) {
+    			try {
+    				String preparedSql = preparation.apply(sql);
+    				if (getCachedStatement(cacheKey(preparedSql)) == null) {
+    					parse(preparedSql, timeoutSec);
+    				}
+    			} catch (Throwable t) {
+    				// ignore
+    			}
+    			if (!prefetchQueue.isEmpty()) {
+    				break;
+    			}
+    		}
+    	});
+    	if (prefetchThread == null) {
+    		prefetchThread = new Thread(() -> {
+    			for (;;) {
+    				try {
+    					Runnable request = prefetchQueue.take();
+    					Thread.sleep(PREFETCH_DELAY);
+    					if (prefetchQueue.isEmpty()) {
+    						request.run();
+    					}
+    				} catch (InterruptedException e) {
+    					// ignore
+    				}
+    			}
+    		}, "SQLParser-Prefetch");
+    		prefetchThread.setDaemon(true);
+    		prefetchThread.start();
+    	}
+    }
     
     /**
      * Workaround for https://github.com/JSQLParser/JSqlParser/issues/1013
@@ -127,12 +222,16 @@ public final class JSqlParserUtil {
 	 * @see https://github.com/JSQLParser/JSqlParser/issues/1013
      */
     private static synchronized Statement parse(CCJSqlParser parser, String sql, int timeoutSec) throws ParseException {
-    	Statement cachedStatement = cache.get(sql);
+    	Statement cachedStatement = getCachedStatement(cacheKey(sql));
     	if (cachedStatement != null) {
     		return cachedStatement;
     	}
 		if (stop == null) {
-			return parser.Statement();
+			Statement statement = parser.Statement();
+			synchronized (cache) {
+				cache.put(cacheKey(sql), statement);
+			}
+			return statement;
 		}
 		if (timedOut.containsKey(sql)) {
 			timedOut.put(sql, sql);
@@ -183,7 +282,9 @@ public final class JSqlParserUtil {
 		} else if (r instanceof Throwable) {
 			throw new RuntimeException((Throwable) r);
 		} else if (r instanceof Statement) {
-			cache.put(sql, (Statement) r);
+			synchronized (cache) {
+				cache.put(cacheKey(sql), (Statement) r);
+			}
 			return (Statement) r;
 		} else {
 			statementQueue.add(nullParser);
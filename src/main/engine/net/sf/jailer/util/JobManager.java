@@ -24,6 +24,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.jailer.metrics.Metrics;
+
 /**
  * Executes a job-list in a concurrent way.
  *  
@@ -57,6 +59,11 @@ public abstract class JobManager {
 	 */
 	private final int threads;
 	
+	/**
+	 * Receives the timings of the jobs.
+	 */
+	private volatile Metrics metrics = Metrics.NONE;
+	
 	/**
 	 * Thread for executing jobs.
 	 */
@@ -97,7 +104,9 @@ public abstract class JobManager {
 				} else {
 					try {
 						incrementJobsInExecutionCounter();
+						Metrics.Sample sample = metrics.start();
 						job.run();
+						sample.stop(Metrics.JOB, 0);
 						incrementJobsDoneCounter();
 					} catch (Throwable e) {
 						setException(e);
@@ -119,6 +128,15 @@ public abstract class JobManager {
 		this.threads = threads;
 		runnersList = new ArrayList<JobRunner>(threads);
 	}
+
+	/**
+	 * Sets the metrics receiving the timings of the jobs.
+	 *
+	 * @param metrics the metrics
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
 	
 	private void ensureThreadCapacity(int capacity) {
 		if (threads > 1) {
@@ -145,7 +163,9 @@ public abstract class JobManager {
 		_log.info("starting " + jobCount + " jobs");
 		if (runnersList.isEmpty()) {
 			for (Job job: jobs) {
+				Metrics.Sample sample = metrics.start();
 				job.run();
+				sample.stop(Metrics.JOB, 0);
 			}
 		} else {
 			setJobs(new LinkedList<Job>(jobs));
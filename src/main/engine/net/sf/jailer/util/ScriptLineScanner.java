@@ -0,0 +1,468 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Reads the lines of an (uncompressed) SQL-script on byte level.<br>
+ * <br>
+ * The file is read in large regions, each ending with a line terminator. While the lines of a region are consumed,
+ * the next one is read in the background. The lines of a region are located (and trimmed) by several threads, each scanning a chunk of the region.
+ * Statements refer to the bytes of a region (see {@link SqlScriptExecutor.Statement}) and are decoded only when they are executed.<br>
+ * <br>
+ * Statements are delimited line by line as by {@link SqlScriptExecutor}, the scripts written by Jailer
+ * don't contain line breaks in string literals (see {@link net.sf.jailer.configuration.DBMS#getStringLiteralEscapeSequences()}).
+ *
+ * @author Ralf Wisser
+ */
+class ScriptLineScanner extends SqlScriptExecutor.LineReader {
+
+	/**
+	 * Default size of a region.
+	 */
+	private static final int REGION_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Maximum size of a region (containing a single line).
+	 */
+	private static final int MAX_REGION_SIZE = Integer.MAX_VALUE - 64;
+
+	/**
+	 * Default minimum size of a chunk that is scanned by a single thread.
+	 */
+	private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
+	/**
+	 * The lines of a part of the file.
+	 */
+	private static class Region {
+		final long offset;
+		final byte[] bytes;
+		final byte[] tail;
+		final boolean last;
+		final Lines lines;
+
+		Region(long offset, byte[] bytes, byte[] tail, boolean last, Lines lines) {
+			this.offset = offset;
+			this.bytes = bytes;
+			this.tail = tail;
+			this.last = last;
+			this.lines = lines;
+		}
+	}
+
+	/**
+	 * Positions of lines.
+	 */
+	private static class Lines {
+		int[] terminators;
+		int[] trimmedStarts;
+		int[] trimmedEnds;
+		int count;
+
+		Lines(int capacity) {
+			terminators = new int[capacity];
+			trimmedStarts = new int[capacity];
+			trimmedEnds = new int[capacity];
+		}
+
+		void add(int terminator, int trimmedStart, int trimmedEnd) {
+			if (count == terminators.length) {
+				int capacity = Math.max(16, count * 2);
+				terminators = Arrays.copyOf(terminators, capacity);
+				trimmedStarts = Arrays.copyOf(trimmedStarts, capacity);
+				trimmedEnds = Arrays.copyOf(trimmedEnds, capacity);
+			}
+			terminators[count] = terminator;
+			trimmedStarts[count] = trimmedStart;
+			trimmedEnds[count] = trimmedEnd;
+			++count;
+		}
+
+		void addAll(Lines lines) {
+			if (count + lines.count > terminators.length) {
+				int capacity = count + lines.count;
+				terminators = Arrays.copyOf(terminators, capacity);
+				trimmedStarts = Arrays.copyOf(trimmedStarts, capacity);
+				trimmedEnds = Arrays.copyOf(trimmedEnds, capacity);
+			}
+			System.arraycopy(lines.terminators, 0, terminators, count, lines.count);
+			System.arraycopy(lines.trimmedStarts, 0, trimmedStarts, count, lines.count);
+			System.arraycopy(lines.trimmedEnds, 0, trimmedEnds, count, lines.count);
+			count += lines.count;
+		}
+	}
+
+	private final FileInputStream inputStream;
+	private final FileChannel channel;
+	private final Charset encoding;
+	private final int regionSize;
+	private final int minChunkSize;
+	private final int parallelism;
+	private ExecutorService loader;
+	private ExecutorService scanners;
+	private Future<Region> nextRegion;
+	private Region region;
+	private int line;
+	private boolean eofLine;
+	private boolean eofRead;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file the script file
+	 * @param encoding the encoding of the script
+	 */
+	ScriptLineScanner(File file, Charset encoding) throws IOException {
+		this(file, encoding, REGION_SIZE, MIN_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file the script file
+	 * @param encoding the encoding of the script
+	 * @param regionSize size of a region
+	 * @param minChunkSize minimum size of a chunk that is scanned by a single thread
+	 * @param parallelism maximum number of threads scanning a region
+	 */
+	ScriptLineScanner(File file, Charset encoding, int regionSize, int minChunkSize, int parallelism) throws IOException {
+		this.inputStream = new FileInputStream(file);
+		this.channel = inputStream.getChannel();
+		this.encoding = encoding;
+		this.regionSize = regionSize;
+		this.minChunkSize = minChunkSize;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Can scripts with a given encoding be read on byte level?
+	 * That's the case if line terminators, whitespace, '-' and ';' are single bytes that are not part of other characters.
+	 *
+	 * @param encoding the encoding
+	 */
+	static boolean isApplicable(Charset encoding) {
+		if ("UTF-8".equals(encoding.name())) {
+			return true;
+		}
+		try {
+			String ascii = "\r\n\t -;";
+			return encoding.newEncoder().maxBytesPerChar() == 1.0f && Arrays.equals(ascii.getBytes(encoding), ascii.getBytes("US-ASCII"));
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@Override
+	boolean next() throws IOException {
+		if (eofLine) {
+			eofLine = false;
+			return false;
+		}
+		++line;
+		while (region == null || line >= region.lines.count) {
+			if (region != null && region.last) {
+				if (eofRead) {
+					return false;
+				}
+				eofRead = true;
+				eofLine = true;
+				return true;
+			}
+			region = region == null? load(0, new byte[0]) : nextRegion();
+			line = 0;
+			if (!region.last) {
+				prefetch(region);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	String getLine() {
+		if (eofLine) {
+			return ";";
+		}
+		int start = line == 0? 0 : region.lines.terminators[line - 1] + 1;
+		int end = region.lines.terminators[line];
+		if (end > start && region.bytes[end - 1] == '\r') {
+			--end;
+		}
+		return new String(region.bytes, start, end - start, encoding);
+	}
+
+	@Override
+	String getTrimmedLine() {
+		if (eofLine) {
+			return ";";
+		}
+		int start = region.lines.trimmedStarts[line];
+		return new String(region.bytes, start, region.lines.trimmedEnds[line] - start, encoding);
+	}
+
+	@Override
+	boolean isBlank() {
+		return !eofLine && region.lines.trimmedStarts[line] == region.lines.trimmedEnds[line];
+	}
+
+	@Override
+	boolean isComment() {
+		if (eofLine) {
+			return false;
+		}
+		int start = region.lines.trimmedStarts[line];
+		return region.lines.trimmedEnds[line] - start >= 2 && region.bytes[start] == '-' && region.bytes[start + 1] == '-';
+	}
+
+	@Override
+	boolean isStatementEnd() {
+		return eofLine || (!isBlank() && region.bytes[region.lines.trimmedEnds[line] - 1] == ';');
+	}
+
+	@Override
+	void appendTo(SqlScriptExecutor.Statement statement, boolean withoutSemicolon) {
+		if (eofLine) {
+			statement.append(withoutSemicolon? "" : ";");
+		} else {
+			int end = region.lines.trimmedEnds[line];
+			statement.append(region.bytes, region.lines.trimmedStarts[line], withoutSemicolon? end - 1 : end, encoding);
+		}
+	}
+
+	@Override
+	long getBytesRead() {
+		if (region == null) {
+			return 0;
+		}
+		if (eofLine || line >= region.lines.count) {
+			return region.offset + region.bytes.length;
+		}
+		return region.offset + region.lines.terminators[line] + 1;
+	}
+
+	@Override
+	void close() throws IOException {
+		if (nextRegion != null) {
+			nextRegion.cancel(true);
+			nextRegion = null;
+		}
+		if (loader != null) {
+			loader.shutdownNow();
+		}
+		if (scanners != null) {
+			scanners.shutdownNow();
+		}
+		inputStream.close();
+	}
+
+	/**
+	 * Starts reading the region following a given one.
+	 */
+	private void prefetch(final Region previous) {
+		if (loader == null) {
+			loader = Executors.newSingleThreadExecutor(createThreadFactory("script-reader"));
+		}
+		nextRegion = loader.submit(new Callable<Region>() {
+			@Override
+			public Region call() throws Exception {
+				return load(previous.offset + previous.bytes.length - previous.tail.length, previous.tail);
+			}
+		});
+	}
+
+	/**
+	 * Waits for the prefetched region.
+	 */
+	private Region nextRegion() throws IOException {
+		try {
+			return nextRegion.get();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			nextRegion = null;
+		}
+	}
+
+	/**
+	 * Reads a region.
+	 *
+	 * @param offset file position of the region
+	 * @param head the unterminated last line of the previous region
+	 */
+	private Region load(long offset, byte[] head) throws IOException {
+		long remaining = channel.size() - channel.position();
+		byte[] bytes = Arrays.copyOf(head, (int) Math.max(head.length, Math.min(regionSize, head.length + remaining)));
+		int length = head.length;
+		boolean last = false;
+		int cut;
+		for (;;) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, length, bytes.length - length);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					last = true;
+					break;
+				}
+			}
+			length = buffer.position();
+			if (!last && channel.position() >= channel.size()) {
+				last = true;
+			}
+			cut = length;
+			if (!last) {
+				while (cut > 0 && bytes[cut - 1] != '\n') {
+					--cut;
+				}
+			}
+			if (cut > 0 || last) {
+				break;
+			}
+			// a line longer than the region
+			if (bytes.length >= MAX_REGION_SIZE) {
+				throw new IOException("line too long (> " + MAX_REGION_SIZE + " bytes)");
+			}
+			long size = Math.min(Math.max((long) bytes.length * 2, regionSize), length + channel.size() - channel.position());
+			bytes = Arrays.copyOf(bytes, (int) Math.min(MAX_REGION_SIZE, size));
+		}
+		if (length < bytes.length) {
+			bytes = Arrays.copyOf(bytes, length);
+		}
+		Lines lines = scan(bytes, cut);
+		if (last && cut > 0 && bytes[cut - 1] != '\n') {
+			// unterminated last line
+			int start = lines.count == 0? 0 : lines.terminators[lines.count - 1] + 1;
+			int trimmedStart = trimmedStart(bytes, start, cut);
+			lines.add(cut, trimmedStart, trimmedEnd(bytes, trimmedStart, cut));
+		}
+		return new Region(offset, bytes, Arrays.copyOfRange(bytes, cut, length), last, lines);
+	}
+
+	/**
+	 * Locates the lines of a region. Large regions are split into chunks that are scanned in parallel.
+	 *
+	 * @param bytes the region
+	 * @param length length of the part of the region ending with a line terminator
+	 */
+	private Lines scan(final byte[] bytes, int length) throws IOException {
+		int chunks = Math.min(parallelism, length / minChunkSize);
+		if (chunks <= 1) {
+			return scan(bytes, 0, length);
+		}
+		if (scanners == null) {
+			scanners = Executors.newFixedThreadPool(parallelism, createThreadFactory("script-scanner"));
+		}
+		List<Future<Lines>> futures = new ArrayList<Future<Lines>>(chunks);
+		int chunkSize = length / chunks;
+		for (int i = 0; i < chunks; ++i) {
+			final int from = i * chunkSize;
+			final int to = i == chunks - 1? length : from + chunkSize;
+			futures.add(scanners.submit(new Callable<Lines>() {
+				@Override
+				public Lines call() throws Exception {
+					return scan(bytes, from, to);
+				}
+			}));
+		}
+		List<Lines> chunkLines = new ArrayList<Lines>(chunks);
+		int count = 0;
+		try {
+			for (Future<Lines> future: futures) {
+				chunkLines.add(future.get());
+				count += chunkLines.get(chunkLines.size() - 1).count;
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		Lines lines = new Lines(count + 1);
+		for (Lines l: chunkLines) {
+			lines.addAll(l);
+		}
+		return lines;
+	}
+
+	/**
+	 * Locates the lines whose terminators are within a chunk.
+	 *
+	 * @param bytes the region
+	 * @param from start of the chunk
+	 * @param to end of the chunk
+	 */
+	private static Lines scan(byte[] bytes, int from, int to) {
+		Lines lines = new Lines(Math.max(16, (to - from) / 64));
+		int start = from;
+		while (start > 0 && bytes[start - 1] != '\n') {
+			--start;
+		}
+		for (int i = from; i < to; ++i) {
+			if (bytes[i] == '\n') {
+				int trimmedStart = trimmedStart(bytes, start, i);
+				lines.add(i, trimmedStart, trimmedEnd(bytes, trimmedStart, i));
+				start = i + 1;
+			}
+		}
+		return lines;
+	}
+
+	private static int trimmedStart(byte[] bytes, int start, int end) {
+		while (start < end && (bytes[start] & 0xFF) <= ' ') {
+			++start;
+		}
+		return start;
+	}
+
+	private static int trimmedEnd(byte[] bytes, int start, int end) {
+		while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+			--end;
+		}
+		return end;
+	}
+
+	private static ThreadFactory createThreadFactory(final String name) {
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+}
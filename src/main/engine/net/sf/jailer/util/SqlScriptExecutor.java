@@ -28,6 +28,8 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -44,9 +46,12 @@ import java.util.zip.ZipInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.jailer.bulkload.BulkLoadTransformer;
+import net.sf.jailer.bulkload.BulkLoader;
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.SqlException;
+import net.sf.jailer.metrics.Metrics;
 
 /**
  * Reads in and executes SQL-scripts.
@@ -251,18 +256,22 @@ public class SqlScriptExecutor {
 		};
 		bytesRead[0] = 0;
 		fileSize = file.length();
+		final LineReader lineReader;
 		if (scriptFileName.toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
-			bufferedReader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream), encoding));
+			lineReader = new StreamLineReader(new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream), encoding)), bytesRead);
 		} else if (scriptFileName.toLowerCase(Locale.ENGLISH).endsWith(".zip")){
 			ZipInputStream zis = new ZipInputStream(inputStream);
 			zis.getNextEntry();
-			bufferedReader = new BufferedReader(new InputStreamReader(zis, encoding));
+			lineReader = new StreamLineReader(new BufferedReader(new InputStreamReader(zis, encoding)), bytesRead);
+		} else if (ScriptLineScanner.isApplicable(encoding)) {
+			inputStream.close();
+			lineReader = new ScriptLineScanner(file, encoding);
 		} else {
-			bufferedReader = new BufferedReader(new InputStreamReader(inputStream, encoding));
+			lineReader = new StreamLineReader(new BufferedReader(new InputStreamReader(inputStream, encoding)), bytesRead);
 		}
 		
 		String line = null;
-		StringBuffer currentStatement = new StringBuffer();
+		Statement currentStatement = new Statement();
 		final AtomicLong linesRead = new AtomicLong(0);
 		final AtomicLong totalRowCount = new AtomicLong(0);
 		final AtomicLong t = new AtomicLong(System.currentTimeMillis());
@@ -270,7 +279,6 @@ public class SqlScriptExecutor {
 		submittedTasks = 0;
 		executedTasks = new AtomicLong(0);
 		final long finalFileSize = fileSize;
-		LineReader lineReader = new LineReader(bufferedReader);
 		boolean inSync = false;
 		synchronized (this) {
 			exception = null;
@@ -284,7 +292,7 @@ public class SqlScriptExecutor {
 					t.set(System.currentTimeMillis());
 					long p = -1;
 					if (finalFileSize > 0) {
-						p = (1000 * bytesRead[0]) / finalFileSize;
+						p = (1000 * lineReader.getBytesRead()) / finalFileSize;
 						if (p > 999) {
 							p = 999;
 						}
@@ -300,12 +308,13 @@ public class SqlScriptExecutor {
 			final Pattern IDENTITY_INSERT = Pattern.compile(".*SET\\s+IDENTITY_INSERT.*", Pattern.CASE_INSENSITIVE);
 			boolean tryMode = false;
 			
-			while ((line = lineReader.readLine()) != null) {
-				line = line.trim();
-				if (line.length() == 0) {
+			while (lineReader.next()) {
+				if (lineReader.isBlank()) {
 					continue;
 				}
-				if (line.startsWith("--")) {
+				line = null;
+				if (lineReader.isComment()) {
+					line = lineReader.getTrimmedLine();
 					final String TRY = "try:";
 					String uncommentedLine = line.substring(2).trim();
 					if (uncommentedLine.startsWith(TRY)) {
@@ -323,6 +332,9 @@ public class SqlScriptExecutor {
 							if (cmd.startsWith("BLOB")) {
 								importBLob(cmd.substring(4).trim(), lineReader);
 							}
+							if (cmd.startsWith(BulkLoadTransformer.BULK_DIRECTIVE)) {
+								importBulk(cmd.substring(BulkLoadTransformer.BULK_DIRECTIVE.length()).trim(), file.getAbsoluteFile().getParentFile(), inSync, totalRowCount, count);
+							}
 						} else if (uncommentedLine.equals("sync")) {
 							inSync = true;
 							sync();
@@ -333,20 +345,26 @@ public class SqlScriptExecutor {
 						continue;
 					}
 				}
-				if (line.endsWith(";")) {
-					currentStatement.append(line.substring(0, line.length() - 1));
-					if (IDENTITY_INSERT.matcher(currentStatement).matches()) {
+				if (line != null? line.endsWith(";") : lineReader.isStatementEnd()) {
+					if (line != null) {
+						currentStatement.append(line.substring(0, line.length() - 1));
+					} else {
+						lineReader.appendTo(currentStatement, true);
+					}
+					// the pattern can only match if the last line contains the keyword
+					if (currentStatement.lastLineContains("IDENTITY_INSERT") && IDENTITY_INSERT.matcher(currentStatement.toString()).matches()) {
 						sync();
 						if (executor != null) {
 							executor.shutdown();
 							executor = null;
 						}
 					}
-					final String stmt = currentStatement.toString();
+					final Statement statement = currentStatement;
 					final boolean finalTryMode = tryMode;
 					execute(new Runnable() {
 						@Override
 						public void run() {
+							String stmt = statement.toString();
 							boolean startsWithDrop = stmt.trim().toLowerCase(Locale.ENGLISH).startsWith("drop");
 							boolean silent = session.getSilent();
 							session.setSilent(silent || finalTryMode || startsWithDrop);
@@ -401,11 +419,13 @@ public class SqlScriptExecutor {
 							}
 						}
 					}, inSync);
-					currentStatement.setLength(0);
+					currentStatement = new Statement();
 					logProgress.run();
 					tryMode = false;
+				} else if (line != null) {
+					currentStatement.append(line);
 				} else {
-					currentStatement.append(line + "\n");
+					lineReader.appendTo(currentStatement, false);
 				}
 				CancellationHandler.checkForCancellation(null);
 				synchronized (this) {
@@ -417,11 +437,13 @@ public class SqlScriptExecutor {
 					}
 				}
 			}
-			bufferedReader.close();
+			lineReader.close();
 			sync();
 			_log.info(linesRead + " statements (100%)");
 			_log.info("successfully read file '" + scriptFileName + "'");
 			Pair<Integer, Long> r = new Pair<Integer, Long>(count.get(), totalRowCount.get());
+			session.getMetrics().count(Metrics.IMPORT_STATEMENTS, count.get(), "file", file.getName());
+			session.getMetrics().count(Metrics.IMPORT_ROWS, totalRowCount.get(), "file", file.getName());
 			synchronized (SqlScriptExecutor.class) {
 				lastRowCount = r;
 			}
@@ -438,6 +460,7 @@ public class SqlScriptExecutor {
 			if (executor != null) {
 				executor.shutdown();
 			}
+			lineReader.close();
 			synchronized (this) {
 				if (exception != null) {
 					if (exception.getCause() instanceof SQLException) {
@@ -492,23 +515,227 @@ public class SqlScriptExecutor {
 		}
 	}
 
-	private static class LineReader {
+	/**
+	 * Reads the lines of a script.
+	 */
+	static abstract class LineReader {
+
+		/**
+		 * Reads the next line. After the last line, an additional line ";" is read
+		 * so that an unterminated statement at the end of the script is executed.
+		 * 
+		 * @return <code>false</code> if there is no more line
+		 */
+		abstract boolean next() throws IOException;
+
+		/**
+		 * Gets the current line.
+		 */
+		abstract String getLine();
+
+		/**
+		 * Gets the current line without leading and trailing whitespace.
+		 */
+		abstract String getTrimmedLine();
+
+		/**
+		 * Is the current line blank?
+		 */
+		abstract boolean isBlank();
+
+		/**
+		 * Is the current line a comment?
+		 */
+		abstract boolean isComment();
+
+		/**
+		 * Does the current line end with ';'?
+		 */
+		abstract boolean isStatementEnd();
+
+		/**
+		 * Appends the trimmed current line to a statement.
+		 * 
+		 * @param statement the statement
+		 * @param withoutSemicolon <code>true</code> to omit the last character (';')
+		 */
+		abstract void appendTo(Statement statement, boolean withoutSemicolon);
+
+		/**
+		 * Gets the number of bytes of the script file read so far.
+		 */
+		abstract long getBytesRead();
+
+		/**
+		 * Closes the reader.
+		 */
+		abstract void close() throws IOException;
+
+		/**
+		 * Reads the next line.
+		 * 
+		 * @return the line or <code>null</code> if there is no more line
+		 */
+		String readLine() throws IOException {
+			return next()? getLine() : null;
+		}
+	}
+
+	/**
+	 * Reads the lines of a script from a {@link BufferedReader}.
+	 */
+	private static class StreamLineReader extends LineReader {
 
 		private final BufferedReader reader;
+		private final long[] bytesRead;
 		private boolean eofRead = false;
+		private String line;
+		private String trimmedLine;
 		
-		public LineReader(BufferedReader reader) {
+		public StreamLineReader(BufferedReader reader, long[] bytesRead) {
 			this.reader = reader;
+			this.bytesRead = bytesRead;
 		}
 
-		public String readLine() throws IOException {
-			String line = reader.readLine();
+		@Override
+		boolean next() throws IOException {
+			line = reader.readLine();
 			if (line == null && !eofRead) {
 				eofRead = true;
-				return ";";
+				line = ";";
 			}
+			trimmedLine = line == null? null : line.trim();
+			return line != null;
+		}
+
+		@Override
+		String getLine() {
 			return line;
 		}
+
+		@Override
+		String getTrimmedLine() {
+			return trimmedLine;
+		}
+
+		@Override
+		boolean isBlank() {
+			return trimmedLine.length() == 0;
+		}
+
+		@Override
+		boolean isComment() {
+			return trimmedLine.startsWith("--");
+		}
+
+		@Override
+		boolean isStatementEnd() {
+			return trimmedLine.endsWith(";");
+		}
+
+		@Override
+		void appendTo(Statement statement, boolean withoutSemicolon) {
+			statement.append(withoutSemicolon? trimmedLine.substring(0, trimmedLine.length() - 1) : trimmedLine);
+		}
+
+		@Override
+		long getBytesRead() {
+			return bytesRead[0];
+		}
+
+		@Override
+		void close() throws IOException {
+			reader.close();
+		}
+	}
+
+	/**
+	 * A statement, consisting of the trimmed lines of the script.
+	 * Lines read by the {@link ScriptLineScanner} are kept as byte slices and decoded when the statement is executed.
+	 */
+	static class Statement {
+
+		private final List<Object> lines = new ArrayList<Object>(1);
+
+		/**
+		 * Slice of the bytes of a script.
+		 */
+		private static class Slice {
+			final byte[] bytes;
+			final int from;
+			final int to;
+			final Charset encoding;
+
+			Slice(byte[] bytes, int from, int to, Charset encoding) {
+				this.bytes = bytes;
+				this.from = from;
+				this.to = to;
+				this.encoding = encoding;
+			}
+
+			@Override
+			public String toString() {
+				return new String(bytes, from, to - from, encoding);
+			}
+		}
+
+		/**
+		 * Appends a line.
+		 */
+		void append(String line) {
+			lines.add(line);
+		}
+
+		/**
+		 * Appends a line.
+		 */
+		void append(byte[] bytes, int from, int to, Charset encoding) {
+			lines.add(new Slice(bytes, from, to, encoding));
+		}
+
+		/**
+		 * Does the last line contain a (ASCII) keyword, ignoring case?
+		 */
+		boolean lastLineContains(String keyword) {
+			if (lines.isEmpty()) {
+				return false;
+			}
+			Object line = lines.get(lines.size() - 1);
+			if (!(line instanceof Slice)) {
+				return line.toString().toUpperCase(Locale.ENGLISH).contains(keyword.toUpperCase(Locale.ENGLISH));
+			}
+			Slice slice = (Slice) line;
+			String upper = keyword.toUpperCase(Locale.ENGLISH);
+			int length = upper.length();
+			for (int i = slice.from; i <= slice.to - length; ++i) {
+				int j = 0;
+				while (j < length && Character.toUpperCase((char) (slice.bytes[i + j] & 0xFF)) == upper.charAt(j)) {
+					++j;
+				}
+				if (j == length) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Gets the statement. Lines are separated by '\n'.
+		 */
+		@Override
+		public String toString() {
+			if (lines.size() == 1) {
+				return lines.get(0).toString();
+			}
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < lines.size(); ++i) {
+				if (i > 0) {
+					sb.append('\n');
+				}
+				sb.append(lines.get(i));
+			}
+			return sb.toString();
+		}
 	}
 	
 	/**
@@ -650,6 +877,30 @@ public class SqlScriptExecutor {
 		lobFile.delete();
 	}
 
+	/**
+	 * Loads a data file of a bulk-load export.
+	 * 
+	 * @param directive the load directive
+	 * @param baseDirectory directory of the manifest
+	 * @param inSync <code>true</code> if the file may be loaded in parallel to others
+	 */
+	private void importBulk(final String directive, final File baseDirectory, boolean inSync, final AtomicLong totalRowCount, final AtomicInteger count) {
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					totalRowCount.addAndGet(new BulkLoader(session).load(directive, baseDirectory));
+					count.getAndIncrement();
+				} catch (SQLException e) {
+					Session._log.warn(directive, e);
+					throw new RuntimeException(e);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}, inSync);
+	}
+
 	private static Pair<Integer, Long> lastRowCount = null;
 	
 	public static synchronized Pair<Integer, Long> getLastStatementCount() {
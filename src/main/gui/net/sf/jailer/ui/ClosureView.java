@@ -77,6 +77,7 @@ import javax.swing.table.TableColumn;
 import javax.swing.table.TableModel;
 
 import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.AssociationGraph;
 import net.sf.jailer.datamodel.DataModel;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.ui.StringSearchPanel.AdditionalComponentFactory;
@@ -543,16 +544,16 @@ public abstract class ClosureView extends javax.swing.JDialog {
 					Table t = value instanceof String? getDataModel().getTableByDisplayName((String) value) : null;
 					if (t != null) {
 						boolean allDisabled = true;
-						boolean someRestricted = false;
-						for (Association association: t.associations) {
-							if (!association.isInsertDestinationBeforeSource()) {
-								if (!association.isIgnored()) {
-									allDisabled = false;
+						boolean someRestricted = getDataModel().getAssociationGraph().hasRestrictedAssociation(t);
+						if (someRestricted) {
+							for (Association association: t.associations) {
+								if (!association.isInsertDestinationBeforeSource()) {
+									if (!association.isIgnored()) {
+										allDisabled = false;
+										break;
+									}
 								}
 							}
-							if (association.isRestricted()) {
-								someRestricted = true;
-							}
 						}
 						if (allDisabled && someRestricted) {
 							((JLabel) render).setForeground(new Color(160, 80, 0));
@@ -1484,15 +1485,10 @@ public abstract class ClosureView extends javax.swing.JDialog {
 			tableModel.removeRow(0);
 		}
 		if (selectedTable != null) {
+			AssociationGraph associationGraph = getDataModel().getAssociationGraph();
 			Set<Table> closure = selectedTable.closure();
 			for (Table table: closure) {
-				Set<Table> neighbors = new HashSet<Table>();
-				for (Association a: table.associations) {
-					if (a.getJoinCondition() != null) {
-						neighbors.add(a.destination);
-					}
-				}
-				tableModel.addRow(new Object[] { getDataModel().getDisplayName(table), neighbors.size() });
+				tableModel.addRow(new Object[] { getDataModel().getDisplayName(table), associationGraph.getDegree(table) });
 			}
 		}
 
@@ -391,7 +391,7 @@ public abstract class ExportDialog extends javax.swing.JDialog {
 				jPanel8.setVisible(false);
 			}
 
-			if ((!ScriptFormat.SQL.equals(scriptFormat)) && (!ScriptFormat.INTRA_DATABASE.equals(scriptFormat)) && (!ScriptFormat.DBUNIT_FLAT_XML.equals(scriptFormat)) && !ScriptFormat.LIQUIBASE_XML.equals(scriptFormat)) {
+			if ((!ScriptFormat.SQL.equals(scriptFormat)) && (!ScriptFormat.INTRA_DATABASE.equals(scriptFormat)) && (!ScriptFormat.DBUNIT_FLAT_XML.equals(scriptFormat)) && !ScriptFormat.LIQUIBASE_XML.equals(scriptFormat) && !ScriptFormat.BULK_LOAD.equals(scriptFormat)) {
 				schemaMappingPanel.setVisible(false);
 				schemaMappingLabelPanel.setVisible(false);
 			} else {
@@ -694,7 +694,7 @@ public abstract class ExportDialog extends javax.swing.JDialog {
 		resetTargetButton.setVisible(false);
 		resetTargetButton.setBackground(new Color(255, 255, 210));
 		resetTargetButton.setIcon(resetIcon);
-		if (scriptFormat == ScriptFormat.SQL) {
+		if (scriptFormat == ScriptFormat.SQL || scriptFormat == ScriptFormat.BULK_LOAD) {
 			targetDBMSComboBox.setModel(new DefaultComboBoxModel<DBMS>(DBMS.values()));
 			targetDBMSComboBox.setRenderer(new DefaultListCellRenderer() {
 				ListCellRenderer renderer = targetDBMSComboBox.getRenderer();
@@ -2602,7 +2602,7 @@ public abstract class ExportDialog extends javax.swing.JDialog {
 				args.add("-use-rowid-if-needed");
 			}
 		}
-		if (scriptFormat == ScriptFormat.SQL) {
+		if (scriptFormat == ScriptFormat.SQL || scriptFormat == ScriptFormat.BULK_LOAD) {
 			Object selectedItem = targetDBMSComboBox.getSelectedItem();
 			if (selectedItem instanceof DBMS) {
 				DBMS targetDBMS = (DBMS) selectedItem;
@@ -79,6 +79,7 @@ import net.sf.jailer.extractionmodel.ExtractionModel.AdditionalSubject;
 import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
 import net.sf.jailer.modelbuilder.ModelBuilder;
 import net.sf.jailer.render.HtmlDataModelRenderer;
+import net.sf.jailer.subsetting.IndexAdvisor;
 import net.sf.jailer.subsetting.ScriptFormat;
 import net.sf.jailer.ui.UIUtil.ResultConsumer;
 import net.sf.jailer.ui.associationproposer.AssociationProposerView;
@@ -89,6 +90,7 @@ import net.sf.jailer.ui.databrowser.BookmarksPanel.BookmarkId;
 import net.sf.jailer.ui.databrowser.DataBrowser;
 import net.sf.jailer.ui.progress.ExportAndDeleteStageProgressListener;
 import net.sf.jailer.ui.util.AnimationController;
+import net.sf.jailer.ui.util.ConcurrentTaskControl;
 import net.sf.jailer.ui.util.UISettings;
 import net.sf.jailer.ui.util.UpdateInfoManager;
 import net.sf.jailer.util.PrintUtil;
@@ -385,6 +387,7 @@ public class ExtractionModelFrame extends javax.swing.JFrame {
         modelMigrationMenuItem = new javax.swing.JMenuItem();
         checkPKMenuItem = new javax.swing.JMenuItem();
         consistencyCheckMenuItem1 = new javax.swing.JMenuItem();
+        proposeIndexesMenuItem = new javax.swing.JMenuItem();
         editMenu = new javax.swing.JMenu();
         undoMenuItem = new javax.swing.JMenuItem();
         redoMenuItem = new javax.swing.JMenuItem();
@@ -675,6 +678,14 @@ public class ExtractionModelFrame extends javax.swing.JFrame {
         });
         jMenu1.add(consistencyCheckMenuItem1);
 
+        proposeIndexesMenuItem.setText("Propose Indexes");
+        proposeIndexesMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                proposeIndexesMenuItemActionPerformed(evt);
+            }
+        });
+        jMenu1.add(proposeIndexesMenuItem);
+
         jMenuBar2.add(jMenu1);
 
         editMenu.setText("Edit");
@@ -2175,6 +2186,38 @@ public class ExtractionModelFrame extends javax.swing.JFrame {
     	consistencyCheckMenuItemActionPerformed(evt);
     }//GEN-LAST:event_consistencyCheckMenuItem1ActionPerformed
 
+    private void proposeIndexesMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_proposeIndexesMenuItemActionPerformed
+    	try {
+    		if (dbConnectionDialog.isConnected || dbConnectionDialog.connect("Propose Indexes")) {
+    			updateMenuItems();
+    			BasicDataSource dataSource = UIUtil.createBasicDataSource(this, dbConnectionDialog.currentConnection.driverClass, dbConnectionDialog.currentConnection.url, dbConnectionDialog.currentConnection.user, dbConnectionDialog.getPassword(), 0, dbConnectionDialog.currentJarURLs());
+    			Set<Table> subjects = new HashSet<Table>();
+    			if (extractionModelEditor.subject != null) {
+    				subjects.add(extractionModelEditor.subject);
+    			}
+    			for (AdditionalSubject as: extractionModelEditor.extractionModel.additionalSubjects) {
+    				subjects.add(as.getSubject());
+    			}
+    			String script = ConcurrentTaskControl.call(this, new Callable<String>() {
+    				@Override
+    				public String call() throws Exception {
+    					Session session = new Session(dataSource, dataSource.dbms, executionContext.getIsolationLevel());
+    					try {
+    						return new IndexAdvisor(session).createScript(subjects);
+    					} finally {
+    						session.shutDown();
+    					}
+    				}
+    			}, "Analyzing the index coverage of the join columns...");
+    			File file = Configuration.getInstance().createTempFile();
+    			Files.write(file.toPath(), script.getBytes());
+    			new FileView(this, this, file.getPath(), true);
+    		}
+    	} catch (Exception e) {
+    		UIUtil.showException(this, "Error", e);
+    	}
+    }//GEN-LAST:event_proposeIndexesMenuItemActionPerformed
+
     private void exportDisplay1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_exportDisplay1ActionPerformed
     	HtmlDataModelRenderer renderer = Configuration.getInstance().getRenderer();
 		try {
@@ -2521,6 +2564,7 @@ public class ExtractionModelFrame extends javax.swing.JFrame {
     private javax.swing.JCheckBoxMenuItem connectDb;
     private javax.swing.JMenuItem consistencyCheckMenuItem;
     private javax.swing.JMenuItem consistencyCheckMenuItem1;
+    private javax.swing.JMenuItem proposeIndexesMenuItem;
     private javax.swing.JMenuItem createCLIItem;
     private javax.swing.JMenuItem cycleView;
     private javax.swing.JMenuItem dataExport;
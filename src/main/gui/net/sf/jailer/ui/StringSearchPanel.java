@@ -49,8 +49,14 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.DefaultListCellRenderer;
@@ -67,6 +73,7 @@ import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.JToggleButton;
+import javax.swing.ListModel;
 import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
@@ -81,6 +88,7 @@ import net.sf.jailer.ui.databrowser.metadata.MDSchema;
 import net.sf.jailer.ui.databrowser.metadata.MetaDataSource;
 import net.sf.jailer.ui.util.MovePanel;
 import net.sf.jailer.ui.util.SizeGrip;
+import net.sf.jailer.ui.util.StringSearchIndex;
 
 /**
  * Substring search for combo boxes.
@@ -353,6 +361,7 @@ public class StringSearchPanel extends javax.swing.JPanel {
 			@Override
 			public void windowClosed(WindowEvent e) {
 				UIUtil.setPopupActive(false);
+				releaseSearchIndex();
 				if (onClose != null) {
 					onClose.run();
 				}
@@ -367,6 +376,14 @@ public class StringSearchPanel extends javax.swing.JPanel {
 	protected void onClosing() {
 	}
 
+	/**
+	 * Called when the search criteria have been edited.
+	 *
+	 * @param text the search criteria
+	 */
+	protected void onSearchTextChanged(String text) {
+	}
+
 	private int oHeight;
 	
 	public void resetHeight() {
@@ -428,24 +445,83 @@ public class StringSearchPanel extends javax.swing.JPanel {
 		updateList(filter, false);
 	}
 
+	/**
+	 * Minimum number of items for which the list is filtered using an index in a background thread.
+	 */
+	private static final int MIN_SIZE_INDEXED_SEARCH = 5000;
+	
+	/**
+	 * Indexes of the items, reused across openings for the same {@link MetaDataSource} or {@link DataModel}.
+	 */
+	private static final Map<Object, StringSearchIndex> searchIndexes = Collections.synchronizedMap(new WeakHashMap<Object, StringSearchIndex>());
+	
+	/**
+	 * Builds the indexes and filters the items. Has two threads so that items can be searched while an index is being built.
+	 */
+	private static final ExecutorService searchExecutor = Executors.newFixedThreadPool(2, r -> {
+		Thread thread = new Thread(r, "StringSearch");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	/**
+	 * The items of the model (taken when the model has changed) and their index (<code>null</code> until it's built).
+	 */
+	private ListModel<String> indexedModel;
+	private List<String> indexedItems;
+	private StringSearchIndex searchIndex;
+	private final ListDataListener indexInvalidator = new ListDataListener() {
+		@Override
+		public void intervalAdded(ListDataEvent e) {
+			invalidateSearchIndex();
+		}
+		@Override
+		public void intervalRemoved(ListDataEvent e) {
+			invalidateSearchIndex();
+		}
+		@Override
+		public void contentsChanged(ListDataEvent e) {
+			invalidateSearchIndex();
+		}
+	};
+	private final AtomicInteger searchGeneration = new AtomicInteger();
+	private Supplier<DefaultListModel<String>> pendingSearch = null;
+
 	public void updateList(boolean filter, boolean allowDuplicates) {
+		String text = searchTextField.getText();
+		DefaultComboBoxModel<String> model = (DefaultComboBoxModel) combobox.getModel();
+		int generation = searchGeneration.incrementAndGet();
+		pendingSearch = null;
+		isFiltered = filter;
+		if (filter && model.getSize() >= MIN_SIZE_INDEXED_SEARCH && !text.trim().isEmpty()) {
+			List<String> items = getIndexedItems(model);
+			StringSearchIndex index = searchIndex;
+			int maxLength = maxListLength;
+			pendingSearch = () -> filter(items, index, text, allowDuplicates, maxLength, () -> false);
+			searchExecutor.execute(() -> {
+				DefaultListModel<String> matches = filter(items, index, text, allowDuplicates, maxLength, () -> searchGeneration.get() != generation);
+				if (matches != null) {
+					UIUtil.invokeLater(() -> {
+						if (searchGeneration.get() == generation) {
+							setMatches(matches);
+						}
+					});
+				}
+			});
+			return;
+		}
 		DefaultListModel<String> matches = new DefaultListModel<String>();
 		Set<String> seen = new HashSet<String>();
-		String text = searchTextField.getText();
 		boolean withPrefix = !text.startsWith(" ");
 		boolean withSuffix = !text.endsWith(" ");
 		String searchText = text.trim().toUpperCase(Locale.ENGLISH);
-		DefaultComboBoxModel<String> model = (DefaultComboBoxModel) combobox.getModel();
 		int size = model.getSize();
 		for (int i = 0; i < size; ++i) {
 			String item = model.getElementAt(i);
 			if (!item.isEmpty()) {
 				if (!filter
 						|| searchText.isEmpty() 
-						|| withPrefix && withSuffix && item.toUpperCase(Locale.ENGLISH).contains(searchText)
-						|| !withPrefix && withSuffix && item.toUpperCase(Locale.ENGLISH).startsWith(searchText)
-						|| withPrefix && !withSuffix && item.toUpperCase(Locale.ENGLISH).endsWith(searchText)
-						|| !withPrefix && !withSuffix && item.toUpperCase(Locale.ENGLISH).equals(searchText)
+						|| matches(item.toUpperCase(Locale.ENGLISH), searchText, withPrefix, withSuffix)
 						) {
 					if (!searchText.isEmpty() && !allowDuplicates) {
 						if (seen.contains(item)) {
@@ -455,18 +531,134 @@ public class StringSearchPanel extends javax.swing.JPanel {
 					matches.addElement(item);
 					seen.add(item);
 					if (matches.getSize() > maxListLength) {
-						showAllLabel = "more...";
-						matches.addElement(showAllLabel);
+						matches.addElement(MORE_LABEL);
 						break;
 					}
 				}
 			}
 		}
+		setMatches(matches);
+	}
+
+	private static final String MORE_LABEL = "more...";
+
+	private void setMatches(DefaultListModel<String> matches) {
+		pendingSearch = null;
+		if (!matches.isEmpty() && matches.lastElement() == MORE_LABEL) {
+			showAllLabel = MORE_LABEL;
+		}
 		searchList.setModel(matches);
 		if (!acceptAll && !matches.isEmpty()) {
 			searchList.setSelectedIndex(0);
 		}
-		isFiltered = filter;
+	}
+
+	/**
+	 * Shows the result of the background search immediately (if it is still pending).
+	 */
+	private void completePendingUpdate() {
+		Supplier<DefaultListModel<String>> search = pendingSearch;
+		if (search != null) {
+			searchGeneration.incrementAndGet();
+			setMatches(search.get());
+		}
+	}
+
+	private static boolean matches(String upperCaseItem, String searchText, boolean withPrefix, boolean withSuffix) {
+		return withPrefix && withSuffix && upperCaseItem.contains(searchText)
+			|| !withPrefix && withSuffix && upperCaseItem.startsWith(searchText)
+			|| withPrefix && !withSuffix && upperCaseItem.endsWith(searchText)
+			|| !withPrefix && !withSuffix && upperCaseItem.equals(searchText);
+	}
+
+	/**
+	 * Filters items.
+	 *
+	 * @param items the items
+	 * @param index index of the items, or <code>null</code> if it's not yet built (all items are compared)
+	 * @return the matching items, or <code>null</code> if the search became stale
+	 */
+	private static DefaultListModel<String> filter(List<String> items, StringSearchIndex index, String text, boolean allowDuplicates, int maxLength, BooleanSupplier isStale) {
+		DefaultListModel<String> matches = new DefaultListModel<String>();
+		Set<String> seen = new HashSet<String>();
+		boolean withPrefix = !text.startsWith(" ");
+		boolean withSuffix = !text.endsWith(" ");
+		String searchText = text.trim().toUpperCase(Locale.ENGLISH);
+		int[] candidates = index == null? null : index.candidates(searchText);
+		int size = candidates == null? items.size() : candidates.length;
+		for (int c = 0; c < size; ++c) {
+			if (c % 1024 == 0 && isStale.getAsBoolean()) {
+				return null;
+			}
+			int i = candidates == null? c : candidates[c];
+			String item = items.get(i);
+			if (!item.isEmpty() && matches(index == null? item.toUpperCase(Locale.ENGLISH) : index.getUpperCase(i), searchText, withPrefix, withSuffix)) {
+				if (!allowDuplicates) {
+					if (seen.contains(item)) {
+						matches.removeElement(item);
+					}
+				}
+				matches.addElement(item);
+				seen.add(item);
+				if (matches.getSize() > maxLength) {
+					matches.addElement(MORE_LABEL);
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Gets the items of the model. They are copied only if the model has changed since the last call;
+	 * then the index is looked up or built in the background.
+	 */
+	private List<String> getIndexedItems(ListModel<String> model) {
+		if (indexedModel != model || indexedItems == null) {
+			if (indexedModel != null) {
+				indexedModel.removeListDataListener(indexInvalidator);
+			}
+			indexedModel = model;
+			model.addListDataListener(indexInvalidator);
+			int size = model.getSize();
+			List<String> items = new ArrayList<String>(size);
+			for (int i = 0; i < size; ++i) {
+				items.add(model.getElementAt(i));
+			}
+			indexedItems = Collections.unmodifiableList(items);
+			searchIndex = null;
+			Object owner = metaDataSource != null? metaDataSource : dataModel;
+			List<String> finalItems = indexedItems;
+			searchExecutor.execute(() -> {
+				StringSearchIndex index = owner == null? null : searchIndexes.get(owner);
+				if (index == null || !index.isIndexOf(finalItems)) {
+					index = new StringSearchIndex(finalItems);
+					if (owner != null) {
+						searchIndexes.put(owner, index);
+					}
+				}
+				StringSearchIndex finalIndex = index;
+				UIUtil.invokeLater(() -> {
+					if (indexedItems == finalItems) {
+						searchIndex = finalIndex;
+					}
+				});
+			});
+		}
+		return indexedItems;
+	}
+
+	private void invalidateSearchIndex() {
+		indexedItems = null;
+		searchIndex = null;
+	}
+
+	private void releaseSearchIndex() {
+		if (indexedModel != null) {
+			indexedModel.removeListDataListener(indexInvalidator);
+			indexedModel = null;
+		}
+		invalidateSearchIndex();
 	}
 
 	private final MetaDataSource metaDataSource;
@@ -553,6 +745,7 @@ public class StringSearchPanel extends javax.swing.JPanel {
 					searchList.grabFocus();
 					searchList.setSelectedIndex(0);
 				} else if (e.getKeyChar() == '\n') {
+					completePendingUpdate();
 					result = searchList.getSelectedValue();
 			    	plainIsValid = e.getSource() == searchTextField;
 					close(true);
@@ -595,6 +788,7 @@ public class StringSearchPanel extends javax.swing.JPanel {
 			protected void update() {
 				updateList();
 				infoLabel.setVisible(searchTextField.getText().isEmpty());
+				onSearchTextChanged(searchTextField.getText());
 			}
 		});
 		
@@ -1205,6 +1399,7 @@ public class StringSearchPanel extends javax.swing.JPanel {
     }// </editor-fold>//GEN-END:initComponents
 
     private void okButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_okButtonActionPerformed
+    	completePendingUpdate();
     	result = searchList.getSelectedValue();
     	plainIsValid = true;
 		close(true);
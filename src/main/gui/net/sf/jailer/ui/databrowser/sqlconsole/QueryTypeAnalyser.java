@@ -166,6 +166,16 @@ public class QueryTypeAnalyser {
 	private static class QueryTooComplexException extends RuntimeException {
 	}
 
+	/**
+	 * Prepares a query for parsing (see {@link JSqlParserUtil#prefetch(String, int, List)}).
+	 *
+	 * @param sqlSelect the query
+	 * @return the text to be parsed
+	 */
+	public static String prepareForParsing(String sqlSelect) {
+		return SqlUtil.removeNonMeaningfulFragments(sqlSelect);
+	}
+
 	/**
 	 * Parses a SQL query and tries to find out the type.
 	 *
@@ -177,7 +187,7 @@ public class QueryTypeAnalyser {
 		String simplifiedSQL;
 		try {
 			try {
-				simplifiedSQL = SqlUtil.removeNonMeaningfulFragments(sqlSelect);
+				simplifiedSQL = prepareForParsing(sqlSelect);
 				st = JSqlParserUtil.parse(simplifiedSQL, 2);
 			} catch (Exception e) {
 				return null;
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.ui.databrowser.sqlconsole;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import net.sf.jailer.bulkload.BulkLoadDialect;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.util.CancellationHandler;
+import net.sf.jailer.util.CellContentConverter;
+import net.sf.jailer.util.Quoting;
+
+/**
+ * Writes the complete result of a query into the spool file (see {@link SQLPlusSupport#getSpoolFile()}).
+ * The rows are read from the cursor of the query, so the result is never held in memory as a whole.<br>
+ * <br>
+ * Files with extension ".sql" get insert statements, all other files get CSV (RFC 4180, with header).<br>
+ * The rows are also spilled into a {@link SpilledRowBuffer} so that the complete result can be viewed.
+ *
+ * @author Ralf Wisser
+ */
+class ResultSpooler {
+
+	private final Writer out;
+	private final boolean asSQL;
+	private final int columnCount;
+	private final CellContentConverter cellContentConverter;
+	private final String insertHead;
+	private final SpilledRowBuffer rowBuffer;
+	private long numRows = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file the spool file (the result is appended)
+	 * @param metaData meta data of the result
+	 * @param tableName table to insert into (SQL only)
+	 * @param session the session
+	 * @param rowBuffer buffer for the complete result, or <code>null</code>
+	 */
+	ResultSpooler(File file, ResultSetMetaData metaData, String tableName, Session session, SpilledRowBuffer rowBuffer) throws SQLException, IOException {
+		this.rowBuffer = rowBuffer;
+		this.asSQL = file.getName().toLowerCase(Locale.ENGLISH).endsWith(".sql");
+		this.columnCount = metaData.getColumnCount();
+		this.cellContentConverter = new CellContentConverter(metaData, session, session.dbms);
+		this.out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), Charset.forName("UTF-8")), 1 << 16);
+		StringBuilder head = new StringBuilder();
+		Quoting quoting = Quoting.getQuoting(session);
+		for (int i = 1; i <= columnCount; ++i) {
+			if (i > 1) {
+				head.append(asSQL? ", " : BulkLoadDialect.CSV.fieldSeparator);
+			}
+			if (asSQL) {
+				head.append(quoting.requote(metaData.getColumnLabel(i)));
+			} else {
+				BulkLoadDialect.CSV.appendField(head, metaData.getColumnLabel(i));
+			}
+		}
+		if (asSQL) {
+			insertHead = "Insert into " + tableName + "(" + head + ") values (";
+		} else {
+			insertHead = null;
+			out.write(head + BulkLoadDialect.CSV.recordTerminator);
+		}
+	}
+
+	/**
+	 * Writes the current row of the cursor.
+	 *
+	 * @param resultSet the cursor
+	 */
+	void writeRow(ResultSet resultSet) throws SQLException {
+		StringBuilder record = new StringBuilder();
+		String[] cells = rowBuffer == null? null : new String[columnCount];
+		if (asSQL) {
+			record.append(insertHead);
+		}
+		for (int i = 1; i <= columnCount; ++i) {
+			if (i > 1) {
+				record.append(asSQL? ", " : BulkLoadDialect.CSV.fieldSeparator);
+			}
+			Object content = cellContentConverter.getObject(resultSet, i);
+			String text = asSQL && cells == null? null : toText(content);
+			if (asSQL) {
+				record.append(cellContentConverter.toSql(content));
+			} else {
+				BulkLoadDialect.CSV.appendField(record, text);
+			}
+			if (cells != null) {
+				cells[i - 1] = text;
+			}
+		}
+		record.append(asSQL? ");\n" : BulkLoadDialect.CSV.recordTerminator);
+		try {
+			out.write(record.toString());
+			if (rowBuffer != null) {
+				rowBuffer.append(cells);
+			}
+		} catch (IOException e) {
+			throw new SQLException("can't write spool file: " + e.getMessage(), e);
+		}
+		++numRows;
+	}
+
+	/**
+	 * Writes all remaining rows of the cursor.
+	 *
+	 * @param resultSet the cursor
+	 * @param cancellationContext the cancellation context
+	 */
+	void writeRemainingRows(ResultSet resultSet, Object cancellationContext) throws SQLException {
+		while (resultSet.next()) {
+			writeRow(resultSet);
+			if (numRows % 1000 == 0) {
+				CancellationHandler.checkForCancellation(cancellationContext);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of written rows.
+	 */
+	long getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * Closes the file. The row buffer becomes readable.
+	 */
+	void close() throws IOException {
+		out.close();
+		if (rowBuffer != null) {
+			rowBuffer.finish();
+		}
+	}
+
+	private static String toText(Object content) throws SQLException {
+		if (content == null) {
+			return null;
+		}
+		if (content instanceof Blob) {
+			Blob blob = (Blob) content;
+			content = blob.getBytes(1, (int) blob.length());
+		}
+		if (content instanceof byte[]) {
+			StringBuilder hex = new StringBuilder();
+			for (byte b: (byte[]) content) {
+				hex.append(String.format(Locale.ENGLISH, "%02X", b & 0xFF));
+			}
+			return hex.toString();
+		}
+		if (content instanceof Clob) {
+			Clob clob = (Clob) content;
+			int length = (int) clob.length();
+			return length > 0? clob.getSubString(1, length) : "";
+		}
+		return content.toString();
+	}
+
+}
@@ -55,6 +55,8 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -68,7 +70,10 @@ import java.util.WeakHashMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -170,6 +175,7 @@ import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.CellContentConverter;
 import net.sf.jailer.util.CsvFile;
+import net.sf.jailer.util.JSqlParserUtil;
 import net.sf.jailer.util.Pair;
 import net.sf.jailer.util.Quoting;
 import net.sf.jailer.util.SqlUtil;
@@ -189,6 +195,12 @@ public abstract class SQLConsole extends javax.swing.JPanel {
 
     private static final int MAX_TAB_COUNT = 8;
     private static final int MAX_HISTORY_SIZE = 100;
+    private static final int MAX_CONCURRENT_QUERIES = 4;
+
+    /**
+     * The preparations the analyzers apply to a statement before parsing it.
+     */
+    private static final List<Function<String, String>> PARSE_PREPARATIONS = Arrays.asList(QueryTypeAnalyser::prepareForParsing, WCTypeAnalyser::prepareForParsing);
 
     private Session session;
     MetaDataSource metaDataSource;
@@ -199,6 +211,26 @@ public abstract class SQLConsole extends javax.swing.JPanel {
     private final ExecutionContext executionContext;
     private final List<String> history = new ArrayList<String>();
     private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * Executes queries that are independent of the console's transaction while other statements are running.
+     * Each worker thread has its own connection.
+     */
+    private final ThreadPoolExecutor queryExecutor = new ThreadPoolExecutor(MAX_CONCURRENT_QUERIES, MAX_CONCURRENT_QUERIES, 0, TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>(), runnable -> {
+    	Thread thread = new Thread(runnable, "SQLConsole-Query-" + (threadNum++));
+    	thread.setDaemon(true);
+    	return thread;
+    });
+
+    /**
+     * Cancellation contexts of the running concurrent executions.
+     */
+    private final Set<Object> concurrentExecutions = Collections.synchronizedSet(new HashSet<Object>());
+
+    /**
+     * Has the connection of the console's thread uncommitted changes?
+     */
+    private volatile boolean primaryConnectionInTransaction = false;
     private final AtomicBoolean updatingStatus = new AtomicBoolean(false);
     private final ImageIcon scaledCancelIcon;
     private final ImageIcon scaledExplainIcon;
@@ -282,7 +314,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
             }
             @Override
             public void updateMenuItemState() {
-                updateMenuItemState(!running.get(), !running.get());
+                updateMenuItemState(!running.get() || isCurrentStatementIndependent(), !running.get());
             }
             @Override
             protected void selectTable(MDTable mdTable) {
@@ -688,7 +720,8 @@ public abstract class SQLConsole extends javax.swing.JPanel {
      * @param tabContentPanel the panel to show result (option)
      */
     protected void executeSQLBlock(final String sqlBlock, final Pair<Integer, Integer> location, final boolean emptyLineSeparatesStatements, final Pair<Integer, Integer> locFragmentOffset, final boolean explain, final TabContentPanel tabContentPanel) {
-        if (!running.get()) {
+        final boolean concurrent = running.get() && !explain && isIndependent(sqlBlock);
+        if (!running.get() || concurrent) {
             int lineStartOffset = -1;
             try {
                 if (location != null) {
@@ -700,11 +733,18 @@ public abstract class SQLConsole extends javax.swing.JPanel {
             disableLastErrorTab();
             final Pair<Integer, Integer> caretDotMark = new Pair<Integer, Integer>(editorPane.getCaret().getDot(), editorPane.getCaret().getMark());
             final int finalLineStartOffset = lineStartOffset;
-            queue.add(new Runnable() {
+            Runnable action = new Runnable() {
                 @Override
                 public void run() {
-                    running.set(true);
-                    updatingStatus.set(false);
+                	final Object cancellationContext;
+                	if (concurrent) {
+                		cancellationContext = new Object();
+                		concurrentExecutions.add(cancellationContext);
+                	} else {
+                		cancellationContext = SQLConsole.this;
+	                    running.set(true);
+	                    updatingStatus.set(false);
+                	}
                     UIUtil.invokeLater(new Runnable() {
                         @Override
                         public void run() {
@@ -744,7 +784,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                                 }
                                 status.linesExecuting += countLines(pureSql);
                                 if (sql.trim().length() > 0) {
-                                    executeSQL(pureSql, status, lineStartOffset, explain, tabContentPanel, caretDotMark);
+                                    executeSQL(pureSql, status, lineStartOffset, explain, tabContentPanel, caretDotMark, cancellationContext);
                                     if (status.failed) {
                                         if (locFragmentOffset != null) {
                                             if (status.errorPositionIsKnown) {
@@ -785,7 +825,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                             String sql = sbToString;
                             if (sql.trim().length() > 0) {
                                 status.linesExecuting += countLines(sql);
-                                executeSQL(sql, status, lineStartOffset, explain, tabContentPanel, caretDotMark);
+                                executeSQL(sql, status, lineStartOffset, explain, tabContentPanel, caretDotMark, cancellationContext);
                                 if (!status.failed) {
                                     status.linesExecuted = status.linesExecuting;
                                 }
@@ -798,12 +838,21 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                         }
                     } finally {
                         status.setRunning(false);
-                        running.set(false);
+                        if (concurrent) {
+                        	concurrentExecutions.remove(cancellationContext);
+                        	CancellationHandler.reset(cancellationContext);
+                        } else {
+                        	running.set(false);
+                        }
                         status.updateView(true);
                         UIUtil.invokeLater(new Runnable() {
                             @Override
                             public void run() {
-                                editorPane.updateMenuItemState(true, false);
+                            	if (running.get()) {
+                            		editorPane.updateMenuItemState();
+                            	} else {
+                            		editorPane.updateMenuItemState(true, false);
+                            	}
                             }
                         });
                     }
@@ -818,10 +867,48 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                     }
                     return lines;
                 }
-            });
+            };
+            if (concurrent) {
+            	queryExecutor.execute(action);
+            } else {
+            	queue.add(action);
+            }
         }
     }
 
+    private static final Pattern INDEPENDENT_QUERY_PATTERN = Pattern.compile("(?is)[\\s(]*(select|with|values)\\b.*");
+    private static final Pattern TRANSACTIONAL_QUERY_PATTERN = Pattern.compile("(?is).*\\b(into|for\\s+update|for\\s+share|lock)\\b.*");
+    private static final Pattern DATA_MODIFYING_WITH_PATTERN = Pattern.compile("(?is)[\\s(]*with\\b.*\\b(insert|update|delete|merge)\\b.*");
+
+    /**
+     * Checks whether a block of statements can be executed concurrently to the running statements.
+     * That's the case if it consists of plain queries only and the console's connection has no uncommitted changes.
+     * A WITH statement containing INSERT, UPDATE, DELETE or MERGE (a data-modifying common table expression) is not a plain query.
+     *
+     * @param sqlBlock the block
+     * @return <code>true</code> if the block can be executed on a separate connection
+     */
+    private boolean isIndependent(String sqlBlock) {
+    	if (primaryConnectionInTransaction || !session.hasConnectionPerThread() || sqlPlusSupport.getSpoolFile() != null) {
+    		return false;
+    	}
+    	boolean hasQuery = false;
+    	for (String sql: sqlPlusSupport.removeComments(sqlBlock).split("(;\\s*(\\n\\r?|$))|(\\n\\r?([ \\t\\r]*\\n\\r?)+)")) {
+    		if (!sql.trim().isEmpty()) {
+	    		if (!INDEPENDENT_QUERY_PATTERN.matcher(sql).matches() || TRANSACTIONAL_QUERY_PATTERN.matcher(sql).matches() || DATA_MODIFYING_WITH_PATTERN.matcher(sql).matches()) {
+	    			return false;
+	    		}
+	    		hasQuery = true;
+    		}
+    	}
+    	return hasQuery;
+    }
+
+    private boolean isCurrentStatementIndependent() {
+    	Pair<Integer, Integer> loc = editorPane.getCurrentStatementLocation(null);
+    	return loc != null && isIndependent(editorPane.getText(loc.a, loc.b, true));
+    }
+
     /**
      * Executes a single SQL statment.
      *
@@ -830,10 +917,13 @@ public abstract class SQLConsole extends javax.swing.JPanel {
      * @param statementStartOffset
      * @param explain
      * @param origTabContentPanel the panel to show result (option)
+     * @param cancellationContext the cancellation context, the console itself for statements executed on the console's connection
      */
-    private void executeSQL(final String sql, final Status status, int statementStartOffset, final boolean explain, final TabContentPanel origTabContentPanel, final Pair<Integer, Integer> caretDotMark) {
+    private void executeSQL(final String sql, final Status status, int statementStartOffset, final boolean explain, final TabContentPanel origTabContentPanel, final Pair<Integer, Integer> caretDotMark, final Object cancellationContext) {
         Statement statement = null;
         ResultSet resultSet = null;
+        ResultSpooler spooler = null;
+        SpilledRowBuffer rowBuffer = null;
         final Status localStatus = new Status();
         String sqlStatement = null;
         String stmtId = null;
@@ -852,14 +942,14 @@ public abstract class SQLConsole extends javax.swing.JPanel {
             localStatus.numStatements++;
             UISettings.s3++;
             status.updateView(false);
-            statement = connection.createStatement();
+            statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
 			if (session.dbms != null) {
 				if (session.dbms.getFetchSize() != null) {
 					statement.setFetchSize(session.dbms.getFetchSize());
 				}
 			}
-			CancellationHandler.reset(SQLConsole.this);
-            CancellationHandler.begin(statement, SQLConsole.this);
+			CancellationHandler.reset(cancellationContext);
+            CancellationHandler.begin(statement, cancellationContext);
             long startTime = System.currentTimeMillis();
             sqlStatement =
             		sql
@@ -1074,7 +1164,17 @@ public abstract class SQLConsole extends javax.swing.JPanel {
 	                }
 	            }
                 final List<Table> resultTypes = nfResultTypes;
-                final MemorizedResultSet metaDataDetails = new MemorizedResultSet(resultSet, limit, session, SQLConsole.this) {
+                File spoolFile = sqlPlusSupport.getSpoolFile();
+                final String[] rowBufferColumnNames = new String[columnCount];
+                if (spoolFile != null && !explain && sqlPlusResultSet == null) {
+                	for (int i = 0; i < columnCount; ++i) {
+                		rowBufferColumnNames[i] = metaData.getColumnLabel(i + 1);
+                	}
+                	rowBuffer = new SpilledRowBuffer(Configuration.getInstance().createTempFile(), columnCount);
+                	spooler = new ResultSpooler(spoolFile, metaData, resultType != null? resultType.getName() : "RESULT", session, rowBuffer);
+                }
+                final ResultSpooler finalSpooler = spooler;
+                final MemorizedResultSet metaDataDetails = new MemorizedResultSet(resultSet, limit, session, cancellationContext) {
             		@Override
                 	protected Object convertCellContent(ContentSupplier supplier) throws SQLException {
             			Object object = supplier.get();
@@ -1110,6 +1210,9 @@ public abstract class SQLConsole extends javax.swing.JPanel {
 
             		@Override
             		protected void readRowHook(ResultSet resultSet) throws SQLException {
+            			if (finalSpooler != null) {
+            				finalSpooler.writeRow(resultSet);
+            			}
                         try {
                         	sqlPlusSupport.substituteColumns(resultSet);
                         } catch (SQLException e) {
@@ -1117,6 +1220,15 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                         }
             		}
                 };
+                if (spooler != null) {
+                	spooler.writeRemainingRows(resultSet, cancellationContext);
+                	spooler.close();
+                	status.numRowsSpooled += spooler.getNumRows();
+                	localStatus.numRowsSpooled += spooler.getNumRows();
+                	spooler = null;
+                }
+                final SpilledRowBuffer finalRowBuffer = rowBuffer;
+                rowBuffer = null;
                 resultSet.close();
                 long now = System.currentTimeMillis();
                 status.hasSelected = true;
@@ -1205,6 +1317,9 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                         				caretDotMark,
                         				rb.rowColumnTypes);
                         tabContentPanel.contentPanel.add(rTabContainer);
+                        if (finalRowBuffer != null) {
+                        	tabContentPanel.addCompleteResultTab(new SpilledResultTableModel(finalRowBuffer, rowBufferColumnNames));
+                        }
 
                         rb.setCurrentRowsTable(new Reference<JTable>() {
                         	public JTable get() {
@@ -1337,7 +1452,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                         tabContentPanel.cancelLoadButton.addActionListener(new ActionListener() {
 							@Override
 							public void actionPerformed(ActionEvent e) {
-								CancellationHandler.cancel(SQLConsole.this);
+								CancellationHandler.cancel(cancellationContext);
 								tabContentPanel.loadingPanel.setVisible(false);
 								tabContentPanel.repaint();
 								loadButton.setEnabled(true);
@@ -1534,7 +1649,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
 					}
 				});
             }
-            CancellationHandler.end(statement, SQLConsole.this);
+            CancellationHandler.end(statement, cancellationContext);
             statement.close();
             if (!explain) {
             	appendHistory(sql);
@@ -1544,7 +1659,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
         		session.markConnectionAsPotentiallyInvalid(connection);
         	}
         	try {
-                CancellationHandler.checkForCancellation(SQLConsole.this);
+                CancellationHandler.checkForCancellation(cancellationContext);
             } catch (CancellationException e) {
                 error = e;
             }
@@ -1583,8 +1698,10 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                 status.error = error;
             }
             if (error instanceof CancellationException) {
-                CancellationHandler.reset(SQLConsole.this);
-                queue.clear();
+                CancellationHandler.reset(cancellationContext);
+                if (cancellationContext == SQLConsole.this) {
+                	queue.clear();
+                }
             }
             status.updateView(false);
             final Throwable finalError = error;
@@ -1604,6 +1721,16 @@ public abstract class SQLConsole extends javax.swing.JPanel {
 				}
 			});
         } finally {
+        	if (spooler != null) {
+        		try {
+        			spooler.close();
+        		} catch (IOException e) {
+        			logger.info("error", e);
+        		}
+        	}
+        	if (rowBuffer != null) {
+        		rowBuffer.close();
+        	}
             if (explain && session.dbms.getExplainCleanup() != null && !session.dbms.getExplainCleanup().isEmpty()) {
             	if (session.dbms.getExplainPrepare() != null) {
                     try {
@@ -1622,13 +1749,20 @@ public abstract class SQLConsole extends javax.swing.JPanel {
 					// ignore
 				}
             }
+            if (connection != null && cancellationContext == SQLConsole.this) {
+            	try {
+            		primaryConnectionInTransaction = !connection.getAutoCommit();
+            	} catch (SQLException e) {
+            		primaryConnectionInTransaction = true;
+            	}
+            }
         }
     }
 
 	private boolean executeStatementWithLimit(Statement statement, String sqlStatement, Session session) throws SQLException {
 		try {
 			int limit = 1 + (Integer) limitComboBox.getSelectedItem();
-			if (limit > 0) {
+			if (limit > 0 && sqlPlusSupport.getSpoolFile() == null) {
 				statement.setMaxRows(limit + 1);
 			}
 		} catch (Exception e) {
@@ -1659,6 +1793,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
         List<OutlineInfo> outlineInfos = new ArrayList<OutlineInfo>();
         TreeMap<Integer,Integer> offsets = new TreeMap<Integer,Integer>();
         sql = sqlPlusSupport.replaceVariables(sql, offsets);
+        JSqlParserUtil.prefetch(sql, 2, PARSE_PREPARATIONS);
 		provider.findAliases(SQLCompletionProvider.removeCommentsAndLiterals(sql), null, outlineInfos);
         adjustLevels(outlineInfos);
         List<OutlineInfo> relocatedOutlineInfos = new ArrayList<OutlineInfo>();
@@ -1845,6 +1980,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
         boolean running;
         boolean limitExceeded;
         int numRowsRead;
+        long numRowsSpooled;
         int numRowsUpdated;
         int numStatements;
         boolean hasSelected = false;
@@ -2003,6 +2139,9 @@ public abstract class SQLConsole extends javax.swing.JPanel {
                     text += " (limit exceeded)";
                 }
                 text += ". ";
+                if (numRowsSpooled > 0) {
+                	text += numRowsSpooled + " rows spooled. ";
+                }
             }
             if (hasUpdated) {
                 text += numRowsUpdated + " rows updated. ";
@@ -2272,7 +2411,7 @@ public abstract class SQLConsole extends javax.swing.JPanel {
     private void cancelButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelButtonActionPerformed
         statusLabel.setText("Canceling...");
         statusLabel.setForeground(Color.RED);
-    	CancellationHandler.cancel(this);
+    	cancelAll();
     	cancelButton.setEnabled(false);
     }//GEN-LAST:event_cancelButtonActionPerformed
 
@@ -3569,11 +3708,24 @@ public abstract class SQLConsole extends javax.swing.JPanel {
 		return dirty;
 	}
 
+	/**
+	 * Cancels the statements executed on the console's connection and all concurrently executed queries.
+	 */
+	private void cancelAll() {
+		CancellationHandler.cancel(this);
+		synchronized (concurrentExecutions) {
+			for (Object cancellationContext: concurrentExecutions) {
+				CancellationHandler.cancel(cancellationContext);
+			}
+		}
+	}
+
 	/**
 	 * Closes this console.
 	 */
 	public void close() {
-    	CancellationHandler.cancel(this);
+    	cancelAll();
+    	queryExecutor.shutdown();
     	queue.add(STOP);
     	editorPane.setText("");
     	editorPane.discardAllEdits();
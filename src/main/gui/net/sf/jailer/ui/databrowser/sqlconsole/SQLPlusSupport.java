@@ -15,6 +15,9 @@
  */
 package net.sf.jailer.ui.databrowser.sqlconsole;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -35,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.jailer.modelbuilder.MemorizedResultSet;
+import net.sf.jailer.ui.Environment;
 
 /**
  * Supports some Oracle SQL+ statements.
@@ -56,11 +60,17 @@ public class SQLPlusSupport {
 	/**
 	 * Column substitutions.
 	 */
-	private Map<String, String[]> columnSubstitutions = new TreeMap<String, String[]>();
+	private Map<String, String[]> columnSubstitutions = Collections.synchronizedMap(new TreeMap<String, String[]>());
+
+	/**
+	 * File into which the complete results of queries are written, or <code>null</code>.
+	 */
+	private File spoolFile;
 	
 	private final Pattern DEFINE_PATTERN = Pattern.compile("\\s*DEFINE\\s+(\\w+)\\s*=\\s*(.*)\\s*", Pattern.CASE_INSENSITIVE);
 	private final Pattern UNDEFINE_PATTERN = Pattern.compile("\\s*UNDEFINE\\s+((?:\\w+\\s*)+)", Pattern.CASE_INSENSITIVE);
 	private final Pattern COLUMN_PATTERN = Pattern.compile("\\s*COLUMN\\s+(\\w+)\\s*((?:(?:new_value|old_value)\\s+\\w+\\s*)+)", Pattern.CASE_INSENSITIVE);
+	private final Pattern SPOOL_PATTERN = Pattern.compile("\\s*SPOOL\\s+(\"[^\"]+\"|\\S+)\\s*", Pattern.CASE_INSENSITIVE);
 	private final Pattern COMMENTS_PATTERN = Pattern.compile("(/\\*.*?\\*/)|(\\-\\-.*?(\n|$))", Pattern.DOTALL);
 	
 	/**
@@ -96,9 +106,39 @@ public class SQLPlusSupport {
 			columnSubstitutions.put(column.toUpperCase(Locale.ENGLISH), variables);
 			return true;
 		}
+		matcher = SPOOL_PATTERN.matcher(statement);
+		if (matcher.matches()) {
+			String fileName = matcher.group(1);
+			if (fileName.length() > 1 && fileName.startsWith("\"") && fileName.endsWith("\"")) {
+				fileName = fileName.substring(1, fileName.length() - 1);
+			}
+			if ("OFF".equalsIgnoreCase(fileName)) {
+				spoolFile = null;
+				logger.info("SPOOL OFF");
+			} else {
+				File file = Environment.newFile(fileName);
+				try {
+					new FileOutputStream(file).close();
+				} catch (IOException e) {
+					throw new RuntimeException("can't create spool file \"" + file + "\": " + e.getMessage(), e);
+				}
+				spoolFile = file;
+				logger.info("SPOOL " + file);
+			}
+			return true;
+		}
 		return false;
 	}
 
+	/**
+	 * Gets the file into which the complete results of queries are written (see statement "SPOOL &lt;file&gt;").
+	 *
+	 * @return the spool file or <code>null</code> if spooling is off
+	 */
+	public File getSpoolFile() {
+		return spoolFile;
+	}
+
 	/**
 	 * Executes a SQLPlus query.
 	 * 
@@ -159,11 +199,15 @@ public class SQLPlusSupport {
 		}
 	}
 
-	private Map<Integer, String[]> varsPerIndex = new HashMap<Integer, String[]>();
+	/**
+	 * Column substitutions of the current result. Queries may run concurrently, so each thread has its own.
+	 */
+	private ThreadLocal<Map<Integer, String[]>> varsPerIndexPerThread = ThreadLocal.withInitial(() -> new HashMap<Integer, String[]>());
 
 	public void prepareColumnSubstitution(ResultSetMetaData metaData) throws SQLException {
+		Map<Integer, String[]> varsPerIndex = varsPerIndexPerThread.get();
 		varsPerIndex.clear();
-		if (!columnSubstitutions.isEmpty()) {
+		synchronized (columnSubstitutions) {
 			for (Entry<String, String[]> e: columnSubstitutions.entrySet()) {
 				for (int i = 1; i <= metaData.getColumnCount(); ++i) {
 					if (e.getKey().equalsIgnoreCase(metaData.getColumnLabel(i))) {
@@ -175,6 +219,7 @@ public class SQLPlusSupport {
 	}
 
 	public void substituteColumns(ResultSet resultSet) throws SQLException {
+		Map<Integer, String[]> varsPerIndex = varsPerIndexPerThread.get();
 		if (!varsPerIndex.isEmpty()) {
 			for (Entry<Integer, String[]> e: varsPerIndex.entrySet()) {
 				String value = resultSet.getString(e.getKey());
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.ui.databrowser.sqlconsole;
+
+import java.io.IOException;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Table model for the complete result of a query, backed by a {@link SpilledRowBuffer}.
+ * The rows are read page by page from the buffer's file as the table is scrolled.
+ *
+ * @author Ralf Wisser
+ */
+class SpilledResultTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = -4023127716427360935L;
+
+	private final transient SpilledRowBuffer buffer;
+	private final String[] columnNames;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param buffer the (finished) row buffer
+	 * @param columnNames the column names
+	 */
+	SpilledResultTableModel(SpilledRowBuffer buffer, String[] columnNames) {
+		this.buffer = buffer;
+		this.columnNames = columnNames;
+	}
+
+	@Override
+	public int getRowCount() {
+		return buffer.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+		return buffer.getColumnCount();
+	}
+
+	@Override
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	@Override
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		try {
+			String value = buffer.getRow(rowIndex)[columnIndex];
+			return value == null? "null" : value;
+		} catch (IOException e) {
+			logger.info("error", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Releases the buffer.
+	 */
+	void close() {
+		buffer.close();
+	}
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(SpilledResultTableModel.class);
+
+}
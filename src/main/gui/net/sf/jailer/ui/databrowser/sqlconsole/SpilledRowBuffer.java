@@ -0,0 +1,207 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.ui.databrowser.sqlconsole;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row buffer that spills the rows of a query result into a temporary file.
+ * Only an index of the pages and the most recently read pages are held in memory.<br>
+ * <br>
+ * Rows are appended while the result is read from the cursor. After {@link #finish()} the rows can be read page by page.
+ *
+ * @author Ralf Wisser
+ */
+class SpilledRowBuffer {
+
+	/**
+	 * Number of rows per page.
+	 */
+	static final int PAGE_SIZE = 500;
+
+	/**
+	 * Maximum number of pages held in memory.
+	 */
+	private static final int MAX_CACHED_PAGES = 8;
+
+	/**
+	 * Maximum length of a cell's text.
+	 */
+	private static final int MAX_CELL_LENGTH = 4000;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File file;
+	private final int columnCount;
+	private DataOutputStream out;
+	private RandomAccessFile in;
+	private long position = 0;
+	private int size = 0;
+
+	/**
+	 * File positions of the pages.
+	 */
+	private final List<Long> pageOffsets = new ArrayList<Long>();
+
+	/**
+	 * The most recently read pages.
+	 */
+	private final Map<Integer, String[][]> cachedPages = new LinkedHashMap<Integer, String[][]>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, String[][]> eldest) {
+			return size() > MAX_CACHED_PAGES;
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file the temporary file
+	 * @param columnCount number of columns
+	 */
+	SpilledRowBuffer(File file, int columnCount) throws IOException {
+		this.file = file;
+		this.columnCount = columnCount;
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+	}
+
+	/**
+	 * Appends a row.
+	 *
+	 * @param row the cells' texts (<code>null</code> for SQL NULL)
+	 */
+	void append(String[] row) throws IOException {
+		if (size % PAGE_SIZE == 0) {
+			pageOffsets.add(position);
+		}
+		for (int i = 0; i < columnCount; ++i) {
+			String cell = row[i];
+			if (cell == null) {
+				out.writeInt(-1);
+				position += 4;
+			} else {
+				if (cell.length() > MAX_CELL_LENGTH) {
+					cell = cell.substring(0, MAX_CELL_LENGTH) + "...";
+				}
+				byte[] bytes = cell.getBytes(UTF8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+				position += 4 + bytes.length;
+			}
+		}
+		++size;
+	}
+
+	/**
+	 * Finishes appending rows. The buffer is readable afterwards.
+	 */
+	void finish() throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+			in = new RandomAccessFile(file, "r");
+		}
+	}
+
+	/**
+	 * Gets the number of rows.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of columns.
+	 */
+	int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * Gets a row. The page containing the row is read from the file if it's not in memory.
+	 *
+	 * @param index the row index
+	 * @return the cells' texts
+	 */
+	String[] getRow(int index) throws IOException {
+		int pageIndex = index / PAGE_SIZE;
+		String[][] page = cachedPages.get(pageIndex);
+		if (page == null) {
+			page = readPage(pageIndex);
+			cachedPages.put(pageIndex, page);
+		}
+		return page[index % PAGE_SIZE];
+	}
+
+	private String[][] readPage(int pageIndex) throws IOException {
+		if (in == null) {
+			throw new IOException("row buffer is not finished");
+		}
+		long start = pageOffsets.get(pageIndex);
+		long end = pageIndex + 1 < pageOffsets.size()? pageOffsets.get(pageIndex + 1) : position;
+		byte[] bytes = new byte[(int) (end - start)];
+		in.seek(start);
+		in.readFully(bytes);
+		DataInputStream pageIn = new DataInputStream(new ByteArrayInputStream(bytes));
+		String[][] page = new String[Math.min(PAGE_SIZE, size - pageIndex * PAGE_SIZE)][];
+		for (int r = 0; r < page.length; ++r) {
+			String[] row = new String[columnCount];
+			for (int i = 0; i < columnCount; ++i) {
+				int length = pageIn.readInt();
+				if (length >= 0) {
+					byte[] cell = new byte[length];
+					pageIn.readFully(cell);
+					row[i] = new String(cell, UTF8);
+				}
+			}
+			page[r] = row;
+		}
+		return page;
+	}
+
+	/**
+	 * Closes the buffer and deletes the file.
+	 */
+	void close() {
+		try {
+			if (out != null) {
+				out.close();
+				out = null;
+			}
+			if (in != null) {
+				in.close();
+				in = null;
+			}
+		} catch (IOException e) {
+			// ignore
+		}
+		cachedPages.clear();
+		file.delete();
+	}
+
+}
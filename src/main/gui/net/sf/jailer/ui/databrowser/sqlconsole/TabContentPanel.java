@@ -768,16 +768,34 @@ public class TabContentPanel extends javax.swing.JPanel {
     private void cancelLoadButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelLoadButtonActionPerformed
     }//GEN-LAST:event_cancelLoadButtonActionPerformed
 
+    /**
+     * Adds a tab showing the complete result of the query.
+     *
+     * @param model the disk-backed model of the complete result
+     */
+    void addCompleteResultTab(SpilledResultTableModel model) {
+    	completeResultModel = model;
+    	JTable table = new JTable(model);
+    	table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+    	table.setFillsViewportHeight(true);
+    	tabbedPane.insertTab("All Rows", null, new JScrollPane(table), model.getRowCount() + " rows, read from the spooled result while scrolling", 1);
+    }
+
     public void destroy() {
     	if (theRowsTable != null) {
     		theRowsTable.setModel(new DefaultTableModel());
     	}
+    	if (completeResultModel != null) {
+    		completeResultModel.close();
+    		completeResultModel = null;
+    	}
     	
     	textArea.discardAllEdits();
     	textArea.setDocument(new RSyntaxDocument(null, SyntaxConstants.SYNTAX_STYLE_NONE)); // prevent memory leak
     }
     
     private final RSyntaxTextAreaWithSQLSyntaxStyle textArea;
+    private SpilledResultTableModel completeResultModel;
     final Pair<Integer, Integer> caretDotMark;
     private final List<Integer> rowColumnTypes;
 
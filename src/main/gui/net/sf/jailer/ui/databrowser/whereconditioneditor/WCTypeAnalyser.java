@@ -298,6 +298,17 @@ public class WCTypeAnalyser {
 		}
 	}
 	
+	/**
+	 * Prepares a query for parsing (see {@link JSqlParserUtil#prefetch(String, int, List)}).
+	 * Comments are replaced by blanks, so that token positions remain valid.
+	 *
+	 * @param sqlSelect the query
+	 * @return the text to be parsed
+	 */
+	public static String prepareForParsing(String sqlSelect) {
+		return SqlUtil.removeComments(sqlSelect);
+	}
+
 	/**
 	 * Parses a SQL query and tries to find out the type.
 	 *
@@ -309,7 +320,7 @@ public class WCTypeAnalyser {
 		result.originalQuery = sqlSelect;
 		net.sf.jsqlparser.statement.Statement st;
 		try {
-			StringBuilder woComments = new StringBuilder(SqlUtil.removeComments(sqlSelect));
+			StringBuilder woComments = new StringBuilder(prepareForParsing(sqlSelect));
 			String woCommentsAndLiterals = SqlUtil.removeCommentsAndLiterals(sqlSelect);
 			String topLevelSql = SqlUtil.removeSubQueries(sqlSelect);
 			StringBuilder cte = new StringBuilder();
@@ -37,9 +37,12 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -130,6 +133,11 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 	private final int MAX_NUM_DISTINCTEXISTINGVALUES = 100_000;
 	private final int MAX_SIZE_DISTINCTEXISTINGVALUES = 500_000;
 	private final int SIZE_DISTINCTEXISTINGVALUESCACHE = 40;
+	private final long DISTINCTEXISTINGVALUES_TTL = 10 * (1000 * 60 * 60); /* 10 h */
+	private final long MAX_ROWS_FULL_SCAN = 5_000_000;
+	private final long SAMPLE_SIZE = 1_000_000;
+	private final int PREFIX_LOOKUP_DELAY = 300;
+	private final int SIZE_VALUECACHE = 2000;
 	private final int MAX_HISTORY_SIZE = 8;
 	
 	private final DataModel dataModel;
@@ -621,6 +629,7 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 			valuePositions.clear();
 			fullPositions.clear();
 			Set<Comparison> seen = new HashSet<Comparison>();
+			List<ParsedComparison> parsedComparisons = new ArrayList<ParsedComparison>();
 			String latestParsedConditionUC = latestParsedCondition.toUpperCase(Locale.ENGLISH);
 			for (int columnIndex = 0; columnIndex < table.getColumns().size(); ++columnIndex) {
 				for (boolean noAlias: new boolean[] { false, true }) {
@@ -687,32 +696,36 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 								fullPositions.put(column, new Pair<Integer, Integer>(start, pos.b));
 							}
 							if (sqlValue != null) {
-								if (value == null) {
-									value = toValue(sqlValue, columnIndex);
-								}
-								if (value != null) {
-									involvedColumns.add(columnIndex);
-									String theValue = value;
-									Optional<Comparison> comp = comparisons.stream().filter(c -> c.column.equals(column))
-											.findAny();
-									Comparison c = comp.orElseGet(() -> null);
-									if (c != null) {
-										c.operator = operator;
-										c.value = theValue;
-										seen.add(c);
-									} else {
-										c = new Comparison(operator, column);
-										c.value = theValue;
-										comparisons.add(c);
-										seen.add(c);
-									}
-								}
+								parsedComparisons.add(new ParsedComparison(columnIndex, column, operator, sqlValue, value));
 							}
 						}
 					break;
 					}
 				}
 			}
+			List<ParsedComparison> literals = parsedComparisons.stream().filter(pc -> pc.value == null).collect(Collectors.toList());
+			List<String> values = toValues(literals.stream().map(pc -> new Pair<String, Integer>(pc.sqlValue, pc.columnIndex)).collect(Collectors.toList()));
+			for (int i = 0; i < literals.size(); ++i) {
+				literals.get(i).value = values.get(i);
+			}
+			for (ParsedComparison pc: parsedComparisons) {
+				if (pc.value != null) {
+					involvedColumns.add(pc.columnIndex);
+					Optional<Comparison> comp = comparisons.stream().filter(c -> c.column.equals(pc.column))
+							.findAny();
+					Comparison c = comp.orElseGet(() -> null);
+					if (c != null) {
+						c.operator = pc.operator;
+						c.value = pc.value;
+						seen.add(c);
+					} else {
+						c = new Comparison(pc.operator, pc.column);
+						c.value = pc.value;
+						comparisons.add(c);
+						seen.add(c);
+					}
+				}
+			}
 			comparisons.forEach(c -> {
 				if (!seen.contains(c)) {
 					c.value = "";
@@ -765,48 +778,157 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 		return Pattern.quote(Quoting.staticUnquote(name));
 	}
     
-	private String toValue(String sqlValue, int columnIndex) {
-		final String CACHE = "toValueCache";
-		@SuppressWarnings("unchecked")
-		Map<String, Map<Integer, String>> cache = (Map<String, Map<Integer, String>>) session.getSessionProperty(getClass(), CACHE);
-		if (cache == null) {
-			cache = new HashMap<String, Map<Integer,String>>();
-			session.setSessionProperty(getClass(), CACHE, cache);
+	/**
+	 * A comparison found in the condition.
+	 */
+	private static class ParsedComparison {
+		final int columnIndex;
+		final Column column;
+		final Operator operator;
+		final String sqlValue;
+		String value;
+
+		ParsedComparison(int columnIndex, Column column, Operator operator, String sqlValue, String value) {
+			this.columnIndex = columnIndex;
+			this.column = column;
+			this.operator = operator;
+			this.sqlValue = sqlValue;
+			this.value = value;
 		}
+	}
+
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("[\\+\\-]?\\s*(?:\\d+(?:\\.\\d*)?|\\.\\d+)");
+	private static final Pattern STRING_LITERAL = Pattern.compile("'((?:[^'\\\\]|'')*)'");
+
+	/**
+	 * Converts SQL literals to the texts shown in the value fields.<br>
+	 * Plain numbers and strings are converted locally. All other literals of a column type are
+	 * evaluated with a single query (an inline view with one row per literal).
+	 *
+	 * @param literals pairs of literal and column index
+	 * @return the texts (<code>null</code> if a literal can't be converted), in the order of the literals
+	 */
+	private List<String> toValues(List<Pair<String, Integer>> literals) {
+		List<String> result = new ArrayList<String>();
 		if (cellEditor == null || cellEditor.getColumnTypes().length == 0) {
-			return null;
+			literals.forEach(l -> result.add(null));
+			return result;
 		}
-		Map<Integer, String> perType = cache.get(sqlValue);
-		if (perType == null) {
-			perType = new HashMap<Integer, String>();
-			cache.put(sqlValue, perType);
+		final String CACHE = "toValueCache";
+		Map<Pair<String, Integer>, String> cache;
+		synchronized (this) {
+			@SuppressWarnings("unchecked")
+			Map<Pair<String, Integer>, String> sessionCache = (Map<Pair<String, Integer>, String>) session.getSessionProperty(getClass(), CACHE);
+			cache = sessionCache;
+			if (cache == null) {
+				cache = new LRUCache<Pair<String, Integer>, String>(SIZE_VALUECACHE);
+				session.setSessionProperty(getClass(), CACHE, cache);
+			}
 		}
-		String value = perType.get(cellEditor.getColumnTypes()[columnIndex]);
-		if (value == null) {
-			try {
-				// TODO 1st try to cast to type read from resultSetMetadata
-				StringBuilder result = new StringBuilder();
-				String[] columnNames = new String[] { "v" };
-				String sql = "Select vt.v from " +
-						inlineViewStyle.head(columnNames) +
-						inlineViewStyle.item(new String[] { sqlValue }, columnNames, 0) +
-						inlineViewStyle.terminator("vt", columnNames);
-				session.executeQuery(sql, new AbstractResultSetReader() {
-					@Override
-					public void readCurrentRow(ResultSet resultSet) throws SQLException {
-						result.append(cellEditor.cellContentToText(columnIndex, getCellContentConverter(resultSet, session, session.dbms).getObject(resultSet, 1)));
+		Map<Integer, Map<String, Integer>> columnIndexPerLiteralPerType = new LinkedHashMap<Integer, Map<String, Integer>>();
+		for (Pair<String, Integer> literal: literals) {
+			int type = cellEditor.getColumnTypes()[literal.b];
+			Pair<String, Integer> key = new Pair<String, Integer>(literal.a, type);
+			synchronized (cache) {
+				if (cache.containsKey(key)) {
+					continue;
+				}
+			}
+			String value = toValueLocally(literal.a, literal.b);
+			if (value != null) {
+				synchronized (cache) {
+					cache.put(key, value);
+				}
+			} else {
+				columnIndexPerLiteralPerType.computeIfAbsent(type, t -> new LinkedHashMap<String, Integer>()).put(literal.a, literal.b);
+			}
+		}
+		try {
+			for (Map.Entry<Integer, Map<String, Integer>> e: columnIndexPerLiteralPerType.entrySet()) {
+				Map<String, String> values = queryValues(e.getValue());
+				if (values == null) {
+					// a literal can't be evaluated (or the literals have incompatible types)
+					values = new HashMap<String, String>();
+					for (Map.Entry<String, Integer> literal: e.getValue().entrySet()) {
+						Map<String, String> value = queryValues(Collections.singletonMap(literal.getKey(), literal.getValue()));
+						values.put(literal.getKey(), value == null? null : value.get(literal.getKey()));
 					}
-				});
-				value = result.toString();
-			} catch (Throwable t) {
-				if (!(t instanceof CancellationException)) {
-					LogUtil.warn(t);
 				}
-				value = null;
+				synchronized (cache) {
+					for (String literal: e.getValue().keySet()) {
+						cache.put(new Pair<String, Integer>(literal, e.getKey()), values.get(literal));
+					}
+				}
+			}
+		} catch (CancellationException e) {
+			// values of the remaining literals are unknown
+		}
+		synchronized (cache) {
+			for (Pair<String, Integer> literal: literals) {
+				// not cached if evaluation has been cancelled
+				result.add(cache.get(new Pair<String, Integer>(literal.a, cellEditor.getColumnTypes()[literal.b])));
 			}
-			perType.put(cellEditor.getColumnTypes()[columnIndex], value);
 		}
-		return value;
+		return result;
+	}
+
+	/**
+	 * Converts plain numbers and string literals without evaluating them in the database.
+	 *
+	 * @return the text or <code>null</code> if the literal must be evaluated by the database
+	 */
+	private String toValueLocally(String sqlValue, int columnIndex) {
+		try {
+			if (NUMBER_LITERAL.matcher(sqlValue).matches()) {
+				return cellEditor.cellContentToText(columnIndex, new BigDecimal(sqlValue.replaceAll("\\s+|\\+", "")));
+			}
+			Matcher matcher = STRING_LITERAL.matcher(sqlValue);
+			if (matcher.matches()) {
+				return cellEditor.cellContentToText(columnIndex, matcher.group(1).replace("''", "'"));
+			}
+		} catch (NumberFormatException e) {
+			// evaluate in the database
+		}
+		return null;
+	}
+
+	/**
+	 * Evaluates literals of the same type with one query.
+	 *
+	 * @param columnIndexPerLiteral the literals and the index of a column of the type
+	 * @return the texts per literal, or <code>null</code> if the query failed
+	 */
+	private Map<String, String> queryValues(Map<String, Integer> columnIndexPerLiteral) {
+		try {
+			List<String> literals = new ArrayList<String>(columnIndexPerLiteral.keySet());
+			String[] columnNames = new String[] { "i", "v" };
+			StringBuilder sql = new StringBuilder("Select vt.i, vt.v from ");
+			sql.append(inlineViewStyle.head(columnNames));
+			for (int i = 0; i < literals.size(); ++i) {
+				if (i > 0) {
+					sql.append(inlineViewStyle.separator());
+				}
+				sql.append(inlineViewStyle.item(new String[] { String.valueOf(i), literals.get(i) }, columnNames, i));
+			}
+			sql.append(inlineViewStyle.terminator("vt", columnNames));
+			Map<String, String> result = new HashMap<String, String>();
+			session.executeQuery(sql.toString(), new AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					String literal = literals.get(resultSet.getInt(1));
+					result.put(literal, cellEditor.cellContentToText(columnIndexPerLiteral.get(literal), getCellContentConverter(resultSet, session, session.dbms).getObject(resultSet, 2)));
+				}
+			});
+			return result;
+		} catch (Throwable t) {
+			if (t instanceof CancellationException) {
+				throw (CancellationException) t;
+			}
+			if (columnIndexPerLiteral.size() == 1) {
+				LogUtil.warn(t);
+			}
+			return null;
+		}
 	}
 
 	private String latestParsedCondition = null;
@@ -1674,9 +1796,15 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 		List<StringSearchPanel> theSearchPanel = new ArrayList<StringSearchPanel>();
 		String origText = valueTextField.getText();
 		Object cancellationContext = getNextCancellationContext();
+		AtomicBoolean closed = new AtomicBoolean(false);
+		Timer prefixLookupTimer = new Timer(PREFIX_LOOKUP_DELAY, null);
+		prefixLookupTimer.setRepeats(false);
+		String[] searchText = new String[1];
 		StringSearchPanel searchPanel = new StringSearchPanel(null, combobox, null, null, null, new Runnable() {
 			@Override
 			public void run() {
+				closed.set(true);
+				prefixLookupTimer.stop();
 				setValueFieldText(valueTextField, theSearchPanel.get(0).getPlainValue());
 				if (theSearchPanel.get(0).isExplictlyClosed()) {
 					accept(comparison, theSearchPanel.get(0).getPlainValue(), comparison.operator);
@@ -1695,7 +1823,14 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 				opacityListenerEnabled = false;
 			}
 			@Override
+			protected void onSearchTextChanged(String text) {
+				searchText[0] = text;
+				prefixLookupTimer.restart();
+			}
+			@Override
 			protected void onClose(String text) {
+				closed.set(true);
+				prefixLookupTimer.stop();
 				setValueFieldText(valueTextField, text);
 		    	cancel(cancellationContext);
 				setOpacity(1f);
@@ -1703,6 +1838,8 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 			}
 			@Override
 			protected void onAbort() {
+				closed.set(true);
+				prefixLookupTimer.stop();
 				setValueFieldText(valueTextField, origText);
 		    	cancel(cancellationContext);
 				setOpacity(1f);
@@ -1822,9 +1959,14 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 			initialModel.add(defaultComboBoxModel.getElementAt(i));
 		}
 		Pattern nullPattern = Pattern.compile("\\s*is\\s+(not\\s+)?null\\s*", Pattern.CASE_INSENSITIVE);
-				
-		runnableQueue.add(new Runnable() {
+		String[] prefix = new String[] { nullPattern.matcher(valueTextField.getText()).matches()? "" : valueTextField.getText().trim() };
+		boolean[] lookedUpByPrefix = new boolean[1];
+		int[] lookupCount = new int[1];
+
+		Runnable loader = new Runnable() {
 			public void run() {
+				String thePrefix = prefix[0];
+				lookedUpByPrefix[0] = isLookedUpByPrefix(comparison, cancellationContext);
 				boolean[] fromCache = new boolean[1];
 				boolean[] fromCacheFull = new boolean[1];
 				boolean[] incomplete = new boolean[1];
@@ -1835,7 +1977,7 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 				if (!condition.isEmpty()) {
 					try {
 						distinctExisting = loadDistinctExistingValues(comparison, cancellationContext, incomplete, withNull, fromCache,
-								condition);
+								condition, thePrefix);
 					} catch (CancellationException e) {
 						return;
 					} catch (Throwable e) {
@@ -1882,7 +2024,7 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 				LinkedHashMap<String, Integer> distinctExistingFull = null;
 				List<String> distinctExistingFullModel = new ArrayList<String>();
 				try {
-					distinctExistingFull = loadDistinctExistingValues(comparison, cancellationContext, incompleteFull, withNullFull, fromCacheFull, "");
+					distinctExistingFull = loadDistinctExistingValues(comparison, cancellationContext, incompleteFull, withNullFull, fromCacheFull, "", thePrefix);
 					// dedup
 //					if (distinctExisting != null) {
 //						Map<String, String> fullSet = new HashMap<String, String>();
@@ -1964,6 +2106,9 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 							searchPanel.resetHeight();
 							searchPanel.updateList(false, true);
 						};
+						for (ActionListener l: fullSearchCheckbox.getActionListeners()) {
+							fullSearchCheckbox.removeActionListener(l);
+						}
 						fullSearchCheckbox.addActionListener(action);
 						action.actionPerformed(null);
 						UIUtil.invokeLater(2, () -> UIUtil.stopDW());
@@ -1981,6 +2126,26 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 				}
 				searchPanel.setStringCount(finalDistinctExisting);
 			}
+		};
+		runnableQueue.add(loader);
+
+		// on large tables the values are looked up by prefix, so they are reloaded when the user types another prefix
+		prefixLookupTimer.addActionListener(e -> {
+			String text = searchText[0];
+			String newPrefix = text == null || nullPattern.matcher(text).matches()? "" : text.trim();
+			if (closed.get() || !lookedUpByPrefix[0] || newPrefix.equals(prefix[0])) {
+				return;
+			}
+			prefix[0] = newPrefix;
+			int count = ++lookupCount[0];
+			CancellationHandler.cancelSilently(cancellationContext);
+			searchPanel.setStatus("loading existing values...", null);
+			runnableQueue.add(() -> {
+				if (!closed.get() && count == lookupCount[0]) {
+					CancellationHandler.reset(cancellationContext);
+					loader.run();
+				}
+			});
 		});
     }
     
@@ -2006,31 +2171,58 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
     private final String DISTINCTEXISTINGVALUESCACHEKEY = "DistinctExistingValuesCache";
     private final String DISTINCTEXISTINGVALUESICCACHEKEY = "DistinctExistingValuesICCache";
     private final String DISTINCTEXISTINGVALUESWNCACHEKEY = "DistinctExistingValuesWNCache";
-    private final String DISTINCTEXISTINGVALUESTSKEY = "DistinctExistingValuesTS";
+    private final String DISTINCTEXISTINGVALUESTSCACHEKEY = "DistinctExistingValuesTSCache";
+    private final String ESTIMATEDROWCOUNTSKEY = "EstimatedRowCounts";
 
 	protected synchronized void clearCache() {
 		session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESCACHEKEY, null);
 		session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESICCACHEKEY, null);
 		session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESWNCACHEKEY, null);
-		session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESTSKEY, null);
+		session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESTSCACHEKEY, null);
+		session.setSessionProperty(getClass(), ESTIMATEDROWCOUNTSKEY, null);
 	}
 
+	/**
+	 * Loads the distinct values of a column.<br>
+	 * If the table is too large to be scanned completely, only the values starting with the given prefix
+	 * (character columns) or the values of a random sample of the rows are loaded. The result is then incomplete.
+	 */
 	@SuppressWarnings("unchecked")
-	private LinkedHashMap<String, Integer> loadDistinctExistingValues(Comparison comparison, Object cancellationContext, boolean incomplete[], boolean[] withNull, boolean[] fromCache, String condition) throws SQLException {
+	private LinkedHashMap<String, Integer> loadDistinctExistingValues(Comparison comparison, Object cancellationContext, boolean incomplete[], boolean[] withNull, boolean[] fromCache, String condition, String prefix) throws SQLException {
 		final int MAX_TEXT_LENGTH = 1024 * 4;
 		LinkedHashMap<String, Integer> result;
 		Map<Pair<String, String>, Boolean> icCache;
 		Map<Pair<String, String>, Boolean> wnCache;
+		Map<Pair<String, String>, Long> tsCache;
 		Map<Pair<String, String>, LinkedHashMap<String, Integer>> cache;
 		String tabName = table.getName();
-		Pair<String, String> key = new Pair<String, String>(tabName + "+" + condition, comparison.column.name);
+		String prefixCondition = null;
+		Double samplePercentage = null;
+		if (condition.isEmpty() && extJoins.isEmpty() && !inSQLConsole() && getCTE().trim().isEmpty()) {
+			Long rowCount = estimatedRowCount(cancellationContext);
+			if (rowCount != null && rowCount > MAX_ROWS_FULL_SCAN) {
+				prefixCondition = prefixCondition(comparison, prefix);
+				if (prefixCondition == null && session.dbms.getTableSampleClause() != null) {
+					samplePercentage = Math.max(0.0001, 100.0 * SAMPLE_SIZE / rowCount);
+				}
+			}
+		}
+		Pair<String, String> key = new Pair<String, String>(tabName + "+" + condition
+				+ (prefixCondition != null? "+" + prefixCondition : samplePercentage != null? "+sample" : ""), comparison.column.name);
 		synchronized (this) {
-			Long ts = (Long) session.getSessionProperty(getClass(), DISTINCTEXISTINGVALUESTSKEY);
 			cache = (Map<Pair<String, String>, LinkedHashMap<String, Integer>>) session.getSessionProperty(getClass(), DISTINCTEXISTINGVALUESCACHEKEY);
-			if (cache == null || ts == null || ts < Session.lastUpdateTS || ts < System.currentTimeMillis() - 10 * (1000 * 60 * 60) /* 10 h */) {
+			if (cache == null) {
 				cache = new LRUCache<Pair<String,String>, LinkedHashMap<String, Integer>>(SIZE_DISTINCTEXISTINGVALUESCACHE);
 				session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESCACHEKEY, cache);
-				session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESTSKEY, System.currentTimeMillis());
+			}
+			tsCache = (Map<Pair<String, String>, Long>) session.getSessionProperty(getClass(), DISTINCTEXISTINGVALUESTSCACHEKEY);
+			if (tsCache == null) {
+				tsCache = new LRUCache<Pair<String,String>, Long>(SIZE_DISTINCTEXISTINGVALUESCACHE);
+				session.setSessionProperty(getClass(), DISTINCTEXISTINGVALUESTSCACHEKEY, tsCache);
+			}
+			Long ts = tsCache.get(key);
+			if (ts == null || ts < Session.lastUpdateTS || ts < System.currentTimeMillis() - DISTINCTEXISTINGVALUES_TTL) {
+				cache.remove(key);
 			}
 			icCache = (Map<Pair<String, String>, Boolean>) session.getSessionProperty(getClass(), DISTINCTEXISTINGVALUESICCACHEKEY);
 			if (icCache == null) {
@@ -2068,17 +2260,20 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 					}
 					boolean needsSort = false;
 					if (extJoins.isEmpty()) {
-						loadValues(comparison, cancellationContext, incomplete, withNull, condition, MAX_TEXT_LENGTH, result, tabName,
-							columnIndex, "", true);
+						if (prefixCondition != null || samplePercentage != null) {
+							incomplete[0] = true;
+						}
+						loadValues(comparison, cancellationContext, incomplete, withNull, prefixCondition != null? prefixCondition : condition, MAX_TEXT_LENGTH, result, tabName,
+							columnIndex, "", true, samplePercentage);
 					} else {
 						try {
 							if (extJoins.size() == 1) {
 								loadValues(comparison, cancellationContext, incomplete, withNull, condition, MAX_TEXT_LENGTH,
-										result, tabName, columnIndex, " " + extJoins.get(0), true);
+										result, tabName, columnIndex, " " + extJoins.get(0), true, null);
 							} else {
 								for (String ej : extJoins) {
 									loadValues(comparison, cancellationContext, incomplete, withNull, condition, MAX_TEXT_LENGTH,
-											result, tabName, columnIndex, " " + ej, false);
+											result, tabName, columnIndex, " " + ej, false, null);
 									if (result.size() > MAX_NUM_DISTINCTEXISTINGVALUES) {
 										break;
 									}
@@ -2091,7 +2286,7 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 							withNull[0] = false;
 							result.clear();
 							loadValues(comparison, cancellationContext, incomplete, withNull, condition, MAX_TEXT_LENGTH, result,
-									tabName, columnIndex, "", true);
+									tabName, columnIndex, "", true, null);
 						}
 						if (needsSort == true || cellEditor.useCaseIntensitiveOrderingInGUI(columnIndex)) {
 							sortValues(result, columnIndex);
@@ -2110,11 +2305,99 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 				cache.put(key, result);
 				icCache.put(key, incomplete[0]);
 				wnCache.put(key, withNull[0]);
+				if (time >= 0) {
+					tsCache.put(key, System.currentTimeMillis());
+				}
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Gets the estimated number of rows of the table (from the DBMS statistics).
+	 *
+	 * @return the estimated number of rows or <code>null</code> if no estimation is available
+	 */
+	@SuppressWarnings("unchecked")
+	private Long estimatedRowCount(Object cancellationContext) {
+		String query = session.dbms.getEstimatedRowCountQuery();
+		if (query == null) {
+			return null;
+		}
+		String schema = Quoting.staticUnquote(table.getSchema(session.getSchema()));
+		Map<String, Map<String, Long>> estimatedRowCountsPerSchema;
+		synchronized (this) {
+			estimatedRowCountsPerSchema = (Map<String, Map<String, Long>>) session.getSessionProperty(getClass(), ESTIMATEDROWCOUNTSKEY);
+			if (estimatedRowCountsPerSchema == null) {
+				estimatedRowCountsPerSchema = Collections.synchronizedMap(new HashMap<String, Map<String, Long>>());
+				session.setSessionProperty(getClass(), ESTIMATEDROWCOUNTSKEY, estimatedRowCountsPerSchema);
+			}
+		}
+		Map<String, Long> estimatedRowCounts = estimatedRowCountsPerSchema.get(schema);
+		if (estimatedRowCounts == null) {
+			Map<String, Long> counts = new HashMap<String, Long>();
+			try {
+				session.executeQuery(String.format(Locale.ENGLISH, query, schema), new AbstractResultSetReader() {
+					@Override
+					public void readCurrentRow(ResultSet resultSet) throws SQLException {
+						String tableName = resultSet.getString(1);
+						long rowCount = resultSet.getLong(2);
+						if (tableName != null && !resultSet.wasNull()) {
+							counts.put(tableName, rowCount);
+						}
+					}
+				}, null, cancellationContext, 0);
+			} catch (SQLException e) {
+				// no statistics
+			}
+			estimatedRowCounts = counts;
+			estimatedRowCountsPerSchema.put(schema, estimatedRowCounts);
+		}
+		return estimatedRowCounts.get(Quoting.staticUnquote(table.getUnqualifiedName()));
+	}
+
+	/**
+	 * Checks whether the distinct values of a column are looked up by prefix, because the table is too large to be scanned completely.
+	 */
+	private boolean isLookedUpByPrefix(Comparison comparison, Object cancellationContext) {
+		if (!extJoins.isEmpty() || inSQLConsole() || !getCTE().trim().isEmpty()) {
+			return false;
+		}
+		Long rowCount = estimatedRowCount(cancellationContext);
+		return rowCount != null && rowCount > MAX_ROWS_FULL_SCAN && prefixCondition(comparison, "?") != null;
+	}
+
+	/**
+	 * Creates a condition that restricts a character column to the values starting with a prefix.
+	 * Such a condition can be evaluated with an index range scan.
+	 *
+	 * @return the condition or <code>null</code> if the column is not a character column or the prefix is empty
+	 */
+	private String prefixCondition(Comparison comparison, String prefix) {
+		if (prefix.isEmpty() || cellEditor == null || cellEditor.getColumnTypes().length == 0) {
+			return null;
+		}
+		int columnIndex = table.getColumns().indexOf(comparison.column);
+		if (columnIndex < 0 || columnIndex >= cellEditor.getColumnTypes().length) {
+			return null;
+		}
+		switch (cellEditor.getColumnTypes()[columnIndex]) {
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.NCHAR:
+		case Types.NVARCHAR:
+			break;
+		default:
+			return null;
+		}
+		String pattern = prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+		String columnName = comparison.column.name;
+		if (tableAlias != null) {
+			columnName = tableAlias + "." + columnName;
+		}
+		return columnName + " like " + new CellContentConverter(null, session, session.dbms).toSql(pattern) + " escape '!'";
+	}
+
 	@SuppressWarnings("unchecked")
 	private void sortValues(LinkedHashMap<String, Integer> resultMap, int columnIndex) {
 		List<String> result = new ArrayList<String>(resultMap.keySet());
@@ -2142,9 +2425,15 @@ public abstract class WhereConditionEditorPanel extends javax.swing.JPanel {
 
 	private void loadValues(Comparison comparison, Object cancellationContext, boolean[] incomplete, boolean[] withNull, String condition,
 			final int MAX_TEXT_LENGTH, LinkedHashMap<String, Integer> result, String tabName, int columnIndex,
-			String extJoin, boolean orderBy) throws SQLException {
+			String extJoin, boolean orderBy, Double samplePercentage) throws SQLException {
 		String columnName = comparison.column.name;
-		if (tableAlias != null) {
+		if (samplePercentage != null) {
+			tabName = String.format(Locale.ENGLISH, session.dbms.getTableSampleClause(), tabName, tableAlias != null? tableAlias : "",
+					String.format(Locale.ENGLISH, "%.4f", samplePercentage)).trim();
+			if (tableAlias != null) {
+				columnName = tableAlias + "." + columnName;
+			}
+		} else if (tableAlias != null) {
 			columnName = tableAlias + "." + columnName;
 			tabName += " " + tableAlias;
 		}
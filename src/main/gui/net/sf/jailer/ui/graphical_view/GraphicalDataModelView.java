@@ -183,6 +183,12 @@ public class GraphicalDataModelView extends JPanel {
 	private boolean showTableDetails;
 
 	private NBodyForce force;
+
+	/**
+	 * Maximum number of items for which the n-body force is computed with the default accuracy.
+	 */
+	private static final int MAX_ITEMS_ACCURATE_LAYOUT = 300;
+
 	private volatile boolean layoutHasBeenSet = false;
 	private final ExecutionContext executionContext;
 
@@ -528,11 +534,13 @@ public class GraphicalDataModelView extends JPanel {
 				float speedLimit = sim.getSpeedLimit();
 				float vx, vy, v, coeff;
 				float[][] k, l;
+				int numItems = 0;
 
 				@SuppressWarnings("rawtypes")
 				Iterator iter = sim.getItems();
 				while ( iter.hasNext() ) {
 					ForceItem item = (ForceItem)iter.next();
+					++numItems;
 					coeff = timestep / item.mass;
 					k = item.k;
 					l = item.l;
@@ -548,6 +556,11 @@ public class GraphicalDataModelView extends JPanel {
 					item.location[1] += 0.5f*k[0][1];
 				}
 
+				if (force != null) {
+					// coarser Barnes-Hut approximation of the n-body force for large graphs
+					force.setParameter(NBodyForce.BARNES_HUT_THETA, numItems > MAX_ITEMS_ACCURATE_LAYOUT? NBodyForce.DEFAULT_MAX_THETA : NBodyForce.DEFAULT_THETA);
+				}
+
 				// recalculate forces
 				sim.accumulate();
 
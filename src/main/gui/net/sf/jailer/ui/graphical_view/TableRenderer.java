@@ -100,6 +100,13 @@ public abstract class TableRenderer extends AbstractShapeRenderer {
 	private int NOT_IN_CLOSURE_COLOR = ColorLib.rgb(170, 50, 50);
 	private int IN_CLOSURE_COLOR = ColorLib.rgb(0, 0, 0);
 	
+	/**
+	 * Below this scale only the table names are rendered (no columns),
+	 * below {@link #MIN_SCALE_FOR_TEXT} only the boxes.
+	 */
+	private static final double MIN_SCALE_FOR_DETAILS = 0.45;
+	private static final double MIN_SCALE_FOR_TEXT = 0.2;
+	
 	// ------------------------------------------------------------------------
 	
 	/**
@@ -473,6 +480,19 @@ public abstract class TableRenderer extends AbstractShapeRenderer {
 
 		// now render the image and text
 		String text = m_text;
+		if (!graphicalDataModelView.inImageExport) {
+			// level of detail: skip what would be unreadable anyway
+			double scale = Math.max(g.getTransform().getScaleX(), g.getTransform().getScaleY());
+			if (scale < MIN_SCALE_FOR_TEXT) {
+				return;
+			}
+			if (scale < MIN_SCALE_FOR_DETAILS && text != null) {
+				int end = text.indexOf(m_delim);
+				if (end >= 0) {
+					text = text.substring(0, end);
+				}
+			}
+		}
 		Image[] img  = getImage(item);
 		
 		if ( text == null && img == null )
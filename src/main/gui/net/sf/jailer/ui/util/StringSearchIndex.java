@@ -0,0 +1,165 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.ui.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trigram index over a list of strings.<br>
+ * Speeds up the case-insensitive substring search in large lists: only the items
+ * containing all trigrams of the search text have to be compared.
+ *
+ * @author Ralf Wisser
+ */
+public class StringSearchIndex {
+
+	private final String[] items;
+	private final String[] upperCaseItems;
+	private final Map<Long, int[]> postings = new HashMap<Long, int[]>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param items the items to be indexed
+	 */
+	public StringSearchIndex(List<String> items) {
+		this.items = items.toArray(new String[0]);
+		this.upperCaseItems = new String[this.items.length];
+		Map<Long, Posting> postingsBuilder = new HashMap<Long, Posting>();
+		for (int i = 0; i < this.items.length; ++i) {
+			String upperCaseItem = this.items[i].toUpperCase(Locale.ENGLISH);
+			upperCaseItems[i] = upperCaseItem;
+			for (int k = 0; k + 3 <= upperCaseItem.length(); ++k) {
+				postingsBuilder.computeIfAbsent(trigram(upperCaseItem, k), t -> new Posting()).add(i);
+			}
+		}
+		postingsBuilder.forEach((t, p) -> postings.put(t, Arrays.copyOf(p.ids, p.size)));
+	}
+
+	/**
+	 * Is this an index over a list of items?
+	 *
+	 * @param items the items
+	 */
+	public boolean isIndexOf(List<String> items) {
+		if (items.size() != this.items.length) {
+			return false;
+		}
+		for (int i = 0; i < this.items.length; ++i) {
+			if (!this.items[i].equals(items.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of items.
+	 */
+	public int size() {
+		return items.length;
+	}
+
+	/**
+	 * Gets an item.
+	 */
+	public String get(int i) {
+		return items[i];
+	}
+
+	/**
+	 * Gets an item in upper case.
+	 */
+	public String getUpperCase(int i) {
+		return upperCaseItems[i];
+	}
+
+	/**
+	 * Gets the indexes of all items that may contain a text.
+	 *
+	 * @param upperCaseText the text (in upper case)
+	 * @return the indexes in ascending order, or <code>null</code> if the text is too short to be looked up (all items are candidates)
+	 */
+	public int[] candidates(String upperCaseText) {
+		if (upperCaseText.length() < 3) {
+			return null;
+		}
+		List<int[]> lists = new ArrayList<int[]>();
+		for (int k = 0; k + 3 <= upperCaseText.length(); ++k) {
+			int[] posting = postings.get(trigram(upperCaseText, k));
+			if (posting == null) {
+				return new int[0];
+			}
+			lists.add(posting);
+		}
+		lists.sort((a, b) -> a.length - b.length);
+		int[] result = lists.get(0);
+		for (int l = 1; l < lists.size() && result.length > 0; ++l) {
+			result = intersect(result, lists.get(l));
+		}
+		return result;
+	}
+
+	private static int[] intersect(int[] a, int[] b) {
+		if (a == b) {
+			return a;
+		}
+		int[] result = new int[Math.min(a.length, b.length)];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				++i;
+			} else if (a[i] > b[j]) {
+				++j;
+			} else {
+				result[size++] = a[i];
+				++i;
+				++j;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private static long trigram(String s, int k) {
+		return ((long) s.charAt(k) << 32) | ((long) s.charAt(k + 1) << 16) | s.charAt(k + 2);
+	}
+
+	/**
+	 * Ascending list of item indexes.
+	 */
+	private static class Posting {
+		int[] ids = new int[4];
+		int size = 0;
+
+		void add(int id) {
+			if (size > 0 && ids[size - 1] == id) {
+				return;
+			}
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+	}
+
+}
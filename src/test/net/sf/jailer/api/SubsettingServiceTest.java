@@ -0,0 +1,161 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.subsetting.ScriptFormat;
+
+/**
+ * Tests {@link SubsettingService}
+ *
+ * @author Ralf Wisser
+ */
+public class SubsettingServiceTest {
+
+	/**
+	 * Subject condition that takes minutes to evaluate (scans a large range of numbers per employee).
+	 */
+	private static final String SLOW_CONDITION = "STARTED(EMPNO) = EMPNO and not exists (Select 1 From SYSTEM_RANGE(1, 100000000) R Where R.X * 0 = EMPNO)";
+
+	private static volatile CountDownLatch slowConditionStarted;
+
+	private File folder;
+	private BasicDataSource dataSource;
+	private SubsettingService service;
+
+	@Before
+	public void setUp() throws Exception {
+		System.setProperty("com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize", "true");
+		folder = Files.createTempDirectory("jailer").toFile();
+		Files.copy(new File("demo-scott-1.4.mv.db").toPath(), new File(folder, "scott.mv.db").toPath());
+		dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:" + new File(folder, "scott").getAbsolutePath(), "sa", "", 4, (File) null);
+		Connection connection = dataSource.getConnection();
+		Statement statement = connection.createStatement();
+		statement.execute("CREATE ALIAS STARTED FOR \"" + SubsettingServiceTest.class.getName() + ".started\"");
+		statement.close();
+		connection.close();
+		slowConditionStarted = new CountDownLatch(1);
+
+		Subsetter template = new Subsetter(dataSource, null, new File("datamodel/Demo-Scott"), new File("extractionmodel/Demo-Scott.jm"), ScriptFormat.SQL);
+		// H2 has no session-local temporary tables, the export falls back to global working tables
+		template.setScope(WorkingTableScope.SESSION_LOCAL);
+		service = new SubsettingService(template, 2);
+	}
+
+	@After
+	public void tearDown() {
+		service.close();
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file: files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	/**
+	 * Signals that the slow condition is being evaluated.
+	 */
+	public static int started(int value) {
+		slowConditionStarted.countDown();
+		return value;
+	}
+
+	@Test
+	public void testExport() throws Exception {
+		SubsettingService.Job job = service.submit("NAME='SCOTT'", new File(folder, "scott.sql"));
+		job.get();
+		assertEquals(SubsettingService.JobState.DONE, job.getState());
+		assertTrue(job.getExportedRows() > 0);
+		assertTrue(new File(folder, "scott.sql").length() > 0);
+	}
+
+	/**
+	 * Cancels a job while one of its statements is running. The statement is cancelled,
+	 * other jobs are not affected.
+	 */
+	@Test
+	public void testCancelRunningJob() throws Exception {
+		SubsettingService.Job slowJob = service.submit(SLOW_CONDITION, new File(folder, "all.sql"));
+		assertTrue(slowConditionStarted.await(60, TimeUnit.SECONDS));
+		SubsettingService.Job otherJob = service.submit("NAME='KING'", new File(folder, "king.sql"));
+		long cancelTime = System.currentTimeMillis();
+		slowJob.cancel();
+		try {
+			slowJob.get();
+			fail("job not cancelled");
+		} catch (CancellationException e) {
+			// expected
+		}
+		assertEquals(SubsettingService.JobState.CANCELLED, slowJob.getState());
+		// the running statement has been cancelled
+		assertTrue(System.currentTimeMillis() - cancelTime < 10000);
+
+		otherJob.get();
+		assertEquals(SubsettingService.JobState.DONE, otherJob.getState());
+		assertTrue(otherJob.getExportedRows() > 0);
+	}
+
+	@Test
+	public void testCancelQueuedJob() throws Exception {
+		SubsettingService.Job slowJob1 = service.submit(SLOW_CONDITION, new File(folder, "all1.sql"));
+		SubsettingService.Job slowJob2 = service.submit(SLOW_CONDITION, new File(folder, "all2.sql"));
+		SubsettingService.Job queuedJob = service.submit("NAME='KING'", new File(folder, "king.sql"));
+		queuedJob.cancel();
+		assertEquals(SubsettingService.JobState.CANCELLED, queuedJob.getState());
+		try {
+			queuedJob.get();
+			fail("job not cancelled");
+		} catch (CancellationException e) {
+			// expected
+		}
+		assertEquals(0, queuedJob.getExecutionTime());
+		slowJob1.cancel();
+		slowJob2.cancel();
+	}
+
+	/**
+	 * The cancellation context is kept when an execution context is copied (e.g. when falling back to global working tables).
+	 */
+	@Test
+	public void testCopyExecutionContext() {
+		ExecutionContext executionContext = new ExecutionContext();
+		Object cancellationContext = new Object();
+		executionContext.setCancellationContext(cancellationContext);
+		assertSame(cancellationContext, new ExecutionContext(executionContext).getCancellationContext());
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.bulkload;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BulkLoadDialect}
+ *
+ * @author Ralf Wisser
+ */
+public class BulkLoadDialectTest {
+
+	private static final String[][] RECORDS = {
+		{ "1", "plain", "" },
+		{ null, "", null },
+		{ "a,b", "say \"hi\"", "\"" },
+		{ "tab\there", "line\nbreak", "cr\r\nlf" },
+		{ "back\\slash", "\\N", "\\t" },
+		{ "|", "|\n", "\u00e4\u00f6\u00fc \u20ac" },
+		{ " leading", "trailing ", "  " },
+		{ "", "", "" },
+		{ null, null, null },
+	};
+
+	@Test
+	public void testRoundTrip() {
+		for (BulkLoadDialect dialect: BulkLoadDialect.values()) {
+			for (String[] fields: RECORDS) {
+				String record = write(dialect, fields);
+				assertArrayEquals(dialect + ": " + record, fields, dialect.parseRecord(record, fields.length));
+			}
+		}
+	}
+
+	@Test
+	public void testRecordRoundTrip() throws Exception {
+		for (BulkLoadDialect dialect: BulkLoadDialect.values()) {
+			StringBuilder file = new StringBuilder();
+			for (String[] fields: RECORDS) {
+				StringBuilder record = new StringBuilder(write(dialect, fields));
+				dialect.terminateRecord(record);
+				file.append(record);
+			}
+			BufferedReader reader = new BufferedReader(new StringReader(file.toString()));
+			for (String[] fields: RECORDS) {
+				String record = dialect.readRecord(reader);
+				assertArrayEquals(dialect + ": " + record, fields, dialect.parseRecord(record, fields.length));
+			}
+			assertNull(dialect.toString(), dialect.readRecord(reader));
+		}
+	}
+
+	@Test
+	public void testOracleRecordLength() {
+		StringBuilder record = new StringBuilder(write(BulkLoadDialect.ORACLE, new String[] { "|\n", "\u20ac" }));
+		BulkLoadDialect.ORACLE.terminateRecord(record);
+		assertEquals("0000000010\"|\n\",\"\u20ac\"", record.toString());
+	}
+
+	@Test
+	public void testSingleField() {
+		for (BulkLoadDialect dialect: BulkLoadDialect.values()) {
+			for (String value: new String[] { null, "", "x", "\"", "\\" }) {
+				assertArrayEquals(dialect.toString(), new String[] { value }, dialect.parseRecord(write(dialect, new String[] { value }), 1));
+			}
+		}
+	}
+
+	@Test
+	public void testTextFormat() {
+		assertEquals("1\t\\N\ta\\tb\\nc\\\\", write(BulkLoadDialect.POSTGRESQL, new String[] { "1", null, "a\tb\nc\\" }));
+	}
+
+	@Test
+	public void testCsvFormat() {
+		assertEquals("\"1\",,\"a\"\"b\",\"\"", write(BulkLoadDialect.CSV, new String[] { "1", null, "a\"b", "" }));
+		assertArrayEquals(new String[] { "1", null, "x" }, BulkLoadDialect.CSV.parseRecord("1,,x", 3));
+	}
+
+	private static String write(BulkLoadDialect dialect, String[] fields) {
+		StringBuilder record = new StringBuilder();
+		for (int i = 0; i < fields.length; ++i) {
+			if (i > 0) {
+				record.append(dialect.fieldSeparator);
+			}
+			dialect.appendField(record, fields[i]);
+		}
+		return record.toString();
+	}
+
+}
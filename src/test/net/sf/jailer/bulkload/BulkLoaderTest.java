@@ -0,0 +1,38 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.bulkload;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BulkLoader}
+ *
+ * @author Ralf Wisser
+ */
+public class BulkLoaderTest {
+
+	@Test
+	public void testParseDirective() {
+		for (String fileName: new String[] { "data/00001-T.csv", "a,b/00001-T.csv", "say \"hi\", ok/x.csv", "" }) {
+			String directive = "CSV,12," + BulkLoader.quote(fileName) + ",S.T(A, B)";
+			assertArrayEquals(directive, new String[] { "CSV", "12", fileName, "S.T(A, B)" }, BulkLoader.parseDirective(directive));
+		}
+		assertArrayEquals(new String[] { "ORACLE", "3", "data/00002-T.dat", "T(\"A,B\")" }, BulkLoader.parseDirective("ORACLE, 3, data/00002-T.dat, T(\"A,B\")"));
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.columnar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link ColumnarFileWriter} and {@link ColumnarFileReader}
+ *
+ * @author Ralf Wisser
+ */
+public class ColumnarFileTest {
+
+	private static final List<ColumnarType> TYPES = Arrays.asList(ColumnarType.values());
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("jailer", ColumnarTransformer.FILE_EXTENSION);
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Values that are unique per row (plain encoding).
+	 */
+	@Test
+	public void testPlain() throws IOException {
+		List<Object[]> rows = new ArrayList<Object[]>();
+		for (int i = 0; i < 100; ++i) {
+			rows.add(row(i, i % 7 == 3));
+		}
+		assertRoundTrip(rows, 1000);
+	}
+
+	/**
+	 * Few distinct values in alternating order (dictionary encoding).
+	 */
+	@Test
+	public void testDictionary() throws IOException {
+		List<Object[]> rows = new ArrayList<Object[]>();
+		for (int i = 0; i < 100; ++i) {
+			rows.add(row(i % 3, i % 11 == 5));
+		}
+		assertRoundTrip(rows, 1000);
+	}
+
+	/**
+	 * Long runs of equal values (run-length encoding).
+	 */
+	@Test
+	public void testRunLength() throws IOException {
+		List<Object[]> rows = new ArrayList<Object[]>();
+		for (int i = 0; i < 100; ++i) {
+			rows.add(row(i / 40, i >= 10 && i < 20));
+		}
+		assertRoundTrip(rows, 1000);
+	}
+
+	@Test
+	public void testRowGroups() throws IOException {
+		List<Object[]> rows = new ArrayList<Object[]>();
+		for (int i = 0; i < 1000; ++i) {
+			rows.add(row(i % 10 < 5? i : i / 100, i % 13 == 0));
+		}
+		assertRoundTrip(rows, 64);
+	}
+
+	@Test
+	public void testNullsOnly() throws IOException {
+		List<Object[]> rows = new ArrayList<Object[]>();
+		for (int i = 0; i < 10; ++i) {
+			rows.add(new Object[TYPES.size()]);
+		}
+		assertRoundTrip(rows, 4);
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		assertRoundTrip(new ArrayList<Object[]>(), 1000);
+	}
+
+	@Test
+	public void testNormalize() throws Exception {
+		assertEquals(Boolean.TRUE, ColumnarType.BOOLEAN.normalize("t"));
+		assertEquals(Boolean.FALSE, ColumnarType.BOOLEAN.normalize(0));
+		assertEquals(42L, ColumnarType.INT64.normalize(" 42"));
+		assertEquals("12345678901234567890.5", ColumnarType.DECIMAL.normalize(new BigDecimal("12345678901234567890.5")));
+		assertEquals(1, ColumnarType.DATE.normalize("1970-01-02"));
+		assertEquals(1500000L, ColumnarType.TIMESTAMP.normalize(new Timestamp(1500)));
+		assertEquals(3723000, ColumnarType.TIME.normalize("01:02:03"));
+	}
+
+	/**
+	 * Creates a row containing a value of each type.
+	 *
+	 * @param value determines the values
+	 * @param isNull whether some of the values are <code>null</code>
+	 */
+	private Object[] row(int value, boolean isNull) {
+		Object[] row = new Object[TYPES.size()];
+		for (int i = 0; i < row.length; ++i) {
+			if (isNull && i % 2 == 0) {
+				continue;
+			}
+			switch (TYPES.get(i)) {
+			case BOOLEAN: row[i] = value % 2 == 0; break;
+			case INT64: row[i] = value * 1000000007L; break;
+			case DOUBLE: row[i] = value / 3.0; break;
+			case DECIMAL: row[i] = value + ".25"; break;
+			case STRING: row[i] = "s\u00e4\u20ac\n" + value; break;
+			case BINARY: row[i] = new byte[] { (byte) value, 0, (byte) (value >> 8) }; break;
+			case DATE: row[i] = value - 5; break;
+			case TIMESTAMP: row[i] = value * 86400000000L + 1; break;
+			case TIME: row[i] = value * 1000; break;
+			}
+		}
+		return row;
+	}
+
+	private void assertRoundTrip(List<Object[]> rows, int rowGroupSize) throws IOException {
+		List<String> names = new ArrayList<String>();
+		for (ColumnarType type: TYPES) {
+			names.add("C_" + type);
+		}
+		ColumnarFileWriter writer = new ColumnarFileWriter(file, names, TYPES, rowGroupSize, ColumnarFileWriter.DEFAULT_ROW_GROUP_BYTES);
+		for (Object[] row: rows) {
+			writer.addRow(row);
+		}
+		writer.close();
+		assertEquals(rows.size(), writer.getRowCount());
+
+		ColumnarFileReader reader = new ColumnarFileReader(file);
+		assertEquals(names, reader.getColumnNames());
+		assertEquals(TYPES, reader.getColumnTypes());
+		assertEquals(rows.size(), reader.getRowCount());
+		assertEquals((rows.size() + rowGroupSize - 1) / rowGroupSize, reader.getRowGroupCount());
+		int r = 0;
+		for (int g = 0; g < reader.getRowGroupCount(); ++g) {
+			Object[][] columns = reader.readRowGroup(g);
+			assertEquals(TYPES.size(), columns.length);
+			for (int i = 0; i < columns[0].length; ++i, ++r) {
+				for (int c = 0; c < columns.length; ++c) {
+					Object expected = rows.get(r)[c];
+					Object actual = columns[c][i];
+					String message = "row " + r + ", " + names.get(c);
+					if (expected == null) {
+						assertNull(message, actual);
+					} else if (expected instanceof byte[]) {
+						assertArrayEquals(message, (byte[]) expected, (byte[]) actual);
+					} else {
+						assertEquals(message, expected, actual);
+					}
+				}
+			}
+		}
+		assertEquals(rows.size(), r);
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.columnar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.subsetting.ScriptFormat;
+
+/**
+ * Tests {@link ColumnarTransformer}
+ *
+ * @author Ralf Wisser
+ */
+public class ColumnarTransformerTest {
+
+	private File folder;
+
+	@Before
+	public void setUp() throws Exception {
+		System.setProperty("com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize", "true");
+		folder = Files.createTempDirectory("jailer").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		delete(folder);
+	}
+
+	@Test
+	public void testUniqueFileName() {
+		Set<String> usedNames = new HashSet<String>();
+		assertEquals("S1_T.jcol", ColumnarTransformer.Factory.uniqueFileName("S1.T", usedNames));
+		assertEquals("S1_T_2.jcol", ColumnarTransformer.Factory.uniqueFileName("S1_T", usedNames));
+		assertEquals("s1_t_3.jcol", ColumnarTransformer.Factory.uniqueFileName("s1.t", usedNames));
+		assertEquals("S1_T_2_2.jcol", ColumnarTransformer.Factory.uniqueFileName("S1_T_2", usedNames));
+		assertEquals("T.jcol", ColumnarTransformer.Factory.uniqueFileName("T", usedNames));
+	}
+
+	/**
+	 * The manifest maps each table to its own file.
+	 */
+	@Test
+	public void testManifest() throws Exception {
+		Files.copy(new File("demo-scott-1.4.mv.db").toPath(), new File(folder, "scott.mv.db").toPath());
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:" + new File(folder, "scott").getAbsolutePath(), "sa", "", 0, (File) null);
+		Subsetter subsetter = new Subsetter(dataSource, null, new File("datamodel/Demo-Scott"), new File("extractionmodel/Demo-Scott.jm"), ScriptFormat.COLUMNAR);
+		File manifest = new File(folder, "export.json");
+		subsetter.execute(null, manifest);
+
+		String content = new String(Files.readAllBytes(manifest.toPath()), Charset.forName("UTF-8"));
+		Matcher matcher = Pattern.compile("\"name\": \"([^\"]*)\",\\s*\"displayName\": [^\\n]*\\n\\s*\"file\": \"([^\"]*)\",\\s*\"rows\": (\\d+)").matcher(content);
+		Set<String> files = new HashSet<String>();
+		while (matcher.find()) {
+			File file = new File(folder, matcher.group(2));
+			assertTrue(matcher.group(1), file.exists());
+			assertTrue(matcher.group(1), files.add(matcher.group(2)));
+			assertEquals(matcher.group(1), Long.parseLong(matcher.group(3)), new ColumnarFileReader(file).getRowCount());
+		}
+		assertFalse(files.isEmpty());
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File f: files) {
+				delete(f);
+			}
+		}
+		file.delete();
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.entitygraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.WorkingTableScope;
+import net.sf.jailer.subsetting.ScriptFormat;
+
+/**
+ * Tests {@link TypedWorkingTables}
+ *
+ * @author Ralf Wisser
+ */
+public class TypedWorkingTablesTest {
+
+	private File folder;
+	private BasicDataSource dataSource;
+
+	@Before
+	public void setUp() throws Exception {
+		System.setProperty("com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize", "true");
+		folder = Files.createTempDirectory("jailer").toFile();
+		Files.copy(new File("demo-scott-1.4.mv.db").toPath(), new File(folder, "scott.mv.db").toPath());
+		dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:" + new File(folder, "scott").getAbsolutePath(), "sa", "", 0, (File) null);
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file: files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	/**
+	 * Typed entity tables yield the same export and delete scripts as the shared working tables.
+	 */
+	@Test
+	public void testExport() throws Exception {
+		for (WorkingTableScope scope: new WorkingTableScope[] { WorkingTableScope.GLOBAL, WorkingTableScope.LOCAL_DATABASE }) {
+			for (String condition: new String[] { null, "NAME='SCOTT'", "1=0" }) {
+				String message = scope + ", " + condition;
+				assertEquals(message, export(scope, condition, false, "export"), export(scope, condition, true, "export"));
+				assertEquals(message, export(scope, condition, false, "delete"), export(scope, condition, true, "delete"));
+			}
+		}
+		assertFalse(typedTablesExist());
+	}
+
+	private List<String> export(WorkingTableScope scope, String condition, boolean typedEntityTables, String script) throws Exception {
+		Subsetter subsetter = new Subsetter(dataSource, null, new File("datamodel/Demo-Scott"), new File("extractionmodel/Demo-Scott.jm"), ScriptFormat.SQL);
+		subsetter.setScope(scope);
+		subsetter.getExecutionContext().setTypedEntityTables(typedEntityTables);
+		File exportScript = new File(folder, "export.sql");
+		File deleteScript = new File(folder, "delete.sql");
+		subsetter.execute(condition, exportScript, deleteScript);
+		List<String> lines = new ArrayList<String>();
+		for (String line: Files.readAllLines(new File(folder, script + ".sql").toPath(), Charset.defaultCharset())) {
+			if (!line.startsWith("--")) {
+				// the order of the rows of a multi-row insert may differ
+				lines.add(line.replaceAll("[,;] *$", ""));
+			}
+		}
+		Collections.sort(lines);
+		return lines;
+	}
+
+	private boolean typedTablesExist() throws Exception {
+		Connection connection = dataSource.getConnection();
+		try {
+			Statement statement = connection.createStatement();
+			ResultSet resultSet = statement.executeQuery("Select count(*) From INFORMATION_SCHEMA.TABLES Where TABLE_NAME like 'JAILER\\_E%\\_%' or TABLE_NAME like 'JAILER\\_D%\\_%'");
+			resultSet.next();
+			boolean exist = resultSet.getInt(1) > 0;
+			statement.close();
+			return exist;
+		} finally {
+			connection.close();
+		}
+	}
+
+}
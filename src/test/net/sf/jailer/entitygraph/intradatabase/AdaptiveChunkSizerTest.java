@@ -0,0 +1,110 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.entitygraph.intradatabase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link AdaptiveChunkSizer}
+ *
+ * @author Ralf Wisser
+ */
+public class AdaptiveChunkSizerTest {
+
+	@Test
+	public void testInitialSize() {
+		assertEquals(AdaptiveChunkSizer.INITIAL_CHUNK_SIZE, new AdaptiveChunkSizer().getChunkSize());
+	}
+
+	@Test
+	public void testTargetTime() {
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		// 1000 rows per second
+		chunkSizer.chunkCommitted(1000, 1000, 0);
+		assertEquals(2000, chunkSizer.getChunkSize());
+		// 2000 rows per second, averaged to 1500
+		chunkSizer.chunkCommitted(2000, 1000, 0);
+		assertEquals(3000, chunkSizer.getChunkSize());
+	}
+
+	@Test
+	public void testLimitedGrowth() {
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		chunkSizer.chunkCommitted(1000, 10, 0);
+		assertEquals(4000, chunkSizer.getChunkSize());
+	}
+
+	@Test
+	public void testLimitedShrinking() {
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		chunkSizer.chunkCommitted(1000, 100000, 0);
+		assertEquals(250, chunkSizer.getChunkSize());
+	}
+
+	@Test
+	public void testBounds() {
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		for (int i = 0; i < 20; ++i) {
+			chunkSizer.chunkCommitted(chunkSizer.getChunkSize(), 1, 0);
+		}
+		assertEquals(AdaptiveChunkSizer.MAX_CHUNK_SIZE, chunkSizer.getChunkSize());
+		chunkSizer = new AdaptiveChunkSizer();
+		for (int i = 0; i < 20; ++i) {
+			chunkSizer.chunkCommitted(chunkSizer.getChunkSize(), 1000000, 0);
+		}
+		assertEquals(AdaptiveChunkSizer.MIN_CHUNK_SIZE, chunkSizer.getChunkSize());
+	}
+
+	/**
+	 * Chunks are enlarged if committing takes a considerable part of the time.
+	 */
+	@Test
+	public void testCommitLatency() {
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		// 250 rows per second, mostly spent committing
+		chunkSizer.chunkCommitted(1000, 1000, 3000);
+		assertEquals(2000, chunkSizer.getChunkSize());
+	}
+
+	/**
+	 * The last (incomplete) chunk is not representative.
+	 */
+	@Test
+	public void testLastChunk() {
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		chunkSizer.chunkCommitted(10, 1000, 0);
+		assertEquals(AdaptiveChunkSizer.INITIAL_CHUNK_SIZE, chunkSizer.getChunkSize());
+	}
+
+	@Test
+	public void testChunkFailed() {
+		AdaptiveChunkSizer chunkSizer = new AdaptiveChunkSizer();
+		assertTrue(chunkSizer.chunkFailed());
+		assertEquals(500, chunkSizer.getChunkSize());
+		assertTrue(chunkSizer.chunkFailed());
+		assertTrue(chunkSizer.chunkFailed());
+		assertEquals(125, chunkSizer.getChunkSize());
+		assertTrue(chunkSizer.chunkFailed());
+		assertEquals(AdaptiveChunkSizer.MIN_CHUNK_SIZE, chunkSizer.getChunkSize());
+		assertFalse(chunkSizer.chunkFailed());
+		assertEquals(AdaptiveChunkSizer.MIN_CHUNK_SIZE, chunkSizer.getChunkSize());
+	}
+
+}
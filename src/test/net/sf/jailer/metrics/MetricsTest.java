@@ -0,0 +1,153 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+
+/**
+ * Tests {@link Metrics}
+ *
+ * @author Ralf Wisser
+ */
+public class MetricsTest {
+
+	private BasicDataSource dataSource;
+	private Session session1;
+	private Session session2;
+
+	@Before
+	public void setUp() throws Exception {
+		System.setProperty("com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize", "true");
+		dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:metrics", "sa", "", 0, (File) null);
+		session1 = new Session(dataSource, dataSource.dbms, Connection.TRANSACTION_READ_COMMITTED);
+		session2 = new Session(dataSource, dataSource.dbms, Connection.TRANSACTION_READ_COMMITTED);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		session1.shutDown();
+		session2.shutDown();
+	}
+
+	@Test
+	public void testNone() {
+		ExecutionContext executionContext = new ExecutionContext();
+		assertSame(Metrics.NONE, Metrics.create(executionContext));
+		assertFalse(Metrics.NONE.isEnabled());
+		assertSame(Metrics.NONE, session1.getMetrics());
+		OutputStream out = new ByteArrayOutputStream();
+		assertSame(out, Metrics.NONE.countBytes(out));
+	}
+
+	/**
+	 * Concurrent exports record their measurements separately.
+	 */
+	@Test
+	public void testConcurrentExports() throws Exception {
+		AggregatingMetricsRegistry registry1 = new AggregatingMetricsRegistry(null);
+		AggregatingMetricsRegistry registry2 = new AggregatingMetricsRegistry(null);
+		final Metrics metrics1 = create(registry1);
+		final Metrics metrics2 = create(registry2);
+		session1.setMetrics(metrics1);
+		session2.setMetrics(metrics2);
+		metrics1.setPhase("collecting");
+		metrics2.setPhase("writing");
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < 3; ++i) {
+						session2.executeQuery("Select 1 From DUAL", new Session.AbstractResultSetReader() {
+							@Override
+							public void readCurrentRow(java.sql.ResultSet resultSet) {
+							}
+						});
+					}
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		thread.start();
+		for (int i = 0; i < 5; ++i) {
+			session1.executeUpdate("Create Table T" + i + "(A INT)");
+		}
+		thread.join();
+
+		metrics1.close();
+		metrics2.count(Metrics.ROWS_EXPORTED, 7, "table", "T");
+
+		assertEquals(counts("jailer.sql.update\tphase=collecting", 5), counts(registry1));
+		Map<String, Long> expected = counts("jailer.sql.query\tphase=writing", 3);
+		expected.put(Metrics.ROWS_EXPORTED + "\tphase=writing,table=T", 1L);
+		assertEquals(expected, counts(registry2));
+		assertTrue(metrics2.isEnabled());
+	}
+
+	@Test
+	public void testCountBytes() throws Exception {
+		AggregatingMetricsRegistry registry = new AggregatingMetricsRegistry(null);
+		OutputStream out = create(registry).countBytes(new ByteArrayOutputStream(), "file", "f.sql");
+		out.write(new byte[10], 2, 5);
+		out.write(1);
+		out.close();
+		assertEquals(1, registry.getAggregates().size());
+		AggregatingMetricsRegistry.Aggregate aggregate = registry.getAggregates().get(0);
+		assertEquals(Metrics.BYTES_WRITTEN, aggregate.name);
+		assertEquals("file=f.sql", aggregate.tags);
+		assertEquals(6, aggregate.getAmount());
+	}
+
+	private static Metrics create(MetricsRegistry registry) {
+		ExecutionContext executionContext = new ExecutionContext();
+		executionContext.setMetricsRegistry(registry);
+		return Metrics.create(executionContext);
+	}
+
+	private static Map<String, Long> counts(String key, long count) {
+		Map<String, Long> result = new HashMap<String, Long>();
+		result.put(key, count);
+		return result;
+	}
+
+	private static Map<String, Long> counts(AggregatingMetricsRegistry registry) {
+		Map<String, Long> result = new HashMap<String, Long>();
+		for (AggregatingMetricsRegistry.Aggregate aggregate: registry.getAggregates()) {
+			result.put(aggregate.name + "\t" + aggregate.tags, aggregate.getCount());
+		}
+		return result;
+	}
+
+}
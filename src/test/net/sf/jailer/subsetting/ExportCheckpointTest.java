@@ -0,0 +1,200 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Tests {@link ExportCheckpoint}
+ *
+ * @author Ralf Wisser
+ */
+public class ExportCheckpointTest {
+
+	private DataModel dataModel;
+	private File scriptFile;
+	private Map<String, String> export;
+
+	@Before
+	public void setUp() throws Exception {
+		ExecutionContext executionContext = new ExecutionContext();
+		executionContext.setDataModelURL(new File("datamodel/Demo-Scott").toURI().toURL());
+		dataModel = new DataModel(executionContext);
+		scriptFile = File.createTempFile("jailer", ".sql");
+		export = new LinkedHashMap<String, String>();
+		export.put("extraction-model", "Demo-Scott.jm");
+		export.put("where", "NAME='SCOTT'");
+		export.put("format", "SQL");
+	}
+
+	@After
+	public void tearDown() {
+		new ExportCheckpoint(scriptFile.getPath(), dataModel, export).delete();
+		scriptFile.delete();
+	}
+
+	@Test
+	public void testCollecting() throws IOException {
+		ExportCheckpoint checkpoint = new ExportCheckpoint(scriptFile.getPath(), dataModel, export);
+		assertFalse(checkpoint.isResumable());
+		checkpoint.start(42, "/tmp/local");
+		checkpoint.setBirthdayOfSubject(1);
+		checkpoint.collecting(2, tables("EMPLOYEE", "DEPARTMENT"), tables());
+		checkpoint.collecting(3, tables("PROJECT_PARTICIPATION"), tables("DEPARTMENT"));
+		assertTrue(checkpoint.getFile().exists());
+
+		ExportCheckpoint resumed = read();
+		assertTrue(resumed.isResumable());
+		assertEquals(ExportCheckpoint.Stage.COLLECTING, resumed.getStage());
+		assertEquals(42, resumed.getGraphID());
+		assertEquals("/tmp/local", resumed.getLocalDatabaseFolder());
+		assertEquals(1, resumed.getBirthdayOfSubject());
+		assertEquals(3, resumed.getDay());
+		assertEquals(tables("PROJECT_PARTICIPATION"), resumed.getProgress());
+		assertEquals(tables("DEPARTMENT"), resumed.getCompletedTables());
+		assertEquals(tables("EMPLOYEE", "DEPARTMENT", "PROJECT_PARTICIPATION"), resumed.getTotalProgress());
+	}
+
+	@Test
+	public void testCollected() throws IOException {
+		ExportCheckpoint checkpoint = new ExportCheckpoint(scriptFile.getPath(), dataModel, export);
+		checkpoint.start(7, null);
+		checkpoint.collecting(1, tables("EMPLOYEE"), tables());
+		Map<Table, Long> collectedRows = new HashMap<Table, Long>();
+		collectedRows.put(table("EMPLOYEE"), 3L);
+		collectedRows.put(table("DEPARTMENT"), 1L);
+		checkpoint.collected(tables("EMPLOYEE", "DEPARTMENT"), collectedRows);
+
+		ExportCheckpoint resumed = read();
+		assertEquals(ExportCheckpoint.Stage.COLLECTED, resumed.getStage());
+		assertNull(resumed.getLocalDatabaseFolder());
+		assertEquals(tables("EMPLOYEE", "DEPARTMENT"), resumed.getTotalProgress());
+		assertEquals(collectedRows, resumed.getCollectedRows());
+	}
+
+	@Test
+	public void testWriting() throws IOException {
+		ExportCheckpoint checkpoint = new ExportCheckpoint(scriptFile.getPath(), dataModel, export);
+		checkpoint.start(7, null);
+		checkpoint.collected(tables("EMPLOYEE", "DEPARTMENT", "SALARYGRADE"), Collections.<Table, Long>emptyMap());
+		checkpoint.writing(100, tables("DEPARTMENT"), tables("EMPLOYEE"), 4);
+		checkpoint.writing(250, tables("SALARYGRADE"), tables(), 9);
+
+		ExportCheckpoint resumed = read();
+		assertEquals(ExportCheckpoint.Stage.WRITING, resumed.getStage());
+		assertEquals(250, resumed.getPosition());
+		assertEquals(9, resumed.getExportedCount());
+		assertEquals(tables("DEPARTMENT", "SALARYGRADE"), resumed.getWrittenTables());
+		assertEquals(tables(), resumed.getPendingDeletion());
+		assertEquals(tables("EMPLOYEE", "DEPARTMENT", "SALARYGRADE"), resumed.getTotalProgress());
+	}
+
+	@Test
+	public void testScriptLength() throws IOException {
+		FileWriter out = new FileWriter(scriptFile);
+		out.write("-- 12345678\n");
+		out.close();
+		assertEquals(12, new ExportCheckpoint(scriptFile.getPath(), dataModel, export).getScriptLength());
+	}
+
+	@Test
+	public void testNotResumable() throws IOException {
+		ExportCheckpoint checkpoint = new ExportCheckpoint(scriptFile.getPath(), dataModel, export);
+		checkpoint.start(7, null);
+		checkpoint.collecting(1, tables("EMPLOYEE"), tables());
+		checkpoint.notResumable("deleting rows");
+		assertFalse(checkpoint.isResumable());
+		assertReadFails(export, "deleting rows");
+	}
+
+	@Test
+	public void testDifferentExport() throws IOException {
+		ExportCheckpoint checkpoint = new ExportCheckpoint(scriptFile.getPath(), dataModel, export);
+		checkpoint.start(7, null);
+		checkpoint.collecting(1, tables("EMPLOYEE"), tables());
+		Map<String, String> otherExport = new LinkedHashMap<String, String>(export);
+		otherExport.put("where", "NAME='KING'");
+		assertReadFails(otherExport, "different where");
+		read();
+	}
+
+	@Test
+	public void testMissing() throws IOException {
+		assertReadFails(export, "not found");
+	}
+
+	@Test
+	public void testDelete() throws IOException {
+		ExportCheckpoint checkpoint = new ExportCheckpoint(scriptFile.getPath(), dataModel, export);
+		checkpoint.start(7, null);
+		checkpoint.collecting(1, tables("EMPLOYEE"), tables());
+		assertEquals(new File(scriptFile.getPath() + ".checkpoint"), checkpoint.getFile());
+		assertTrue(checkpoint.getFile().exists());
+		checkpoint.delete();
+		assertFalse(checkpoint.getFile().exists());
+		assertReadFails(export, "not found");
+	}
+
+	private ExportCheckpoint read() throws IOException {
+		ExportCheckpoint checkpoint = new ExportCheckpoint(scriptFile.getPath(), dataModel, export);
+		checkpoint.read();
+		return checkpoint;
+	}
+
+	private void assertReadFails(Map<String, String> export, String expectedMessage) throws IOException {
+		try {
+			new ExportCheckpoint(scriptFile.getPath(), dataModel, export).read();
+			fail("checkpoint read");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+		}
+	}
+
+	private Table table(String name) {
+		return dataModel.getTable(name);
+	}
+
+	private Set<Table> tables(String... names) {
+		Set<Table> tables = new HashSet<Table>();
+		for (String name: names) {
+			tables.add(table(name));
+		}
+		return tables;
+	}
+
+}
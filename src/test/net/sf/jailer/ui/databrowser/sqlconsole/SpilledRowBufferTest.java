@@ -0,0 +1,78 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.ui.databrowser.sqlconsole;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link SpilledRowBuffer}
+ *
+ * @author Ralf Wisser
+ */
+public class SpilledRowBufferTest {
+
+	@Test
+	public void testRandomAccess() throws Exception {
+		File file = File.createTempFile("jailer", ".rows");
+		SpilledRowBuffer buffer = new SpilledRowBuffer(file, 3);
+		int numRows = SpilledRowBuffer.PAGE_SIZE * 5 + 17;
+		for (int i = 0; i < numRows; ++i) {
+			buffer.append(row(i));
+		}
+		buffer.finish();
+		assertEquals(numRows, buffer.size());
+
+		Random random = new Random(4711);
+		for (int n = 0; n < 2000; ++n) {
+			int i = random.nextInt(numRows);
+			assertArrayEquals(String.valueOf(i), row(i), buffer.getRow(i));
+		}
+		assertArrayEquals(row(numRows - 1), buffer.getRow(numRows - 1));
+		assertTrue(file.exists());
+		buffer.close();
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void testLongCell() throws Exception {
+		File file = File.createTempFile("jailer", ".rows");
+		SpilledRowBuffer buffer = new SpilledRowBuffer(file, 1);
+		StringBuilder cell = new StringBuilder();
+		for (int i = 0; i < 10000; ++i) {
+			cell.append('\u00e4');
+		}
+		buffer.append(new String[] { cell.toString() });
+		buffer.append(new String[] { null });
+		buffer.finish();
+		assertEquals(cell.substring(0, 4000) + "...", buffer.getRow(0)[0]);
+		assertNull(buffer.getRow(1)[0]);
+		buffer.close();
+	}
+
+	private static String[] row(int i) {
+		return new String[] { Integer.toString(i), i % 7 == 0? null : "\u20ac" + i, i % 3 == 0? "" : "x" };
+	}
+
+}
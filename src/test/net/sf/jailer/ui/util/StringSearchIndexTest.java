@@ -0,0 +1,120 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.ui.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link StringSearchIndex}
+ *
+ * @author Ralf Wisser
+ */
+public class StringSearchIndexTest {
+
+	private static final List<String> ITEMS = Arrays.asList("Employee", "EMPLOYEE_HISTORY", "department", "Project_Participation", "ab", "", "aaaa", "Role");
+
+	@Test
+	public void testItems() {
+		StringSearchIndex index = new StringSearchIndex(ITEMS);
+		assertEquals(ITEMS.size(), index.size());
+		for (int i = 0; i < ITEMS.size(); ++i) {
+			assertEquals(ITEMS.get(i), index.get(i));
+			assertEquals(ITEMS.get(i).toUpperCase(Locale.ENGLISH), index.getUpperCase(i));
+		}
+	}
+
+	@Test
+	public void testCandidates() {
+		StringSearchIndex index = new StringSearchIndex(ITEMS);
+		assertArrayEquals(new int[] { 0, 1 }, index.candidates("EMPLOYEE"));
+		assertArrayEquals(new int[] { 0, 1 }, index.candidates("PLO"));
+		assertArrayEquals(new int[] { 2, 3 }, index.candidates("PART"));
+		assertArrayEquals(new int[] { 6 }, index.candidates("AAA"));
+		assertArrayEquals(new int[] { 6 }, index.candidates("AAAA"));
+		// candidates may not contain the text, they only contain all of its trigrams
+		assertArrayEquals(new int[] { 6 }, index.candidates("AAAAA"));
+		assertArrayEquals(new int[0], index.candidates("XYZ"));
+	}
+
+	@Test
+	public void testShortText() {
+		StringSearchIndex index = new StringSearchIndex(ITEMS);
+		assertNull(index.candidates(""));
+		assertNull(index.candidates("AB"));
+	}
+
+	@Test
+	public void testIsIndexOf() {
+		StringSearchIndex index = new StringSearchIndex(ITEMS);
+		assertTrue(index.isIndexOf(new ArrayList<String>(ITEMS)));
+		List<String> changed = new ArrayList<String>(ITEMS);
+		changed.set(3, "Project");
+		assertFalse(index.isIndexOf(changed));
+		assertFalse(index.isIndexOf(ITEMS.subList(1, ITEMS.size())));
+		assertTrue(new StringSearchIndex(new ArrayList<String>()).isIndexOf(new ArrayList<String>()));
+	}
+
+	/**
+	 * Compares the candidates with the result of a linear search.
+	 */
+	@Test
+	public void testAgainstLinearSearch() {
+		Random random = new Random(4711);
+		List<String> items = new ArrayList<String>();
+		for (int i = 0; i < 2000; ++i) {
+			items.add(randomString(random, random.nextInt(20)));
+		}
+		StringSearchIndex index = new StringSearchIndex(items);
+		for (int n = 0; n < 500; ++n) {
+			String text = randomString(random, 3 + random.nextInt(4)).toUpperCase(Locale.ENGLISH);
+			int[] candidates = index.candidates(text);
+			for (int k = 1; k < candidates.length; ++k) {
+				assertTrue(candidates[k - 1] < candidates[k]);
+			}
+			int c = 0;
+			for (int i = 0; i < items.size(); ++i) {
+				if (items.get(i).toUpperCase(Locale.ENGLISH).contains(text)) {
+					while (c < candidates.length && candidates[c] < i) {
+						++c;
+					}
+					assertTrue(text + " in " + items.get(i), c < candidates.length && candidates[c] == i);
+				}
+			}
+		}
+	}
+
+	private static String randomString(Random random, int length) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; ++i) {
+			char c = (char) ('a' + random.nextInt(4));
+			sb.append(random.nextBoolean()? Character.toUpperCase(c) : c);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.datamodel.Association;
+import net.sf.jailer.datamodel.Cardinality;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+
+/**
+ * Tests {@link CycleFinder}
+ *
+ * @author Ralf Wisser
+ */
+public class CycleFinderTest {
+
+	private DataModel dataModel;
+
+	/**
+	 * Loads the demo model. Its only cycle is EMPLOYEE -&gt; EMPLOYEE (BOSS).
+	 */
+	@Before
+	public void setUp() throws Exception {
+		ExecutionContext executionContext = new ExecutionContext();
+		executionContext.setDataModelURL(new File("datamodel/Demo-Scott").toURI().toURL());
+		dataModel = new DataModel(executionContext);
+	}
+
+	@Test
+	public void testSelfReference() {
+		assertEquals(tables("EMPLOYEE"), CycleFinder.getCycle(dataModel, dataModel.getTables()));
+		Collection<CycleFinder.Path> cycles = CycleFinder.findCycle(dataModel, dataModel.getTables(), true, null, null);
+		assertEquals(1, cycles.size());
+		List<Table> path = new ArrayList<Table>();
+		cycles.iterator().next().fillPath(path);
+		assertEquals(Arrays.asList(table("EMPLOYEE"), table("EMPLOYEE")), path);
+	}
+
+	@Test
+	public void testCycles() {
+		addCycles();
+		assertEquals(tables("EMPLOYEE", "DEPARTMENT", "PROJECT_PARTICIPATION", "ROLE", "PROJECT"), CycleFinder.getCycle(dataModel, dataModel.getTables()));
+		assertEquals(tables("EMPLOYEE", "DEPARTMENT", "PROJECT_PARTICIPATION", "ROLE", "PROJECT"), CycleFinder.getCycle(dataModel.getTables()));
+
+		Set<Set<Table>> expected = new HashSet<Set<Table>>();
+		expected.add(tables("EMPLOYEE"));
+		expected.add(tables("EMPLOYEE", "DEPARTMENT", "PROJECT_PARTICIPATION"));
+		expected.add(tables("ROLE", "PROJECT"));
+		Collection<CycleFinder.Path> cycles = CycleFinder.findCycle(dataModel, dataModel.getTables(), true, null, null);
+		assertEquals(3, cycles.size());
+		assertEquals(expected, tableSets(cycles));
+	}
+
+	@Test
+	public void testShortestCyclesCoverAllTables() {
+		addCycles();
+		Set<Table> covered = new HashSet<Table>();
+		for (Set<Table> cycle: tableSets(CycleFinder.findCycle(dataModel, dataModel.getTables(), false, null, null))) {
+			covered.addAll(cycle);
+		}
+		assertEquals(CycleFinder.getCycle(dataModel, dataModel.getTables()), covered);
+	}
+
+	@Test
+	public void testSubset() {
+		addCycles();
+		Set<Table> tables = new HashSet<Table>(dataModel.getTables());
+		tables.remove(table("DEPARTMENT"));
+		assertEquals(tables("EMPLOYEE", "ROLE", "PROJECT"), CycleFinder.getCycle(dataModel, tables));
+		assertEquals(2, CycleFinder.findCycle(dataModel, tables, true, null, null).size());
+	}
+
+	@Test
+	public void testCycleAndDependencies() {
+		addCycles();
+		addDependency("ROLE", "SALARYGRADE");
+		assertEquals(tables("EMPLOYEE", "DEPARTMENT", "PROJECT_PARTICIPATION", "ROLE", "PROJECT", "SALARYGRADE"),
+				CycleFinder.getCycleAndDependencies(dataModel, dataModel.getTables()));
+	}
+
+	@Test
+	public void testStop() {
+		addCycles();
+		assertEquals(1, CycleFinder.findCycle(dataModel, dataModel.getTables(), true, null, 1, null).size());
+		final int[] consumed = new int[1];
+		Collection<CycleFinder.Path> cycles = CycleFinder.findCycle(dataModel, dataModel.getTables(), true, null, new CycleFinder.CycleConsumer() {
+			@Override
+			public boolean consume(CycleFinder.Path cycle) {
+				++consumed[0];
+				return false;
+			}
+		});
+		assertEquals(1, consumed[0]);
+		assertEquals(1, cycles.size());
+	}
+
+	@Test
+	public void testNoCycle() {
+		Set<Table> tables = new HashSet<Table>(dataModel.getTables());
+		tables.remove(table("EMPLOYEE"));
+		assertTrue(CycleFinder.getCycle(dataModel, tables).isEmpty());
+		assertTrue(CycleFinder.findCycle(dataModel, tables, true, null, null).isEmpty());
+	}
+
+	/**
+	 * Adds the cycles EMPLOYEE -&gt; DEPARTMENT -&gt; PROJECT_PARTICIPATION -&gt; EMPLOYEE and ROLE -&gt; PROJECT -&gt; ROLE.
+	 */
+	private void addCycles() {
+		addDependency("DEPARTMENT", "PROJECT_PARTICIPATION");
+		addDependency("ROLE", "PROJECT");
+		addDependency("PROJECT", "ROLE");
+	}
+
+	private void addDependency(String from, String to) {
+		Table source = table(from);
+		Table destination = table(to);
+		Association association = new Association(source, destination, false, true, "A.ID=B.ID", dataModel, false, Cardinality.MANY_TO_ONE);
+		Association reversal = new Association(destination, source, true, false, "A.ID=B.ID", dataModel, true, Cardinality.ONE_TO_MANY);
+		association.reversalAssociation = reversal;
+		reversal.reversalAssociation = association;
+		source.associations.add(association);
+		destination.associations.add(reversal);
+		++dataModel.version;
+	}
+
+	private Table table(String name) {
+		return dataModel.getTable(name);
+	}
+
+	private Set<Table> tables(String... names) {
+		Set<Table> tables = new HashSet<Table>();
+		for (String name: names) {
+			tables.add(table(name));
+		}
+		return tables;
+	}
+
+	private static Set<Set<Table>> tableSets(Collection<CycleFinder.Path> cycles) {
+		Set<Set<Table>> result = new HashSet<Set<Table>>();
+		for (CycleFinder.Path cycle: cycles) {
+			List<Table> path = new ArrayList<Table>();
+			cycle.fillPath(path);
+			result.add(new HashSet<Table>(path));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2007 - 2022 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link ScriptLineScanner}
+ *
+ * @author Ralf Wisser
+ */
+public class ScriptLineScannerTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("jailer", ".sql");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testIsApplicable() {
+		assertTrue(ScriptLineScanner.isApplicable(UTF8));
+		assertTrue(ScriptLineScanner.isApplicable(Charset.forName("ISO-8859-1")));
+		assertFalse(ScriptLineScanner.isApplicable(Charset.forName("UTF-16")));
+	}
+
+	@Test
+	public void testLines() throws IOException {
+		write("-- comment\n\nInsert into A(X) values (1);\n  Insert into B(Y)\n  values ('\u00e4\u20ac') ;  \n\t\n");
+		List<String> lines = read(new ScriptLineScanner(file, UTF8));
+		assertEquals(expected(), lines);
+		assertEquals(7, lines.size());
+		assertEquals("-- comment|-- comment|comment||-- comment", lines.get(0));
+		assertEquals("||blank||", lines.get(1));
+		assertEquals("Insert into A(X) values (1);|Insert into A(X) values (1);|end|Insert into A(X) values (1)|Insert into A(X) values (1);", lines.get(2));
+		assertEquals("  values ('\u00e4\u20ac') ;  |values ('\u00e4\u20ac') ;|end|values ('\u00e4\u20ac') |values ('\u00e4\u20ac') ;", lines.get(4));
+		assertEquals(";|;|end||;", lines.get(6));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		write("");
+		assertEquals(expected(), read(new ScriptLineScanner(file, UTF8)));
+		write("\n");
+		assertEquals(expected(), read(new ScriptLineScanner(file, UTF8)));
+	}
+
+	@Test
+	public void testCRLF() throws IOException {
+		write("A;\r\n\r\n  B  \r\nC;\r\n");
+		assertEquals(expected(), read(new ScriptLineScanner(file, UTF8, 5, 2, 2)));
+		assertEquals(expected(), read(new ScriptLineScanner(file, UTF8)));
+	}
+
+	@Test
+	public void testUnterminatedLastLine() throws IOException {
+		for (String content: new String[] { "A;\nB", "A;\nB;", "A;\r\n  B  ", "B", "A;\nB\r" }) {
+			write(content);
+			assertEquals(content, expected(), read(new ScriptLineScanner(file, UTF8)));
+			assertEquals(content, expected(), read(new ScriptLineScanner(file, UTF8, 2, 1, 2)));
+		}
+	}
+
+	@Test
+	public void testRegionBoundaries() throws IOException {
+		write("12;\n45;\n7\n9\n");
+		for (int regionSize = 1; regionSize <= 16; ++regionSize) {
+			assertEquals("region size " + regionSize, expected(), read(new ScriptLineScanner(file, UTF8, regionSize, 1024, 1)));
+		}
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 10; ++i) {
+			for (int j = 0; j < i * 37; ++j) {
+				content.append((char) ('a' + j % 26));
+			}
+			content.append(i % 3 == 0? ";\r\n" : "\n");
+		}
+		content.append("x");
+		write(content.toString());
+		for (int regionSize: new int[] { 1, 7, 64, 100, 1000 }) {
+			assertEquals("region size " + regionSize, expected(), read(new ScriptLineScanner(file, UTF8, regionSize, 1024, 1)));
+		}
+	}
+
+	/**
+	 * Regions are split into chunks that are scanned in parallel.
+	 */
+	@Test
+	public void testParallelScan() throws IOException {
+		Random random = new Random(4711);
+		for (int n = 0; n < 20; ++n) {
+			write(randomScript(random, 2000));
+			List<String> expected = expected();
+			for (int parallelism = 1; parallelism <= 8; parallelism *= 2) {
+				String message = "script " + n + ", parallelism " + parallelism;
+				assertEquals(message, expected, read(new ScriptLineScanner(file, UTF8, 4096, 16, parallelism)));
+				assertEquals(message, expected, read(new ScriptLineScanner(file, UTF8, 512, 1, parallelism)));
+			}
+		}
+	}
+
+	@Test
+	public void testBytesRead() throws IOException {
+		String[] lines = { "A;", "  \u00e4 ", "", "C;" };
+		StringBuilder content = new StringBuilder();
+		for (String line: lines) {
+			content.append(line).append("\r\n");
+		}
+		write(content.toString());
+		ScriptLineScanner scanner = new ScriptLineScanner(file, UTF8, 4, 1, 1);
+		assertEquals(0, scanner.getBytesRead());
+		long bytesRead = 0;
+		for (String line: lines) {
+			assertTrue(scanner.next());
+			bytesRead += (line + "\r\n").getBytes(UTF8).length;
+			assertEquals(line, bytesRead, scanner.getBytesRead());
+		}
+		assertTrue(scanner.next());
+		assertEquals(";", scanner.getLine());
+		assertEquals(file.length(), scanner.getBytesRead());
+		assertFalse(scanner.next());
+		scanner.close();
+	}
+
+	private void write(String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes(UTF8));
+		out.close();
+	}
+
+	/**
+	 * Reads the script as the stream based line reader does.
+	 */
+	private List<String> expected() throws IOException {
+		List<String> result = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			result.add(describe(line));
+		}
+		reader.close();
+		result.add(describe(";"));
+		return result;
+	}
+
+	private static String describe(String line) {
+		String trimmedLine = line.trim();
+		String kind = trimmedLine.length() == 0? "blank" : trimmedLine.startsWith("--")? "comment" : trimmedLine.endsWith(";")? "end" : "";
+		String withoutSemicolon = trimmedLine.endsWith(";")? trimmedLine.substring(0, trimmedLine.length() - 1) : "";
+		return line + "|" + trimmedLine + "|" + kind + "|" + withoutSemicolon + "|" + trimmedLine;
+	}
+
+	private static List<String> read(ScriptLineScanner scanner) throws IOException {
+		List<String> result = new ArrayList<String>();
+		try {
+			while (scanner.next()) {
+				String kind = scanner.isBlank()? "blank" : scanner.isComment()? "comment" : scanner.isStatementEnd()? "end" : "";
+				String withoutSemicolon = "";
+				if (scanner.isStatementEnd()) {
+					SqlScriptExecutor.Statement statement = new SqlScriptExecutor.Statement();
+					scanner.appendTo(statement, true);
+					withoutSemicolon = statement.toString();
+				}
+				SqlScriptExecutor.Statement statement = new SqlScriptExecutor.Statement();
+				scanner.appendTo(statement, false);
+				result.add(scanner.getLine() + "|" + scanner.getTrimmedLine() + "|" + kind + "|" + withoutSemicolon + "|" + statement);
+			}
+		} finally {
+			scanner.close();
+		}
+		return result;
+	}
+
+	private static String randomScript(Random random, int lines) {
+		String[] parts = { "Insert into T(A) values (", "'x\u00e4'", "1", ");", "--", " ", "\t", "", "\u20ac" };
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lines; ++i) {
+			int length = random.nextInt(random.nextInt(10) == 0? 200 : 8);
+			for (int j = 0; j < length; ++j) {
+				sb.append(parts[random.nextInt(parts.length)]);
+			}
+			sb.append(random.nextBoolean()? "\r\n" : "\n");
+		}
+		if (random.nextBoolean()) {
+			sb.append("last;");
+		}
+		return sb.toString();
+	}
+
+}